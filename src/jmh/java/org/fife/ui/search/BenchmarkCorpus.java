@@ -0,0 +1,215 @@
+/*
+ * 10/18/2026
+ *
+ * BenchmarkCorpus.java - Generated files for the search benchmarks.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+
+/**
+ * A folder of generated source files for the Find and Replace in Files
+ * benchmarks.  The files look roughly like Java source, so line lengths,
+ * identifier lengths and the mix of characters are realistic.  The
+ * contents are generated from a fixed seed, so every run (and every
+ * release) searches exactly the same text.<p>
+ *
+ * The text searched for in the benchmarks, {@link #NEEDLE}, is rare: only a
+ * few of the small files contain it, and it's sprinkled sparsely through
+ * the huge ones.  That's typical of real searches, and means the raw byte
+ * prefilter matters as much as the matching itself.  Near misses that only
+ * differ in case, or that aren't whole words, are mixed in as well.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class BenchmarkCorpus {
+
+	/**
+	 * The identifier searched for.
+	 */
+	static final String NEEDLE = "deprecatedCall";
+
+	private static final String[] WORDS = {
+		"int", "String", "return", "final", "private", "static", "value",
+		"index", "count", "result", "buffer", "offset", "length", "item",
+		"list", "map", "node", "parent", "child", "listener", "event",
+		"handler", "config", "context", "manager", "factory", "builder",
+		"reader", "writer", "stream", "token", "parser", "deprecated",
+		"call", "update", "refresh", "render", "layout", "size", "width",
+	};
+
+	private static final long SEED = 0x5EA2C4L;
+
+	private final Path dir;
+	private final List<Path> files;
+	private final long totalBytes;
+
+
+	/**
+	 * The shapes of corpus available.
+	 */
+	enum Shape {
+
+		/**
+		 * Many small files, like a typical source tree.
+		 */
+		SMALL_FILES(5000, 6 * 1024, 50),
+
+		/**
+		 * A few huge files, like logs or database dumps.
+		 */
+		HUGE_FILES(3, 48 * 1024 * 1024, 5000);
+
+		private final int fileCount;
+		private final int fileSize;
+
+		/**
+		 * Roughly one in this many files (for small files) or lines (for
+		 * huge files) contains the needle.
+		 */
+		private final int needleRate;
+
+		Shape(int fileCount, int fileSize, int needleRate) {
+			this.fileCount = fileCount;
+			this.fileSize = fileSize;
+			this.needleRate = needleRate;
+		}
+
+	}
+
+
+	private BenchmarkCorpus(Path dir, List<Path> files, long totalBytes) {
+		this.dir = dir;
+		this.files = files;
+		this.totalBytes = totalBytes;
+	}
+
+
+	/**
+	 * Generates a corpus in a new temporary folder.
+	 *
+	 * @param shape The shape of the corpus.
+	 * @return The corpus.
+	 * @throws IOException If an IO error occurs.
+	 * @see #delete()
+	 */
+	static BenchmarkCorpus create(Shape shape) throws IOException {
+
+		Path dir = Files.createTempDirectory("rtext-jmh-" + shape.name().toLowerCase() + "-");
+		Random random = new Random(SEED);
+		List<Path> files = new ArrayList<>(shape.fileCount);
+		long totalBytes = 0;
+
+		for (int i=0; i<shape.fileCount; i++) {
+			Path file = dir.resolve("dir" + (i%20)).resolve("File" + i + ".java");
+			Files.createDirectories(file.getParent());
+			boolean smallFileWithNeedle = shape==Shape.SMALL_FILES &&
+					random.nextInt(shape.needleRate)==0;
+			try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+				long size = 0;
+				int line = 0;
+				while (size<shape.fileSize) {
+					String text = createLine(random, line++, shape, smallFileWithNeedle);
+					w.write(text);
+					w.write('\n');
+					size += text.length() + 1;
+				}
+				totalBytes += size;
+			}
+			files.add(file);
+		}
+
+		return new BenchmarkCorpus(dir, files, totalBytes);
+
+	}
+
+
+	/**
+	 * Creates a line of pseudo-Java.
+	 */
+	private static String createLine(Random random, int line, Shape shape,
+			boolean smallFileWithNeedle) {
+
+		StringBuilder sb = new StringBuilder("\t\t");
+		if (shape==Shape.HUGE_FILES ? random.nextInt(shape.needleRate)==0 :
+				smallFileWithNeedle && line%40==7) {
+			sb.append(NEEDLE).append("(value);");
+			return sb.toString();
+		}
+
+		// Near misses, for the case-insensitive and whole word searches.
+		int nearMiss = random.nextInt(2000);
+		if (nearMiss==0) {
+			sb.append("Deprecatedcall(").append(WORDS[random.nextInt(WORDS.length)]).append(");");
+			return sb.toString();
+		}
+		else if (nearMiss==1) {
+			sb.append("int ").append(NEEDLE).append("Count = 0;");
+			return sb.toString();
+		}
+
+		int wordCount = 3 + random.nextInt(8);
+		for (int i=0; i<wordCount; i++) {
+			String word = WORDS[random.nextInt(WORDS.length)];
+			if (i>0) {
+				sb.append(random.nextInt(4)==0 ? ", " : " ");
+			}
+			sb.append(random.nextInt(5)==0 ? Character.toUpperCase(word.charAt(0)) +
+					word.substring(1) : word);
+		}
+		sb.append(random.nextBoolean() ? ";" : " {");
+		return sb.toString();
+
+	}
+
+
+	/**
+	 * Deletes the corpus.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	void delete() throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(path);
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the files in the corpus.
+	 *
+	 * @return The files.
+	 */
+	List<Path> getFiles() {
+		return files;
+	}
+
+
+	/**
+	 * Returns the total size of the files in the corpus.
+	 *
+	 * @return The size, in bytes.
+	 */
+	long getTotalBytes() {
+		return totalBytes;
+	}
+
+
+}
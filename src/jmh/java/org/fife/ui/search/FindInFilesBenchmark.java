@@ -0,0 +1,295 @@
+/*
+ * 10/18/2026
+ *
+ * FindInFilesBenchmark.java - Benchmarks for the Find in Files engine.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.fife.io.UnicodeReader;
+import org.fife.rsta.ui.search.FindDialog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Benchmarks searching a generated corpus the way Find in Files searches
+ * each file: the raw bytes are checked for binary content and run through
+ * the literal prefilter, and files that may match are decoded and searched,
+ * with each matching line located.<p>
+ *
+ * {@link FindInFilesThread} needs its dialog (and so a display), so this
+ * drives the same pieces it's built from directly: the prefilter chosen by
+ * {@link FindInFilesThread#createByteMatcher(String, boolean, boolean)},
+ * {@link BinaryFileSniffer}, {@link LineIndex} and
+ * <code>FindDialog.isWholeWord()</code>.  Each operation searches the whole
+ * corpus; the <code>bytes</code> counter gives the throughput in bytes per
+ * second.  Run with <code>gradlew jmh</code>.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FindInFilesBenchmark {
+
+	/**
+	 * Files at least this large are memory-mapped for the raw byte scan,
+	 * as in <code>FindInFilesThread</code>.
+	 */
+	private static final long MMAP_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * The shape of the corpus; one of the
+	 * <code>BenchmarkCorpus.Shape</code> values.
+	 */
+	@Param({ "SMALL_FILES", "HUGE_FILES" })
+	public String corpus;
+
+	/**
+	 * The kind of search; one of the <code>Search</code> values.
+	 */
+	@Param({ "LITERAL", "LITERAL_IGNORE_CASE", "REGEX", "REGEX_IGNORE_CASE",
+			"WHOLE_WORD" })
+	public String search;
+
+	private BenchmarkCorpus files;
+	private Search searchType;
+	private String searchString;
+	private Pattern pattern;
+	private LiteralByteMatcher byteMatcher;
+	private byte[] bytes;
+	private char[] chars;
+
+
+	/**
+	 * The kinds of search benchmarked.
+	 */
+	enum Search {
+
+		LITERAL(BenchmarkCorpus.NEEDLE, false, true, false),
+		LITERAL_IGNORE_CASE(BenchmarkCorpus.NEEDLE, false, false, false),
+		REGEX("deprecated\\w*\\(", true, true, false),
+		REGEX_IGNORE_CASE("deprecated\\w*\\(", true, false, false),
+		WHOLE_WORD(BenchmarkCorpus.NEEDLE, false, true, true);
+
+		private final String text;
+		private final boolean regex;
+		private final boolean matchCase;
+		private final boolean wholeWord;
+
+		Search(String text, boolean regex, boolean matchCase, boolean wholeWord) {
+			this.text = text;
+			this.regex = regex;
+			this.matchCase = matchCase;
+			this.wholeWord = wholeWord;
+		}
+
+	}
+
+
+	/**
+	 * Decodes a file's raw bytes (or the file itself, if it was too large
+	 * to read up front) into our char buffer.
+	 *
+	 * @return The number of chars read.
+	 */
+	private int decode(Path file, int byteCount) throws IOException {
+		int length = 0;
+		try (Reader r = byteCount>-1 ?
+				new UnicodeReader(new ByteArrayInputStream(bytes, 0, byteCount)) :
+				new UnicodeReader(file.toFile())) {
+			int count;
+			while ((count=r.read(chars, length, chars.length-length))!=-1) {
+				length += count;
+				if (length==chars.length) {
+					chars = Arrays.copyOf(chars, chars.length*2);
+				}
+			}
+		}
+		return length;
+	}
+
+
+	/**
+	 * Searches every file in the corpus.
+	 *
+	 * @param counters Throughput counters.
+	 * @return The number of matching lines.
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Benchmark
+	public int search(ThroughputCounters counters) throws IOException {
+		int matchingLines = 0;
+		for (Path file : files.getFiles()) {
+			matchingLines += searchFile(file);
+		}
+		counters.bytes += files.getTotalBytes();
+		counters.files += files.getFiles().size();
+		return matchingLines;
+	}
+
+
+	/**
+	 * Searches a single file.
+	 *
+	 * @return The number of matching lines.
+	 */
+	private int searchFile(Path file) throws IOException {
+
+		int byteCount = -1;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer buf;
+			if (size>=MMAP_THRESHOLD) {
+				buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			else {
+				if (bytes.length<size) {
+					bytes = new byte[(int)size];
+				}
+				buf = ByteBuffer.wrap(bytes, 0, (int)size);
+				while (buf.hasRemaining() && channel.read(buf)!=-1) {
+					// Keep reading
+				}
+				buf.flip();
+				byteCount = buf.limit();
+			}
+			if (BinaryFileSniffer.isBinary(buf) ||
+					(byteMatcher!=null && !byteMatcher.mayMatch(buf))) {
+				return 0;
+			}
+		}
+
+		int length = decode(file, byteCount);
+		LineIndex lines = new LineIndex(chars, length);
+		String buffer = new String(chars, 0, length);
+		return searchType.regex ? searchRegex(buffer, lines) :
+				searchLiteral(buffer, lines);
+
+	}
+
+
+	/**
+	 * Finds the lines matching a literal search, like
+	 * <code>FindInFilesThread.doSearchNoRegex()</code>.
+	 */
+	private int searchLiteral(String buffer, LineIndex lines) {
+
+		if (!searchType.matchCase) {
+			buffer = buffer.toLowerCase();
+		}
+
+		int matchingLines = 0;
+		int len = searchString.length();
+		int i = 0;
+		while ((i=buffer.indexOf(searchString, i))!=-1) {
+			if (!searchType.wholeWord || FindDialog.isWholeWord(buffer, i, len)) {
+				matchingLines++;
+				int line = lines.getLineOfOffset(i);
+				i = line==lines.getLineCount()-1 ? buffer.length() :
+						lines.getLineStartOffset(line+1);
+			}
+			else {
+				i++;
+			}
+		}
+		return matchingLines;
+
+	}
+
+
+	/**
+	 * Finds the lines matching a regex search, like
+	 * <code>FindInFilesThread.doSearchRegex()</code>.
+	 */
+	private int searchRegex(String buffer, LineIndex lines) {
+
+		int matchingLines = 0;
+		int lastStartLine = -1;
+		Matcher m = pattern.matcher(buffer);
+		while (m.find()) {
+			int start = m.start();
+			if (!searchType.wholeWord ||
+					FindDialog.isWholeWord(buffer, start, m.end()-start)) {
+				int startLine = lines.getLineOfOffset(start);
+				if (startLine!=lastStartLine) {
+					lastStartLine = startLine;
+					matchingLines++;
+				}
+			}
+		}
+		return matchingLines;
+
+	}
+
+
+	/**
+	 * Generates the corpus and prepares the search.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		files = BenchmarkCorpus.create(BenchmarkCorpus.Shape.valueOf(corpus));
+		searchType = Search.valueOf(search);
+
+		searchString = searchType.text;
+		if (!searchType.regex && !searchType.matchCase) {
+			searchString = searchString.toLowerCase();
+		}
+		int flags = searchType.matchCase ? 0 :
+				(Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
+		pattern = searchType.regex ? Pattern.compile(searchString, flags) : null;
+		byteMatcher = FindInFilesThread.createByteMatcher(searchString,
+				searchType.regex, searchType.matchCase);
+
+		bytes = new byte[64 * 1024];
+		chars = new char[64 * 1024];
+
+	}
+
+
+	/**
+	 * Deletes the corpus.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		files.delete();
+	}
+
+
+}
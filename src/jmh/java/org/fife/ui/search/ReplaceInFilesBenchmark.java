@@ -0,0 +1,222 @@
+/*
+ * 10/18/2026
+ *
+ * ReplaceInFilesBenchmark.java - Benchmarks for the Replace in Files engine.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.fife.io.UnicodeReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Benchmarks computing the replacements in a generated corpus the way
+ * Replace in Files does.  Files are first run through the literal
+ * prefilter; those that may match are either loaded and replaced in
+ * memory, with {@link ReplaceInFilesThread}'s own replace loops, or
+ * streamed through a {@link StreamingReplacer}, as is done for huge files.
+ * The corpus itself is never modified; streamed output goes to a scratch
+ * file.<p>
+ *
+ * Each operation processes the whole corpus; the <code>bytes</code>
+ * counter gives the throughput in bytes per second.  Run with
+ * <code>gradlew jmh</code>.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReplaceInFilesBenchmark {
+
+	private static final String REPLACEMENT = "replacementCall";
+
+	/**
+	 * The shape of the corpus; one of the
+	 * <code>BenchmarkCorpus.Shape</code> values.
+	 */
+	@Param({ "SMALL_FILES", "HUGE_FILES" })
+	public String corpus;
+
+	/**
+	 * The kind of replace; one of the <code>Replace</code> values.
+	 */
+	@Param({ "LITERAL", "LITERAL_IGNORE_CASE", "REGEX", "WHOLE_WORD",
+			"STREAMING" })
+	public String replace;
+
+	private BenchmarkCorpus files;
+	private Replace replaceType;
+	private String searchString;
+	private Pattern pattern;
+	private LiteralByteMatcher byteMatcher;
+	private StreamingReplacer streamingReplacer;
+	private Path output;
+
+
+	/**
+	 * The kinds of replace benchmarked.
+	 */
+	enum Replace {
+
+		LITERAL(BenchmarkCorpus.NEEDLE, REPLACEMENT, false, true, false),
+		LITERAL_IGNORE_CASE(BenchmarkCorpus.NEEDLE, REPLACEMENT, false, false, false),
+		REGEX("deprecated(\\w*)\\(", "replaced$1(", true, true, false),
+		WHOLE_WORD(BenchmarkCorpus.NEEDLE, REPLACEMENT, false, true, true),
+		STREAMING("deprecated(\\w*)\\(", "replaced$1(", true, true, false);
+
+		private final String text;
+		private final String replaceWith;
+		private final boolean regex;
+		private final boolean matchCase;
+		private final boolean wholeWord;
+
+		Replace(String text, String replaceWith, boolean regex,
+				boolean matchCase, boolean wholeWord) {
+			this.text = text;
+			this.replaceWith = replaceWith;
+			this.regex = regex;
+			this.matchCase = matchCase;
+			this.wholeWord = wholeWord;
+		}
+
+	}
+
+
+	/**
+	 * Reads a file, as <code>ReplaceInFilesThread</code> does.
+	 */
+	private static StringBuilder read(Path file) throws IOException {
+		StringBuilder sb = new StringBuilder((int)Files.size(file) + 1);
+		try (Reader r = new BufferedReader(new UnicodeReader(file.toFile()))) {
+			char[] buf = new char[4096];
+			int count;
+			while ((count=r.read(buf))!=-1) {
+				sb.append(buf, 0, count);
+			}
+		}
+		return sb;
+	}
+
+
+	/**
+	 * Computes the replacements in every file in the corpus.
+	 *
+	 * @param counters Throughput counters.
+	 * @return The number of replacements.
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Benchmark
+	public int replace(ThroughputCounters counters) throws IOException {
+		int count = 0;
+		for (Path file : files.getFiles()) {
+			count += replaceInFile(file);
+		}
+		counters.bytes += files.getTotalBytes();
+		counters.files += files.getFiles().size();
+		return count;
+	}
+
+
+	/**
+	 * Computes the replacements in a single file.
+	 *
+	 * @return The number of replacements.
+	 */
+	private int replaceInFile(Path file) throws IOException {
+
+		if (BinaryFileSniffer.isBinary(file.toFile()) ||
+				(byteMatcher!=null && !byteMatcher.mayMatch(file.toFile()))) {
+			return 0;
+		}
+
+		if (streamingReplacer!=null) {
+			return streamingReplacer.replace(file.toFile(), output);
+		}
+
+		StringBuilder sb = read(file);
+		StringBuilder replaceSB = new StringBuilder(sb.length() + 64);
+		return replaceType.regex ?
+				ReplaceInFilesThread.doSearchRegex(sb, pattern,
+					replaceType.replaceWith, replaceType.wholeWord, replaceSB) :
+				ReplaceInFilesThread.doSearchNoRegex(sb, searchString,
+					replaceType.replaceWith, replaceType.matchCase,
+					replaceType.wholeWord, replaceSB);
+
+	}
+
+
+	/**
+	 * Generates the corpus and prepares the replacement.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		files = BenchmarkCorpus.create(BenchmarkCorpus.Shape.valueOf(corpus));
+		replaceType = Replace.valueOf(replace);
+
+		searchString = replaceType.text;
+		if (!replaceType.regex && !replaceType.matchCase) {
+			searchString = searchString.toLowerCase();
+		}
+		int flags = replaceType.matchCase ? 0 :
+				(Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
+		pattern = replaceType.regex ? Pattern.compile(searchString, flags) : null;
+		byteMatcher = FindInFilesThread.createByteMatcher(searchString,
+				replaceType.regex, replaceType.matchCase);
+
+		if (replaceType==Replace.STREAMING) {
+			streamingReplacer = StreamingReplacer.create(searchString,
+					replaceType.replaceWith, replaceType.regex,
+					replaceType.matchCase, replaceType.wholeWord);
+			output = Files.createTempFile("rtext-jmh-", ".out");
+		}
+
+	}
+
+
+	/**
+	 * Deletes the corpus and scratch file.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		files.delete();
+		if (output!=null) {
+			Files.deleteIfExists(output);
+		}
+	}
+
+
+}
@@ -0,0 +1,53 @@
+/*
+ * 10/18/2026
+ *
+ * ThroughputCounters.java - Extra throughput numbers reported by the search
+ * benchmarks.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Counters JMH reports as rates alongside each benchmark's own score, so
+ * results can be compared as bytes per second no matter how large the
+ * corpus is.  JMH requires this class and its fields to be public.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounters {
+
+	/**
+	 * The number of bytes searched.
+	 */
+	public long bytes;
+
+	/**
+	 * The number of files searched.
+	 */
+	public long files;
+
+
+	/**
+	 * Resets the counters before each iteration.
+	 */
+	@Setup(Level.Iteration)
+	public void reset() {
+		bytes = 0;
+		files = 0;
+	}
+
+
+}
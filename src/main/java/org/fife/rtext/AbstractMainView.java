@@ -21,7 +21,9 @@ import java.beans.PropertyChangeListener;
 import java.io.*;
 import java.net.URL;
 import java.util.*;
-import java.util.Timer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.event.EventListenerList;
@@ -29,6 +31,7 @@ import javax.swing.event.HyperlinkEvent;
 import javax.swing.event.HyperlinkListener;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Caret;
+import javax.swing.text.Document;
 
 import org.fife.io.UnicodeWriter;
 import org.fife.rsta.ui.GoToDialog;
@@ -37,6 +40,7 @@ import org.fife.rtext.SearchManager.SearchingMode;
 import org.fife.rtext.actions.AbstractSearchAction;
 import org.fife.rtext.actions.CapsLockAction;
 import org.fife.rtext.actions.ToggleTextModeAction;
+import org.fife.rtext.largefile.LargeFileViewer;
 import org.fife.ui.UIUtil;
 import org.fife.ui.app.AbstractGUIApplication;
 import org.fife.ui.app.AppTheme;
@@ -132,6 +136,7 @@ public abstract class AbstractMainView extends JPanel
 
 	private boolean checkForModification;			// Check for files being changed outside of RText?
 	private long modificationCheckDelay = 10000;		// Delay in milliseconds.
+	private FileModificationMonitor fileMonitor;	// Notices files being changed outside of RText.
 
 	private boolean overrideEditorStyles;
 	private boolean bracketMatchingEnabled;
@@ -193,6 +198,30 @@ public abstract class AbstractMainView extends JPanel
 
 	private SpellingSupport spellingSupport;
 
+	/**
+	 * Files being loaded in the background.  Only accessed on the EDT.
+	 */
+	private List<FileLoader> fileLoaders;
+
+	/**
+	 * Files being saved in the background.  Only modified on the EDT, but
+	 * also read by the thread checking for outside modifications.
+	 */
+	private List<FileSaver> fileSavers;
+
+	/**
+	 * Whether several files are being opened at once.  While they are,
+	 * local files are opened as placeholders that aren't read until
+	 * they're selected.
+	 */
+	private boolean openingFiles;
+
+	/**
+	 * Whether several files are being closed at once.  Placeholders
+	 * selected while they are aren't read.
+	 */
+	private boolean closingFiles;
+
 	private ToggleTextModeAction toggleTextModeAction;
 	private CapsLockAction capsLockAction;
 
@@ -210,19 +239,23 @@ public abstract class AbstractMainView extends JPanel
 	public AbstractMainView() {
 
 		listenerList = new EventListenerList();
+		fileLoaders = new ArrayList<>();
+		fileSavers = new CopyOnWriteArrayList<>();
 
+		// Check for files modified outside the editor as soon as they
+		// change.  Files that can't be watched are checked every
+		// modificationCheckDelay milliseconds.
 		checkForModification = true;
-		Timer t = new Timer();
-		// Check for files modified outside the editor
-		// every 30 seconds
-		t.schedule(new TimerTask() {
-				@Override
-				public void run() {
-					checkFilesForOutsideModification();
-				}
-			},
-			modificationCheckDelay,
-			modificationCheckDelay);
+		fileMonitor = new FileModificationMonitor(this, modificationCheckDelay);
+		addPropertyChangeListener(TEXT_AREA_ADDED_PROPERTY, e -> {
+			fileMonitor.filesChanged();
+			EditJournal.addEditor((RTextEditorPane)e.getNewValue());
+		});
+		addPropertyChangeListener(TEXT_AREA_REMOVED_PROPERTY, e -> {
+			fileMonitor.filesChanged();
+			EditJournal.removeEditor((RTextEditorPane)e.getNewValue());
+		});
+		fileMonitor.start();
 
 	}
 
@@ -389,7 +422,10 @@ public abstract class AbstractMainView extends JPanel
 	 * Checks the "modified" timestamps for open files against the last known
 	 * "modified" timestamps to see if any files have been modified outside of
 	 * this RText instance.  This method is synchronized so that it isn't
-	 * called while the user is loading or saving a file.
+	 * called while the user is loading or saving a file.  It's called by a
+	 * background thread when the folders of open files change.  Placeholder
+	 * editors aren't checked, since they'll read their files' current
+	 * contents when they're selected.
 	 */
 	public synchronized void checkFilesForOutsideModification() {
 
@@ -407,7 +443,10 @@ public abstract class AbstractMainView extends JPanel
 			StringBuilder sb = new StringBuilder();
 			for (int i=0; i<getNumDocuments(); i++) {
 				RTextEditorPane textArea = getRTextEditorPaneAt(i);
-				if (textArea.isModifiedOutsideEditor()) {
+				// A file being saved in the background changes on disk
+				// before its editor knows it's been saved.
+				if (!textArea.isPlaceholder() && !isBeingSaved(textArea) &&
+						textArea.isModifiedOutsideEditor()) {
 					sb.append(' ').append(i);
 				}
 			}
@@ -455,6 +494,28 @@ public abstract class AbstractMainView extends JPanel
 	 */
 	public boolean closeAllDocumentsExcept(int except) {
 
+		// Each document is selected in turn to close it, but placeholders
+		// don't need to be read just to be closed.
+		closingFiles = true;
+		try {
+			return closeAllDocumentsExceptImpl(except);
+		} finally {
+			closingFiles = false;
+			loadPlaceholder(currentTextArea);
+		}
+
+	}
+
+
+	/**
+	 * Closes all documents except the one specified, one at a time.
+	 *
+	 * @param except The document to not close.
+	 * @return Whether the documents were all closed.
+	 * @see #closeAllDocumentsExcept(int)
+	 */
+	private boolean closeAllDocumentsExceptImpl(int except) {
+
 		int numDocuments = getNumDocuments();
 		setSelectedIndex(numDocuments-1); // Start at the back.
 
@@ -503,7 +564,9 @@ public abstract class AbstractMainView extends JPanel
 	 */
 	public final boolean closeCurrentDocument() {
 
+		// If a background save fails, the user is still prompted to save
 		RTextEditorPane old = currentTextArea;
+		finishBackgroundSave(old);
 		boolean closed = closeCurrentDocumentImpl();
 
 		if (closed) {
@@ -534,8 +597,11 @@ public abstract class AbstractMainView extends JPanel
 	 * @see #convertOpenFilesTabsToSpaces
 	 */
 	public void convertOpenFilesSpacesToTabs() {
-		for (int i=0; i<getNumDocuments(); i++)
-			getRTextEditorPaneAt(i).convertSpacesToTabs();
+		for (int i=0; i<getNumDocuments(); i++) {
+			RTextEditorPane textArea = getRTextEditorPaneAt(i);
+			loadPlaceholder(textArea);
+			textArea.convertSpacesToTabs();
+		}
 	}
 
 
@@ -546,8 +612,11 @@ public abstract class AbstractMainView extends JPanel
 	 * @see #convertOpenFilesSpacesToTabs
 	 */
 	public void convertOpenFilesTabsToSpaces() {
-		for (int i=0; i<getNumDocuments(); i++)
-			getRTextEditorPaneAt(i).convertTabsToSpaces();
+		for (int i=0; i<getNumDocuments(); i++) {
+			RTextEditorPane textArea = getRTextEditorPaneAt(i);
+			loadPlaceholder(textArea);
+			textArea.convertTabsToSpaces();
+		}
 	}
 
 
@@ -603,6 +672,7 @@ public abstract class AbstractMainView extends JPanel
 
 		checkForModification = fromPanel.checkForModification;
 		modificationCheckDelay = fromPanel.modificationCheckDelay;
+		fromPanel.fileMonitor.stop();
 
 		bracketMatchingEnabled = fromPanel.bracketMatchingEnabled;
 		matchBothBrackets = fromPanel.matchBothBrackets;
@@ -696,6 +766,9 @@ public abstract class AbstractMainView extends JPanel
 
 		spellingSupport = fromPanel.spellingSupport;
 
+		// Editors were moved over without firing TEXT_AREA_ADDED events.
+		fileMonitor.filesChanged();
+
 	}
 
 
@@ -730,10 +803,46 @@ public abstract class AbstractMainView extends JPanel
 	 */
 	private RTextEditorPane createRTextEditorPane(FileLocation loc,
 				String encoding) throws IOException {
+		return createRTextEditorPane(loc, encoding, null);
+	}
+
+
+	/**
+	 * Returns a placeholder editor pane for a local file, to add to this
+	 * main view.  The file isn't read until the editor is first selected.
+	 *
+	 * @param loc The location of the file to add.
+	 * @param encoding The encoding of the file.
+	 * @return An editor pane.
+	 * @throws IOException If an IO error occurs reading the file's BOM.
+	 * @see #loadPlaceholder(RTextEditorPane)
+	 */
+	private RTextEditorPane createPlaceholderTextArea(FileLocation loc,
+				String encoding) throws IOException {
+		RTextEditorPane pane = createRTextEditorPane(loc, encoding,
+				new RSyntaxDocument(SyntaxConstants.SYNTAX_STYLE_NONE));
+		pane.setPlaceholder(true);
+		return pane;
+	}
+
+
+	/**
+	 * Returns an editor pane to add to this main view.
+	 *
+	 * @param loc The location of the file to add.
+	 * @param encoding The encoding of the file.
+	 * @param doc The file's contents, if they've already been read (by a
+	 *        {@link FileLoader}), or <code>null</code> to read the file.
+	 * @return An editor pane.
+	 * @throws IOException If an IO error occurs reading the file to load.
+	 */
+	private RTextEditorPane createRTextEditorPane(FileLocation loc,
+				String encoding, Document doc) throws IOException {
 
 		String style = getSyntaxStyleForFile(loc.getFileName());
-		RTextEditorPane pane = new RTextEditorPane(owner, lineWrapEnabled,
-												textMode, loc, encoding);
+		RTextEditorPane pane = doc==null ?
+				new RTextEditorPane(owner, lineWrapEnabled, textMode, loc, encoding) :
+				new RTextEditorPane(owner, lineWrapEnabled, textMode, loc, encoding, doc);
 
 		// Set some properties.
 		pane.setFont(getTextAreaFont());
@@ -879,6 +988,100 @@ public abstract class AbstractMainView extends JPanel
 	}
 
 
+	/**
+	 * Called on the EDT when a file being loaded in the background has
+	 * been read, or loading failed or was canceled.  If it was read, it's
+	 * added to this view.
+	 *
+	 * @param loader The loader.
+	 * @param doc The file's contents, or <code>null</code> if loading
+	 *        failed or was canceled.
+	 * @param error The error that occurred, or <code>null</code> if none.
+	 */
+	void fileLoaded(FileLoader loader, Document doc, Throwable error) {
+
+		fileLoaders.remove(loader);
+		((StatusBar)owner.getStatusBar()).fileLoadFinished(loader);
+		if (loader.isCanceled()) {
+			return;
+		}
+
+		// Any untitled file being replaced is only removed once the new
+		// one is ready, so there's always a file open.
+		FileLocation loc = loader.getFileLocation();
+		if (error instanceof IOException ioe) {
+			handleAddTextFileIOException(loc, ioe, true);
+			return;
+		}
+		else if (error!=null) {
+			owner.displayException(error);
+			return;
+		}
+
+		try {
+			RTextEditorPane textArea = createRTextEditorPane(loc,
+									loader.getCharSet(), doc);
+			removeLoneEmptyUntitledFile();
+			addTextArea(textArea);
+		} catch (IOException ioe) {
+			handleAddTextFileIOException(loc, ioe, true);
+			return;
+		} catch (OutOfMemoryError oome) {
+			owner.displayException(oome);
+			return;
+		}
+
+		loader.getLoadedCallbacks().forEach(this::fileOpened);
+
+	}
+
+
+	/**
+	 * Lets the caller of <code>openFile()</code> act on the file just
+	 * opened, which is now the current editor.
+	 *
+	 * @param onOpened The callback, or <code>null</code> if none.
+	 */
+	private void fileOpened(Consumer<RTextEditorPane> onOpened) {
+		if (onOpened!=null) {
+			onOpened.accept(currentTextArea);
+		}
+	}
+
+
+	/**
+	 * Called on the EDT when a file being saved in the background has been
+	 * written, or saving failed.  If it was written, its editor is marked
+	 * as saved, unless it was modified while being saved.
+	 *
+	 * @param saver The saver.
+	 * @param error The error that occurred, or <code>null</code> if none.
+	 */
+	void fileSaved(FileSaver saver, IOException error) {
+
+		// Already handled if the editor was saved or closed meanwhile
+		if (!fileSavers.remove(saver)) {
+			return;
+		}
+		saver.dispose();
+		RTextEditorPane textArea = saver.getTextArea();
+
+		if (error!=null) {
+			showSaveError(textArea, error);
+			return;
+		}
+
+		if (!saver.isModified()) {
+			textArea.setDirty(false);
+		}
+		textArea.syncLastSaveOrLoadTimeToActualFile();
+
+		// Edits made while saving are journaled against the new file
+		EditJournal.rebase(textArea, !saver.isModified());
+
+	}
+
+
 	/**
 	 * Called when the user selects a file in a listened-to find-in-files
 	 * dialog.
@@ -890,8 +1093,21 @@ public abstract class AbstractMainView extends JPanel
 		String fileName = e.getFileName();
 		// "null" encoding means check for Unicode before using default.
 		// "true" means reuse an already-opened copy of the file if
-		// one exists.
-		if (!openFile(fileName, null, true)) {
+		// one exists.  Matches inside .zip and .jar files are opened
+		// read-only, straight from the archive.
+		// Large files are read in the background, so the match is only
+		// selected once the file's editor is current.
+		FileLocation archiveEntry = ArchiveEntryFileLocation.create(fileName);
+		FileLocation loc = archiveEntry!=null ? archiveEntry :
+				FileLocation.create(fileName);
+		int line = e.getLine();
+		boolean opened = openFile(loc, null, true, textArea -> {
+			if (archiveEntry!=null) {
+				textArea.setReadOnly(true);
+			}
+			selectLine(textArea, line);
+		});
+		if (!opened) {
 			JOptionPane.showMessageDialog(findInFilesDialog,
 					owner.getString("ErrorReloadFNF"),
 					owner.getString("ErrorDialogTitle"),
@@ -901,28 +1117,23 @@ public abstract class AbstractMainView extends JPanel
 		FindInFilesDialog fnfd = (FindInFilesDialog)e.getSource();
 		String desc = owner.getString("FileOpened", fileName);
 		fnfd.setStatusText(desc);
-		int line = e.getLine();
-		if (line!=-1) {
-			try {
-
-				// currentTextArea is updated here.  Highlight the searched-for
-				// text.
-				int start = currentTextArea.getLineStartOffset(line-1);
-				int end = currentTextArea.getLineEndOffset(line-1) - 1;
-				currentTextArea.setCaretPosition(end);
-				currentTextArea.moveCaretPosition(start);
-				currentTextArea.getCaret().setSelectionVisible(true);
+	}
 
-				// The editor isn't visible initially, must wait to do this
-				SwingUtilities.invokeLater(() -> RTextUtilities.centerSelectionVertically(currentTextArea));
 
-			} catch (Exception exc) {
-				owner.displayException(exc);
-				moveToTopOfCurrentDocument();
+	/**
+	 * Waits for an editor being saved in the background, if it is, to be
+	 * written, and handles the result right away.  This is done before
+	 * the editor is saved or closed, so the older text being saved in the
+	 * background can't replace what's saved now.
+	 *
+	 * @param textArea The editor.
+	 */
+	private void finishBackgroundSave(RTextEditorPane textArea) {
+		for (FileSaver saver : new ArrayList<>(fileSavers)) {
+			if (saver.getTextArea()==textArea) {
+				fileSaved(saver, saver.awaitWritten());
 			}
 		}
-		else
-			moveToTopOfCurrentDocument();
 	}
 
 
@@ -1155,35 +1366,54 @@ public abstract class AbstractMainView extends JPanel
 
 
 	/**
-	 * If the user has set a maximum file size to open, they are prompted
-	 * whether they are "sure" they want to open the file if it is over
-	 * their set size.
+	 * Returns the index of an editor in this view.
+	 *
+	 * @param textArea The editor.
+	 * @return The editor's index, or <code>-1</code> if it isn't in this
+	 *         view.
+	 */
+	private int getTextAreaIndex(RTextEditorPane textArea) {
+		for (int i=0; i<getNumDocuments(); i++) {
+			if (getRTextEditorPaneAt(i)==textArea)
+				return i;
+		}
+		return -1;
+	}
+
+
+	/**
+	 * If the user has set a maximum file size to open, and a file is over
+	 * their set size, they are asked whether to view it read-only in a
+	 * {@link LargeFileViewer}, open it in an editor anyway, or not open it.
 	 *
 	 * @param fileName The file to check.
-	 * @return If they do not want to check files of a certain size, this
-	 *         method will return <code>false</code>.  Otherwise, it will
-	 *         return <code>true</code> if and only if this file is larger
-	 *         than their threshold and they chose not to open it.
+	 * @return <code>JOptionPane.YES_OPTION</code> to open the file in an
+	 *         editor (always returned if they do not want to check files of
+	 *         a certain size, or this file is not over it),
+	 *         <code>NO_OPTION</code> to view it read-only, or
+	 *         <code>CANCEL_OPTION</code> to not open it.
 	 */
-	private boolean getFileIsTooLarge(String fileName) {
+	private int getFileIsTooLarge(String fileName) {
 		if (getDoFileSizeCheck()) {
 			File file = new File(fileName);
 			float fileSizeMB = file.length() / 1000000.0f;
 			float maxFileSizeMB = getMaxFileSize();
 			if (fileSizeMB>maxFileSizeMB) {
-				String desc = owner.getString("OpeningLargeFile",
+				String desc = owner.getString("LargeFileViewReadOnly",
 										file.getAbsolutePath());
-				int rc = JOptionPane.showConfirmDialog(this, desc,
+				String[] options = { owner.getString("ViewReadOnly"),
+					owner.getString("OpenInEditor"), owner.getString("Cancel") };
+				int rc = JOptionPane.showOptionDialog(this, desc,
 					owner.getString("ConfDialogTitle"),
-					JOptionPane.YES_NO_OPTION);
-				if (rc!=JOptionPane.YES_OPTION) {
-					// Keep at least 1 document open.
-					ensureFilesAreOpened();
-					return true;
+					JOptionPane.YES_NO_CANCEL_OPTION,
+					JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+				if (rc==0) {
+					return JOptionPane.NO_OPTION;
 				}
+				return rc==1 ? JOptionPane.YES_OPTION : JOptionPane.CANCEL_OPTION;
 			}
 		}
-		return false;
+		return JOptionPane.YES_OPTION;
 	}
 
 
@@ -2094,6 +2324,13 @@ public abstract class AbstractMainView extends JPanel
 			}
 			setSelectedIndex(docNumber);
 
+			// The change may have been ours, e.g. a file saved in the
+			// background since it was noticed.
+			if (isBeingSaved(currentTextArea) ||
+					!currentTextArea.isModifiedOutsideEditor()) {
+				continue;
+			}
+
 			// We must get it as a regular expression because
 			// replaceFirst expects one.
 			int rc;
@@ -2137,11 +2374,15 @@ public abstract class AbstractMainView extends JPanel
 			// modified" time for this document, so we don't keep
 			// bugging them about the same outside modification.
 			currentTextArea.syncLastSaveOrLoadTimeToActualFile();
+			EditJournal.rebase(currentTextArea,
+					rc==JOptionPane.YES_OPTION && !currentTextArea.isDirty());
 
 		} // End of while (token != null).
 
-		// It's okay to start checking for modifications again.
+		// It's okay to start checking for modifications again.  Check
+		// right away in case other files changed while prompting.
 		checkForModification = true;
+		fileMonitor.checkSoon();
 
 		// Switch back to the tab that was being edited originally.
 		setSelectedIndex(origTab);
@@ -2242,6 +2483,8 @@ public abstract class AbstractMainView extends JPanel
 		syntaxFilters = new SyntaxFilters(prefs.syntaxFiltersString);
 
 		searchContext = new FindInFilesSearchContext();
+		searchContext.setMaxFileSize(prefs.findInFilesMaxFileSize * 1024L * 1024);
+		searchContext.setMaxResultsInMemory(prefs.findInFilesMaxResultsInMemory);
 
 		setWhitespaceVisible(prefs.visibleWhitespace);
 		setShowEOLMarkers(prefs.showEOLMarkers);
@@ -2302,12 +2545,18 @@ public abstract class AbstractMainView extends JPanel
 			addNewEmptyUntitledFile();
 		}
 		else {
-			for (String s : filesToOpen) {
-				// The "null" encoding means they'll be checked for Unicode.
-				openFile(s, null);
+			openingFiles = true;
+			try {
+				for (String s : filesToOpen) {
+					// The "null" encoding means they'll be checked for Unicode.
+					openFile(s, null);
+				}
+			} finally {
+				openingFiles = false;
 			}
 		}
 		setSelectedIndex(0);
+		loadPlaceholder(currentTextArea);
 
 		// Do this after other initialization
 		installAppTheme(owner.getTheme(), false);
@@ -2315,6 +2564,11 @@ public abstract class AbstractMainView extends JPanel
 		// Update the title of the RText window.
 		owner.setMessages(currentTextArea.getFileFullPath(), null);
 
+		// Undo any Replace in Files cut short when RText last exited, then
+		// once the window is up, offer to restore any unsaved changes lost.
+		ReplaceInFilesDialog.recoverInterruptedReplacements();
+		SwingUtilities.invokeLater(this::recoverUnsavedFiles);
+
 	}
 
 
@@ -2347,6 +2601,38 @@ public abstract class AbstractMainView extends JPanel
 	}
 
 
+	/**
+	 * Returns whether a file is being read in the background.
+	 *
+	 * @param fileFullPath The full path of the file.
+	 * @return Whether the file is being read.
+	 */
+	private boolean isBeingLoaded(String fileFullPath) {
+		for (FileLoader loader : fileLoaders) {
+			if (loader.getFileLocation().getFileFullPath().equals(fileFullPath)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Returns whether an editor is being saved in the background.
+	 *
+	 * @param textArea The editor.
+	 * @return Whether the editor is being saved.
+	 */
+	private boolean isBeingSaved(RTextEditorPane textArea) {
+		for (FileSaver saver : fileSavers) {
+			if (saver.getTextArea()==textArea) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
 	/**
 	 * Returns whether bracket matching is enabled.
 	 *
@@ -2432,6 +2718,41 @@ public abstract class AbstractMainView extends JPanel
 	}
 
 
+	/**
+	 * Reads the file of a placeholder editor.  Its syntax style and code
+	 * folding are then updated, since they may depend on the file's
+	 * content.  If the editor isn't a placeholder, this method does
+	 * nothing.
+	 *
+	 * @param textArea The editor.  This may be <code>null</code>.
+	 * @see #createPlaceholderTextArea(FileLocation, String)
+	 */
+	private void loadPlaceholder(RTextEditorPane textArea) {
+
+		if (textArea==null || !textArea.isPlaceholder()) {
+			return;
+		}
+		textArea.setPlaceholder(false);
+
+		try {
+			textArea.reload();
+		} catch (IOException ioe) {
+			handleAddTextFileIOException(
+					FileLocation.create(textArea.getFileFullPath()), ioe, true);
+			return;
+		} catch (OutOfMemoryError oome) {
+			owner.displayException(oome);
+			return;
+		}
+
+		setSyntaxStyle(textArea, getSyntaxStyleForFile(textArea.getFileName()));
+		textArea.setCodeFoldingEnabled(false);
+		setCodeFoldingEnabledForTextArea(textArea,
+				isCodeFoldingEnabledFor(textArea.getSyntaxEditingStyle()));
+
+	}
+
+
 	/**
 	 * Scrolls to the top of the current document, and places the cursor there.
 	 */
@@ -2454,45 +2775,101 @@ public abstract class AbstractMainView extends JPanel
 	 *        focus to that old copy (vs. opening a new copy).
 	 * @return <code>true</code> if the file was opened (or switched to),
 	 *         <code>false</code> otherwise (if the file does not exist and
-	 *         the user chose NOT to create it, for example).
+	 *         the user chose NOT to create it, for example).  Large local
+	 *         files are read in the background, with their progress shown
+	 *         in the status bar; for those, <code>true</code> is returned
+	 *         once loading starts, and the file is added to this view when
+	 *         loading completes.  Files larger than the maximum file size
+	 *         may instead be opened read-only in a {@link LargeFileViewer},
+	 *         in which case <code>true</code> is also returned.
+	 * @see #openFile(FileLocation, String, boolean, Consumer)
 	 */
 	public boolean openFile(FileLocation loc, String charSet, boolean reuse) {
+		return openFile(loc, charSet, reuse, null);
+	}
+
+
+	/**
+	 * Adds a file to this tabbed pane, and does something with its editor
+	 * once it's the current editor.  Since large local files are read in
+	 * the background, callers that want to act on the opened file (such
+	 * as selecting a line in it) should do so in <code>onOpened</code>
+	 * rather than with the current editor after this method returns.
+	 *
+	 * @param loc The location of the file to add.
+	 * @param charSet The encoding to use when reading/writing this file.
+	 *        If this value is <code>null</code>, the file is checked for
+	 *        Unicode; if it is Unicode, it is opened properly.  If it is not
+	 *        Unicode, a system default encoding is used.
+	 * @param reuse If the file is already open, whether to simply switch
+	 *        focus to that old copy (vs. opening a new copy).
+	 * @param onOpened Called on the EDT with the file's editor once it's
+	 *        the current editor; right away, or once the file has been
+	 *        read if it's read in the background.  This is never called if
+	 *        the file isn't opened, loading is canceled, or the file is
+	 *        opened in a {@link LargeFileViewer}.  This may be
+	 *        <code>null</code>.
+	 * @return Whether the file was opened, is being loaded, or is being
+	 *         viewed, as for {@link #openFile(FileLocation, String, boolean)}.
+	 */
+	public boolean openFile(FileLocation loc, String charSet, boolean reuse,
+							Consumer<RTextEditorPane> onOpened) {
+
+		String fileFullPath = loc.getFileFullPath();
+		boolean loadInBackground = loc.isLocalAndExists() &&
+				new File(fileFullPath).length()>=FileLoader.MIN_SIZE;
 
 		// If the only document open is untitled and empty, remove
-		// (and thus replace) replace it.
-		if (getNumDocuments()==1 &&
-			currentTextArea.getFileName().equals(owner.getNewFileName()) &&
-			currentTextArea.getDocument().getLength()==0 &&
-				!currentTextArea.isDirty()) {
-				removeComponentAt(0);
+		// (and thus replace) replace it.  Files loaded in the background
+		// replace it once they're loaded.
+		if (!loadInBackground) {
+			removeLoneEmptyUntitledFile();
 		}
 
-		// If desired, reuse a text area already opened to this file if
-		// there is one.
+		// If desired, reuse a text area already opened to this file (or
+		// being loaded from it) if there is one.
 		if (reuse) {
-			String fileNameAndPath = loc.getFileFullPath();
 			int count = getNumDocuments(); // May have changed from above.
 			for (int i=0; i<count; i++) {
 				RTextEditorPane textArea = getRTextEditorPaneAt(i);
-				if (textArea.getFileFullPath().equals(fileNameAndPath)) {
+				if (textArea.getFileFullPath().equals(fileFullPath)) {
 					setSelectedIndex(i);
+					fileOpened(onOpened);
+					return true;
+				}
+			}
+			for (FileLoader loader : fileLoaders) {
+				if (loader.getFileLocation().getFileFullPath().equals(fileFullPath)) {
+					loader.addLoadedCallback(onOpened);
 					return true;
 				}
 			}
 		}
 
-		String fileFullPath = loc.getFileFullPath();
-
 		// If opening a local file that exists, or a remote file...
 		if (loc.isLocalAndExists() || loc.isRemote()) {
 
-			if (loc.isLocal() && getFileIsTooLarge(fileFullPath)) {
-				return false;
+			int rc = loc.isLocal() ? getFileIsTooLarge(fileFullPath) :
+					JOptionPane.YES_OPTION;
+			if (rc!=JOptionPane.YES_OPTION) {
+				boolean viewed = rc==JOptionPane.NO_OPTION && viewLargeFile(loc, charSet);
+				ensureFilesAreOpened(); // Keep at least 1 document open.
+				return viewed;
+			}
+
+			if (loadInBackground) {
+				FileLoader loader = new FileLoader(this, loc, charSet);
+				loader.addLoadedCallback(onOpened);
+				fileLoaders.add(loader);
+				((StatusBar)owner.getStatusBar()).fileLoadStarted(loader);
+				loader.start();
+				return true;
 			}
 
 			try {
-				RTextEditorPane tempTextArea = createRTextEditorPane(
-								loc, charSet);
+				RTextEditorPane tempTextArea = openingFiles && loc.isLocal() ?
+						createPlaceholderTextArea(loc, charSet) :
+						createRTextEditorPane(loc, charSet);
 				addTextArea(tempTextArea);
 			} catch (IOException ioe) {
 				handleAddTextFileIOException(loc, ioe, true);
@@ -2504,6 +2881,7 @@ public abstract class AbstractMainView extends JPanel
 				return false;
 			}
 
+			fileOpened(onOpened);
 			return true;
 
 		}
@@ -2515,6 +2893,7 @@ public abstract class AbstractMainView extends JPanel
 							owner.getString("ConfDialogTitle"),
 							JOptionPane.YES_NO_OPTION)) {
 			addNewEmptyFile(fileFullPath, charSet);
+			fileOpened(onOpened);
 			return true;
 		}
 		ensureFilesAreOpened(); // Keep at least 1 document open.
@@ -2565,6 +2944,34 @@ public abstract class AbstractMainView extends JPanel
 	}
 
 
+	/**
+	 * Opens several files at once, for example all files in a folder.
+	 * Only the file selected afterward is read right away; the others are
+	 * opened as placeholders that are read the first time they're
+	 * selected.  This keeps opening many files fast, and memory use low
+	 * until they're actually viewed.
+	 *
+	 * @param locs The locations of the files to open.  Files that are
+	 *        already open are not opened again.
+	 * @param charSet The encoding to use when reading/writing the files.
+	 *        If this value is <code>null</code>, each file is checked for
+	 *        Unicode; if it is not Unicode, a system default encoding is
+	 *        used.
+	 * @see #openFile(FileLocation, String, boolean)
+	 */
+	public void openFiles(List<FileLocation> locs, String charSet) {
+		openingFiles = true;
+		try {
+			for (FileLocation loc : locs) {
+				openFile(loc, charSet, true);
+			}
+		} finally {
+			openingFiles = false;
+		}
+		loadPlaceholder(currentTextArea);
+	}
+
+
 	/**
 	 * If the current editor is dirty, the user is prompted whether they want
 	 * to save it.  If they choose "yes", the file is saved, otherwise it is
@@ -2628,23 +3035,30 @@ public abstract class AbstractMainView extends JPanel
 			// saved(?))...
 			case RTextEditorPane.FULL_PATH_PROPERTY -> {
 				setDocumentDisplayNameAt(getSelectedIndex(), currentTextArea.getFileName());
+				fileMonitor.filesChanged();
 				fireCurrentTextAreaEvent(CurrentTextAreaEvent.FILE_NAME_CHANGED,
 					e.getOldValue(), e.getNewValue());
 			}
 
 			// If the file's modification status is changing...
+			// Files can be saved in the background, so this isn't
+			// necessarily the current document.
 			case RTextEditorPane.DIRTY_PROPERTY -> {
-				int selectedIndex = getSelectedIndex();
-				String oldTitle = getDocumentDisplayNameAt(selectedIndex);
-				if ((Boolean)e.getNewValue())
-					setDocumentDisplayNameAt(selectedIndex, oldTitle + "*");
-				else {
-					setDocumentDisplayNameAt(selectedIndex,
-						oldTitle.substring(0, oldTitle.length() - 1));    // Get rid of the "*".
+				int index = getTextAreaIndex((RTextEditorPane)e.getSource());
+				if (index>-1) {
+					String oldTitle = getDocumentDisplayNameAt(index);
+					if ((Boolean)e.getNewValue())
+						setDocumentDisplayNameAt(index, oldTitle + "*");
+					else {
+						setDocumentDisplayNameAt(index,
+							oldTitle.substring(0, oldTitle.length() - 1));    // Get rid of the "*".
+					}
+				}
+				if (e.getSource()==currentTextArea) {
+					fireCurrentTextAreaEvent(
+						CurrentTextAreaEvent.IS_MODIFIED_CHANGED,
+						e.getOldValue(), e.getNewValue());
 				}
-				fireCurrentTextAreaEvent(
-					CurrentTextAreaEvent.IS_MODIFIED_CHANGED,
-					e.getOldValue(), e.getNewValue());
 			}
 
 			// If the highlighting style of the current file changed...
@@ -2661,6 +3075,109 @@ public abstract class AbstractMainView extends JPanel
 	}
 
 
+	/**
+	 * Offers to restore the unsaved changes journaled by instances of
+	 * RText that didn't shut down cleanly.  Each file is opened (or created,
+	 * if it no longer exists) with the recovered text, and left dirty.
+	 * A file's journal is only deleted once its changes are restored, so
+	 * changes that can't be restored are offered again the next time RText
+	 * starts.
+	 */
+	private void recoverUnsavedFiles() {
+
+		EditJournal.Recovery recovery = EditJournal.findRecoverableFiles();
+		if (recovery==null) {
+			return;
+		}
+
+		List<EditJournal.RecoveredFile> files = recovery.getFiles();
+		if (!files.isEmpty()) {
+
+			StringBuilder sb = new StringBuilder();
+			for (EditJournal.RecoveredFile file : files) {
+				sb.append(file.getFileFullPath()).append('\n');
+			}
+			String text = owner.getString("RecoverUnsavedFiles", sb.toString());
+			int rc = JOptionPane.showConfirmDialog(owner, text,
+							owner.getString("ConfDialogTitle"),
+							JOptionPane.YES_NO_OPTION,
+							JOptionPane.QUESTION_MESSAGE);
+
+			if (rc==JOptionPane.YES_OPTION) {
+				StringBuilder notRestored = new StringBuilder();
+				for (EditJournal.RecoveredFile file : files) {
+					if (!restoreUnsavedFile(recovery, file)) {
+						notRestored.append(file.getFileFullPath()).append('\n');
+					}
+				}
+				if (notRestored.length()>0) {
+					JOptionPane.showMessageDialog(owner,
+						owner.getString("RecoveryIncomplete", notRestored.toString()),
+						owner.getString("ErrorDialogTitle"),
+						JOptionPane.WARNING_MESSAGE);
+				}
+			}
+			else {
+				files.forEach(recovery::discard);
+			}
+
+		}
+
+		recovery.release();
+
+	}
+
+
+	/**
+	 * Opens a file whose unsaved changes were recovered, and restores them.
+	 * Its journal is deleted once they're restored.
+	 *
+	 * @param recovery The recovery the file is from.
+	 * @param file The file.
+	 * @return Whether the changes were restored, or will be once the file
+	 *         has been read in the background.
+	 */
+	private boolean restoreUnsavedFile(EditJournal.Recovery recovery,
+									EditJournal.RecoveredFile file) {
+
+		String path = file.getFileFullPath();
+		Consumer<RTextEditorPane> restore = textArea -> {
+			textArea.setText(file.getText());
+			String lineSeparator = file.getLineSeparator();
+			if (lineSeparator!=null &&
+					!lineSeparator.equals(textArea.getLineSeparator())) {
+				textArea.setLineSeparator(lineSeparator);
+			}
+			textArea.setCaretPosition(0);
+			recovery.discard(file);
+		};
+
+		FileLocation loc = FileLocation.create(path);
+		if (loc.isLocalAndExists() || loc.isRemote()) {
+			// Not restored if the user chose to view a large file read-only
+			boolean[] restored = new boolean[1];
+			boolean opened = openFile(loc, file.getEncoding(), true, textArea -> {
+				restore.accept(textArea);
+				restored[0] = true;
+			});
+			return restored[0] || (opened && isBeingLoaded(path));
+		}
+
+		if (loc.getFileName().equals(owner.getNewFileName())) {
+			addNewEmptyUntitledFile();
+		}
+		else {
+			addNewEmptyFile(path, file.getEncoding());
+			if (!path.equals(currentTextArea.getFileFullPath())) {
+				return false; // Couldn't be created
+			}
+		}
+		restore.accept(currentTextArea);
+		return true;
+
+	}
+
+
 	/**
 	 * Refreshes the color used for the "active line range" of editors.  The
 	 * user currently cannot set this, but we try to be smart and pick a good
@@ -2759,6 +3276,20 @@ public abstract class AbstractMainView extends JPanel
 	protected abstract void removeComponentAt(int index);
 
 
+	/**
+	 * If the only document open is untitled and empty, removes it, so that
+	 * a file being opened replaces it.
+	 */
+	private void removeLoneEmptyUntitledFile() {
+		if (getNumDocuments()==1 &&
+			currentTextArea.getFileName().equals(owner.getNewFileName()) &&
+			currentTextArea.getDocument().getLength()==0 &&
+				!currentTextArea.isDirty()) {
+				removeComponentAt(0);
+		}
+	}
+
+
 	/**
 	 * Removes a current text area listener.
 	 *
@@ -2771,38 +3302,65 @@ public abstract class AbstractMainView extends JPanel
 
 
 	/**
-	 * Attempts to save all currently-opened files.  If any files have unsaved
-	 * changes, the user is prompted whether to save them.
+	 * Saves all currently-opened files with unsaved changes.  Local files
+	 * are saved in parallel in the background, each one replacing its file
+	 * atomically once it has been written in full, and each editor is
+	 * marked as saved (or the user is notified of an error) as its file
+	 * finishes.  Untitled files must be given a name, so they're selected
+	 * in turn and the user is prompted for one.  The selected document
+	 * doesn't otherwise change.
 	 *
-	 * @return Whether all files were successfully saved.  This will be
-	 *         <code>false</code> if an IO error occurs, or if a file has
-	 *         unsaved changes and the user selects "Cancel" when prompted
-	 *         to save them.
 	 * @see #saveCurrentFile()
 	 * @see #saveCurrentFileAs()
 	 * @see #saveCurrentFileAs(FileLocation)
 	 */
-	public synchronized boolean saveAllFiles() {
+	public synchronized void saveAllFiles() {
 
-		boolean allSaved = true;
+		List<FileSaver> savers = new ArrayList<>();
+		List<RTextEditorPane> untitled = new ArrayList<>();
 
-		// Remember the number for the tab they are currently working on.
-		int currentTab = getSelectedIndex();
-
-		// Cycle through each document, one by one.
+		// Placeholders haven't been loaded, so they're never dirty.
 		for (int i=0; i<getNumDocuments(); i++) {
-			// Save this document, if it is not read-only
-			if (!getRTextEditorPaneAt(i).isReadOnly()) {
-				setSelectedIndex(i);
-				if (!saveCurrentFile()) {
-					allSaved = false;
+			RTextEditorPane textArea = getRTextEditorPaneAt(i);
+			// A save still running only has the text from when it started,
+			// so let it finish; the editor is still dirty if it was edited
+			// since, and is saved again.
+			if (isBeingSaved(textArea)) {
+				finishBackgroundSave(textArea);
+			}
+			if (textArea.isReadOnly() || !textArea.isDirty()) {
+				continue;
+			}
+			if (textArea.getFileName().equals(owner.getNewFileName())) {
+				untitled.add(textArea);
+			}
+			else if (textArea.isLocal()) {
+				savers.add(new FileSaver(this, textArea));
+			}
+			else {
+				// Remote files can't be replaced atomically
+				try {
+					textArea.save();
+				} catch (Exception e) {
+					showSaveError(textArea, e);
 				}
 			}
 		}
 
-		// Set the active document to the one originally being working on.
-		setSelectedIndex(currentTab);
-		return allSaved;
+		fileSavers.addAll(savers);
+		FileSaver.saveAll(savers);
+
+		if (!untitled.isEmpty()) {
+			RTextEditorPane current = currentTextArea;
+			for (RTextEditorPane textArea : untitled) {
+				setSelectedIndex(getTextAreaIndex(textArea));
+				saveCurrentFile();
+			}
+			int index = getTextAreaIndex(current);
+			if (index>-1) {
+				setSelectedIndex(index);
+			}
+		}
 
 	}
 
@@ -2828,15 +3386,12 @@ public abstract class AbstractMainView extends JPanel
 		}
 
 		// Try and write output to the current filename.
+		finishBackgroundSave(currentTextArea);
 		try {
 			currentTextArea.save();
 			return true;
 		} catch (Exception e) {
-			String temp = owner.getString("ErrorWritingFile",
-					currentTextArea.getFileFullPath(), e.getMessage());
-			JOptionPane.showMessageDialog(this, temp,
-				owner.getString("ErrorDialogTitle"), JOptionPane.ERROR_MESSAGE);
-			owner.setMessages(null, "ERROR:  Could not save file!");
+			showSaveError(currentTextArea, e);
 			return false;
 		}
 
@@ -2944,6 +3499,7 @@ public abstract class AbstractMainView extends JPanel
 	public synchronized boolean saveCurrentFileAs(FileLocation loc) {
 
 		// Try and write output to the current filename.
+		finishBackgroundSave(currentTextArea);
 		try {
 			currentTextArea.saveAs(loc);
 		} catch (IOException ioe) {
@@ -3000,6 +3556,38 @@ public abstract class AbstractMainView extends JPanel
 	}
 
 
+	/**
+	 * Selects a line in an editor opened from a Find in Files match, and
+	 * scrolls it into view.
+	 *
+	 * @param textArea The editor.  This should be the current editor.
+	 * @param line The (1-based) line to select, or <code>-1</code> to just
+	 *        move to the top of the file.
+	 */
+	private void selectLine(RTextEditorPane textArea, int line) {
+		if (line!=-1) {
+			try {
+
+				// Highlight the searched-for text.
+				int start = textArea.getLineStartOffset(line-1);
+				int end = textArea.getLineEndOffset(line-1) - 1;
+				textArea.setCaretPosition(end);
+				textArea.moveCaretPosition(start);
+				textArea.getCaret().setSelectionVisible(true);
+
+				// The editor isn't visible initially, must wait to do this
+				SwingUtilities.invokeLater(() -> RTextUtilities.centerSelectionVertically(textArea));
+
+			} catch (Exception exc) {
+				owner.displayException(exc);
+				moveToTopOfCurrentDocument();
+			}
+		}
+		else
+			moveToTopOfCurrentDocument();
+	}
+
+
 	/**
 	 * Sets whether anti-aliasing is enabled in text areas.  This method fires
 	 * a property change event of type {@link #SMOOTH_TEXT_PROPERTY}.
@@ -3242,6 +3830,9 @@ public abstract class AbstractMainView extends JPanel
 	 */
 	protected void setCurrentTextArea(RTextEditorPane textArea) {
 		currentTextArea = textArea;
+		if (!openingFiles && !closingFiles) {
+			loadPlaceholder(textArea);
+		}
 	}
 
 
@@ -4350,6 +4941,21 @@ public abstract class AbstractMainView extends JPanel
 	}
 
 
+	/**
+	 * Lets the user know that a file couldn't be saved.
+	 *
+	 * @param textArea The editor of the file.
+	 * @param e The error that occurred.
+	 */
+	private void showSaveError(RTextEditorPane textArea, Exception e) {
+		String temp = owner.getString("ErrorWritingFile",
+				textArea.getFileFullPath(), e.getMessage());
+		JOptionPane.showMessageDialog(this, temp,
+			owner.getString("ErrorDialogTitle"), JOptionPane.ERROR_MESSAGE);
+		owner.setMessages(null, "ERROR:  Could not save file!");
+	}
+
+
 	private void updateBookmarkIcon() {
 
 		bookmarkIcon = owner.getIconGroup().getIcon("bookmark");
@@ -4420,4 +5026,25 @@ public abstract class AbstractMainView extends JPanel
 	}
 
 
+	/**
+	 * Opens a file read-only in a {@link LargeFileViewer}, for files too
+	 * large to edit.
+	 *
+	 * @param loc The location of the file.  This should be a local file.
+	 * @param charSet The encoding of the file, or <code>null</code> to
+	 *        check for a BOM and otherwise use the system default.
+	 * @return Whether the file was opened.
+	 */
+	private boolean viewLargeFile(FileLocation loc, String charSet) {
+		try {
+			new LargeFileViewer(owner, new File(loc.getFileFullPath()),
+						charSet).setVisible(true);
+			return true;
+		} catch (IOException ioe) {
+			handleAddTextFileIOException(loc, ioe, true);
+			return false;
+		}
+	}
+
+
 }
@@ -38,6 +38,7 @@ import org.fife.ui.FileExplorerTableModel;
 import org.fife.ui.UIUtil;
 import org.fife.ui.FileExplorerTableModel.SortableHeaderRenderer;
 import org.fife.ui.dockablewindows.DockableWindow;
+import org.fife.ui.rsyntaxtextarea.FileLocation;
 import org.fife.ui.rsyntaxtextarea.parser.ParserNotice;
 
 
@@ -334,14 +335,13 @@ public abstract class AbstractParserNoticeWindow extends DockableWindow {
 						String fileFullPath = wrapper.fileFullPath;
 						File file = new File(fileFullPath);
 						if (file.isAbsolute() && file.isFile()) {
-							rtext.openFile(file);
-							SwingUtilities.invokeLater(() -> {
-								RTextEditorPane textArea2 = rtext.
-										getMainView().getCurrentTextArea();
-								Integer i = (Integer)model.getValueAt(row, 2);
-								int line = i - 1; // 0-based
-								focusLine(textArea2, line);
-							});
+							// Large files are read in the background, so
+							// wait until the file's editor is current.
+							Integer i = (Integer)model.getValueAt(row, 2);
+							int line = i - 1; // 0-based
+							rtext.getMainView().openFile(FileLocation.create(file),
+									null, true, textArea2 -> SwingUtilities.invokeLater(
+											() -> focusLine(textArea2, line)));
 						}
 						else {
 							UIManager.getLookAndFeel().provideErrorFeedback(rtext);
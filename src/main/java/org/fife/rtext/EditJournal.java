@@ -0,0 +1,930 @@
+/*
+ * 10/18/2026
+ *
+ * EditJournal.java - Journals unsaved edits so they can be recovered after
+ * a crash.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+
+
+/**
+ * Journals the unsaved edits made in editors, so they can be recovered if
+ * RText crashes or is killed.<p>
+ *
+ * Each dirty editor gets a journal file in this session's folder, under
+ * the <code>journal</code> folder in the preferences directory.  A journal
+ * starts with a snapshot of the editor's text, followed by every insertion
+ * and removal made since.  Since it doesn't depend on the file on disk,
+ * the edits can be recovered even if the file was changed by another
+ * program in the meantime.  When an editor is saved, reverted or closed,
+ * its journal is deleted.  Journals that grow large are compacted into a
+ * new snapshot, so they never take too long to replay.<p>
+ *
+ * Edits are recorded by a document listener on the EDT, which only queues
+ * them; a background thread writes them out in batches, so journaling
+ * doesn't slow down typing.<p>
+ *
+ * Each session holds a lock on a file in its folder for as long as the JVM
+ * runs.  On startup, the folders of sessions whose lock can be acquired
+ * belong to instances of RText that didn't shut down cleanly, and any
+ * journals in them can be replayed with {@link #findRecoverableFiles()}.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class EditJournal implements Runnable {
+
+	private static final int MAGIC = 0x524a4e32; // "RJN2"
+
+	/**
+	 * How long edits are allowed to pile up before they're written.
+	 */
+	private static final long BATCH_MILLIS = 1000;
+
+	/**
+	 * Journals are compacted once their edits take up at least this many
+	 * bytes, and twice as many as their base.
+	 */
+	private static final long MIN_COMPACT_BYTES = 256 * 1024;
+
+	private static final byte BASE_SNAPSHOT = 'S';
+	private static final byte INSERT = 'I';
+	private static final byte REMOVE = 'R';
+	private static final byte OPEN = 'O';
+	private static final byte CLOSE = 'C';
+
+	private static final String LOCK_FILE_NAME = "session.lock";
+	private static final String JOURNAL_EXTENSION = ".journal";
+
+	private static EditJournal instance;
+	private static boolean initialized;
+	private static boolean recoveryChecked;
+
+	private final Path sessionDir;
+	private final FileChannel lockChannel;
+
+	/**
+	 * Operations waiting to be written, in the order they happened.
+	 */
+	private final List<Op> pending;
+
+	/**
+	 * Held while writing, so {@link #shutdown()} can write any pending
+	 * operations itself.
+	 */
+	private final Object writeLock;
+
+	private final Set<Log> openLogs;
+	private int nextLogId;
+
+
+	private EditJournal(Path sessionDir, FileChannel lockChannel) {
+		this.sessionDir = sessionDir;
+		this.lockChannel = lockChannel;
+		pending = new ArrayList<>();
+		writeLock = new Object();
+		openLogs = new HashSet<>();
+	}
+
+
+	/**
+	 * Starts journaling the edits made in an editor while it's dirty.
+	 * This should be called on the EDT.
+	 *
+	 * @param textArea The editor.
+	 * @see #removeEditor(RTextEditorPane)
+	 */
+	static void addEditor(RTextEditorPane textArea) {
+		EditJournal journal = getInstance();
+		if (journal!=null && textArea.getClientProperty(EditJournal.class)==null) {
+			Tracker tracker = journal.new Tracker(textArea);
+			textArea.putClientProperty(EditJournal.class, tracker);
+		}
+	}
+
+
+	/**
+	 * Closes a journal's output stream, ignoring any errors.
+	 */
+	private static void closeQuietly(Log log) {
+		if (log.out!=null) {
+			try {
+				log.out.close();
+			} catch (IOException ioe) {
+				// Nothing we can do
+			}
+			log.out = null;
+		}
+	}
+
+
+	/**
+	 * Replaces a journal with a snapshot of its editor's text.  Edits made
+	 * before the snapshot was taken are ignored from then on.
+	 */
+	private void compact(Log log) throws IOException {
+
+		String[] text = new String[1];
+		long[] seq = new long[1];
+		log.doc.render(() -> {
+			try {
+				text[0] = log.doc.getText(0, log.doc.getLength());
+			} catch (BadLocationException ble) { // Never happens
+				text[0] = "";
+			}
+			seq[0] = log.seq;
+		});
+
+		Path temp = sessionDir.resolve(log.id + ".tmp");
+		try (DataOutputStream out = openStream(temp, false)) {
+			writeHeader(out, log);
+			writeString(out, text[0]);
+		}
+
+		closeQuietly(log);
+		try {
+			Files.move(temp, log.file, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException amnse) {
+			Files.move(temp, log.file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		log.out = openStream(log.file, true);
+		log.bytes = 0;
+		log.baseSize = 2L * text[0].length();
+		log.baseSeq = seq[0];
+
+	}
+
+
+	/**
+	 * Deletes a file, or a folder and the files in it, ignoring any errors.
+	 */
+	private static void deleteQuietly(Path path) {
+		try (Stream<Path> files = Files.walk(path)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> {
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException ioe) {
+					// Nothing we can do
+				}
+			});
+		} catch (IOException ioe) {
+			// Nothing we can do
+		}
+	}
+
+
+	/**
+	 * Looks for journals left behind by instances of RText that didn't
+	 * shut down cleanly, and replays them.  This only does anything the
+	 * first time it's called.
+	 *
+	 * @return The files whose unsaved changes can be recovered, or
+	 *         <code>null</code> if there are none.
+	 */
+	static synchronized Recovery findRecoverableFiles() {
+
+		if (recoveryChecked) {
+			return null;
+		}
+		recoveryChecked = true;
+
+		Path root = getJournalRoot();
+		if (!Files.isDirectory(root)) {
+			return null;
+		}
+
+		Recovery recovery = new Recovery();
+		try (DirectoryStream<Path> sessions = Files.newDirectoryStream(root)) {
+			for (Path session : sessions) {
+				if (Files.isDirectory(session)) {
+					recoverSession(session, recovery);
+				}
+			}
+		} catch (IOException ioe) {
+			// The sessions found so far can still be recovered
+		}
+
+		if (recovery.files.isEmpty()) {
+			recovery.discard();
+			return null;
+		}
+		return recovery;
+
+	}
+
+
+	/**
+	 * Returns this session's journal, creating it if necessary.
+	 *
+	 * @return The journal, or <code>null</code> if it couldn't be created,
+	 *         in which case edits aren't journaled.
+	 */
+	private static synchronized EditJournal getInstance() {
+
+		if (!initialized) {
+			initialized = true;
+			try {
+				Path dir = getJournalRoot().resolve(ProcessHandle.current().pid() +
+						"-" + System.currentTimeMillis());
+				Files.createDirectories(dir);
+				FileChannel channel = FileChannel.open(dir.resolve(LOCK_FILE_NAME),
+						StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				if (channel.tryLock()==null) { // Never happens
+					channel.close();
+					return null;
+				}
+				instance = new EditJournal(dir, channel);
+				Thread thread = new Thread(instance, "EditJournal");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				thread.start();
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+
+		return instance;
+
+	}
+
+
+	private static Path getJournalRoot() {
+		return new File(RTextUtilities.getPreferencesDirectory(), "journal").toPath();
+	}
+
+
+	private static DataOutputStream openStream(Path file, boolean append)
+			throws IOException {
+		StandardOpenOption mode = append ? StandardOpenOption.APPEND :
+				StandardOpenOption.TRUNCATE_EXISTING;
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+				file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)));
+	}
+
+
+	/**
+	 * Queues an operation to be written.
+	 */
+	private void queue(Op op) {
+		synchronized (pending) {
+			pending.add(op);
+			pending.notify();
+		}
+	}
+
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		char[] chars = new char[length];
+		for (int i=0; i<length; i++) {
+			chars[i] = in.readChar();
+		}
+		return new String(chars);
+	}
+
+
+	/**
+	 * Replays a journal.
+	 *
+	 * @return The recovered file, or <code>null</code> if the journal
+	 *         can't be read.
+	 */
+	private static RecoveredFile recoverFile(Path journal) {
+
+		try (InputStream fin = Files.newInputStream(journal);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(fin))) {
+
+			if (in.readInt()!=MAGIC) {
+				return null;
+			}
+			String path = in.readUTF();
+			String encoding = in.readUTF();
+			String lineSeparator = in.readUTF();
+			byte base = in.readByte();
+
+			if (base!=BASE_SNAPSHOT) {
+				return null;
+			}
+			Document doc = new PlainDocument();
+			doc.insertString(0, readString(in), null);
+
+			// A partially-written edit at the end is ignored
+			try {
+				while (true) {
+					byte type = in.readByte();
+					int offs = in.readInt();
+					if (type==INSERT) {
+						String text = readString(in);
+						doc.insertString(offs, text, null);
+					}
+					else {
+						int length = in.readInt();
+						doc.remove(offs, length);
+					}
+				}
+			} catch (EOFException eofe) {
+				// Done
+			}
+
+			return new RecoveredFile(journal, path,
+					encoding.isEmpty() ? null : encoding,
+					lineSeparator.isEmpty() ? null : lineSeparator,
+					doc.getText(0, doc.getLength()));
+
+		} catch (IOException | BadLocationException | RuntimeException e) {
+			e.printStackTrace();
+			return null;
+		}
+
+	}
+
+
+	/**
+	 * Adds the journals of a session to a recovery, if the session is no
+	 * longer running.
+	 */
+	private static void recoverSession(Path session, Recovery recovery) {
+
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(session.resolve(LOCK_FILE_NAME),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			FileLock lock;
+			try {
+				lock = channel.tryLock();
+			} catch (OverlappingFileLockException ofle) {
+				lock = null; // A session in this JVM
+			}
+			if (lock==null) {
+				channel.close();
+				return;
+			}
+		} catch (IOException ioe) {
+			if (channel!=null) {
+				try {
+					channel.close();
+				} catch (IOException ioe2) {
+					// Nothing we can do
+				}
+			}
+			return;
+		}
+
+		// Hold the lock until the recovery is discarded, so no other
+		// instance of RText recovers the same files.
+		recovery.sessions.add(session);
+		recovery.channels.add(channel);
+
+		try (DirectoryStream<Path> journals = Files.newDirectoryStream(session,
+				"*" + JOURNAL_EXTENSION)) {
+			for (Path journal : journals) {
+				RecoveredFile file = recoverFile(journal);
+				if (file!=null) {
+					recovery.files.add(file);
+				}
+				else {
+					deleteQuietly(journal);
+				}
+			}
+		} catch (IOException ioe) {
+			// The journals read so far can still be recovered
+		}
+
+	}
+
+
+	/**
+	 * Restarts an editor's journal after its file was saved or modified
+	 * outside of RText while it still has unsaved changes, since the
+	 * journal's edits no longer apply to the file on disk.  This should be
+	 * called on the EDT.
+	 *
+	 * @param textArea The editor.
+	 * @param matchesFile Whether the editor's text now matches its file.
+	 */
+	static void rebase(RTextEditorPane textArea, boolean matchesFile) {
+		Object tracker = textArea.getClientProperty(EditJournal.class);
+		if (tracker instanceof Tracker t) {
+			t.rebase(matchesFile);
+		}
+	}
+
+
+	/**
+	 * Stops journaling the edits made in an editor, and deletes its
+	 * journal.  This should be called on the EDT when the editor is
+	 * closed.
+	 *
+	 * @param textArea The editor.
+	 * @see #addEditor(RTextEditorPane)
+	 */
+	static void removeEditor(RTextEditorPane textArea) {
+		Object tracker = textArea.getClientProperty(EditJournal.class);
+		if (tracker instanceof Tracker t) {
+			t.dispose();
+			textArea.putClientProperty(EditJournal.class, null);
+		}
+	}
+
+
+	@Override
+	public void run() {
+
+		List<Op> batch = new ArrayList<>();
+
+		try {
+			while (true) {
+
+				synchronized (pending) {
+					while (pending.isEmpty()) {
+						pending.wait();
+					}
+				}
+
+				// Let edits pile up, so they're written together
+				Thread.sleep(BATCH_MILLIS);
+
+				synchronized (writeLock) {
+					synchronized (pending) {
+						batch.addAll(pending);
+						pending.clear();
+					}
+					write(batch);
+					batch.clear();
+				}
+
+			}
+		} catch (InterruptedException ie) {
+			// Never happens
+		}
+
+	}
+
+
+	/**
+	 * Writes any edits not yet written, and deletes this session's folder
+	 * if no editors have unsaved changes.  This should be called when
+	 * RText exits normally.
+	 */
+	static synchronized void shutdown() {
+
+		EditJournal journal = instance;
+		if (journal==null) {
+			return;
+		}
+
+		synchronized (journal.writeLock) {
+			List<Op> batch;
+			synchronized (journal.pending) {
+				batch = new ArrayList<>(journal.pending);
+				journal.pending.clear();
+			}
+			journal.write(batch);
+			if (journal.openLogs.isEmpty()) {
+				try {
+					journal.lockChannel.close();
+				} catch (IOException ioe) {
+					// Nothing we can do
+				}
+				deleteQuietly(journal.sessionDir);
+			}
+		}
+
+	}
+
+
+	/**
+	 * Writes a batch of operations.  Journals are only flushed once per
+	 * batch.
+	 */
+	private void write(List<Op> batch) {
+
+		Set<Log> written = new HashSet<>();
+
+		for (Op op : batch) {
+
+			Log log = op.log;
+			if (log.failed && op.type!=CLOSE) {
+				continue;
+			}
+
+			try {
+				switch (op.type) {
+					case OPEN -> {
+						openLogs.add(log);
+						compact(log);
+					}
+					case CLOSE -> {
+						openLogs.remove(log);
+						written.remove(log);
+						closeQuietly(log);
+						Files.deleteIfExists(log.file);
+					}
+					default -> {
+						if (op.seq>log.baseSeq && log.out!=null) {
+							int start = log.out.size();
+							log.out.writeByte(op.type);
+							log.out.writeInt(op.offs);
+							if (op.type==INSERT) {
+								writeString(log.out, op.text);
+							}
+							else {
+								log.out.writeInt(op.length);
+							}
+							log.bytes += log.out.size() - start;
+							written.add(log);
+						}
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				// Stop journaling this editor rather than risk a corrupt
+				// journal
+				e.printStackTrace();
+				log.failed = true;
+				closeQuietly(log);
+			}
+
+		}
+
+		for (Log log : written) {
+			try {
+				log.out.flush();
+				if (log.bytes>=Math.max(MIN_COMPACT_BYTES, 2*log.baseSize)) {
+					compact(log);
+				}
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+				log.failed = true;
+				closeQuietly(log);
+			}
+		}
+
+	}
+
+
+	private static void writeHeader(DataOutputStream out, Log log)
+			throws IOException {
+		out.writeInt(MAGIC);
+		out.writeUTF(log.path);
+		out.writeUTF(log.encoding);
+		out.writeUTF(log.lineSeparator);
+		out.writeByte(BASE_SNAPSHOT);
+	}
+
+
+	private static void writeString(DataOutputStream out, String str)
+			throws IOException {
+		out.writeInt(str.length());
+		out.writeChars(str);
+	}
+
+
+	/**
+	 * The journal of a single editor, from when it became dirty until it's
+	 * saved or closed.
+	 */
+	private static final class Log {
+
+		private final int id;
+		private final Path file;
+		private final Document doc;
+		private final String path;
+		private final String encoding;
+		private final String lineSeparator;
+
+		/**
+		 * The number of edits made so far.  Only modified on the EDT, while
+		 * the document's write lock is held.
+		 */
+		private volatile long seq;
+
+		// Only accessed by the thread writing the journal
+		private DataOutputStream out;
+		private long baseSeq;
+		private long baseSize;
+		private long bytes;
+		private boolean failed;
+
+		Log(int id, Path file, RTextEditorPane textArea) {
+			this.id = id;
+			this.file = file;
+			doc = textArea.getDocument();
+			path = textArea.getFileFullPath();
+			encoding = textArea.getEncoding()==null ? "" : textArea.getEncoding();
+			Object separator = textArea.getLineSeparator();
+			lineSeparator = separator instanceof String ? (String)separator : "";
+		}
+
+	}
+
+
+	/**
+	 * An operation waiting to be written.
+	 */
+	private static final class Op {
+
+		private final Log log;
+		private final byte type;
+		private final long seq;
+		private final int offs;
+		private final String text;
+		private final int length;
+
+		Op(Log log, byte type, long seq, int offs, String text, int length) {
+			this.log = log;
+			this.type = type;
+			this.seq = seq;
+			this.offs = offs;
+			this.text = text;
+			this.length = length;
+		}
+
+	}
+
+
+	/**
+	 * A file whose unsaved changes were recovered.
+	 */
+	static final class RecoveredFile {
+
+		private final Path journal;
+		private final String fileFullPath;
+		private final String encoding;
+		private final String lineSeparator;
+		private final String text;
+
+		RecoveredFile(Path journal, String fileFullPath, String encoding,
+				String lineSeparator, String text) {
+			this.journal = journal;
+			this.fileFullPath = fileFullPath;
+			this.encoding = encoding;
+			this.lineSeparator = lineSeparator;
+			this.text = text;
+		}
+
+		/**
+		 * Returns the encoding the file was being edited with.
+		 *
+		 * @return The encoding, or <code>null</code> if unknown.
+		 */
+		String getEncoding() {
+			return encoding;
+		}
+
+		String getFileFullPath() {
+			return fileFullPath;
+		}
+
+		/**
+		 * Returns the line separator the file was being edited with.
+		 *
+		 * @return The line separator, or <code>null</code> if unknown.
+		 */
+		String getLineSeparator() {
+			return lineSeparator;
+		}
+
+		/**
+		 * Returns the recovered text, with <code>'\n'</code> line
+		 * separators.
+		 *
+		 * @return The text.
+		 */
+		String getText() {
+			return text;
+		}
+
+	}
+
+
+	/**
+	 * The files that can be recovered from sessions that didn't shut down
+	 * cleanly.
+	 */
+	static final class Recovery {
+
+		private final List<RecoveredFile> files;
+		private final List<Path> sessions;
+		private final List<FileChannel> channels;
+
+		private Recovery() {
+			files = new ArrayList<>();
+			sessions = new ArrayList<>();
+			channels = new ArrayList<>();
+		}
+
+		/**
+		 * Deletes the journals of the sessions recovered from.  This should
+		 * be called if the user chooses not to restore the files.
+		 *
+		 * @see #release()
+		 */
+		void discard() {
+			releaseLocks();
+			sessions.forEach(EditJournal::deleteQuietly);
+		}
+
+		/**
+		 * Deletes the journal of a file, once its changes have been
+		 * restored.  This may be called after the recovery is released.
+		 *
+		 * @param file The file.
+		 */
+		void discard(RecoveredFile file) {
+			deleteQuietly(file.journal);
+		}
+
+		/**
+		 * Returns the files that can be recovered.
+		 *
+		 * @return The files.
+		 */
+		List<RecoveredFile> getFiles() {
+			return files;
+		}
+
+		/**
+		 * Lets other instances of RText recover the files whose journals
+		 * weren't discarded, and deletes the sessions with nothing left to
+		 * recover.
+		 *
+		 * @see #discard()
+		 * @see #discard(RecoveredFile)
+		 */
+		void release() {
+			releaseLocks();
+			for (Path session : sessions) {
+				try (Stream<Path> journals = Files.list(session)) {
+					if (journals.noneMatch(journal ->
+							journal.toString().endsWith(JOURNAL_EXTENSION))) {
+						deleteQuietly(session);
+					}
+				} catch (IOException ioe) {
+					// Nothing we can do
+				}
+			}
+		}
+
+		private void releaseLocks() {
+			for (FileChannel channel : channels) {
+				try {
+					channel.close();
+				} catch (IOException ioe) {
+					// Nothing we can do
+				}
+			}
+		}
+
+	}
+
+
+	/**
+	 * Listens to an editor, and journals its edits while it's dirty.  All
+	 * methods are called on the EDT.
+	 */
+	private final class Tracker implements DocumentListener, PropertyChangeListener {
+
+		private final RTextEditorPane textArea;
+		private Document doc;
+		private Log log;
+
+		Tracker(RTextEditorPane textArea) {
+			this.textArea = textArea;
+			doc = textArea.getDocument();
+			doc.addDocumentListener(this);
+			textArea.addPropertyChangeListener(this);
+		}
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+		}
+
+		private void closeLog() {
+			if (log!=null) {
+				queue(new Op(log, CLOSE, 0, 0, null, 0));
+				log = null;
+			}
+		}
+
+		void dispose() {
+			doc.removeDocumentListener(this);
+			textArea.removePropertyChangeListener(this);
+			closeLog();
+		}
+
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			Log current = openLog();
+			if (current!=null) {
+				int offs = e.getOffset();
+				try {
+					String text = doc.getText(offs, e.getLength());
+					queue(new Op(current, INSERT, ++current.seq, offs, text, 0));
+				} catch (BadLocationException ble) { // Never happens
+					ble.printStackTrace();
+				}
+			}
+		}
+
+		/**
+		 * Returns the editor's journal, starting it if this is the first
+		 * edit since the editor was last clean.
+		 */
+		private Log openLog() {
+
+			if (log==null && !textArea.isPlaceholder()) {
+				int id = nextLogId++;
+				log = new Log(id, sessionDir.resolve(id + JOURNAL_EXTENSION),
+						textArea);
+				queue(new Op(log, OPEN, 0, 0, null, 0));
+			}
+
+			return log;
+
+		}
+
+		@Override
+		public void propertyChange(PropertyChangeEvent e) {
+
+			String name = e.getPropertyName();
+
+			// Saved or reloaded, so any unsaved changes are gone
+			if (RTextEditorPane.DIRTY_PROPERTY.equals(name)) {
+				if (!(Boolean)e.getNewValue()) {
+					closeLog();
+				}
+			}
+
+			else if ("document".equals(name)) {
+				doc.removeDocumentListener(this);
+				doc = textArea.getDocument();
+				doc.addDocumentListener(this);
+				closeLog();
+			}
+
+		}
+
+		/**
+		 * Replaces the editor's journal with one based on its current text,
+		 * written before the old one is deleted.
+		 */
+		void rebase(boolean matchesFile) {
+			Log old = log;
+			log = null;
+			if (!matchesFile && textArea.isDirty()) {
+				openLog();
+			}
+			if (old!=null) {
+				queue(new Op(old, CLOSE, 0, 0, null, 0));
+			}
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			Log current = openLog();
+			if (current!=null) {
+				queue(new Op(current, REMOVE, ++current.seq, e.getOffset(), null,
+						e.getLength()));
+			}
+		}
+
+	}
+
+
+}
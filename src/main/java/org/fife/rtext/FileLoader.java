@@ -0,0 +1,239 @@
+/*
+ * 10/18/2026
+ *
+ * FileLoader.java - Reads a large file into a document in the background.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+import org.fife.io.UnicodeReader;
+import org.fife.ui.rsyntaxtextarea.FileLocation;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextAreaEditorKit;
+
+
+/**
+ * Reads and decodes a large local file into a document on a background
+ * thread, so opening it doesn't freeze the application.  The document is
+ * built exactly as <code>TextEditorPane.load()</code> would build it, but
+ * since it isn't yet displayed it's safe to do so off the EDT.  When
+ * loading finishes (or fails, or is canceled), the main view is notified
+ * on the EDT, and installs the document in a new editor in one step.<p>
+ *
+ * Progress is tracked by the number of raw bytes read, and can be polled
+ * from any thread.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see AbstractMainView#openFile(FileLocation, String, boolean)
+ */
+final class FileLoader implements Runnable {
+
+	/**
+	 * Local files at least this large are loaded in the background.
+	 * Smaller files load quickly enough that they're simply opened on the
+	 * EDT.
+	 */
+	static final long MIN_SIZE = 4 * 1024 * 1024;
+
+	private final AbstractMainView view;
+	private final FileLocation loc;
+	private final String charSet;
+	private final long length;
+
+	/**
+	 * Called with the file's editor once it's been added.  Only accessed
+	 * on the EDT.
+	 */
+	private final List<Consumer<RTextEditorPane>> loadedCallbacks;
+
+	private volatile long bytesRead;
+	private volatile boolean canceled;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param view The main view to notify when loading finishes.
+	 * @param loc The location of the file to load.  This should be a
+	 *        local file that exists.
+	 * @param charSet The encoding to use if the file has no BOM, or
+	 *        <code>null</code> for the system default.
+	 */
+	FileLoader(AbstractMainView view, FileLocation loc, String charSet) {
+		this.view = view;
+		this.loc = loc;
+		this.charSet = charSet;
+		length = new File(loc.getFileFullPath()).length();
+		loadedCallbacks = new ArrayList<>(1);
+	}
+
+
+	/**
+	 * Adds something to do with the file's editor once it's been added to
+	 * the main view.  This should be called on the EDT.
+	 *
+	 * @param callback The callback.  If this is <code>null</code>, nothing
+	 *        happens.
+	 * @see #getLoadedCallbacks()
+	 */
+	void addLoadedCallback(Consumer<RTextEditorPane> callback) {
+		if (callback!=null) {
+			loadedCallbacks.add(callback);
+		}
+	}
+
+
+	/**
+	 * Cancels loading the file.  The main view is still notified when the
+	 * background thread stops.
+	 *
+	 * @see #isCanceled()
+	 */
+	void cancel() {
+		canceled = true;
+	}
+
+
+	/**
+	 * Returns the encoding to use if the file has no BOM.
+	 *
+	 * @return The encoding, or <code>null</code> for the system default.
+	 */
+	String getCharSet() {
+		return charSet;
+	}
+
+
+	/**
+	 * Returns the location of the file being loaded.
+	 *
+	 * @return The file's location.
+	 */
+	FileLocation getFileLocation() {
+		return loc;
+	}
+
+
+	/**
+	 * Returns what to do with the file's editor once it's been added to
+	 * the main view.
+	 *
+	 * @return The callbacks.
+	 * @see #addLoadedCallback(Consumer)
+	 */
+	List<Consumer<RTextEditorPane>> getLoadedCallbacks() {
+		return loadedCallbacks;
+	}
+
+
+	/**
+	 * Returns how much of the file has been read.
+	 *
+	 * @return The percentage read, from <code>0</code> to <code>100</code>.
+	 */
+	int getProgress() {
+		return length==0 ? 100 : (int)Math.min(100, bytesRead * 100 / length);
+	}
+
+
+	/**
+	 * Returns whether loading was canceled.
+	 *
+	 * @return Whether loading was canceled.
+	 * @see #cancel()
+	 */
+	boolean isCanceled() {
+		return canceled;
+	}
+
+
+	@Override
+	public void run() {
+
+		Document doc = null;
+		Throwable error = null;
+
+		try (InputStream in = new ProgressInputStream(
+					new FileInputStream(loc.getFileFullPath()));
+				Reader r = new BufferedReader(new UnicodeReader(in, charSet))) {
+			RSyntaxTextAreaEditorKit kit = new RSyntaxTextAreaEditorKit();
+			doc = kit.createDefaultDocument();
+			kit.read(r, doc, 0);
+		} catch (IOException | OutOfMemoryError e) {
+			error = e;
+		} catch (BadLocationException ble) { // Never happens
+			error = new IOException(ble);
+		}
+
+		// Let the document be garbage collected right away if canceled
+		Document result = canceled || error!=null ? null : doc;
+		Throwable finalError = error;
+		SwingUtilities.invokeLater(() -> view.fileLoaded(this, result, finalError));
+
+	}
+
+
+	/**
+	 * Starts loading the file on a background thread.
+	 */
+	void start() {
+		Thread thread = new Thread(this, "FileLoader-" + loc.getFileName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+
+	/**
+	 * Tracks how many bytes have been read, and stops reading if loading
+	 * is canceled.
+	 */
+	private final class ProgressInputStream extends FilterInputStream {
+
+		ProgressInputStream(InputStream in) {
+			super(in);
+		}
+
+		private int count(int count) throws IOException {
+			if (canceled) {
+				throw new InterruptedIOException("Loading canceled");
+			}
+			if (count>0) {
+				bytesRead += count;
+			}
+			return count;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			count(b==-1 ? -1 : 1);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return count(super.read(b, off, len));
+		}
+
+	}
+
+
+}
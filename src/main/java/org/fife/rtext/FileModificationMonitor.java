@@ -0,0 +1,366 @@
+/*
+ * 10/18/2026
+ *
+ * FileModificationMonitor.java - Notices when open files are modified
+ * outside of RText.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Notices when files open in a main view are modified outside of RText,
+ * and has the view check its editors (and prompt the user to reload them)
+ * when they are.<p>
+ *
+ * The folders containing the open files are watched with a
+ * <code>WatchService</code>, one registration per folder, so changes are
+ * picked up right away and nothing happens while the files aren't being
+ * touched.  Files that can't be watched this way - remote files, files on
+ * network file systems (where change notifications often never arrive),
+ * or files in folders that can't be registered - are instead checked
+ * periodically, as all files used to be.  If no <code>WatchService</code>
+ * is available at all, every file is checked periodically.<p>
+ *
+ * All of this happens on a single background thread, started by
+ * {@link #start()} and stopped by {@link #stop()}.  The view lets the
+ * monitor know when files are opened, closed or renamed with
+ * {@link #filesChanged()}.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see AbstractMainView#checkFilesForOutsideModification()
+ */
+final class FileModificationMonitor implements Runnable {
+
+	/**
+	 * Open files are checked once nothing has changed in their folders
+	 * for this long, so a burst of changes (such as another program
+	 * saving a file in several steps) results in a single check.
+	 */
+	private static final long QUIET_MILLIS = 300;
+
+	/**
+	 * File store types whose change notifications can't be relied on.
+	 */
+	private static final List<String> NETWORK_FILE_STORE_TYPES = Arrays.asList(
+			"nfs", "nfs4", "cifs", "smb", "smbfs", "smb2", "afpfs", "webdav",
+			"davfs", "fuse.sshfs", "9p");
+
+	private final AbstractMainView view;
+	private final long pollMillis;
+
+	/**
+	 * The open local files.  Replaced on the EDT, read on the monitor
+	 * thread.
+	 */
+	private volatile Set<Path> files;
+
+	/**
+	 * Whether any open files are remote.
+	 */
+	private volatile boolean remoteFilesOpen;
+
+	private volatile boolean filesChanged;
+	private volatile boolean checkRequested;
+	private volatile boolean stopped;
+	private Thread thread;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param view The main view whose files should be monitored.
+	 * @param pollMillis How often to check files that can't be watched,
+	 *        in milliseconds.
+	 */
+	FileModificationMonitor(AbstractMainView view, long pollMillis) {
+		this.view = view;
+		this.pollMillis = pollMillis;
+		files = Collections.emptySet();
+	}
+
+
+	/**
+	 * Has the view check its files for outside modifications soon.  This
+	 * is called after the user has been prompted about modified files, in
+	 * case others changed in the meantime.
+	 */
+	void checkSoon() {
+		checkRequested = true;
+		wakeUp();
+	}
+
+
+	/**
+	 * Updates the set of files being monitored from the view's editors.
+	 * This should be called on the EDT whenever a file is opened, closed
+	 * or renamed.
+	 */
+	void filesChanged() {
+
+		Set<Path> paths = new HashSet<>();
+		boolean remote = false;
+		for (int i=0; i<view.getNumDocuments(); i++) {
+			RTextEditorPane textArea = view.getRTextEditorPaneAt(i);
+			if (textArea.isLocal()) {
+				paths.add(Paths.get(textArea.getFileFullPath()).toAbsolutePath());
+			}
+			else {
+				remote = true;
+			}
+		}
+
+		files = paths;
+		remoteFilesOpen = remote;
+		filesChanged = true;
+		wakeUp();
+
+	}
+
+
+	/**
+	 * Returns whether a folder is on a file system whose change
+	 * notifications can't be relied on.
+	 */
+	private static boolean isOnNetworkFileSystem(Path dir) {
+		if (dir.toString().startsWith("\\\\")) { // Windows UNC path
+			return true;
+		}
+		try {
+			FileStore store = Files.getFileStore(dir);
+			return NETWORK_FILE_STORE_TYPES.contains(store.type().toLowerCase());
+		} catch (IOException ioe) {
+			return true;
+		}
+	}
+
+
+	/**
+	 * Handles the events of a folder.
+	 *
+	 * @param key The folder's key.
+	 * @return Whether any open files may have changed.
+	 */
+	private boolean handleEvents(WatchKey key) {
+
+		Path dir = (Path)key.watchable();
+		Set<Path> openFiles = files;
+		boolean changed = false;
+
+		for (WatchEvent<?> event : key.pollEvents()) {
+			// Too much happened to know what changed
+			if (event.kind()==StandardWatchEventKinds.OVERFLOW ||
+					openFiles.contains(dir.resolve((Path)event.context()))) {
+				changed = true;
+			}
+		}
+
+		// The folder was deleted or renamed, so it's no longer watched
+		if (!key.reset()) {
+			filesChanged = true;
+			changed = true;
+		}
+
+		return changed;
+
+	}
+
+
+	@Override
+	public void run() {
+
+		WatchService watcher = null;
+		try {
+			watcher = FileSystems.getDefault().newWatchService();
+		} catch (IOException | UnsupportedOperationException e) {
+			// All files will be polled
+		}
+
+		Map<Path, WatchKey> keys = new HashMap<>();
+		boolean polling = true;
+		long nextPoll = System.currentTimeMillis() + pollMillis;
+
+		try {
+			while (!stopped) {
+
+				if (filesChanged) {
+					filesChanged = false;
+					polling = updateKeys(watcher, keys) || remoteFilesOpen;
+				}
+
+				boolean check = false;
+				try {
+
+					WatchKey key;
+					if (watcher==null) {
+						Thread.sleep(Math.max(1, nextPoll - System.currentTimeMillis()));
+						key = null;
+					}
+					else if (polling) {
+						key = watcher.poll(Math.max(1, nextPoll - System.currentTimeMillis()),
+								TimeUnit.MILLISECONDS);
+					}
+					else {
+						key = watcher.take();
+					}
+
+					// Wait for things to quiet down before checking
+					if (key!=null && handleEvents(key)) {
+						check = true;
+						while ((key=watcher.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS))!=null) {
+							handleEvents(key);
+						}
+					}
+
+				} catch (InterruptedException ie) {
+					// Woken up, either to stop or because the files changed
+					if (stopped) {
+						break;
+					}
+				}
+
+				if ((polling || watcher==null) && System.currentTimeMillis()>=nextPoll) {
+					check = true;
+					nextPoll = System.currentTimeMillis() + pollMillis;
+				}
+				if (checkRequested) {
+					checkRequested = false;
+					check = true;
+				}
+
+				if (check && !stopped) {
+					view.checkFilesForOutsideModification();
+				}
+
+			}
+		} catch (ClosedWatchServiceException e) {
+			// Stopped
+		} finally {
+			if (watcher!=null) {
+				try {
+					watcher.close();
+				} catch (IOException ioe) {
+					// Nothing we can do
+				}
+			}
+		}
+
+	}
+
+
+	/**
+	 * Starts monitoring files.
+	 */
+	void start() {
+		thread = new Thread(this, "FileModificationMonitor");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+
+	/**
+	 * Stops monitoring files.
+	 */
+	void stop() {
+		stopped = true;
+		thread.interrupt();
+	}
+
+
+	/**
+	 * Registers the folders containing the open files with the watch
+	 * service, and cancels the registrations of folders that no longer
+	 * contain any.
+	 *
+	 * @param watcher The watch service, or <code>null</code> if there
+	 *        isn't one.
+	 * @param keys The current registrations.  This is updated.
+	 * @return Whether any open files can't be watched and need to be
+	 *         polled.
+	 */
+	private boolean updateKeys(WatchService watcher, Map<Path, WatchKey> keys) {
+
+		if (watcher==null) {
+			return true;
+		}
+
+		Set<Path> dirs = new HashSet<>();
+		for (Path file : files) {
+			Path dir = file.getParent();
+			if (dir!=null) {
+				dirs.add(dir);
+			}
+		}
+
+		boolean polling = false;
+		for (Path dir : dirs) {
+			WatchKey key = keys.get(dir);
+			if (key==null || !key.isValid()) {
+				keys.remove(dir);
+				if (isOnNetworkFileSystem(dir)) {
+					polling = true;
+					continue;
+				}
+				try {
+					keys.put(dir, dir.register(watcher,
+							StandardWatchEventKinds.ENTRY_CREATE,
+							StandardWatchEventKinds.ENTRY_DELETE,
+							StandardWatchEventKinds.ENTRY_MODIFY));
+				} catch (IOException | UnsupportedOperationException e) {
+					// E.g. the folder doesn't exist, or the operating
+					// system's limit on watched folders has been reached
+					polling = true;
+				}
+			}
+		}
+
+		for (Iterator<Map.Entry<Path, WatchKey>> i=keys.entrySet().iterator(); i.hasNext(); ) {
+			Map.Entry<Path, WatchKey> entry = i.next();
+			if (!dirs.contains(entry.getKey())) {
+				entry.getValue().cancel();
+				i.remove();
+			}
+		}
+
+		return polling;
+
+	}
+
+
+	/**
+	 * Wakes up the monitor thread so it notices a change of state.
+	 */
+	private void wakeUp() {
+		if (thread!=null) {
+			thread.interrupt();
+		}
+	}
+
+
+}
@@ -0,0 +1,347 @@
+/*
+ * 10/18/2026
+ *
+ * FileSaver.java - Saves an editor's contents in the background.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.Document;
+
+import org.fife.io.UnicodeWriter;
+
+
+/**
+ * Saves the contents of an editor on a background thread.  The editor's
+ * text is copied when the saver is created, on the EDT, so the user can
+ * keep editing while it's written.  The text is written to a temporary
+ * file in the same folder, which then replaces the file atomically if the
+ * file system supports it, so the file is never left half-written.  As
+ * with <code>TextEditorPane.save()</code>, files that aren't writable
+ * aren't saved.  When saving finishes (or fails), the main view is
+ * notified on the EDT, unless it already waited for the result with
+ * {@link #awaitWritten()}.<p>
+ *
+ * Several files can be saved in parallel with
+ * {@link #saveAll(List)}.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see AbstractMainView#saveAllFiles()
+ */
+final class FileSaver implements Runnable {
+
+	private final AbstractMainView view;
+	private final RTextEditorPane textArea;
+	private final Document doc;
+	private final Path file;
+	private final String text;
+	private final String lineSeparator;
+	private final String encoding;
+	private final DocumentListener listener;
+	private final CountDownLatch written;
+
+	/**
+	 * The error that occurred saving, if any.  Set before
+	 * <code>written</code> is counted down.
+	 */
+	private volatile IOException error;
+
+	/**
+	 * Whether the document was modified after its text was copied.  Only
+	 * accessed on the EDT.
+	 */
+	private boolean modified;
+
+
+	/**
+	 * Constructor.  This copies the editor's text, so it should be called
+	 * on the EDT.
+	 *
+	 * @param view The main view to notify when saving finishes.
+	 * @param textArea The editor to save.  This should be editing a local
+	 *        file.
+	 */
+	FileSaver(AbstractMainView view, RTextEditorPane textArea) {
+
+		this.view = view;
+		this.textArea = textArea;
+		doc = textArea.getDocument();
+		file = Paths.get(textArea.getFileFullPath());
+		encoding = textArea.getEncoding();
+		written = new CountDownLatch(1);
+
+		// Written the same way DefaultEditorKit.write() would
+		Object separator = doc.getProperty(DefaultEditorKit.EndOfLineStringProperty);
+		lineSeparator = separator instanceof String ? (String)separator :
+				System.lineSeparator();
+
+		String[] contents = new String[1];
+		doc.render(() -> {
+			try {
+				contents[0] = doc.getText(0, doc.getLength());
+			} catch (BadLocationException ble) { // Never happens
+				contents[0] = "";
+			}
+		});
+		text = contents[0];
+
+		listener = new DocumentListener() {
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+			}
+
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				modified = true;
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				modified = true;
+			}
+		};
+		doc.addDocumentListener(listener);
+
+	}
+
+
+	/**
+	 * Waits for the file to be written.  This is used when the editor is
+	 * saved or closed while it's being saved in the background, so the
+	 * older text being saved here can't replace what's saved then.
+	 *
+	 * @return The error that occurred saving, or <code>null</code> if the
+	 *         file was written.
+	 */
+	IOException awaitWritten() {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				written.await();
+				break;
+			} catch (InterruptedException ie) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return error;
+	}
+
+
+	/**
+	 * Stops tracking changes to the editor.  This should be called on the
+	 * EDT once saving finishes.
+	 */
+	void dispose() {
+		doc.removeDocumentListener(listener);
+	}
+
+
+	/**
+	 * Returns the number of hard links to a file.
+	 *
+	 * @return The number of links, or <code>1</code> if the file doesn't
+	 *         exist or the file system doesn't say.
+	 */
+	private static int getLinkCount(Path path) {
+		try {
+			return Files.exists(path) ? (Integer)Files.getAttribute(path, "unix:nlink") : 1;
+		} catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+			return 1;
+		}
+	}
+
+
+	/**
+	 * Returns the editor being saved.
+	 *
+	 * @return The editor.
+	 */
+	RTextEditorPane getTextArea() {
+		return textArea;
+	}
+
+
+	/**
+	 * Returns whether the editor's text changed after it was copied, in
+	 * which case it's still dirty after saving.  This should be called on
+	 * the EDT.
+	 *
+	 * @return Whether the editor's text changed.
+	 */
+	boolean isModified() {
+		return modified || textArea.getDocument()!=doc;
+	}
+
+
+	/**
+	 * Moves the temporary file into place, replacing the file atomically
+	 * if the file system supports it.
+	 */
+	private static void move(Path source, Path dest) throws IOException {
+		try {
+			Files.move(source, dest, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException amnse) {
+			Files.move(source, dest, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+
+	@Override
+	public void run() {
+
+		try {
+			save();
+		} catch (IOException ioe) {
+			error = ioe;
+		} catch (OutOfMemoryError oome) {
+			error = new IOException(oome.toString(), oome);
+		}
+
+		written.countDown();
+		IOException finalError = error;
+		SwingUtilities.invokeLater(() -> view.fileSaved(this, finalError));
+
+	}
+
+
+	/**
+	 * Writes the file.
+	 */
+	private void save() throws IOException {
+
+		// Replace the file a symbolic link points to, not the link
+		Path target = Files.exists(file) ? file.toRealPath() : file;
+
+		// Renaming over a file only needs write access to its folder, but
+		// files that can't be written to shouldn't be saved.
+		if (Files.exists(target) && !Files.isWritable(target)) {
+			throw new AccessDeniedException(target.toString(), null,
+					"Permission denied");
+		}
+
+		// Replacing a file with other hard links to it would separate it
+		// from them.
+		if (getLinkCount(target)>1) {
+			write(target, false);
+			return;
+		}
+
+		Path temp;
+		try {
+			temp = Files.createTempFile(target.toAbsolutePath().getParent(),
+					"." + target.getFileName() + ".", ".tmp");
+		} catch (AccessDeniedException ade) {
+			// We can write the file but not create others next to it, so
+			// it has to be overwritten in place
+			write(target, false);
+			return;
+		}
+
+		try {
+			PosixFileAttributeView attrs = Files.getFileAttributeView(target,
+					PosixFileAttributeView.class);
+			if (attrs!=null && Files.exists(target)) {
+				Files.setPosixFilePermissions(temp, attrs.readAttributes().permissions());
+			}
+			write(temp, true);
+			move(temp, target);
+		} catch (IOException | RuntimeException | Error e) {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException ioe) {
+				e.addSuppressed(ioe);
+			}
+			throw e;
+		}
+
+	}
+
+
+	/**
+	 * Saves several editors in parallel.  This should be called on the EDT.
+	 *
+	 * @param savers The savers of the editors.
+	 */
+	static void saveAll(List<FileSaver> savers) {
+		if (savers.isEmpty()) {
+			return;
+		}
+		int threadCount = Math.min(savers.size(),
+				Runtime.getRuntime().availableProcessors());
+		AtomicInteger threadNum = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount, r -> {
+			Thread t = new Thread(r, "FileSaver-" + threadNum.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		savers.forEach(pool::execute);
+		pool.shutdown();
+	}
+
+
+	/**
+	 * Encodes and writes the text to a file.
+	 *
+	 * @param path The file to write to.
+	 * @param sync Whether to flush the file to the storage device before
+	 *        returning, so it can safely replace another.
+	 */
+	private void write(Path path, boolean sync) throws IOException {
+
+		try (FileOutputStream out = new FileOutputStream(path.toFile());
+				Writer w = new BufferedWriter(new UnicodeWriter(out, encoding))) {
+
+			if ("\n".equals(lineSeparator)) {
+				w.write(text);
+			}
+			else {
+				int start = 0;
+				int newline;
+				while ((newline=text.indexOf('\n', start))>-1) {
+					w.write(text, start, newline - start);
+					w.write(lineSeparator);
+					start = newline + 1;
+				}
+				w.write(text, start, text.length() - start);
+			}
+
+			if (sync) {
+				w.flush();
+				out.getFD().sync();
+			}
+
+		}
+
+	}
+
+
+}
@@ -21,6 +21,7 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.swing.*;
@@ -441,6 +442,7 @@ public class RText extends AbstractPluggableGUIApplication<RTextPrefs>
 				if (chooser!=null) {
 					RTextUtilities.saveFileChooserFavorites(this);
 				}
+				EditJournal.shutdown();
 				System.exit(0);
 			}
 
@@ -889,15 +891,23 @@ public class RText extends AbstractPluggableGUIApplication<RTextPrefs>
 
 
 	/**
-	 * Opens the specified files.
+	 * Opens the specified files.  Only the last one is read right away;
+	 * the others are read as they're selected, so starting with many files
+	 * stays fast.
 	 *
 	 * @param filesToOpen The files to open.  This can be <code>null</code>.
 	 * @see #openFile
+	 * @see AbstractMainView#openFiles(List, String)
 	 */
 	private void openFiles(String[] filesToOpen) {
-		int count = filesToOpen==null ? 0 : filesToOpen.length;
-		for (int i=0; i<count; i++) {
-			openFile(new File(filesToOpen[i]));
+		if (filesToOpen!=null && filesToOpen.length>0) {
+			List<FileLocation> locs = new ArrayList<>();
+			for (String file : filesToOpen) {
+				locs.add(FileLocation.create(new File(file).getAbsolutePath()));
+			}
+			// null encoding means check for Unicode before using
+			// system default encoding.
+			SwingUtilities.invokeLater(() -> mainView.openFiles(locs, null));
 		}
 	}
 
@@ -1082,8 +1092,10 @@ public class RText extends AbstractPluggableGUIApplication<RTextPrefs>
 			setTitle((String)e.getNewValue());
 		}
 
-		// If the file's modification status is changing...
-		else if (propertyName.equals(RTextEditorPane.DIRTY_PROPERTY)) {
+		// If the current file's modification status is changing (files
+		// saved in the background may not be the current one)...
+		else if (propertyName.equals(RTextEditorPane.DIRTY_PROPERTY) &&
+				e.getSource()==mainView.getCurrentTextArea()) {
 			String oldTitle = getTitle();
 			boolean newValue = (Boolean)e.getNewValue();
 			if (!newValue) {
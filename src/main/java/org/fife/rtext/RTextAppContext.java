@@ -171,6 +171,10 @@ public class RTextAppContext extends AppContext<RText, RTextPrefs> {
 
 		prefs.useSearchDialogs			= mainView.getSearchManager().
 			getSearchingMode()== SearchManager.SearchingMode.DIALOGS;
+		prefs.findInFilesMaxFileSize	= (int)(mainView.searchContext.
+			getMaxFileSize() / (1024 * 1024));
+		prefs.findInFilesMaxResultsInMemory = mainView.searchContext.
+			getMaxResultsInMemory();
 
 	}
 }
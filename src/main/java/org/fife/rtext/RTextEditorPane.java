@@ -14,8 +14,11 @@ import java.awt.Graphics;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.print.PageFormat;
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import javax.swing.*;
+import javax.swing.text.Document;
 
 import org.fife.print.RPrintUtilities;
 import org.fife.rtext.plugins.filesystemtree.FileSystemTreePlugin;
@@ -35,6 +38,18 @@ public class RTextEditorPane extends TextEditorPane {
 
 	private RText rtext;
 
+	/**
+	 * A document already read from the file being loaded, installed in
+	 * place of reading the file again.  Only non-<code>null</code> while
+	 * loading.
+	 */
+	private Document loadedDocument;
+
+	/**
+	 * Whether this editor's file hasn't been read yet.
+	 */
+	private boolean placeholder;
+
 
 	/**
 	 * Creates a new <code>RTextEditorPane</code>.  Syntax highlighting will
@@ -60,6 +75,41 @@ public class RTextEditorPane extends TextEditorPane {
 	}
 
 
+	/**
+	 * Creates a new <code>RTextEditorPane</code> for a local file whose
+	 * contents have already been read into a document, for example on a
+	 * background thread.  The file's encoding, read-only state and
+	 * modification time are picked up just as if the file was loaded
+	 * here.
+	 *
+	 * @param rtext The owning RText instance.
+	 * @param wordWrapEnabled Whether to use word wrap in this pane.
+	 * @param textMode Either <code>INSERT_MODE</code> or
+	 *        <code>OVERWRITE_MODE</code>.
+	 * @param loc The location of the file.  This should be a local file
+	 *        that exists.
+	 * @param encoding The encoding the document was read with.
+	 * @param doc The file's contents.
+	 * @throws IOException If an IO error occurs reading the file's BOM.
+	 * @see FileLoader
+	 */
+	RTextEditorPane(RText rtext, boolean wordWrapEnabled, int textMode,
+			FileLocation loc, String encoding, Document doc) throws IOException {
+		super(textMode, wordWrapEnabled);
+		this.rtext = rtext;
+		setTransferHandler(new RTextEditorPaneTransferHandler());
+		loadedDocument = doc;
+		try {
+			load(loc, encoding);
+		} finally {
+			loadedDocument = null;
+		}
+		syncLastSaveOrLoadTimeToActualFile();
+		setReadOnly(!new File(loc.getFileFullPath()).canWrite());
+		setDirty(false);
+	}
+
+
 	@Override
 	protected JPopupMenu createPopupMenu() {
 
@@ -87,6 +137,20 @@ public class RTextEditorPane extends TextEditorPane {
 	}
 
 
+	/**
+	 * Returns whether this editor is a placeholder whose file hasn't been
+	 * read yet.  Placeholders are created when many files are opened at
+	 * once; their documents are empty until they're first selected.  Code
+	 * that reads or modifies the text of editors that aren't selected
+	 * should read the file itself instead.
+	 *
+	 * @return Whether this editor is a placeholder.
+	 */
+	public boolean isPlaceholder() {
+		return placeholder;
+	}
+
+
 	/**
 	 * Method called when it's time to print this badboy (the old-school, AWT
 	 * way).  This method overrides <code>RTextArea</code>'s <code>print</code>
@@ -106,6 +170,33 @@ public class RTextEditorPane extends TextEditorPane {
 	}
 
 
+	/**
+	 * Overridden to install a document already read from the file being
+	 * loaded, if there is one, instead of reading the file again.
+	 */
+	@Override
+	public void read(Reader in, Object desc) throws IOException {
+		if (loadedDocument!=null) {
+			setDocument(loadedDocument);
+		}
+		else {
+			super.read(in, desc);
+		}
+	}
+
+
+	/**
+	 * Sets whether this editor is a placeholder whose file hasn't been read
+	 * yet.
+	 *
+	 * @param placeholder Whether this editor is a placeholder.
+	 * @see #isPlaceholder()
+	 */
+	void setPlaceholder(boolean placeholder) {
+		this.placeholder = placeholder;
+	}
+
+
 	/**
 	 * Transfer handler for editor panes.  Overrides the default transfer
 	 * handler so we can drag-and-drop files into a text area, and know to
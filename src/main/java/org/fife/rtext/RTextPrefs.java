@@ -31,6 +31,7 @@ import org.fife.ui.rsyntaxtextarea.Theme;
 import org.fife.ui.rtextarea.CaretStyle;
 import org.fife.ui.rtextarea.FoldIndicatorStyle;
 import org.fife.ui.rtextarea.RTextArea;
+import org.fife.ui.search.FindInFilesSearchContext;
 import org.fife.util.MacOSUtil;
 
 
@@ -140,6 +141,8 @@ public class RTextPrefs extends AppPrefs implements RTextActionInfo {
 	public boolean dropShadowsInEditor;
 	public String codeFoldingEnabledFor;
 	public boolean useSearchDialogs;
+	public int findInFilesMaxFileSize;			// In MB, 0 => no limit
+	public int findInFilesMaxResultsInMemory;
 
 
 	/**
@@ -277,6 +280,9 @@ public class RTextPrefs extends AppPrefs implements RTextActionInfo {
 		dropShadowsInEditor = getDefaultDropShadowsInEditorValue();
 		codeFoldingEnabledFor = "";
 		useSearchDialogs = true;
+		findInFilesMaxFileSize = 0;
+		findInFilesMaxResultsInMemory = FindInFilesSearchContext.
+										DEFAULT_MAX_RESULTS_IN_MEMORY;
 
 	}
 
@@ -13,6 +13,8 @@ import java.awt.*;
 import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -29,6 +31,7 @@ import org.fife.ui.WebLookAndFeelUtils;
 import org.fife.ui.app.AppTheme;
 import org.fife.ui.app.icons.IconGroup;
 import org.fife.ui.rsyntaxtextarea.CodeTemplateManager;
+import org.fife.ui.rsyntaxtextarea.FileLocation;
 import org.fife.ui.rsyntaxtextarea.PopupWindowDecorator;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.templates.CodeTemplate;
@@ -103,6 +106,29 @@ public final class RTextUtilities {
 	}
 
 
+	/**
+	 * Adds the locations of all files in a directory tree to a list.
+	 *
+	 * @param directory The top of the directory tree.
+	 * @param locs The list to add to.
+	 */
+	private static void addAllFilesIn(File directory, List<FileLocation> locs) {
+		if (directory!=null && directory.isDirectory()) {
+			File[] files = directory.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					if (file.isDirectory()) {
+						addAllFilesIn(file, locs);
+					}
+					else {
+						locs.add(FileLocation.create(file));
+					}
+				}
+			}
+		}
+	}
+
+
 	/**
 	 * Adds an extension file filter to the specified file chooser.
 	 *
@@ -687,25 +713,22 @@ public final class RTextUtilities {
 
 
 	/**
-	 * Opens all files in the specified directory tree in RText.
+	 * Opens all files in the specified directory tree in RText.  Only the
+	 * last one is read right away; the others are read as they're
+	 * selected.
 	 *
 	 * @param rtext The RText instance in which to open the files.
 	 * @param directory The top of the directory tree, all files in which
 	 *        you want opened in RText.
+	 * @see AbstractMainView#openFiles(List, String)
 	 */
 	public static void openAllFilesIn(RText rtext, File directory) {
-		if (directory!=null && directory.isDirectory()) {
-			File[] files = directory.listFiles();
-			if (files != null) {
-				for (File file : files) {
-					if (file.isDirectory()) {
-						openAllFilesIn(rtext, file);
-					}
-					else {
-						rtext.openFile(file);
-					}
-				}
-			}
+		List<FileLocation> locs = new ArrayList<>();
+		addAllFilesIn(directory, locs);
+		if (!locs.isEmpty()) {
+			// null encoding means check for Unicode before using system
+			// default encoding.
+			SwingUtilities.invokeLater(() -> rtext.getMainView().openFiles(locs, null));
 		}
 	}
 
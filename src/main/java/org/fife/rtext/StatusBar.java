@@ -17,8 +17,14 @@ import java.awt.event.KeyEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
+import javax.swing.JButton;
 import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.Timer;
 
 import org.fife.ui.StatusBarPanel;
 
@@ -31,6 +37,7 @@ import org.fife.ui.StatusBarPanel;
  *    <li>An overwrite (insert) mode indicator.
  *    <li>A Caps Lock indicator.
  *    <li>A file "Read Only" mode indicator.
+ *    <li>The progress of files being loaded in the background, if any.
  * </ul>
  *
  * @author Robert Futrell
@@ -55,10 +62,21 @@ public class StatusBar extends org.fife.ui.StatusBar
 	private StatusBarPanel capsLockPanel;
 	private StatusBarPanel readOnlyPanel;
 	private StatusBarPanel selectionLengthPanel;
+	private StatusBarPanel loadingPanel;
+
+	private JProgressBar loadingProgressBar;
+	private Timer loadingTimer;
+
+	/**
+	 * Files being loaded in the background.  The progress of the first one
+	 * is displayed.
+	 */
+	private List<FileLoader> fileLoaders;
 
 	private String fileSaveSuccessfulText;
 	private String openedFileText;
 	private String selectionLengthText;
+	private String loadingFileText;
 
 	// Hack: Sine row/column can change so frequently, we break apart
 	// the row/column text in the status bar for speedy updating.
@@ -95,6 +113,7 @@ public class StatusBar extends org.fife.ui.StatusBar
 		fileSaveSuccessfulText = msg.getString("FileSaveSuccessful");
 		openedFileText = msg.getString("OpenedFile");
 		selectionLengthText = msg.getString("SelectionLength");
+		loadingFileText = msg.getString("LoadingFile");
 		initRowColumnTextStuff(msg);
 		row = newRow;
 		column = newColumn; // DON'T call setRowAndColumn() yet!
@@ -162,6 +181,22 @@ public class StatusBar extends org.fife.ui.StatusBar
 		temp1.add(rowAndColumnIndicator);
 		addStatusBarComponent(temp1, c);
 
+		// Create a panel showing the progress of files being loaded in the
+		// background.  It's only visible while a file is loading.
+		c.weightx = 0.0;
+		loadingProgressBar = new JProgressBar(0, 100);
+		loadingProgressBar.setStringPainted(true);
+		JButton cancelButton = new JButton(msg.getString("CancelLoading"));
+		cancelButton.addActionListener(e -> cancelFileLoad());
+		JPanel temp2 = new JPanel(new BorderLayout());
+		temp2.add(loadingProgressBar);
+		temp2.add(cancelButton, BorderLayout.LINE_END);
+		loadingPanel = new StatusBarPanel(new BorderLayout(), temp2);
+		loadingPanel.setVisible(false);
+		addStatusBarComponent(loadingPanel, c);
+		fileLoaders = new ArrayList<>();
+		loadingTimer = new Timer(200, e -> updateFileLoadDisplay());
+
 	}
 
 
@@ -176,6 +211,16 @@ public class StatusBar extends org.fife.ui.StatusBar
 	}
 
 
+	/**
+	 * Cancels loading the file whose progress is displayed.
+	 */
+	private void cancelFileLoad() {
+		if (!fileLoaders.isEmpty()) {
+			fileLoaders.get(0).cancel();
+		}
+	}
+
+
 	private static JLabel createLabel(ResourceBundle bundle, String key) {
 		JLabel label = new JLabel(bundle.getString(key));
 		label.setHorizontalAlignment(JLabel.CENTER);
@@ -183,6 +228,33 @@ public class StatusBar extends org.fife.ui.StatusBar
 	}
 
 
+	/**
+	 * Called when a file has finished loading in the background, whether
+	 * successfully or not.  This should be called on the EDT.
+	 *
+	 * @param loader The loader.
+	 * @see #fileLoadStarted(FileLoader)
+	 */
+	void fileLoadFinished(FileLoader loader) {
+		fileLoaders.remove(loader);
+		updateFileLoadDisplay();
+	}
+
+
+	/**
+	 * Called when a file starts loading in the background.  Its progress
+	 * is displayed, along with a button to cancel it, until it finishes.
+	 * This should be called on the EDT.
+	 *
+	 * @param loader The loader.
+	 * @see #fileLoadFinished(FileLoader)
+	 */
+	void fileLoadStarted(FileLoader loader) {
+		fileLoaders.add(loader);
+		updateFileLoadDisplay();
+	}
+
+
 	/**
 	 * Dirty hack to avoid having to use MessageFormat.format() every
 	 * time the caret's position changes.
@@ -365,6 +437,29 @@ public class StatusBar extends org.fife.ui.StatusBar
 	}
 
 
+	/**
+	 * Updates the progress of the file being loaded in the background, or
+	 * hides it if no files are loading.
+	 */
+	private void updateFileLoadDisplay() {
+
+		if (fileLoaders.isEmpty()) {
+			loadingTimer.stop();
+			loadingPanel.setVisible(false);
+			return;
+		}
+
+		FileLoader loader = fileLoaders.get(0);
+		loadingProgressBar.setValue(loader.getProgress());
+		loadingProgressBar.setString(MessageFormat.format(loadingFileText,
+			loader.getFileLocation().getFileName()));
+		if (!loadingPanel.isVisible()) {
+			loadingPanel.setVisible(true);
+			loadingTimer.start();
+		}
+	}
+
+
 	/**
 	 * Updates the row/column indicator to reflect the current caret
 	 * location, if it is enabled.
@@ -0,0 +1,375 @@
+/*
+ * 10/18/2026
+ *
+ * LargeFileView.java - Displays the lines of a memory-mapped file.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext.largefile;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.RenderingHints;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.List;
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+import javax.swing.UIManager;
+
+
+/**
+ * Displays the lines of a {@link MappedTextFile}.  Only the lines that are
+ * visible are ever read from the file, so this works for files of any
+ * size.<p>
+ *
+ * A <code>JScrollPane</code> can't be used, since the height of a
+ * component is limited to <code>Integer.MAX_VALUE</code> pixels, which a
+ * large enough file would exceed.  Instead, the vertical scroll bar scrolls
+ * through lines rather than pixels.  The lines available grow as the file
+ * is indexed; call {@link #refreshLineCount()} to pick up new ones.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class LargeFileView extends JPanel {
+
+	/**
+	 * Lines are truncated to this many characters when displayed.
+	 */
+	private static final int MAX_DISPLAYED_CHARS = 4096;
+
+	private static final int WHEEL_SCROLL_LINES = 3;
+
+	private final MappedTextFile file;
+	private final int tabSize;
+	private final TextPanel textPanel;
+	private final JScrollBar verticalScrollBar;
+	private final JScrollBar horizontalScrollBar;
+
+	/**
+	 * The widest line displayed so far, in pixels.
+	 */
+	private int maxLineWidth;
+
+	/**
+	 * The highlighted line, or <code>-1</code> for none.
+	 */
+	private int markedLine;
+
+	/**
+	 * The highlighted range in the marked line, if any.
+	 */
+	private int markStart;
+	private int markEnd;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file The file to display.
+	 * @param font The font to display the text in.
+	 * @param foreground The text color.
+	 * @param background The background color.
+	 * @param tabSize The number of spaces a tab is displayed as.
+	 */
+	LargeFileView(MappedTextFile file, Font font, Color foreground,
+			Color background, int tabSize) {
+
+		super(new BorderLayout());
+		this.file = file;
+		this.tabSize = tabSize;
+		markedLine = -1;
+
+		textPanel = new TextPanel();
+		textPanel.setFont(font);
+		textPanel.setForeground(foreground);
+		textPanel.setBackground(background);
+		textPanel.setOpaque(true);
+		textPanel.setBorder(BorderFactory.createEmptyBorder(0, 3, 0, 3));
+		add(textPanel);
+
+		verticalScrollBar = new JScrollBar(JScrollBar.VERTICAL);
+		verticalScrollBar.addAdjustmentListener(e -> textPanel.repaint());
+		add(verticalScrollBar, BorderLayout.LINE_END);
+		horizontalScrollBar = new JScrollBar(JScrollBar.HORIZONTAL);
+		horizontalScrollBar.addAdjustmentListener(e -> textPanel.repaint());
+		add(horizontalScrollBar, BorderLayout.PAGE_END);
+
+		textPanel.addMouseWheelListener(this::mouseWheelMoved);
+		textPanel.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				refreshLineCount();
+				updateHorizontalScrollBar();
+			}
+		});
+		refreshLineCount();
+
+	}
+
+
+	/**
+	 * Expands tabs and truncates a line for display.
+	 */
+	private String expandTabs(String line) {
+		if (line.length()>MAX_DISPLAYED_CHARS) {
+			line = line.substring(0, MAX_DISPLAYED_CHARS);
+		}
+		if (line.indexOf('\t')==-1) {
+			return line;
+		}
+		StringBuilder sb = new StringBuilder(line.length() + 16);
+		for (int i=0; i<line.length(); i++) {
+			char ch = line.charAt(i);
+			if (ch=='\t') {
+				do {
+					sb.append(' ');
+				} while (sb.length()%tabSize!=0);
+			}
+			else {
+				sb.append(ch);
+			}
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * Returns the first line visible.
+	 *
+	 * @return The (0-based) line.
+	 */
+	int getFirstVisibleLine() {
+		return verticalScrollBar.getValue();
+	}
+
+
+	/**
+	 * Returns the text panel, which should get focus.
+	 *
+	 * @return The text panel.
+	 */
+	JComponent getTextPanel() {
+		return textPanel;
+	}
+
+
+	/**
+	 * Returns how many lines fit in the visible area.
+	 *
+	 * @return The number of lines.
+	 */
+	int getVisibleLineCount() {
+		int height = textPanel.getHeight();
+		int lineHeight = textPanel.getFontMetrics(textPanel.getFont()).getHeight();
+		return Math.max(1, height / lineHeight);
+	}
+
+
+	/**
+	 * Highlights a line, or part of it, and scrolls it into view.
+	 *
+	 * @param line The (0-based) line.
+	 * @param start The (0-based) column where the highlighted range
+	 *        starts.
+	 * @param end The column where the highlighted range ends.  If this is
+	 *        equal to <code>start</code>, only the line is highlighted.
+	 */
+	void markLine(int line, int start, int end) {
+
+		markedLine = line;
+		markStart = start;
+		markEnd = end;
+
+		int visibleLines = getVisibleLineCount();
+		int first = getFirstVisibleLine();
+		if (line<first || line>=first+visibleLines) {
+			scrollToLine(line - visibleLines/3);
+		}
+
+		// Scroll horizontally so the highlighted text is visible too
+		if (end>start) {
+			List<String> lines = file.getLines(line, 1);
+			if (!lines.isEmpty()) {
+				String text = lines.get(0);
+				FontMetrics fm = textPanel.getFontMetrics(textPanel.getFont());
+				int x = fm.stringWidth(expandTabs(text.substring(0, Math.min(start, text.length()))));
+				int width = textPanel.getWidth();
+				int scrollX = horizontalScrollBar.getValue();
+				if (x<scrollX || x>=scrollX+width-50) {
+					maxLineWidth = Math.max(maxLineWidth, x + width);
+					updateHorizontalScrollBar();
+					horizontalScrollBar.setValue(Math.max(0, x - width/3));
+				}
+			}
+		}
+
+		textPanel.repaint();
+
+	}
+
+
+	private void mouseWheelMoved(MouseWheelEvent e) {
+		if (e.isShiftDown()) {
+			JScrollBar sb = horizontalScrollBar;
+			sb.setValue(sb.getValue() + e.getWheelRotation() * sb.getUnitIncrement() * 8);
+		}
+		else {
+			scrollToLine(getFirstVisibleLine() + e.getWheelRotation() * WHEEL_SCROLL_LINES);
+		}
+	}
+
+
+	/**
+	 * Updates the vertical scroll bar to include any lines indexed since
+	 * it was last updated.
+	 */
+	void refreshLineCount() {
+		int visibleLines = getVisibleLineCount();
+		verticalScrollBar.setValues(verticalScrollBar.getValue(), visibleLines, 0,
+				file.getLineCount() + visibleLines - 1);
+		verticalScrollBar.setBlockIncrement(Math.max(1, visibleLines - 1));
+	}
+
+
+	/**
+	 * Scrolls vertically by a number of lines.
+	 *
+	 * @param lines The number of lines to scroll by.  This may be
+	 *        negative.
+	 */
+	void scrollBy(int lines) {
+		scrollToLine(getFirstVisibleLine() + lines);
+	}
+
+
+	/**
+	 * Scrolls so a line is the first one visible, or as close to it as
+	 * possible.
+	 *
+	 * @param line The (0-based) line.
+	 */
+	void scrollToLine(int line) {
+		int max = verticalScrollBar.getMaximum() - verticalScrollBar.getVisibleAmount();
+		verticalScrollBar.setValue(Math.max(0, Math.min(line, max)));
+	}
+
+
+	/**
+	 * Updates the horizontal scroll bar to allow scrolling to the end of
+	 * the widest line displayed so far.
+	 */
+	private void updateHorizontalScrollBar() {
+		int width = Math.max(1, textPanel.getWidth());
+		horizontalScrollBar.setValues(horizontalScrollBar.getValue(), width, 0,
+				Math.max(width, maxLineWidth));
+		horizontalScrollBar.setBlockIncrement(width);
+		horizontalScrollBar.setUnitIncrement(
+				textPanel.getFontMetrics(textPanel.getFont()).charWidth('m'));
+	}
+
+
+	/**
+	 * Paints the visible lines, with line numbers.
+	 */
+	private final class TextPanel extends JComponent {
+
+		@Override
+		public Dimension getPreferredSize() {
+			FontMetrics fm = getFontMetrics(getFont());
+			return new Dimension(fm.charWidth('m') * 100, fm.getHeight() * 40);
+		}
+
+		@Override
+		protected void paintComponent(Graphics g) {
+
+			Graphics2D g2d = (Graphics2D)g;
+			g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+					RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			g.setColor(getBackground());
+			g.fillRect(0, 0, getWidth(), getHeight());
+			g.setFont(getFont());
+
+			FontMetrics fm = g.getFontMetrics();
+			int lineHeight = fm.getHeight();
+			int first = getFirstVisibleLine();
+			List<String> lines = file.getLines(first, getHeight()/lineHeight + 1);
+
+			// Line numbers
+			Insets insets = getInsets();
+			int lastLine = first + lines.size();
+			int gutterWidth = fm.stringWidth(Integer.toString(lastLine)) + 12;
+			Color lineNumberColor = UIManager.getColor("Label.disabledForeground");
+			if (lineNumberColor==null) {
+				lineNumberColor = Color.GRAY;
+			}
+			Color markColor = UIManager.getColor("TextArea.selectionBackground");
+			if (markColor==null) {
+				markColor = Color.LIGHT_GRAY;
+			}
+
+			int textX = insets.left + gutterWidth - horizontalScrollBar.getValue();
+			int y = fm.getAscent();
+			int widest = maxLineWidth;
+			for (int i=0; i<lines.size(); i++) {
+
+				String line = expandTabs(lines.get(i));
+				int lineWidth = fm.stringWidth(line);
+				widest = Math.max(widest, lineWidth + gutterWidth);
+
+				if (first+i==markedLine) {
+					g.setColor(markColor);
+					if (markEnd>markStart) {
+						String raw = lines.get(i);
+						int start = fm.stringWidth(expandTabs(raw.substring(0,
+								Math.min(markStart, raw.length()))));
+						int end = fm.stringWidth(expandTabs(raw.substring(0,
+								Math.min(markEnd, raw.length()))));
+						g.fillRect(textX + start, y - fm.getAscent(), end - start, lineHeight);
+					}
+					else {
+						g.fillRect(0, y - fm.getAscent(), getWidth(), lineHeight);
+					}
+				}
+
+				g.setColor(getForeground());
+				g.drawString(line, textX, y);
+				y += lineHeight;
+
+			}
+
+			// The gutter is painted last so text scrolled left is hidden
+			// behind it.
+			g.setColor(getBackground());
+			g.fillRect(0, 0, insets.left + gutterWidth - 6, getHeight());
+			g.setColor(lineNumberColor);
+			y = fm.getAscent();
+			for (int i=0; i<lines.size(); i++) {
+				String number = Integer.toString(first + i + 1);
+				g.drawString(number, insets.left + gutterWidth - 12 - fm.stringWidth(number), y);
+				y += lineHeight;
+			}
+
+			if (widest>maxLineWidth) {
+				maxLineWidth = widest;
+				updateHorizontalScrollBar();
+			}
+
+		}
+
+	}
+
+
+}
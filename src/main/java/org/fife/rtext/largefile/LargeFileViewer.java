@@ -0,0 +1,406 @@
+/*
+ * 10/18/2026
+ *
+ * LargeFileViewer.java - A read-only viewer for files too large to edit.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext.largefile;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.ResourceBundle;
+import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
+import javax.swing.InputMap;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JRootPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.UIManager;
+
+import org.fife.rsta.ui.GoToDialog;
+import org.fife.rtext.AbstractMainView;
+import org.fife.rtext.RText;
+
+
+/**
+ * A read-only viewer for files too large to open in an editor, such as
+ * multi-gigabyte logs.  The file is memory-mapped and never loaded into a
+ * Swing document; only the lines on screen are read.  The file can be
+ * scrolled through, searched, and jumped around in by line number, as soon
+ * as it's opened.  Its line index is built in the background, and the
+ * lines available grow as it is.<p>
+ *
+ * Only files in encodings where line breaks are single bytes, such as
+ * UTF-8 and the ISO-8859 family, can be viewed.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class LargeFileViewer extends JFrame {
+
+	private static final ResourceBundle MSG = ResourceBundle.getBundle(
+			"org.fife.rtext.largefile.LargeFileViewer");
+
+	private final RText rtext;
+	private final MappedTextFile file;
+	private final LargeFileView view;
+	private final JTextField findField;
+	private final JCheckBox matchCaseCheckBox;
+	private final JButton findButton;
+	private final JLabel findStatusLabel;
+	private final JLabel indexStatusLabel;
+	private final Timer indexTimer;
+	private GoToDialog goToDialog;
+
+	/**
+	 * The line and column of the last match found, or the line last gone
+	 * to, so "Find Next" continues from there.  The line is <code>-1</code>
+	 * if there isn't one.
+	 */
+	private int lastMatchLine;
+	private int lastMatchColumn;
+
+	private Thread searchThread;
+	private volatile boolean searchCanceled;
+
+
+	/**
+	 * Constructor.  The file is opened immediately; call
+	 * <code>setVisible(true)</code> to display it.
+	 *
+	 * @param rtext The parent application.
+	 * @param file The file to view.
+	 * @param charSet The encoding to use if the file has no BOM, or
+	 *        <code>null</code> for the system default.
+	 * @throws IOException If an IO error occurs opening the file, or it's
+	 *         in an encoding that can't be viewed.
+	 */
+	public LargeFileViewer(RText rtext, File file, String charSet)
+			throws IOException {
+
+		this.rtext = rtext;
+		try {
+			this.file = MappedTextFile.open(file, charSet);
+		} catch (UnsupportedEncodingException uee) {
+			throw new IOException(MessageFormat.format(
+					MSG.getString("UnsupportedEncoding"), file.getName(),
+					uee.getMessage()), uee);
+		}
+		lastMatchLine = -1;
+
+		AbstractMainView mainView = rtext.getMainView();
+		Color background = mainView.getTextAreaBackgroundColor();
+		if (background==null) { // A background image is used
+			background = UIManager.getColor("TextArea.background");
+		}
+		view = new LargeFileView(this.file, mainView.getTextAreaFont(),
+				mainView.getTextAreaForeground(), background,
+				mainView.getTabSize());
+
+		JPanel contentPane = new JPanel(new BorderLayout());
+
+		// The "find" toolbar
+		JPanel findPanel = new JPanel(new FlowLayout(FlowLayout.LEADING));
+		findField = new JTextField(25);
+		findField.addActionListener(e -> findNext());
+		JLabel findLabel = new JLabel(MSG.getString("Find"));
+		findLabel.setDisplayedMnemonic(getMnemonic("Find.Mnemonic"));
+		findLabel.setLabelFor(findField);
+		findPanel.add(findLabel);
+		findPanel.add(findField);
+		matchCaseCheckBox = new JCheckBox(MSG.getString("MatchCase"));
+		matchCaseCheckBox.setMnemonic(getMnemonic("MatchCase.Mnemonic"));
+		findPanel.add(matchCaseCheckBox);
+		findButton = new JButton(MSG.getString("FindNext"));
+		findButton.setMnemonic(getMnemonic("FindNext.Mnemonic"));
+		findButton.addActionListener(e -> findNext());
+		findPanel.add(findButton);
+		JButton goToButton = new JButton(MSG.getString("GoToLine"));
+		goToButton.setMnemonic(getMnemonic("GoToLine.Mnemonic"));
+		goToButton.addActionListener(e -> goToLine());
+		findPanel.add(goToButton);
+		contentPane.add(findPanel, BorderLayout.PAGE_START);
+
+		contentPane.add(view);
+
+		// The status bar
+		JPanel statusPanel = new JPanel(new BorderLayout());
+		statusPanel.setBorder(BorderFactory.createEmptyBorder(3, 5, 3, 5));
+		findStatusLabel = new JLabel(" ");
+		statusPanel.add(findStatusLabel);
+		indexStatusLabel = new JLabel();
+		statusPanel.add(indexStatusLabel, BorderLayout.LINE_END);
+		contentPane.add(statusPanel, BorderLayout.PAGE_END);
+
+		setContentPane(contentPane);
+		installKeyBindings();
+		view.getTextPanel().addMouseListener(new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e) {
+				view.getTextPanel().requestFocusInWindow();
+			}
+		});
+
+		setTitle(MessageFormat.format(MSG.getString("Title"), file.getName()));
+		setIconImages(rtext.getIconImages());
+		setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				closed();
+			}
+		});
+		pack();
+		setLocationRelativeTo(rtext);
+
+		indexTimer = new Timer(250, e -> updateIndexStatus());
+		updateIndexStatus();
+		this.file.startIndexing();
+		indexTimer.start();
+
+	}
+
+
+	/**
+	 * Called when this window is closed.  Stops any search and releases
+	 * the file.
+	 */
+	private void closed() {
+		indexTimer.stop();
+		searchCanceled = true;
+		try {
+			file.close();
+		} catch (IOException ioe) {
+			rtext.displayException(ioe);
+		}
+	}
+
+
+	/**
+	 * Finds the next occurrence of the text in the "find" field, after the
+	 * last one found if it's still visible, otherwise from the top of the
+	 * visible lines.  The search continues from the top of the file if the
+	 * end is reached.  If a search is already running, it's canceled
+	 * instead.
+	 */
+	private void findNext() {
+
+		if (searchThread!=null) {
+			searchCanceled = true;
+			return;
+		}
+
+		String text = findField.getText();
+		if (text.isEmpty()) {
+			UIManager.getLookAndFeel().provideErrorFeedback(findField);
+			return;
+		}
+		boolean matchCase = matchCaseCheckBox.isSelected();
+
+		int first = view.getFirstVisibleLine();
+		boolean continueFromLast = lastMatchLine>=first &&
+				lastMatchLine<first+view.getVisibleLineCount();
+		int line = continueFromLast ? lastMatchLine : first;
+		int column = continueFromLast ? lastMatchColumn + 1 : 0;
+
+		searchCanceled = false;
+		findButton.setText(MSG.getString("Cancel"));
+		findStatusLabel.setText(MSG.getString("Searching"));
+
+		searchThread = new Thread(() -> {
+			int[] match = null;
+			boolean wrapped = false;
+			try {
+				match = file.find(text, matchCase, line, column, () -> searchCanceled);
+				if (match==null && !searchCanceled && (line>0 || column>0)) {
+					match = file.find(text, matchCase, 0, 0, () -> searchCanceled);
+					wrapped = match!=null;
+				}
+			} catch (InterruptedException ie) {
+				// Treated as not found
+			}
+			int[] result = match;
+			boolean searchWrapped = wrapped;
+			SwingUtilities.invokeLater(() -> searchCompleted(text, result, searchWrapped));
+		}, "LargeFileSearch");
+		searchThread.setDaemon(true);
+		searchThread.start();
+
+	}
+
+
+	private static int getMnemonic(String key) {
+		return MSG.getString(key).charAt(0);
+	}
+
+
+	/**
+	 * Prompts for a line number and scrolls to it.
+	 */
+	private void goToLine() {
+
+		if (goToDialog==null) {
+			goToDialog = new GoToDialog(this);
+			goToDialog.setErrorDialogTitle(rtext.getString("ErrorDialogTitle"));
+		}
+
+		goToDialog.setMaxLineNumberAllowed(file.getLineCount());
+		goToDialog.setVisible(true);
+		int line = goToDialog.getLineNumber();
+		if (line>0) {
+			view.markLine(line - 1, 0, 0);
+			lastMatchLine = line - 1;
+			lastMatchColumn = -1;
+		}
+
+	}
+
+
+	/**
+	 * Adds the keyboard shortcuts for finding, going to a line, and
+	 * scrolling.
+	 */
+	private void installKeyBindings() {
+
+		int shortcut = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+
+		JRootPane rootPane = getRootPane();
+		InputMap im = rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_F, shortcut), "focusFind");
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "findNext");
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_L, shortcut), "goToLine");
+		rootPane.getActionMap().put("focusFind", new LambdaAction(() -> {
+			findField.requestFocusInWindow();
+			findField.selectAll();
+		}));
+		rootPane.getActionMap().put("findNext", new LambdaAction(this::findNext));
+		rootPane.getActionMap().put("goToLine", new LambdaAction(this::goToLine));
+
+		JComponent textPanel = view.getTextPanel();
+		textPanel.setFocusable(true);
+		im = textPanel.getInputMap();
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "up");
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "down");
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0), "pageUp");
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0), "pageDown");
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, shortcut), "top");
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_END, shortcut), "bottom");
+		textPanel.getActionMap().put("up", new LambdaAction(() -> view.scrollBy(-1)));
+		textPanel.getActionMap().put("down", new LambdaAction(() -> view.scrollBy(1)));
+		textPanel.getActionMap().put("pageUp", new LambdaAction(() ->
+				view.scrollBy(1 - view.getVisibleLineCount())));
+		textPanel.getActionMap().put("pageDown", new LambdaAction(() ->
+				view.scrollBy(view.getVisibleLineCount() - 1)));
+		textPanel.getActionMap().put("top", new LambdaAction(() -> view.scrollToLine(0)));
+		textPanel.getActionMap().put("bottom", new LambdaAction(() ->
+				view.scrollToLine(file.getLineCount())));
+
+	}
+
+
+	/**
+	 * Called on the EDT when a search completes.
+	 *
+	 * @param text The text searched for.
+	 * @param match The line and column of the match, or <code>null</code>
+	 *        if it wasn't found or the search was canceled.
+	 * @param wrapped Whether the search continued from the top of the file
+	 *        to find the match.
+	 */
+	private void searchCompleted(String text, int[] match, boolean wrapped) {
+
+		searchThread = null;
+		findButton.setText(MSG.getString("FindNext"));
+
+		if (match!=null) {
+			lastMatchLine = match[0];
+			lastMatchColumn = match[1];
+			// Very long lines are only shown in part, but searched in full
+			List<String> lines = file.getLines(match[0], 1);
+			if (!lines.isEmpty() && match[1]+text.length()>lines.get(0).length()) {
+				view.markLine(match[0], 0, 0);
+				findStatusLabel.setText(MessageFormat.format(
+						MSG.getString("MatchPastTruncation"), match[0] + 1,
+						match[1] + 1, MappedTextFile.MAX_LINE_BYTES / 1024));
+			}
+			else {
+				view.markLine(match[0], match[1], match[1] + text.length());
+				findStatusLabel.setText(wrapped ? MSG.getString("SearchWrapped") : " ");
+			}
+		}
+		else if (searchCanceled) {
+			findStatusLabel.setText(" ");
+		}
+		else {
+			findStatusLabel.setText(MessageFormat.format(
+					MSG.getString("TextNotFound"), text));
+			UIManager.getLookAndFeel().provideErrorFeedback(findField);
+		}
+
+	}
+
+
+	/**
+	 * Displays how far along indexing is, and the lines available so far.
+	 */
+	private void updateIndexStatus() {
+
+		view.refreshLineCount();
+
+		if (file.isIndexComplete()) {
+			indexTimer.stop();
+			indexStatusLabel.setText(MessageFormat.format(MSG.getString("LineCount"),
+					file.getLineCount(), file.getCharset().name()));
+		}
+		else {
+			indexStatusLabel.setText(MessageFormat.format(MSG.getString("Indexing"),
+					file.getIndexProgress(), file.getLineCount()));
+		}
+
+	}
+
+
+	/**
+	 * An action that runs a block of code.
+	 */
+	private static final class LambdaAction extends AbstractAction {
+
+		private final Runnable runnable;
+
+		LambdaAction(Runnable runnable) {
+			this.runnable = runnable;
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			runnable.run();
+		}
+
+	}
+
+
+}
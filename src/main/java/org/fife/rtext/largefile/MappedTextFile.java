@@ -0,0 +1,632 @@
+/*
+ * 10/18/2026
+ *
+ * MappedTextFile.java - A memory-mapped text file with a lazily-built line
+ * index.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext.largefile;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+
+/**
+ * A read-only text file too large to load into a Swing document.  The file
+ * is memory-mapped, so the operating system pages its contents in and out
+ * as needed, and lines are only decoded when asked for.<p>
+ *
+ * Finding a line requires knowing where it starts, so an index of line
+ * offsets is built on a background thread, started by
+ * {@link #startIndexing()}.  Lines are available as soon as they've been
+ * indexed.  To keep the index small for files with hundreds of millions of
+ * lines, only the offset of every {@link #LINES_PER_CHECKPOINT}th line is
+ * stored; the lines in between are found by scanning forward from the
+ * closest one.  Lines longer than {@link #MAX_LINE_BYTES} are also
+ * recorded in the index, so that scanning forward never has to read
+ * through one of them; their text is truncated when displayed, but they're
+ * searched in full.<p>
+ *
+ * Lines are split on <code>'\n'</code> bytes (with any <code>'\r'</code>
+ * before them dropped), so only encodings in which those characters are
+ * single bytes, such as UTF-8 and the ISO-8859 family, are supported.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class MappedTextFile implements Closeable {
+
+	/**
+	 * The offset of every this-many-th line is stored in the index.
+	 */
+	static final int LINES_PER_CHECKPOINT = 64;
+
+	/**
+	 * Lines longer than this many bytes are truncated when read.
+	 */
+	static final int MAX_LINE_BYTES = 64 * 1024;
+
+	/**
+	 * The file is mapped in pieces this large, since a single mapping is
+	 * limited to 2 GB.
+	 */
+	private static final long SEGMENT_SIZE = 1L << 30;
+
+	private static final byte[] UTF8_BOM = { (byte)0xef, (byte)0xbb, (byte)0xbf };
+
+	private final File file;
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final long size;
+	private final Charset charset;
+
+	/**
+	 * The offset at which the text starts, after any BOM.
+	 */
+	private final long start;
+
+	/**
+	 * The offsets of every {@link #LINES_PER_CHECKPOINT}th line.  Only
+	 * accessed while synchronized on this object.
+	 */
+	private long[] checkpoints;
+	private int checkpointCount;
+
+	/**
+	 * The lines longer than {@link #MAX_LINE_BYTES}, in increasing order,
+	 * and the offsets of the lines after them.  Only accessed while
+	 * synchronized on this object.
+	 */
+	private int[] longLines;
+	private long[] longLineNexts;
+	private int longLineCount;
+
+	private volatile int lineCount;
+	private volatile long indexedBytes;
+	private volatile boolean indexComplete;
+	private volatile boolean closed;
+
+
+	private MappedTextFile(File file, FileChannel channel,
+			MappedByteBuffer[] segments, long size, Charset charset, long start) {
+		this.file = file;
+		this.channel = channel;
+		this.segments = segments;
+		this.size = size;
+		this.charset = charset;
+		this.start = start;
+		checkpoints = new long[1024];
+		checkpoints[0] = start;
+		checkpointCount = 1;
+		longLines = new int[16];
+		longLineNexts = new long[16];
+		lineCount = 1;
+		indexedBytes = start;
+	}
+
+
+	/**
+	 * Adds the offset of a line to the index, if it's a checkpoint.
+	 *
+	 * @param line The (0-based) line.
+	 * @param offset The line's offset.
+	 */
+	private synchronized void addLine(int line, long offset) {
+		if (line%LINES_PER_CHECKPOINT==0) {
+			if (checkpointCount==checkpoints.length) {
+				checkpoints = Arrays.copyOf(checkpoints, checkpointCount*2);
+			}
+			checkpoints[checkpointCount++] = offset;
+		}
+	}
+
+
+	/**
+	 * Records a line longer than {@link #MAX_LINE_BYTES} in the index.
+	 *
+	 * @param line The (0-based) line.
+	 * @param next The offset of the line after it.
+	 */
+	private synchronized void addLongLine(int line, long next) {
+		if (longLineCount==longLines.length) {
+			longLines = Arrays.copyOf(longLines, longLineCount*2);
+			longLineNexts = Arrays.copyOf(longLineNexts, longLineCount*2);
+		}
+		longLines[longLineCount] = line;
+		longLineNexts[longLineCount] = next;
+		longLineCount++;
+	}
+
+
+	/**
+	 * Stops indexing and releases the file.  The mapped memory itself is
+	 * released once it's garbage collected.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		channel.close();
+	}
+
+
+	/**
+	 * Decodes a line.
+	 */
+	private String decode(long offset, long end) {
+		int length = (int)Math.min(end - offset, MAX_LINE_BYTES);
+		byte[] bytes = new byte[length];
+		for (int i=0; i<length; i++) {
+			bytes[i] = get(offset + i);
+		}
+		return new String(bytes, charset);
+	}
+
+
+	/**
+	 * Returns the offset of the end of the line starting at an offset,
+	 * not including its line terminator.  At most {@link #MAX_LINE_BYTES}
+	 * bytes are scanned, so for longer lines, this is where the line is
+	 * truncated.
+	 */
+	private long findLineEnd(long offset) {
+		long limit = Math.min(size, offset + MAX_LINE_BYTES + 1);
+		long end = offset;
+		while (end<limit && get(end)!='\n') {
+			end++;
+		}
+		if (end-offset>MAX_LINE_BYTES) {
+			return offset + MAX_LINE_BYTES;
+		}
+		if (end>offset && get(end-1)=='\r') {
+			end--;
+		}
+		return end;
+	}
+
+
+	/**
+	 * Returns the offset of the line after a given one.  Lines longer than
+	 * {@link #MAX_LINE_BYTES} are looked up in the index, so at most that
+	 * many bytes are scanned.  The line must have been indexed, and unless
+	 * it's the last line, so must the line after it.
+	 *
+	 * @param line The (0-based) line.
+	 * @param offset The offset of the line.
+	 * @return The offset of the next line.  For the last line, this is one
+	 *         past the end of the file.
+	 */
+	private long findNextLine(int line, long offset) {
+
+		if (indexComplete && line>=lineCount-1) {
+			return size + 1;
+		}
+
+		synchronized (this) {
+			int index = Arrays.binarySearch(longLines, 0, longLineCount, line);
+			if (index>=0) {
+				return longLineNexts[index];
+			}
+		}
+
+		long limit = Math.min(size, offset + MAX_LINE_BYTES + 1);
+		while (offset<limit && get(offset)!='\n') {
+			offset++;
+		}
+		return offset + 1;
+
+	}
+
+
+	/**
+	 * Finds the next occurrence of text, starting at a given line and
+	 * column.  Lines that haven't been indexed yet are waited for.
+	 *
+	 * @param text The text to find.  This can't contain line breaks.
+	 * @param matchCase Whether the search is case-sensitive.
+	 * @param line The (0-based) line to start searching at.
+	 * @param column The (0-based) column in that line to start searching
+	 *        at.
+	 * @param canceled Polled to see whether the search has been canceled.
+	 * @return The (0-based) line and column of the match, or
+	 *         <code>null</code> if it wasn't found (or the search was
+	 *         canceled).
+	 * @throws InterruptedException If interrupted while waiting for the
+	 *         file to be indexed.
+	 */
+	int[] find(String text, boolean matchCase, int line, int column,
+			BooleanSupplier canceled) throws InterruptedException {
+
+		String searchFor = matchCase ? text : text.toLowerCase();
+
+		// The raw bytes of the text we're looking for, to rule lines out
+		// without decoding them.  Only possible when matching case.
+		byte[] needle = matchCase ? searchFor.getBytes(charset) : null;
+
+		long offset = getLineStartOffset(line);
+		while (offset<=size && !canceled.getAsBoolean()) {
+
+			// Wait for the line's end to be indexed, too
+			while (line>=lineCount-1 && !indexComplete && !closed) {
+				Thread.sleep(50);
+			}
+			if (line>=lineCount || closed) {
+				break;
+			}
+
+			long next = findNextLine(line, offset);
+			long end = Math.min(next - 1, size);
+			if (end>offset && get(end-1)=='\r') {
+				end--;
+			}
+
+			int index = -1;
+			if (needle==null || indexOf(needle, offset, end)>-1) {
+				if (end-offset>MAX_LINE_BYTES) {
+					index = findInLongLine(searchFor, matchCase, offset, end,
+							column, canceled);
+				}
+				else {
+					String lineText = decode(offset, end);
+					if (!matchCase) {
+						lineText = lineText.toLowerCase();
+					}
+					index = lineText.indexOf(searchFor, column);
+				}
+			}
+			if (index>-1) {
+				return new int[] { line, index };
+			}
+
+			offset = next;
+			line++;
+			column = 0;
+
+		}
+
+		return null;
+
+	}
+
+
+	/**
+	 * Searches a line longer than {@link #MAX_LINE_BYTES}.  The line is
+	 * decoded and searched a piece at a time, so matches past the part of
+	 * it that's displayed are found too.
+	 *
+	 * @param searchFor The text to find, lower case if the search isn't
+	 *        case-sensitive.
+	 * @param matchCase Whether the search is case-sensitive.
+	 * @param offset The offset of the line.
+	 * @param end The offset of the end of the line.
+	 * @param column The (0-based) column to start searching at.
+	 * @param canceled Polled to see whether the search has been canceled.
+	 * @return The column of the match, or <code>-1</code> if it wasn't
+	 *         found.
+	 */
+	private int findInLongLine(String searchFor, boolean matchCase,
+			long offset, long end, int column, BooleanSupplier canceled) {
+
+		CharsetDecoder decoder = charset.newDecoder().
+				onMalformedInput(CodingErrorAction.REPLACE).
+				onUnmappableCharacter(CodingErrorAction.REPLACE);
+		ByteBuffer in = ByteBuffer.allocate(MAX_LINE_BYTES);
+		CharBuffer out = CharBuffer.allocate(MAX_LINE_BYTES);
+
+		// The text decoded so far that could still be part of a match,
+		// and its column in the line.
+		StringBuilder text = new StringBuilder();
+		int textStart = 0;
+
+		long pos = offset;
+		while (!canceled.getAsBoolean()) {
+
+			while (in.hasRemaining() && pos<end) {
+				in.put(get(pos++));
+			}
+			in.flip();
+			boolean last = pos==end;
+			CoderResult result;
+			do {
+				result = decoder.decode(in, out, last);
+				out.flip();
+				text.append(out);
+				out.clear();
+			} while (result.isOverflow());
+			if (last) {
+				do {
+					result = decoder.flush(out);
+					out.flip();
+					text.append(out);
+					out.clear();
+				} while (result.isOverflow());
+			}
+			in.compact();
+
+			String str = text.toString();
+			if (!matchCase) {
+				str = str.toLowerCase();
+			}
+			int index = str.indexOf(searchFor, Math.max(0, column - textStart));
+			if (index>-1) {
+				return textStart + index;
+			}
+			if (last) {
+				break;
+			}
+
+			// Keep enough text for a match that starts in this piece
+			int keep = Math.min(text.length(), searchFor.length() - 1);
+			textStart += text.length() - keep;
+			text.delete(0, text.length() - keep);
+
+		}
+
+		return -1;
+
+	}
+
+
+	private byte get(long offset) {
+		return segments[(int)(offset / SEGMENT_SIZE)].get((int)(offset % SEGMENT_SIZE));
+	}
+
+
+	/**
+	 * Returns the encoding the file is decoded with.
+	 *
+	 * @return The encoding.
+	 */
+	Charset getCharset() {
+		return charset;
+	}
+
+
+	/**
+	 * Returns the file.
+	 *
+	 * @return The file.
+	 */
+	File getFile() {
+		return file;
+	}
+
+
+	/**
+	 * Returns how much of the file has been indexed.
+	 *
+	 * @return The percentage indexed, from <code>0</code> to
+	 *         <code>100</code>.
+	 * @see #isIndexComplete()
+	 */
+	int getIndexProgress() {
+		return indexComplete || size==0 ? 100 : (int)(indexedBytes * 100 / size);
+	}
+
+
+	/**
+	 * Returns the number of lines indexed so far.  Once indexing has
+	 * completed, this is the number of lines in the file.
+	 *
+	 * @return The line count.
+	 * @see #isIndexComplete()
+	 */
+	int getLineCount() {
+		return lineCount;
+	}
+
+
+	/**
+	 * Returns a range of lines.  Only lines that have been indexed are
+	 * returned.
+	 *
+	 * @param first The (0-based) first line to return.
+	 * @param count The maximum number of lines to return.
+	 * @return The lines, with their line terminators removed.  Lines
+	 *         longer than {@link #MAX_LINE_BYTES} bytes are truncated.
+	 */
+	List<String> getLines(int first, int count) {
+		count = Math.max(0, Math.min(count, lineCount - first));
+		List<String> lines = new ArrayList<>(count);
+		if (count>0) {
+			long offset = getLineStartOffset(first);
+			for (int i=0; i<count; i++) {
+				lines.add(decode(offset, findLineEnd(offset)));
+				if (i<count-1) {
+					offset = findNextLine(first + i, offset);
+				}
+			}
+		}
+		return lines;
+	}
+
+
+	/**
+	 * Returns the offset of a line, which must have been indexed.
+	 */
+	private long getLineStartOffset(int line) {
+		long offset;
+		synchronized (this) {
+			offset = checkpoints[line / LINES_PER_CHECKPOINT];
+		}
+		for (int i=line-line%LINES_PER_CHECKPOINT; i<line; i++) {
+			offset = findNextLine(i, offset);
+		}
+		return offset;
+	}
+
+
+	/**
+	 * Returns the size of the file.
+	 *
+	 * @return The size, in bytes.
+	 */
+	long getSize() {
+		return size;
+	}
+
+
+	/**
+	 * Returns the offset of some bytes in a range of the file.
+	 */
+	private long indexOf(byte[] needle, long offset, long end) {
+		if (needle.length==0) {
+			return offset;
+		}
+		byte first = needle[0];
+		long last = end - needle.length;
+		outer:
+		for (long i=offset; i<=last; i++) {
+			if (get(i)==first) {
+				for (int j=1; j<needle.length; j++) {
+					if (get(i+j)!=needle[j]) {
+						continue outer;
+					}
+				}
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Returns whether the index has been fully built.
+	 *
+	 * @return Whether the index is complete.
+	 * @see #getIndexProgress()
+	 */
+	boolean isIndexComplete() {
+		return indexComplete;
+	}
+
+
+	/**
+	 * Builds the line index.
+	 */
+	private void index() {
+
+		int line = 0;
+		long offset = start;
+		long lineStart = start;
+		long segmentStart = 0;
+
+		outer:
+		for (MappedByteBuffer segment : segments) {
+			int limit = segment.limit();
+			for (int i=(int)Math.max(0, offset-segmentStart); i<limit; i++) {
+				if (segment.get(i)=='\n') {
+					// Any lines past this are simply part of the last one
+					if (line==Integer.MAX_VALUE-1) {
+						break outer;
+					}
+					long next = segmentStart + i + 1;
+					if (next-1-lineStart>MAX_LINE_BYTES) {
+						addLongLine(line, next);
+					}
+					addLine(++line, next);
+					lineCount = line + 1;
+					lineStart = next;
+				}
+				if ((i & 0xfffff)==0) {
+					if (closed) {
+						return;
+					}
+					indexedBytes = segmentStart + i;
+				}
+			}
+			segmentStart += limit;
+		}
+
+		indexedBytes = size;
+		indexComplete = true;
+
+	}
+
+
+	/**
+	 * Maps a file.
+	 *
+	 * @param file The file.
+	 * @param charSet The encoding to decode the file with, if it doesn't
+	 *        have a UTF-8 BOM.  If this is <code>null</code>, the system
+	 *        default is used.
+	 * @return The mapped file.  Call {@link #startIndexing()} to start
+	 *         building its line index.
+	 * @throws UnsupportedEncodingException If the encoding splits line
+	 *         breaks across multiple bytes, as UTF-16 does.
+	 * @throws IOException If an IO error occurs.
+	 */
+	static MappedTextFile open(File file, String charSet) throws IOException {
+
+		Charset charset = charSet==null ? Charset.defaultCharset() :
+				Charset.forName(charSet);
+
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+
+			long size = channel.size();
+			int segmentCount = (int)((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+			MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+			for (int i=0; i<segmentCount; i++) {
+				long offset = i * SEGMENT_SIZE;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+						Math.min(SEGMENT_SIZE, size - offset));
+			}
+
+			long start = 0;
+			if (size>=UTF8_BOM.length && segments[0].get(0)==UTF8_BOM[0] &&
+					segments[0].get(1)==UTF8_BOM[1] && segments[0].get(2)==UTF8_BOM[2]) {
+				charset = StandardCharsets.UTF_8;
+				start = UTF8_BOM.length;
+			}
+			else if (size>=2 && ((segments[0].get(0)==(byte)0xfe && segments[0].get(1)==(byte)0xff) ||
+					(segments[0].get(0)==(byte)0xff && segments[0].get(1)==(byte)0xfe))) {
+				throw new UnsupportedEncodingException("UTF-16");
+			}
+			if (!Arrays.equals("\r\n".getBytes(charset), new byte[] { '\r', '\n' })) {
+				throw new UnsupportedEncodingException(charset.name());
+			}
+
+			return new MappedTextFile(file, channel, segments, size, charset, start);
+
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+
+	}
+
+
+	/**
+	 * Starts building the line index on a background thread.
+	 */
+	void startIndexing() {
+		Thread thread = new Thread(this::index, "LargeFileIndexer-" + file.getName());
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+
+}
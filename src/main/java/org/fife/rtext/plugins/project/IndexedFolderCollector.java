@@ -0,0 +1,103 @@
+/*
+ * 10/18/2026
+ *
+ * IndexedFolderCollector.java - Collects the folders in a workspace to index
+ * for Find in Files.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext.plugins.project;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.fife.rtext.plugins.project.model.FileProjectEntry;
+import org.fife.rtext.plugins.project.model.FolderProjectEntry;
+import org.fife.rtext.plugins.project.model.LogicalFolderProjectEntry;
+import org.fife.rtext.plugins.project.model.Project;
+import org.fife.rtext.plugins.project.model.Workspace;
+import org.fife.rtext.plugins.project.model.WorkspaceVisitor;
+
+
+/**
+ * Collects the root folders of all folder project entries in a workspace,
+ * so they can be indexed for faster Find in Files searches.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class IndexedFolderCollector implements WorkspaceVisitor {
+
+	private final Set<File> folders;
+
+
+	IndexedFolderCollector() {
+		folders = new LinkedHashSet<>();
+	}
+
+
+	/**
+	 * Returns the folders found.
+	 *
+	 * @return The folders.
+	 */
+	Set<File> getFolders() {
+		return folders;
+	}
+
+
+	@Override
+	public void postVisit(Workspace workspace) {
+	}
+
+
+	@Override
+	public void postVisit(Project project) {
+	}
+
+
+	@Override
+	public void postVisit(FileProjectEntry entry) {
+	}
+
+
+	@Override
+	public void postVisit(FolderProjectEntry entry) {
+	}
+
+
+	@Override
+	public void postVisit(LogicalFolderProjectEntry entry) {
+	}
+
+
+	@Override
+	public void visit(Workspace workspace) {
+	}
+
+
+	@Override
+	public void visit(Project project) {
+	}
+
+
+	@Override
+	public void visit(FileProjectEntry entry) {
+	}
+
+
+	@Override
+	public void visit(FolderProjectEntry entry) {
+		folders.add(entry.getFile().getAbsoluteFile());
+	}
+
+
+	@Override
+	public void visit(LogicalFolderProjectEntry entry) {
+	}
+
+
+}
@@ -40,6 +40,7 @@ import org.fife.ui.app.PluginOptionsDialogPanel;
 import org.fife.ui.app.AppAction;
 import org.fife.ui.app.icons.IconGroup;
 import org.fife.ui.app.themes.*;
+import org.fife.ui.search.FindInFilesIndexManager;
 
 
 /**
@@ -60,6 +61,7 @@ public class ProjectPlugin extends GUIPlugin<RText> {
 	private Map<String, Icon> icons;
 	private Workspace workspace;
 	private ProjectPluginOptionPanel optionPanel;
+	private boolean indexFoldersForFindInFiles;
 
 	private static final String VIEW_CONSOLE_ACTION	= "viewProjectWindowAction";
 	private static final String DOCKABLE_WINDOW_PROJECTS = "projectsDockableWindow";
@@ -84,6 +86,8 @@ public class ProjectPlugin extends GUIPlugin<RText> {
 			}
 		}
 		loadInitialWorkspace(prefs.openWorkspaceName);
+		indexFoldersForFindInFiles = prefs.indexFoldersForFindInFiles;
+		updateFindInFilesIndexes();
 
 		// Window MUST always be created for preference saving on shutdown
 		ProjectWindow window = new ProjectWindow(app, this, prefs);
@@ -217,6 +221,7 @@ public class ProjectPlugin extends GUIPlugin<RText> {
 		model.insertNodeInto(child, parent, index);
 		final TreePath path = new TreePath(model.getPathToRoot(parent));
 		getTree().expandPath(path);
+		updateFindInFilesIndexes();
 
 		SwingUtilities.invokeLater(() -> getTree().setSelectionPath(new TreePath(model.getPathToRoot(child))));
 	}
@@ -245,6 +250,18 @@ public class ProjectPlugin extends GUIPlugin<RText> {
 	}
 
 
+	/**
+	 * Returns whether the folders in the workspace are indexed to speed up
+	 * Find in Files.
+	 *
+	 * @return Whether folders are indexed.
+	 * @see #setIndexFoldersForFindInFiles(boolean)
+	 */
+	boolean isIndexFoldersForFindInFiles() {
+		return indexFoldersForFindInFiles;
+	}
+
+
 	/**
 	 * Returns whether the console window is visible.
 	 *
@@ -441,6 +458,7 @@ public class ProjectPlugin extends GUIPlugin<RText> {
 		prefs.openWorkspaceName = workspace==null ? null :
 			workspace.getFileFullPath();
 		prefs.treeRootVisible = getTree().isRootVisible();
+		prefs.indexFoldersForFindInFiles = indexFoldersForFindInFiles;
 
 		File prefsFile = getPrefsFile();
 		try {
@@ -460,6 +478,21 @@ public class ProjectPlugin extends GUIPlugin<RText> {
 	}
 
 
+	/**
+	 * Toggles whether the folders in the workspace are indexed to speed up
+	 * Find in Files.
+	 *
+	 * @param index Whether to index folders.
+	 * @see #isIndexFoldersForFindInFiles()
+	 */
+	void setIndexFoldersForFindInFiles(boolean index) {
+		if (index!=indexFoldersForFindInFiles) {
+			indexFoldersForFindInFiles = index;
+			updateFindInFilesIndexes();
+		}
+	}
+
+
 	/**
 	 * Sets the visibility of the console window.
 	 *
@@ -482,6 +515,7 @@ public class ProjectPlugin extends GUIPlugin<RText> {
 		this.workspace = workspace;
 		getTree().setWorkspace(workspace);
 		refreshWorkspaceName();
+		updateFindInFilesIndexes();
 	}
 
 
@@ -503,4 +537,17 @@ public class ProjectPlugin extends GUIPlugin<RText> {
 	}
 
 
+	/**
+	 * Tells Find in Files which folders to keep indexed, based on the
+	 * current workspace and whether indexing is enabled.
+	 */
+	private void updateFindInFilesIndexes() {
+		IndexedFolderCollector collector = new IndexedFolderCollector();
+		if (indexFoldersForFindInFiles && workspace!=null) {
+			workspace.accept(collector);
+		}
+		FindInFilesIndexManager.get().setIndexedFolders(collector.getFolders());
+	}
+
+
 }
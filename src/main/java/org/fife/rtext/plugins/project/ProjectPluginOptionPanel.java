@@ -41,6 +41,7 @@ class ProjectPluginOptionPanel extends PluginOptionsDialogPanel<ProjectPlugin>
 	private final JCheckBox visibleCB;
 	private final JLabel locationLabel;
 	private final JComboBox<String> locationCombo;
+	private final JCheckBox indexFoldersCB;
 
 
 	/**
@@ -85,7 +86,12 @@ class ProjectPluginOptionPanel extends PluginOptionsDialogPanel<ProjectPlugin>
 		locationPanel.add(Box.createHorizontalStrut(5));
 		locationPanel.add(locationCombo);
 		locationPanel.add(Box.createHorizontalGlue());
-		addLeftAligned(topPanel, locationPanel);
+		addLeftAligned(topPanel, locationPanel, COMPONENT_VERTICAL_SPACING);
+
+		// Whether to index project folders for Find in Files.
+		indexFoldersCB = new JCheckBox(Messages.getString("OptionPanel.IndexFolders"));
+		indexFoldersCB.addActionListener(this);
+		addLeftAligned(topPanel, indexFoldersCB);
 
 		// Put it all together!
 		add(topPanel, BorderLayout.NORTH);
@@ -104,6 +110,10 @@ class ProjectPluginOptionPanel extends PluginOptionsDialogPanel<ProjectPlugin>
 			setDirty(true);
 		}
 
+		else if (indexFoldersCB==source) {
+			setDirty(true);
+		}
+
 	}
 
 
@@ -113,6 +123,7 @@ class ProjectPluginOptionPanel extends PluginOptionsDialogPanel<ProjectPlugin>
 		DockableWindow wind = pp.getDockableWindow();
 		wind.setActive(visibleCB.isSelected());
 		wind.setPosition(getDockableWindowPlacement());
+		pp.setIndexFoldersForFindInFiles(indexFoldersCB.isSelected());
 	}
 
 
@@ -179,6 +190,7 @@ class ProjectPluginOptionPanel extends PluginOptionsDialogPanel<ProjectPlugin>
 		DockableWindow wind = pp.getDockableWindow();
 		setVisibleCBSelected(wind.isActive());
 		setDockableWindowPlacement(wind.getPosition());
+		indexFoldersCB.setSelected(pp.isIndexFoldersForFindInFiles());
 	}
 
 
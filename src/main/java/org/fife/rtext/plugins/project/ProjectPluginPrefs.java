@@ -51,6 +51,12 @@ public class ProjectPluginPrefs extends Prefs {
 	 */
 	public boolean treeRootVisible;
 
+	/**
+	 * Whether the folders in the workspace are indexed to speed up Find in
+	 * Files searches in them.
+	 */
+	public boolean indexFoldersForFindInFiles;
+
 
 	/**
 	 * Overridden to validate the task identifiers value.
@@ -72,6 +78,7 @@ public class ProjectPluginPrefs extends Prefs {
 		windowVisibilityAccelerator = null;
 		openWorkspaceName = null;
 		treeRootVisible = false;
+		indexFoldersForFindInFiles = false;
 	}
 
 
@@ -0,0 +1,203 @@
+/*
+ * 10/18/2026
+ *
+ * ArchiveEntryFileLocation.java - The location of a file inside a .zip or
+ * .jar file.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.fife.ui.rsyntaxtextarea.FileLocation;
+import org.fife.ui.rsyntaxtextarea.TextEditorPane;
+
+
+/**
+ * The location of a file inside a <code>.zip</code> or <code>.jar</code>
+ * file.  Find in Files reports matches in archive entries with paths of the
+ * form "<code>archive.zip!/path/in/archive</code>", and this class lets
+ * those entries be opened in an editor.  Entries can't be written to, so
+ * they should be opened read-only.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class ArchiveEntryFileLocation extends FileLocation {
+
+	/**
+	 * Separates an archive's path from the path of an entry in it.
+	 */
+	static final String SEPARATOR = "!/";
+
+	private final File archive;
+	private final String entryName;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param archive The archive.
+	 * @param entryName The name of the entry in the archive.
+	 * @see #create(String)
+	 */
+	ArchiveEntryFileLocation(File archive, String entryName) {
+		this.archive = archive;
+		this.entryName = entryName;
+	}
+
+
+	/**
+	 * Returns the location of an archive entry, given its full path.
+	 *
+	 * @param path The path, of the form
+	 *        "<code>archive.zip!/path/in/archive</code>".
+	 * @return The location, or <code>null</code> if the path isn't that of
+	 *         an entry in an existing archive.
+	 * @see #getPath(File, String)
+	 */
+	public static ArchiveEntryFileLocation create(String path) {
+		int sep = path.indexOf(SEPARATOR);
+		while (sep>-1) {
+			String archivePath = path.substring(0, sep);
+			if (isArchive(archivePath)) {
+				File archive = new File(archivePath);
+				if (archive.isFile()) {
+					return new ArchiveEntryFileLocation(archive,
+							path.substring(sep + SEPARATOR.length()));
+				}
+			}
+			sep = path.indexOf(SEPARATOR, sep + 1);
+		}
+		return null;
+	}
+
+
+	@Override
+	protected long getActualLastModified() {
+		return TextEditorPane.LAST_MODIFIED_UNKNOWN;
+	}
+
+
+	@Override
+	public String getFileFullPath() {
+		return getPath(archive, entryName);
+	}
+
+
+	@Override
+	public String getFileName() {
+		return entryName.substring(entryName.lastIndexOf('/') + 1);
+	}
+
+
+	/**
+	 * Returns a stream for reading the entry.  Closing the stream closes
+	 * the archive.
+	 *
+	 * @return The stream.
+	 * @throws IOException If an IO error occurs, or the entry doesn't
+	 *         exist.
+	 */
+	@Override
+	public InputStream getInputStream() throws IOException {
+		ZipFile zip = new ZipFile(archive);
+		ZipEntry entry = zip.getEntry(entryName);
+		if (entry==null) {
+			zip.close();
+			throw new FileNotFoundException(getFileFullPath());
+		}
+		try {
+			return new FilterInputStream(zip.getInputStream(entry)) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						zip.close();
+					}
+				}
+			};
+		} catch (IOException ioe) {
+			zip.close();
+			throw ioe;
+		}
+	}
+
+
+	/**
+	 * Always throws an exception, since archive entries are read-only.
+	 *
+	 * @return Nothing.
+	 * @throws IOException Always.
+	 */
+	@Override
+	protected OutputStream getOutputStream() throws IOException {
+		throw new IOException("Cannot write to archive entry " +
+				getFileFullPath());
+	}
+
+
+	/**
+	 * Returns the full path of an archive entry.
+	 *
+	 * @param archive The archive.
+	 * @param entryName The name of the entry in the archive.
+	 * @return The path.
+	 * @see #create(String)
+	 */
+	static String getPath(File archive, String entryName) {
+		return archive.getAbsolutePath() + SEPARATOR + entryName;
+	}
+
+
+	/**
+	 * Returns whether a file is an archive whose entries can be searched,
+	 * based on its name.
+	 *
+	 * @param fileName The file's name or path.
+	 * @return Whether the file is a <code>.zip</code> or <code>.jar</code>
+	 *         file.
+	 */
+	static boolean isArchive(String fileName) {
+		String name = fileName.toLowerCase(Locale.ROOT);
+		return name.endsWith(".zip") || name.endsWith(".jar");
+	}
+
+
+	/**
+	 * Returns <code>false</code>; archive entries are treated like remote
+	 * files.
+	 *
+	 * @return <code>false</code> always.
+	 */
+	@Override
+	public boolean isLocal() {
+		return false;
+	}
+
+
+	/**
+	 * Returns <code>false</code>; archive entries are treated like remote
+	 * files.
+	 *
+	 * @return <code>false</code> always.
+	 */
+	@Override
+	public boolean isLocalAndExists() {
+		return false;
+	}
+
+
+}
@@ -0,0 +1,177 @@
+/*
+ * 10/18/2026
+ *
+ * BinaryFileSniffer.java - Guesses whether a file is binary.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Guesses whether a file is binary (an image, class file, archive, etc.)
+ * rather than text, by examining its first few KB.  Find in Files uses
+ * this to avoid decoding and searching files that can't contain anything
+ * meaningful to the user.<p>
+ *
+ * A file is considered binary if its sample contains a NUL byte, or if too
+ * many of its bytes are neither valid UTF-8 nor "normal" ASCII characters.
+ * The threshold is high enough that text in single-byte encodings such as
+ * ISO-8859-1 is still considered text.  Files starting with a UTF-16 or
+ * UTF-32 byte order mark are always considered text.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class BinaryFileSniffer {
+
+	/**
+	 * The number of bytes at the start of a file that are examined.
+	 */
+	static final int SAMPLE_SIZE = 8 * 1024;
+
+	/**
+	 * If more than this percentage of a sample is suspicious, the file is
+	 * considered binary.
+	 */
+	private static final int MAX_SUSPICIOUS_PERCENT = 30;
+
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private BinaryFileSniffer() {
+	}
+
+
+	/**
+	 * Returns the length of the UTF-8 sequence starting at an offset.
+	 *
+	 * @return The length of the sequence, <code>-1</code> if it's invalid,
+	 *         or <code>0</code> if it's cut off by the end of the sample.
+	 */
+	private static int getUtf8SequenceLength(ByteBuffer buf, int offset, int end) {
+
+		int lead = buf.get(offset) & 0xff;
+		int length;
+		if (lead>=0xc2 && lead<=0xdf) {
+			length = 2;
+		}
+		else if (lead>=0xe0 && lead<=0xef) {
+			length = 3;
+		}
+		else if (lead>=0xf0 && lead<=0xf4) {
+			length = 4;
+		}
+		else {
+			return -1;
+		}
+
+		for (int i=1; i<length; i++) {
+			if (offset+i==end) {
+				return 0;
+			}
+			if ((buf.get(offset+i) & 0xc0)!=0x80) {
+				return -1;
+			}
+		}
+		return length;
+
+	}
+
+
+	/**
+	 * Returns whether the contents of a buffer appear to be binary.  Only
+	 * the first {@link #SAMPLE_SIZE} bytes after its position are examined.
+	 * The buffer's position is not modified.
+	 *
+	 * @param buf The buffer.
+	 * @return Whether its contents appear to be binary.
+	 */
+	static boolean isBinary(ByteBuffer buf) {
+
+		int start = buf.position();
+		int end = Math.min(buf.limit(), start + SAMPLE_SIZE);
+		if (end-start>=2) {
+			int b0 = buf.get(start) & 0xff;
+			int b1 = buf.get(start + 1) & 0xff;
+			if ((b0==0xfe && b1==0xff) || (b0==0xff && b1==0xfe) ||
+					(b0==0 && b1==0 && end-start>=4 &&
+						(buf.get(start+2) & 0xff)==0xfe &&
+						(buf.get(start+3) & 0xff)==0xff)) {
+				return false; // UTF-16 or UTF-32
+			}
+		}
+
+		int suspicious = 0;
+		int i = start;
+		while (i<end) {
+			byte b = buf.get(i);
+			if (b==0) {
+				return true;
+			}
+			if (b>0) {
+				if (b<0x20 && !isCommonControlChar(b)) {
+					suspicious++;
+				}
+				i++;
+			}
+			else {
+				int length = getUtf8SequenceLength(buf, i, end);
+				if (length==0) {
+					break; // Sequence cut off by the end of the sample
+				}
+				else if (length==-1) {
+					suspicious++;
+					i++;
+				}
+				else {
+					i += length;
+				}
+			}
+		}
+
+		return suspicious*100 > (end-start)*MAX_SUSPICIOUS_PERCENT;
+
+	}
+
+
+	/**
+	 * Returns whether a file appears to be binary.  Only the first
+	 * {@link #SAMPLE_SIZE} bytes of the file are read.
+	 *
+	 * @param file The file.
+	 * @return Whether the file appears to be binary.
+	 * @throws IOException If an IO error occurs reading the file.
+	 */
+	static boolean isBinary(File file) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(SAMPLE_SIZE);
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			int count = 0;
+			while (buf.hasRemaining() && count!=-1) {
+				count = channel.read(buf);
+			}
+		}
+		buf.flip();
+		return isBinary(buf);
+	}
+
+
+	private static boolean isCommonControlChar(byte b) {
+		return switch (b) {
+			case '\t', '\n', '\r', '\f', '\b', 0x0b, 0x1b -> true;
+			default -> false;
+		};
+	}
+
+
+}
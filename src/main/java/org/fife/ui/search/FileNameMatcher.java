@@ -0,0 +1,139 @@
+/*
+ * 10/18/2026
+ *
+ * FileNameMatcher.java - Matches file names against the "In files" filters.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.fife.ui.rsyntaxtextarea.FileTypeUtil;
+
+
+/**
+ * Decides whether a file should be searched, based on the wildcard filters
+ * in a Find in Files dialog's "In files" field (e.g. "<code>*.java</code>,
+ * <code>*.xml</code>").<p>
+ *
+ * Rather than trying each filter's regular expression against each file
+ * name, the filters are compiled once per search.  The most common kinds of
+ * filters, "<code>*.ext</code>" and exact file names, are looked up in hash
+ * sets.  Any other filters are combined into a single regular expression.
+ * A filter of just "<code>*</code>" matches everything.<p>
+ *
+ * Instances of this class are immutable.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class FileNameMatcher {
+
+	/**
+	 * Characters that make a filter more than a simple extension or name.
+	 */
+	private static final String SPECIAL_CHARS = "*?[](){}+|^$\\";
+
+	private final boolean caseSensitive;
+	private final boolean matchesAll;
+	private final Set<String> extensions;
+	private final Set<String> names;
+	private final Pattern pattern;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param filters The wildcard filters.
+	 * @param caseSensitive Whether matching is case-sensitive.
+	 */
+	FileNameMatcher(String[] filters, boolean caseSensitive) {
+
+		this.caseSensitive = caseSensitive;
+		extensions = new HashSet<>();
+		names = new HashSet<>();
+		List<String> regexes = new ArrayList<>();
+		boolean all = false;
+
+		for (String filter : filters) {
+			if ("*".equals(filter)) {
+				all = true;
+			}
+			else if (filter.startsWith("*.") && filter.length()>2 &&
+					isSimple(filter.substring(2))) {
+				extensions.add(normalize(filter.substring(2)));
+			}
+			else if (isSimple(filter)) {
+				names.add(normalize(filter));
+			}
+			else {
+				regexes.add(FileTypeUtil.fileFilterToPattern(filter).pattern());
+			}
+		}
+
+		matchesAll = all;
+		pattern = regexes.isEmpty() ? null : Pattern.compile(
+				String.join("|", regexes),
+				caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
+
+	}
+
+
+	private static boolean isSimple(String filter) {
+		for (int i=0; i<filter.length(); i++) {
+			if (SPECIAL_CHARS.indexOf(filter.charAt(i))>-1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Returns whether a file name matches any of the filters.
+	 *
+	 * @param fileName The file name, without any directory.
+	 * @return Whether the file name matches.
+	 */
+	boolean matches(String fileName) {
+
+		if (matchesAll) {
+			return true;
+		}
+
+		String name = normalize(fileName);
+		if (names.contains(name)) {
+			return true;
+		}
+
+		// Check each possible extension, so e.g. "*.gz" and "*.tar.gz"
+		// both match "foo.tar.gz".
+		if (!extensions.isEmpty()) {
+			int dot = name.indexOf('.');
+			while (dot>-1) {
+				if (extensions.contains(name.substring(dot + 1))) {
+					return true;
+				}
+				dot = name.indexOf('.', dot + 1);
+			}
+		}
+
+		return pattern!=null && pattern.matcher(fileName).matches();
+
+	}
+
+
+	private String normalize(String str) {
+		return caseSensitive ? str : str.toLowerCase(Locale.ROOT);
+	}
+
+
+}
@@ -13,7 +13,11 @@ package org.fife.ui.search;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.MessageFormat;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.regex.Pattern;
 import javax.swing.*;
@@ -34,6 +38,7 @@ import org.fife.ui.StatusBar;
 import org.fife.ui.UIUtil;
 import org.fife.ui.rtextarea.SearchContext;
 import org.fife.ui.rtextfilechooser.RDirectoryChooser;
+import org.fife.ui.rtextfilechooser.RTextFileChooser;
 
 
 /**
@@ -55,14 +60,23 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 
 	protected JButton findButton;
 	private JButton browseButton;
+	private JButton reportButton;
 
 	private JRadioButton matchingLinesRadioButton;
 
 	protected JCheckBox verboseCheckBox;
+	private JCheckBox skipBinaryCheckBox;
+	private JCheckBox ignoreFilesCheckBox;
+	private JCheckBox anyTermCheckBox;
+	private JCheckBox archivesCheckBox;
+	private JCheckBox liveResultsCheckBox;
+	private JSpinner maxFileSizeSpinner;
+	private JSpinner maxResultsSpinner;
 
 	private StatusBar statusBar;
 
 	private ResultsComponent resultsComponent;
+	private ResultBatcher resultBatcher;
 
 	// This helps us work around the "bug" where JComboBox eats the first
 	// Enter press.
@@ -76,6 +90,18 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	private FindInFilesThread workerThread;
 	private FindInFilesDocumentListener docListener;
 
+	/**
+	 * Keeps the results up to date as files change, if the user asked for
+	 * live results.
+	 */
+	private LiveResultsUpdater liveResultsUpdater;
+
+	/**
+	 * The performance report for the last completed search, or
+	 * <code>null</code> if there isn't one.
+	 */
+	private String searchReport;
+
 	// Some strings cached from our resources for efficiency.
 	private String defaultStatusText;
 	private String searchingCompleteString;
@@ -86,6 +112,17 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 
 	static final int DECORATIVE_ICON_WIDTH = 12;
 
+	/**
+	 * The largest value the user can enter for the size of the largest file
+	 * to search, in MB.
+	 */
+	private static final int MAX_FILE_SIZE_LIMIT_MB = 1024 * 1024;
+
+	/**
+	 * The fewest search results the user can choose to keep in memory.
+	 */
+	private static final int MIN_RESULTS_IN_MEMORY = 1000;
+
 	private static final String MSG_BUNDLE = "org.fife.ui.search.Search";
 	private static final ResourceBundle MSG = ResourceBundle.getBundle(MSG_BUNDLE);
 
@@ -166,18 +203,26 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 		leftPanel.add(bottomLeftPanel);
 
 		// Make a panel containing the buttons.
-		JPanel rightPanel2 = new JPanel(new GridLayout(3,1, 5,5));
+		boolean reportSupported = isSearchReportSupported();
+		JPanel rightPanel2 = new JPanel(new GridLayout(reportSupported ? 4 : 3,1, 5,5));
 		findButton = UIUtil.newButton(getBundle(), "Find");
 		findButton.setActionCommand("FindInFiles");
 		findButton.addActionListener(this);
 		browseButton = UIUtil.newButton(MSG, "Browse");
 		browseButton.setActionCommand("Browse");
 		browseButton.addActionListener(this);
+		reportButton = UIUtil.newButton(MSG, "SearchReport");
+		reportButton.setActionCommand("SearchReport");
+		reportButton.addActionListener(this);
+		reportButton.setEnabled(false);
 		cancelButton = UIUtil.newButton(MSG, "Close");
 		cancelButton.setActionCommand("Close");
 		cancelButton.addActionListener(this);
 		rightPanel2.add(findButton);
 		rightPanel2.add(browseButton);
+		if (reportSupported) {
+			rightPanel2.add(reportButton);
+		}
 		rightPanel2.add(cancelButton);
 		JPanel rightPanel = new JPanel(new BorderLayout());
 		if (orientation.isLeftToRight()) {
@@ -214,6 +259,11 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 		// Make the "status bar."
 		statusBar = new org.fife.ui.StatusBar();
 
+		// Results and status updates from the search threads are handed
+		// to the EDT in batches.
+		resultBatcher = new ResultBatcher(this::addMatchDataBatch,
+				this::setStatusText);
+
 		// Initialize some variables.
 		eventListenerList = new EventListenerList();
 		defaultStatusText = getString2("DefaultStatusText");
@@ -315,6 +365,42 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 			((FindInFilesSearchContext)context).setVerbose(verbose);
 		}
 
+		else if ("SkipBinary".equals(command)) {
+			boolean skip = skipBinaryCheckBox.isSelected();
+			((FindInFilesSearchContext)context).setSkipBinaryFiles(skip);
+		}
+
+		else if ("IgnoreFiles".equals(command)) {
+			boolean use = ignoreFilesCheckBox.isSelected();
+			((FindInFilesSearchContext)context).setUseIgnoreFiles(use);
+		}
+
+		else if ("AnyTerm".equals(command)) {
+			boolean anyTerm = anyTermCheckBox.isSelected();
+			((FindInFilesSearchContext)context).setMatchAnyTerm(anyTerm);
+			// A list of terms isn't a regular expression.
+			if (anyTerm && regexCheckBox.isSelected()) {
+				regexCheckBox.doClick();
+			}
+		}
+
+		else if ("SearchArchives".equals(command)) {
+			boolean search = archivesCheckBox.isSelected();
+			((FindInFilesSearchContext)context).setSearchArchives(search);
+		}
+
+		else if ("LiveResults".equals(command)) {
+			boolean live = liveResultsCheckBox.isSelected();
+			((FindInFilesSearchContext)context).setLiveResults(live);
+			if (!live) {
+				stopLiveResults();
+			}
+		}
+
+		else if ("SearchReport".equals(command)) {
+			showSearchReport();
+		}
+
 		// The superclass might care about this action.
 		else {
 			super.actionPerformed(e);
@@ -328,15 +414,46 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	 * search table.<p>
 	 *
 	 * We assume this method is being called by {@link FindInFilesThread},
-	 * not the EDT, so the match data is added via
-	 * <code>SwingUtilities.invokeLater</code>.  Match data should never be
-	 * gathered on the EDT since it is a potentially long process to gather it.
+	 * not the EDT, so the match data is queued up and added to the table
+	 * later, in batches.  Match data should never be gathered on the EDT
+	 * since it is a potentially long process to gather it.
 	 *
 	 * @param matchData Data about the found text.
+	 * @param generation The generation returned by
+	 *        {@link #clearSearchResults()} when the search started.  If the
+	 *        results have been cleared for another search since, the match
+	 *        data is dropped.
+	 */
+	void addMatchData(MatchData matchData, int generation) {
+		resultBatcher.add(matchData, generation);
+	}
+
+
+	/**
+	 * Displays any results that have been added but not yet displayed.
+	 * This must be called on the EDT.
+	 *
+	 * @see #addMatchData(MatchData, int)
+	 */
+	void flushMatchData() {
+		resultBatcher.flush();
+	}
+
+
+	/**
+	 * Adds a batch of results to the search table.  This is called on the
+	 * EDT.
+	 *
+	 * @param batch The results to add.
 	 */
-	void addMatchData(final MatchData matchData) {
-		final String dirName = inFolderTextField.getText();
-		SwingUtilities.invokeLater(() -> getResultsComponent().addMatchData(matchData, dirName));
+	private void addMatchDataBatch(List<MatchData> batch) {
+		long start = System.nanoTime();
+		String dirName = inFolderTextField.getText();
+		getResultsComponent().addMatchData(batch, dirName);
+		FindInFilesThread thread = getWorkerThread();
+		if (thread!=null) {
+			thread.getSearchStats().uiTime(System.nanoTime() - start);
+		}
 	}
 
 
@@ -364,14 +481,20 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	/**
 	 * Clears the search results table.  This method can be called from
 	 * threads other than the EDT.
+	 *
+	 * @return The generation the next search's results should be added
+	 *         with.
+	 * @see #addMatchData(MatchData, int)
 	 */
-	void clearSearchResults() {
+	int clearSearchResults() {
+		int generation = resultBatcher.clear();
 		if (SwingUtilities.isEventDispatchThread()) {
 			getResultsComponent().clear();
 		}
 		else {
 			SwingUtilities.invokeLater(() -> getResultsComponent().clear());
 		}
+		return generation;
 	}
 
 
@@ -423,8 +546,74 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 		verboseCheckBox.addActionListener(this);
 		verboseCheckBox.setMnemonic((int)getString2("VerboseMnemonic").charAt(0));
 		temp.add(verboseCheckBox);
+		temp.add(Box.createHorizontalStrut(10));
+		skipBinaryCheckBox = new JCheckBox(getString2("SkipBinaryFiles"), true);
+		skipBinaryCheckBox.setActionCommand("SkipBinary");
+		skipBinaryCheckBox.addActionListener(this);
+		skipBinaryCheckBox.setMnemonic((int)getString2("SkipBinaryFilesMnemonic").charAt(0));
+		temp.add(skipBinaryCheckBox);
+		temp.add(Box.createHorizontalStrut(10));
+		ignoreFilesCheckBox = new JCheckBox(getString2("UseIgnoreFiles"));
+		ignoreFilesCheckBox.setActionCommand("IgnoreFiles");
+		ignoreFilesCheckBox.addActionListener(this);
+		ignoreFilesCheckBox.setMnemonic((int)getString2("UseIgnoreFilesMnemonic").charAt(0));
+		temp.add(ignoreFilesCheckBox);
+		temp.add(Box.createHorizontalStrut(10));
+		anyTermCheckBox = new JCheckBox(getString2("MatchAnyTerm"));
+		anyTermCheckBox.setActionCommand("AnyTerm");
+		anyTermCheckBox.addActionListener(this);
+		anyTermCheckBox.setMnemonic((int)getString2("MatchAnyTermMnemonic").charAt(0));
+		temp.add(anyTermCheckBox);
+		temp.add(Box.createHorizontalStrut(10));
+		archivesCheckBox = new JCheckBox(getString2("SearchArchives"));
+		archivesCheckBox.setActionCommand("SearchArchives");
+		archivesCheckBox.addActionListener(this);
+		archivesCheckBox.setMnemonic((int)getString2("SearchArchivesMnemonic").charAt(0));
+		temp.add(archivesCheckBox);
+		temp.add(Box.createHorizontalStrut(10));
+		liveResultsCheckBox = new JCheckBox(getString2("LiveResults"));
+		liveResultsCheckBox.setActionCommand("LiveResults");
+		liveResultsCheckBox.addActionListener(this);
+		liveResultsCheckBox.setMnemonic((int)getString2("LiveResultsMnemonic").charAt(0));
+		temp.add(liveResultsCheckBox);
 		temp.add(Box.createHorizontalGlue());
-		return temp;
+
+		Box limitsPanel = new Box(BoxLayout.LINE_AXIS);
+		maxFileSizeSpinner = new JSpinner(new SpinnerNumberModel(0, 0,
+				MAX_FILE_SIZE_LIMIT_MB, 1));
+		maxFileSizeSpinner.addChangeListener(e -> {
+			int mb = (Integer)maxFileSizeSpinner.getValue();
+			((FindInFilesSearchContext)context).setMaxFileSize(mb * 1024L * 1024);
+		});
+		JLabel maxFileSizeLabel = new JLabel(getString2("MaxFileSize"));
+		maxFileSizeLabel.setLabelFor(maxFileSizeSpinner);
+		maxFileSizeLabel.setDisplayedMnemonic((int)getString2("MaxFileSizeMnemonic").charAt(0));
+		limitsPanel.add(maxFileSizeLabel);
+		limitsPanel.add(Box.createHorizontalStrut(5));
+		limitsPanel.add(maxFileSizeSpinner);
+		maxFileSizeSpinner.setMaximumSize(maxFileSizeSpinner.getPreferredSize());
+		limitsPanel.add(Box.createHorizontalStrut(10));
+		maxResultsSpinner = new JSpinner(new SpinnerNumberModel(
+				FindInFilesSearchContext.DEFAULT_MAX_RESULTS_IN_MEMORY,
+				MIN_RESULTS_IN_MEMORY, Integer.MAX_VALUE, MIN_RESULTS_IN_MEMORY));
+		maxResultsSpinner.addChangeListener(e -> {
+			int max = (Integer)maxResultsSpinner.getValue();
+			((FindInFilesSearchContext)context).setMaxResultsInMemory(max);
+		});
+		JLabel maxResultsLabel = new JLabel(getString2("MaxResultsInMemory"));
+		maxResultsLabel.setLabelFor(maxResultsSpinner);
+		maxResultsLabel.setDisplayedMnemonic((int)getString2("MaxResultsInMemoryMnemonic").charAt(0));
+		limitsPanel.add(maxResultsLabel);
+		limitsPanel.add(Box.createHorizontalStrut(5));
+		limitsPanel.add(maxResultsSpinner);
+		maxResultsSpinner.setMaximumSize(maxResultsSpinner.getPreferredSize());
+		limitsPanel.add(Box.createHorizontalGlue());
+
+		Box panel = Box.createVerticalBox();
+		panel.add(temp);
+		panel.add(Box.createVerticalStrut(5));
+		panel.add(limitsPanel);
+		return panel;
 	}
 
 
@@ -565,6 +754,11 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 			}
 		}
 
+		// The old results are about to be replaced.
+		stopLiveResults();
+		searchReport = null;
+		reportButton.setEnabled(false);
+
 		// Show the hourglass cursor, as we may have a wait ahead of us.
 		setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
@@ -572,6 +766,11 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 		// while we're searching.
 		setSearching(true);
 
+		// Results past this limit are stored in a temporary file.
+		getResultsComponent().setMaxResultsInMemory(
+				((FindInFilesSearchContext)context).getMaxResultsInMemory());
+		getResultsComponent().setShowMatchedTerms(getMatchAnyTerm());
+
 		// Start searching!
 		setWorkerThread(createWorkerThread(directory));
 		getWorkerThread().start();
@@ -579,6 +778,32 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Saves the report for the last completed search to a file chosen by
+	 * the user.
+	 */
+	private void exportSearchReport() {
+
+		RTextFileChooser chooser = new RTextFileChooser();
+		chooser.setEncoding("UTF-8");
+		if (chooser.showSaveDialog(this)!=JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		File file = chooser.getSelectedFile();
+
+		try {
+			Files.writeString(file.toPath(), searchReport, StandardCharsets.UTF_8);
+		} catch (IOException ioe) {
+			JOptionPane.showMessageDialog(this,
+				MessageFormat.format(getString2("SearchReport.ExportError"),
+					file.getAbsolutePath(), ioe.getMessage()),
+				getString2("ErrorDialogTitle"),
+				JOptionPane.ERROR_MESSAGE);
+		}
+
+	}
+
+
 	/**
 	 * Notifies all find-in-files listeners of a find-in-files event in this
 	 * dialog.
@@ -738,6 +963,76 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Returns the size of the largest file to search.
+	 *
+	 * @return The maximum file size, in bytes, or <code>0</code> for no
+	 *         limit.
+	 * @see #getSkipBinaryFiles()
+	 */
+	long getMaxFileSize() {
+		return ((FindInFilesSearchContext)context).getMaxFileSize();
+	}
+
+
+	/**
+	 * Returns whether files that appear to be binary should be skipped.
+	 *
+	 * @return Whether to skip binary files.
+	 * @see #getMaxFileSize()
+	 */
+	boolean getSkipBinaryFiles() {
+		return ((FindInFilesSearchContext)context).getSkipBinaryFiles();
+	}
+
+
+	/**
+	 * Returns whether search results should be kept up to date as the
+	 * files searched change.  This is always <code>false</code> for Replace
+	 * in Files.
+	 *
+	 * @return Whether to keep results up to date.
+	 */
+	boolean getLiveResults() {
+		return liveResultsCheckBox!=null && liveResultsCheckBox.isSelected();
+	}
+
+
+	/**
+	 * Returns whether the search text is a list of terms, any of which
+	 * should be matched.  This is always <code>false</code> for Replace in
+	 * Files.
+	 *
+	 * @return Whether to match any of the terms.
+	 */
+	boolean getMatchAnyTerm() {
+		return anyTermCheckBox!=null && anyTermCheckBox.isSelected();
+	}
+
+
+	/**
+	 * Returns whether the entries of <code>.zip</code> and <code>.jar</code>
+	 * files should be searched.  This is always <code>false</code> for
+	 * Replace in Files, since archives can't be modified.
+	 *
+	 * @return Whether to search inside archives.
+	 */
+	boolean getSearchArchives() {
+		return archivesCheckBox!=null && archivesCheckBox.isSelected();
+	}
+
+
+	/**
+	 * Returns whether files and folders matched by <code>.gitignore</code>
+	 * files and the like should be skipped.
+	 *
+	 * @return Whether to honor ignore files.
+	 */
+	boolean getUseIgnoreFiles() {
+		return ((FindInFilesSearchContext)context).getUseIgnoreFiles();
+	}
+
+
 	/**
 	 * Returns whether regular expressions should be used in searches.
 	 *
@@ -762,6 +1057,20 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Overridden so searching for a regular expression and searching for
+	 * any of a list of terms are mutually exclusive.
+	 */
+	@Override
+	protected void handleRegExCheckBoxClicked() {
+		super.handleRegExCheckBoxClicked();
+		if (anyTermCheckBox!=null && anyTermCheckBox.isSelected() &&
+				regexCheckBox.isSelected()) {
+			anyTermCheckBox.doClick();
+		}
+	}
+
+
 	/**
 	 * Returns whether any action-related buttons (Find Next, Replace, etc.)
 	 * should be enabled.  Subclasses can call this method when the "Find What"
@@ -815,6 +1124,17 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Returns whether this dialog offers a performance report for each
+	 * search.  This is called while the dialog is being constructed.
+	 *
+	 * @return Whether a report is offered.
+	 */
+	protected boolean isSearchReportSupported() {
+		return true;
+	}
+
+
 	/**
 	 * Overridden to initialize UI elements specific to this subclass.
 	 */
@@ -827,6 +1147,29 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 		FindInFilesSearchContext fifsc = (FindInFilesSearchContext)context;
 		subfoldersCheckBox.setSelected(fifsc.getSearchSubfolders());
 		verboseCheckBox.setSelected(fifsc.getVerbose());
+		if (skipBinaryCheckBox!=null) {
+			skipBinaryCheckBox.setSelected(fifsc.getSkipBinaryFiles());
+		}
+		if (ignoreFilesCheckBox!=null) {
+			ignoreFilesCheckBox.setSelected(fifsc.getUseIgnoreFiles());
+		}
+		if (anyTermCheckBox!=null) {
+			anyTermCheckBox.setSelected(fifsc.getMatchAnyTerm());
+		}
+		if (archivesCheckBox!=null) {
+			archivesCheckBox.setSelected(fifsc.getSearchArchives());
+		}
+		if (liveResultsCheckBox!=null) {
+			liveResultsCheckBox.setSelected(fifsc.getLiveResults());
+		}
+		if (maxFileSizeSpinner!=null) {
+			long mb = fifsc.getMaxFileSize() / (1024 * 1024);
+			maxFileSizeSpinner.setValue((int)Math.min(mb, MAX_FILE_SIZE_LIMIT_MB));
+		}
+		if (maxResultsSpinner!=null) {
+			maxResultsSpinner.setValue(Math.max(fifsc.getMaxResultsInMemory(),
+					MIN_RESULTS_IN_MEMORY));
+		}
 	}
 
 
@@ -841,6 +1184,33 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Replaces the results for a file that changed after the search
+	 * completed.  This is called on the EDT when live results are enabled.
+	 * If results can't be replaced, live results are turned off.
+	 *
+	 * @param path The full path of the file.
+	 * @param matchDatas The file's new results.
+	 * @param dirName The folder that was searched.
+	 */
+	void replaceMatchData(String path, List<MatchData> matchDatas,
+			String dirName) {
+		ResultsComponent results = getResultsComponent();
+		int changed = results.replaceMatchData(path, matchDatas, dirName);
+		if (changed==-1) {
+			stopLiveResults();
+			setStatusText(getString2("LiveResultsUnavailable"));
+		}
+		else if (changed>0) {
+			String text = MessageFormat.format(getString2("LiveResultsUpdated"),
+					new File(path).getName());
+			text += " - " + MessageFormat.format(getString2("ResultCount"),
+					results.getMatchCount());
+			setStatusText(text);
+		}
+	}
+
+
 	/**
 	 * Called by the searching thread when searching was terminated early for
 	 * some reason.
@@ -862,6 +1232,10 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 
 		SwingUtilities.invokeLater(() -> {
 
+			// Make sure all results are displayed before we check whether
+			// there were any.
+			resultBatcher.flush();
+			FindInFilesThread thread = getWorkerThread();
 			setWorkerThread(null);
 
 			// Return the cursor to the regular one.
@@ -873,9 +1247,12 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 			// If searching completed normally (e.g., wasn't terminated).
 			if (time!=-1) {
 
-				// Make the status bar indicate that searching completed.
+				// Make the status bar indicate that searching completed, and
+				// how many results there are (some may not be in memory).
 				String temp = MessageFormat.format(searchingCompleteString,
 					""+(time/1000.0f));
+				temp += " - " + MessageFormat.format(getString2("ResultCount"),
+					getResultsComponent().getMatchCount());
 				setStatusText(temp);
 
 				// Update the results list and notify the user if the
@@ -894,6 +1271,22 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 
 			getResultsComponent().prettyUp();
 
+			// Remember where the time went, before live results (if any)
+			// start searching files again.
+			if (time!=-1 && thread!=null && thread.getSearchStats().isComplete()) {
+				searchReport = thread.getSearchStats().toReport(FindInFilesDialog.this,
+						thread.directory.getAbsolutePath(), getSearchString());
+				reportButton.setEnabled(true);
+			}
+
+			// Keep the results up to date from here on, if desired.
+			if (time!=-1 && thread!=null && thread.isLive()) {
+				RText rtext = (RText)getParent();
+				liveResultsUpdater = new LiveResultsUpdater(
+						FindInFilesDialog.this, thread, rtext.getMainView());
+				liveResultsUpdater.start();
+			}
+
 		});
 
 	}
@@ -944,12 +1337,30 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Sets the text in the status bar to show the progress of a search.
+	 * Unlike {@link #setStatusText(String)}, the status bar is only
+	 * updated periodically, so this can be called very frequently (e.g.
+	 * once per file searched) from search threads.
+	 *
+	 * @param text The text to display.
+	 */
+	void setSearchStatusText(String text) {
+		resultBatcher.setStatusText(text);
+	}
+
+
 	/**
 	 * Sets the text in the status bar.
 	 *
 	 * @param text The text to display.
+	 * @see #setSearchStatusText(String)
 	 */
 	public void setStatusText(final String text) {
+		// Don't let a pending progress update overwrite this text.
+		if (resultBatcher!=null) {
+			resultBatcher.clearStatusText();
+		}
 		// Check whether dialog is visible in case search table is
 		// docked on another window.
 		if (isVisible()) {
@@ -1012,6 +1423,47 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Displays the report for the last completed search: how many files
+	 * were searched and skipped, and where the time went.  The user can
+	 * save it to a file from here.
+	 */
+	private void showSearchReport() {
+
+		if (searchReport==null) {
+			return;
+		}
+
+		JTextArea textArea = new JTextArea(searchReport, 25, 100);
+		textArea.setEditable(false);
+		textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN,
+				textArea.getFont().getSize()));
+		textArea.setCaretPosition(0);
+
+		String[] options = { getString2("SearchReport.Export"),
+				getString2("Close") };
+		int choice = JOptionPane.showOptionDialog(this,
+				new RScrollPane(textArea), getString2("SearchReport.Title"),
+				JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null,
+				options, options[1]);
+		if (choice==0) {
+			exportSearchReport();
+		}
+
+	}
+
+
+	/**
+	 * Stops keeping the search results up to date, if they are.
+	 */
+	private void stopLiveResults() {
+		if (liveResultsUpdater!=null) {
+			liveResultsUpdater.stop();
+			liveResultsUpdater = null;
+		}
+	}
+
+
 	private void updateIcons() {
 		RText rtext = (RText)getParent();
 		Image image = rtext.getMainView().getSearchManager().getLookAndFeelContentAssistImage();
@@ -1116,8 +1568,10 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 
 			MatchData data = comp.getMatchDataForRow(row);
 			String fileName = data.getFileName();
-			// Might be a directory if Verbose is enabled.
-			if (!(new File(fileName).isFile())) {
+			// Might be a directory if Verbose is enabled.  Matches in
+			// archives are opened from the archive.
+			if (!(new File(fileName).isFile()) &&
+					ArchiveEntryFileLocation.create(fileName)==null) {
 				UIManager.getLookAndFeel().provideErrorFeedback(null);
 				return;
 			}
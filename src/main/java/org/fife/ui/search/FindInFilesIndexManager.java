@@ -0,0 +1,200 @@
+/*
+ * 10/18/2026
+ *
+ * FindInFilesIndexManager.java - Keeps the indexes used to speed up Find in
+ * Files up to date.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.fife.rtext.RTextUtilities;
+
+
+/**
+ * Manages the trigram indexes used to speed up Find in Files searches in
+ * commonly-searched folders, such as those in a project workspace.  Indexes
+ * are loaded, built and refreshed on a single background thread, and are
+ * saved to disk so they don't need to be rebuilt from scratch each time
+ * RText starts.<p>
+ *
+ * Searches in a folder that isn't indexed (or whose index isn't ready yet)
+ * simply don't use an index.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see TrigramIndex
+ */
+public final class FindInFilesIndexManager {
+
+	/**
+	 * Indexes aren't refreshed more often than this when searched.  Files
+	 * that change in between are still searched, since the index knows
+	 * they've changed.
+	 */
+	private static final long MIN_REFRESH_INTERVAL_MILLIS = 30 * 1000;
+
+	private static final FindInFilesIndexManager INSTANCE = new FindInFilesIndexManager();
+
+	private final Map<File, TrigramIndex> indexes;
+	private final Map<TrigramIndex, Boolean> refreshesPending;
+	private final ExecutorService executor;
+
+
+	/**
+	 * Private constructor to enforce singleton pattern.
+	 */
+	private FindInFilesIndexManager() {
+		indexes = new LinkedHashMap<>();
+		refreshesPending = new LinkedHashMap<>();
+		executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "FindInFilesIndexer");
+			t.setDaemon(true);
+			t.setPriority(Thread.MIN_PRIORITY);
+			return t;
+		});
+	}
+
+
+	/**
+	 * Returns the singleton instance of this class.
+	 *
+	 * @return The singleton instance.
+	 */
+	public static FindInFilesIndexManager get() {
+		return INSTANCE;
+	}
+
+
+	/**
+	 * Returns the file an index is persisted to.
+	 *
+	 * @param root The indexed folder.
+	 * @return The index file.
+	 */
+	private static File getIndexFile(File root) {
+		File dir = new File(RTextUtilities.getPreferencesDirectory(), "findInFilesIndexes");
+		String name = Integer.toHexString(root.getPath().hashCode()) + ".idx";
+		return new File(dir, name);
+	}
+
+
+	/**
+	 * Returns an index that can be used when searching a folder.  If the
+	 * index hasn't been refreshed in a while, a refresh is started in the
+	 * background.
+	 *
+	 * @param dir The folder being searched.
+	 * @return An index covering that folder, or <code>null</code> if there
+	 *         is no such index ready to be used.
+	 */
+	synchronized TrigramIndex getIndexFor(File dir) {
+
+		dir = dir.getAbsoluteFile();
+
+		for (TrigramIndex index : indexes.values()) {
+			if (index.isReady() && isAncestor(index.getRoot(), dir)) {
+				long sinceRefresh = System.currentTimeMillis() -
+						index.getLastRefreshMillis();
+				if (sinceRefresh>MIN_REFRESH_INTERVAL_MILLIS) {
+					scheduleRefresh(index, false);
+				}
+				return index;
+			}
+		}
+
+		return null;
+
+	}
+
+
+	private static boolean isAncestor(File ancestor, File file) {
+		while (file!=null) {
+			if (file.equals(ancestor)) {
+				return true;
+			}
+			file = file.getParentFile();
+		}
+		return false;
+	}
+
+
+	/**
+	 * Schedules an index to be refreshed (and optionally loaded from disk
+	 * first) in the background.
+	 *
+	 * @param index The index.
+	 * @param load Whether to load the index from disk first.
+	 */
+	private void scheduleRefresh(TrigramIndex index, boolean load) {
+
+		if (refreshesPending.put(index, Boolean.TRUE)!=null) {
+			return; // Already scheduled
+		}
+
+		executor.execute(() -> {
+			try {
+				if (load) {
+					try {
+						index.load();
+					} catch (IOException ioe) {
+						ioe.printStackTrace(); // Just rebuild from scratch
+					}
+				}
+				index.refresh();
+				index.save();
+			} catch (IOException ioe) {
+				ioe.printStackTrace();
+			} finally {
+				synchronized (FindInFilesIndexManager.this) {
+					refreshesPending.remove(index);
+				}
+			}
+		});
+
+	}
+
+
+	/**
+	 * Sets the folders to keep indexed.  Indexes for folders not in this
+	 * list are discarded from memory (though they are still saved on disk),
+	 * and indexes for new folders are loaded or built in the background.
+	 *
+	 * @param folders The folders to index.  Pass an empty collection to
+	 *        stop indexing altogether.
+	 */
+	public synchronized void setIndexedFolders(Collection<File> folders) {
+
+		Map<File, TrigramIndex> old = new LinkedHashMap<>(indexes);
+		indexes.clear();
+
+		for (File folder : folders) {
+			File root = folder.getAbsoluteFile();
+			TrigramIndex index = old.remove(root);
+			if (index==null && root.isDirectory()) {
+				index = new TrigramIndex(root, getIndexFile(root));
+				scheduleRefresh(index, true);
+			}
+			if (index!=null) {
+				indexes.put(root, index);
+			}
+		}
+
+		for (TrigramIndex index : old.values()) {
+			index.cancel();
+		}
+
+	}
+
+
+}
@@ -23,14 +23,89 @@ public class FindInFilesSearchContext extends SearchContext {
 
 	private boolean searchSubfolders;
 	private boolean verbose;
+	private int maxResultsInMemory;
+	private boolean skipBinaryFiles;
+	private long maxFileSize;
+	private boolean useIgnoreFiles;
+	private boolean matchAnyTerm;
+	private boolean searchArchives;
+	private boolean liveResults;
+
+	/**
+	 * The default maximum number of search results kept in memory.
+	 */
+	public static final int DEFAULT_MAX_RESULTS_IN_MEMORY = 1000000;
 
 
 	public FindInFilesSearchContext() {
 		searchSubfolders = true;
+		maxResultsInMemory = DEFAULT_MAX_RESULTS_IN_MEMORY;
+		skipBinaryFiles = true;
 		setSearchWrap(true);
 	}
 
 
+	/**
+	 * Returns whether search results should be kept up to date as the
+	 * files searched change.
+	 *
+	 * @return Whether to keep results up to date.
+	 * @see #setLiveResults(boolean)
+	 */
+	public boolean getLiveResults() {
+		return liveResults;
+	}
+
+
+	/**
+	 * Returns whether the search text is a list of terms separated by
+	 * whitespace, any of which should be matched.
+	 *
+	 * @return Whether to match any of the terms.
+	 * @see #setMatchAnyTerm(boolean)
+	 */
+	public boolean getMatchAnyTerm() {
+		return matchAnyTerm;
+	}
+
+
+	/**
+	 * Returns the size of the largest file to search.  Larger files, such
+	 * as huge generated files, are skipped.
+	 *
+	 * @return The maximum file size, in bytes, or <code>0</code> for no
+	 *         limit.
+	 * @see #setMaxFileSize(long)
+	 */
+	public long getMaxFileSize() {
+		return maxFileSize;
+	}
+
+
+	/**
+	 * Returns the maximum number of search results kept in memory.  Any
+	 * further results are stored in a temporary file.
+	 *
+	 * @return The maximum number of results.
+	 * @see #setMaxResultsInMemory(int)
+	 */
+	public int getMaxResultsInMemory() {
+		return maxResultsInMemory;
+	}
+
+
+	/**
+	 * Returns whether the entries of <code>.zip</code> and <code>.jar</code>
+	 * files should be searched.
+	 *
+	 * @return Whether to search inside archives.
+	 * @see #setSearchArchives(boolean)
+	 */
+	public boolean getSearchArchives() {
+		return searchArchives;
+	}
+
+
 	/**
 	 * Returns whether subfolders should be searched.
 	 *
@@ -42,6 +117,30 @@ public class FindInFilesSearchContext extends SearchContext {
 	}
 
 
+	/**
+	 * Returns whether files that appear to be binary should be skipped.
+	 *
+	 * @return Whether to skip binary files.
+	 * @see #setSkipBinaryFiles(boolean)
+	 */
+	public boolean getSkipBinaryFiles() {
+		return skipBinaryFiles;
+	}
+
+
+	/**
+	 * Returns whether files and folders matched by <code>.gitignore</code>,
+	 * <code>.ignore</code> and <code>.rgignore</code> files should be
+	 * skipped.
+	 *
+	 * @return Whether to honor ignore files.
+	 * @see #setUseIgnoreFiles(boolean)
+	 */
+	public boolean getUseIgnoreFiles() {
+		return useIgnoreFiles;
+	}
+
+
 	/**
 	 * Returns whether verbose output should be enabled.
 	 *
@@ -53,6 +152,67 @@ public class FindInFilesSearchContext extends SearchContext {
 	}
 
 
+	/**
+	 * Sets whether search results should be kept up to date as the files
+	 * searched change.
+	 *
+	 * @param live Whether to keep results up to date.
+	 * @see #getLiveResults()
+	 */
+	public void setLiveResults(boolean live) {
+		liveResults = live;
+	}
+
+
+	/**
+	 * Sets whether the search text is a list of terms separated by
+	 * whitespace, any of which should be matched.
+	 *
+	 * @param matchAny Whether to match any of the terms.
+	 * @see #getMatchAnyTerm()
+	 */
+	public void setMatchAnyTerm(boolean matchAny) {
+		matchAnyTerm = matchAny;
+	}
+
+
+	/**
+	 * Sets the size of the largest file to search.  Larger files, such as
+	 * huge generated files, are skipped.
+	 *
+	 * @param size The maximum file size, in bytes, or <code>0</code> for no
+	 *        limit.
+	 * @see #getMaxFileSize()
+	 */
+	public void setMaxFileSize(long size) {
+		maxFileSize = size;
+	}
+
+
+	/**
+	 * Sets the maximum number of search results kept in memory.  Any
+	 * further results are stored in a temporary file.
+	 *
+	 * @param max The maximum number of results.
+	 * @see #getMaxResultsInMemory()
+	 */
+	public void setMaxResultsInMemory(int max) {
+		maxResultsInMemory = max;
+	}
+
+
+	/**
+	 * Sets whether the entries of <code>.zip</code> and <code>.jar</code>
+	 * files should be searched.
+	 *
+	 * @param search Whether to search inside archives.
+	 * @see #getSearchArchives()
+	 */
+	public void setSearchArchives(boolean search) {
+		searchArchives = search;
+	}
+
+
 	/**
 	 * Sets whether subfolders should be searched.
 	 *
@@ -64,6 +224,30 @@ public class FindInFilesSearchContext extends SearchContext {
 	}
 
 
+	/**
+	 * Sets whether files that appear to be binary should be skipped.
+	 *
+	 * @param skip Whether to skip binary files.
+	 * @see #getSkipBinaryFiles()
+	 */
+	public void setSkipBinaryFiles(boolean skip) {
+		skipBinaryFiles = skip;
+	}
+
+
+	/**
+	 * Sets whether files and folders matched by <code>.gitignore</code>,
+	 * <code>.ignore</code> and <code>.rgignore</code> files should be
+	 * skipped.
+	 *
+	 * @param use Whether to honor ignore files.
+	 * @see #getUseIgnoreFiles()
+	 */
+	public void setUseIgnoreFiles(boolean use) {
+		useIgnoreFiles = use;
+	}
+
+
 	/**
 	 * Sets whether verbose output should be enabled.
 	 *
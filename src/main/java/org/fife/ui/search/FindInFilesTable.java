@@ -14,17 +14,24 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.ComponentOrientation;
 import java.awt.Container;
+import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.Vector;
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
@@ -36,6 +43,7 @@ import org.fife.ui.autocomplete.Util;
 import org.fife.ui.rtextfilechooser.Actions;
 import org.fife.ui.rtextfilechooser.FileSelector;
 import org.fife.ui.rtextfilechooser.FileSystemTree;
+import org.fife.ui.rtextfilechooser.RTextFileChooser;
 
 
 /**
@@ -48,8 +56,7 @@ import org.fife.ui.rtextfilechooser.FileSystemTree;
 public class FindInFilesTable extends JTable implements ResultsComponent, FileSelector {
 
 	private FileExplorerTableModel sorter;
-	private DefaultTableModel tableModel;
-	private List<MatchData> matchDatas;
+	private MatchTableModel tableModel;
 	private JPopupMenu contextMenu;
 
 	private StandardCellRenderer defaultRenderer;
@@ -57,6 +64,18 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 
 	private static final String MSG = "org.fife.ui.search.FindInFilesTable";
 
+	/**
+	 * When sizing columns to fit their contents, at most this many rows
+	 * whose text is loaded lazily are examined.
+	 */
+	private static final int MAX_LAZY_ROWS_TO_MEASURE = 200;
+
+	/**
+	 * When exporting results, this many rows are fetched from the table on
+	 * the EDT at a time.
+	 */
+	private static final int EXPORT_CHUNK_ROWS = 500;
+
 
 	/**
 	 * Constructor.
@@ -66,8 +85,8 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 		ResourceBundle msg = ResourceBundle.getBundle(MSG);
 
 		// Create the table model, and make it sortable.
-		// Keep a pointer to the "real" table model since it's a
-		// DefaultTableModel and is easy to modify.
+		// Keep a pointer to the "real" table model since it's the one we
+		// add results to.
 		tableModel = createTableModel(msg);
 		sorter = new FileExplorerTableModel(tableModel);
 		setModel(sorter);
@@ -80,8 +99,8 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 		setFillsViewportHeight(true);
 
 		initColumnWidths();
+		setShowMatchedTerms(false);
 
-		matchDatas = new ArrayList<>();
 		defaultRenderer = new StandardCellRenderer();
 
 		// By default, tables are registered to give tool tips.  This causes
@@ -105,29 +124,25 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 	 */
 	@Override
 	public void addMatchData(MatchData matchData, String dirName) {
+		addMatchData(Collections.singletonList(matchData), dirName);
+	}
 
-		// Make the displayed filename be in a path relative to the
-		// directory typed into the Find in Files dialog.
-		int pos = 0;
-		String fileName = matchData.getFileName().toLowerCase();
-		dirName = dirName.toLowerCase();
-		int dirNameLength = dirName.length();
-		while (pos<dirNameLength &&
-					(fileName.charAt(pos)==dirName.charAt(pos) ||
-					isFileSeparatorChar(fileName.charAt(pos)))) {
-			pos++;
-		}
-		if (isFileSeparatorChar(fileName.charAt(pos)))
-			pos++;
-		fileName = matchData.getFileName().substring(pos);
-
-		// We create and pass a Vector since that's what DefaultTableModel
-		// uses internally anyway.  This saves, say, creating an Object[]
-		// array to pass in.
-		Vector<String> v = createMatchDataVector(fileName, matchData);
-		tableModel.addRow(v);
-		matchDatas.add(matchData);
 
+	/**
+	 * Adds data on several matches to the table at once.  Only a single
+	 * table event is fired for all of the new rows.
+	 *
+	 * @param newMatchDatas The data.
+	 * @param dirName The "root directory" searching was done in.
+	 * @see #addMatchData(MatchData, String)
+	 */
+	@Override
+	public void addMatchData(List<MatchData> newMatchDatas, String dirName) {
+		List<String> fileNames = new ArrayList<>(newMatchDatas.size());
+		for (MatchData matchData : newMatchDatas) {
+			fileNames.add(getRelativeFileName(matchData, dirName));
+		}
+		tableModel.add(newMatchDatas, fileNames);
 	}
 
 
@@ -186,26 +201,71 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 	 */
 	@Override
 	public void clear() {
-		tableModel.setRowCount(0);
-		matchDatas.clear();
+		tableModel.clear();
 	}
 
 
 	/**
-	 * Return the vector of data to display in the table for a
-	 * match data instance.
+	 * Writes all results to a file, as tab-separated values in the order
+	 * they're displayed.  This includes any results that are being stored
+	 * on disk rather than in memory.<p>
 	 *
-	 * @param fileName The (relative) filename.
-	 * @param data The match data.
-	 * @return The vector.
+	 * This should be called off the EDT.  Rows are fetched from the table
+	 * on the EDT a chunk at a time, so the UI stays responsive while many
+	 * results are exported.
+	 *
+	 * @param file The file to write to.
+	 * @throws IOException If an IO error occurs.
+	 * @throws InterruptedException If the export is interrupted.
 	 */
-	protected Vector<String> createMatchDataVector(String fileName,
-			MatchData data) {
-		Vector<String> v = new Vector<>(3);
-		v.add(fileName);
-		v.add(data.getLineNumber());
-		v.add(data.getLineText());
-		return v;
+	void exportResults(File file) throws IOException, InterruptedException {
+		List<String> lines = new ArrayList<>(EXPORT_CHUNK_ROWS);
+		try (BufferedWriter w = Files.newBufferedWriter(file.toPath(),
+				StandardCharsets.UTF_8)) {
+			for (int row=0; ; row+=EXPORT_CHUNK_ROWS) {
+				int start = row;
+				lines.clear();
+				try {
+					SwingUtilities.invokeAndWait(() -> getRowsAsText(start, lines));
+				} catch (InvocationTargetException ite) {
+					throw new IOException(ite.getCause());
+				}
+				if (lines.isEmpty()) {
+					break;
+				}
+				for (String line : lines) {
+					w.write(line);
+					w.newLine();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Returns a chunk of rows as lines of tab-separated values, in the
+	 * order they're displayed.
+	 *
+	 * @param start The first row.
+	 * @param lines The lines are added to this list.  Nothing is added
+	 *        if there are no more rows.
+	 */
+	private void getRowsAsText(int start, List<String> lines) {
+		int end = Math.min(start + EXPORT_CHUNK_ROWS, getRowCount());
+		int columnCount = getColumnCount();
+		StringBuilder sb = new StringBuilder();
+		for (int row=start; row<end; row++) {
+			int modelRow = sorter.modelIndex(row);
+			sb.setLength(0);
+			for (int col=0; col<columnCount; col++) {
+				if (col>0) {
+					sb.append('\t');
+				}
+				sb.append(tableModel.getPlainText(modelRow,
+						convertColumnIndexToModel(col)));
+			}
+			lines.add(sb.toString());
+		}
 	}
 
 
@@ -215,12 +275,16 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 	 * @param msg The resource bundle.
 	 * @return The table model.
 	 */
-	protected DefaultTableModel createTableModel(ResourceBundle msg) {
-		DefaultTableModel tableModel = new DefaultTableModel();
-		tableModel.addColumn(msg.getString("FindInFiles.Column.File"));
-		tableModel.addColumn(msg.getString("FindInFiles.Column.Line"));
-		tableModel.addColumn(msg.getString("FindInFiles.Column.Text"));
-		return tableModel;
+	MatchTableModel createTableModel(ResourceBundle msg) {
+		String[] columnNames = {
+			msg.getString("FindInFiles.Column.File"),
+			msg.getString("FindInFiles.Column.Line"),
+			msg.getString("FindInFiles.Column.Terms"),
+			msg.getString("FindInFiles.Column.Text"),
+		};
+		return new MatchTableModel(columnNames, MatchTableModel.Column.FILE,
+				MatchTableModel.Column.LINE, MatchTableModel.Column.TERMS,
+				MatchTableModel.Column.TEXT);
 	}
 
 
@@ -266,12 +330,21 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 			contextMenu.addSeparator();
 
 			contextMenu.add(new Actions.PropertiesAction(this));
+			contextMenu.addSeparator();
+
+			contextMenu.add(new ExportAction(ResourceBundle.getBundle(MSG)));
 		}
 
 		return getSelectedRow() > -1 ? contextMenu : null;
 	}
 
 
+	@Override
+	public int getMatchCount() {
+		return tableModel.getMatchCount();
+	}
+
+
 	/**
 	 * Returns the match data displayed in the specified row.
 	 *
@@ -281,7 +354,7 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 	@Override
 	public MatchData getMatchDataForRow(int row) {
 		row = sorter.modelIndex(row);
-		return matchDatas.get(row);
+		return tableModel.getMatchData(row);
 	}
 
 
@@ -348,7 +421,8 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 		TableColumnModel columnModel = getColumnModel();
 		columnModel.getColumn(0).setPreferredWidth(80);
 		columnModel.getColumn(1).setPreferredWidth(40);
-		columnModel.getColumn(2).setPreferredWidth(180);
+		columnModel.getColumn(2).setPreferredWidth(60);
+		columnModel.getColumn(3).setPreferredWidth(180);
 	}
 
 
@@ -365,6 +439,30 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 	}
 
 
+	/**
+	 * Returns the path of a match's file relative to the directory typed
+	 * into the Find in Files dialog, for display.
+	 *
+	 * @param matchData The match.
+	 * @param dirName The directory searched in.
+	 * @return The relative path.
+	 */
+	private static String getRelativeFileName(MatchData matchData, String dirName) {
+		int pos = 0;
+		String fileName = matchData.getFileName().toLowerCase();
+		dirName = dirName.toLowerCase();
+		int dirNameLength = dirName.length();
+		while (pos<dirNameLength &&
+					(fileName.charAt(pos)==dirName.charAt(pos) ||
+					isFileSeparatorChar(fileName.charAt(pos)))) {
+			pos++;
+		}
+		if (isFileSeparatorChar(fileName.charAt(pos)))
+			pos++;
+		return matchData.getFileName().substring(pos);
+	}
+
+
 	private static boolean isFileSeparatorChar(char ch) {
 		return ch=='\\' || ch=='/';
 	}
@@ -423,12 +521,23 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 
 				TableCellRenderer renderer = getCellRenderer(i, j);
 
+				// Loading the text of a match means reading its file, so
+				// only do so for the first several matches.
+				Object value = getValueAt(i, j);
+				if (value instanceof MatchTableModel.LineText lineText) {
+					if (i>=MAX_LAZY_ROWS_TO_MEASURE &&
+							getMatchDataForRow(i).isLazy()) {
+						continue;
+					}
+					value = lineText.getText();
+				}
+
 				// If we're in the HTML column and there are a lot of results,
 				// we'll get the value of the non-HTML text to speed things up
 				// a little.
-				String value = (String)getValueAt(i, j);
-				if (rowCount>3000 && value.startsWith("<html>")) {
-					value = Util.stripHtml(value);
+				if (rowCount>3000 && value instanceof String str &&
+						str.startsWith("<html>")) {
+					value = Util.stripHtml(str);
 				}
 
 				Component comp = renderer.getTableCellRendererComponent(
@@ -446,6 +555,15 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 	}
 
 
+	@Override
+	public int replaceMatchData(String path, List<MatchData> matchDatas,
+			String dirName) {
+		String displayName = matchDatas.isEmpty() ? null :
+				getRelativeFileName(matchDatas.get(0), dirName);
+		return tableModel.replaceFileRows(path, matchDatas, displayName);
+	}
+
+
 	/**
 	 * Overridden to keep the left-hand side of the row visible on selection.
 	 * This is because otherwise the viewport jumps to show the entire cell
@@ -458,6 +576,40 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 	}
 
 
+	@Override
+	public void setMaxResultsInMemory(int max) {
+		tableModel.setMaxRowsInMemory(max);
+	}
+
+
+	/**
+	 * Shows or hides the column listing the terms matched on each line.
+	 * It is only useful for "any of these terms" searches.
+	 *
+	 * @param show Whether to show the column.
+	 */
+	@Override
+	public void setShowMatchedTerms(boolean show) {
+
+		int modelIndex = tableModel.getColumnIndex(MatchTableModel.Column.TERMS);
+		if (modelIndex==-1) {
+			return;
+		}
+
+		int viewIndex = convertColumnIndexToView(modelIndex);
+		if (show && viewIndex==-1) {
+			TableColumn column = new TableColumn(modelIndex, 60);
+			column.setHeaderValue(tableModel.getColumnName(modelIndex));
+			addColumn(column);
+			moveColumn(getColumnCount() - 1, Math.min(modelIndex, getColumnCount() - 1));
+		}
+		else if (!show && viewIndex>-1) {
+			removeColumn(getColumnModel().getColumn(viewIndex));
+		}
+
+	}
+
+
 	/**
 	 * Overridden to also update the UI of custom renderers.
 	 */
@@ -511,6 +663,64 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 	}
 
 
+	/**
+	 * Exports all results to a file the user selects.
+	 */
+	private final class ExportAction extends AbstractAction {
+
+		private final ResourceBundle msg;
+
+		ExportAction(ResourceBundle msg) {
+			super(msg.getString("Export"));
+			this.msg = msg;
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+
+			RTextFileChooser chooser = new RTextFileChooser();
+			chooser.setEncoding("UTF-8");
+			if (chooser.showSaveDialog(FindInFilesTable.this)!=
+					JFileChooser.APPROVE_OPTION) {
+				return;
+			}
+			File file = chooser.getSelectedFile();
+
+			// Export on another thread, since there may be many results
+			// and their text has to be read from the files they're in.
+			setEnabled(false);
+			setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+			Thread thread = new Thread(() -> {
+				IOException error = null;
+				try {
+					exportResults(file);
+				} catch (IOException ioe) {
+					error = ioe;
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+				IOException finalError = error;
+				SwingUtilities.invokeLater(() -> exportFinished(file, finalError));
+			}, "FindInFilesExport");
+			thread.start();
+
+		}
+
+		private void exportFinished(File file, IOException error) {
+			setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+			setEnabled(true);
+			if (error!=null) {
+				JOptionPane.showMessageDialog(FindInFilesTable.this,
+					MessageFormat.format(msg.getString("Export.Error"),
+						file.getAbsolutePath(), error.getMessage()),
+					msg.getString("Export.ErrorTitle"),
+					JOptionPane.ERROR_MESSAGE);
+			}
+		}
+
+	}
+
+
 	/**
 	 * The default renderer for the table.
 	 */
@@ -521,6 +731,11 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 								Object value, boolean selected,
 								boolean focused, int row, int column) {
 
+			// Matched text is only loaded when it's displayed.
+			if (value instanceof MatchTableModel.LineText lineText) {
+				value = lineText.getText();
+			}
+
 			// If it's HTML and selected, don't colorize the HTML, let the
 			// text all be the table's "selected text" color.
 			if (selected && value instanceof String str) {
@@ -547,6 +762,9 @@ public class FindInFilesTable extends JTable implements ResultsComponent, FileSe
 		public Component getTableCellRendererComponent(JTable table,
 								Object value, boolean isSelected,
 								boolean hasFocus, int row, int column) {
+			if (value instanceof MatchTableModel.LineText lineText) {
+				value = lineText.getText();
+			}
 			super.getTableCellRendererComponent(table, value, isSelected,
 										hasFocus, row, column);
 			if (!isSelected) {
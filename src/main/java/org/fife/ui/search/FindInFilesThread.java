@@ -10,35 +10,57 @@
  */
 package org.fife.ui.search;
 
-import java.awt.Font;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
 
-import javax.swing.text.Document;
-import javax.swing.text.Element;
-
-import org.fife.io.UnicodeReader;
 import org.fife.rsta.ui.search.FindDialog;
 import org.fife.rtext.AbstractMainView;
 import org.fife.rtext.RText;
+import org.fife.rtext.RTextEditorPane;
 import org.fife.ui.GUIWorkerThread;
 import org.fife.ui.OS;
-import org.fife.ui.rsyntaxtextarea.FileTypeUtil;
-import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
-import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
-import org.fife.ui.rsyntaxtextarea.Token;
-import org.fife.ui.rtextarea.RTextArea;
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
 
 
 /**
  * A thread created by a <code>FindInFilesDialog</code> to do the searching.
+ * This thread walks the directory tree and hands each file to be searched
+ * off to a pool of searcher threads.  Results are reported back to the
+ * dialog in the order the files were found, regardless of which searcher
+ * finishes first.
  *
  * @author Robert Futrell
  * @version 1.0
@@ -48,15 +70,143 @@ class FindInFilesThread extends GUIWorkerThread<Object> {
 
 	protected static final String NO_LINE_NUMBER	= "--";
 
+	/**
+	 * The maximum number of files waiting to be searched at any one time.
+	 */
+	protected static final int MAX_QUEUED_FILES = 256;
+
+	/**
+	 * How long to wait for searcher threads to stop when a search is
+	 * canceled.
+	 */
+	protected static final long CANCEL_WAIT_MILLIS = 1000;
+
+	/**
+	 * Placed in the queue to tell a searcher thread there is nothing more
+	 * to search.
+	 */
+	private static final FileToSearch NO_MORE_FILES = new FileToSearch(-1, -1, null);
+
+	/**
+	 * The initial size of a searcher thread's buffer for file contents.
+	 */
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Buffers larger than this (in chars) aren't kept around after
+	 * searching a large file.
+	 */
+	private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * Files at least this large are memory-mapped when scanning their raw
+	 * bytes.  Mapping a file has a fixed overhead and the mapping lingers
+	 * until it is garbage collected, so smaller files are just read.
+	 */
+	private static final long MMAP_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * How often (in chars) we remember where a file's text lines up with
+	 * its bytes as it's decoded.  Reading a matched line back later means
+	 * decoding at most this much text before it.
+	 */
+	private static final int CHECKPOINT_CHARS = 64 * 1024;
+
+	/**
+	 * What scanning a file's raw bytes found out about it.
+	 */
+	private enum RawScanResult {
+		MAY_MATCH,
+		NO_MATCH,
+		BINARY
+	}
+
 	protected FindInFilesDialog dialog;
 	protected File directory;
 	private Set<String> folderNamesToSkip;
+	protected FileNameMatcher fileNameMatcher;
+	private boolean useIgnoreFiles;
+
+	/**
+	 * Whether the entries of <code>.zip</code> and <code>.jar</code> files
+	 * are searched, rather than the files themselves.
+	 */
+	private boolean searchArchives;
+
+	private boolean searchSubfolders;
+
+	/**
+	 * The folders walked, if the results are kept up to date as files
+	 * change; otherwise <code>null</code>.
+	 */
+	private List<Path> searchedFolders;
+
+	/**
+	 * Searches files again as they change, once the search has completed.
+	 */
+	private Searcher liveSearcher;
+
+	/**
+	 * Editors open on files being searched, keyed by the files' full
+	 * paths.  Their in-memory text is searched instead of the files on
+	 * disk, which may be out of date.  This is synchronized since editors
+	 * may be opened and closed while results are kept up to date.
+	 */
+	protected Map<String, RTextEditorPane> openEditors;
+
+	// Search parameters, shared (read-only) by all searcher threads.
+	private AbstractMainView view;
+	private SyntaxScheme syntaxScheme;
+	protected String searchString;
+	protected boolean matchCase;
+	protected boolean wholeWord;
+	protected boolean useRegex;
+	private boolean matchingLines;
+	protected boolean doVerboseOutput;
+	protected String searchingFile;
+	private String multiLineMatchString;
+	private MatchedLineLoader lineLoader;
+	protected Pattern pattern;
+	protected LiteralByteMatcher byteMatcher;
+
+	/**
+	 * Finds the terms in "any of these terms" searches, or
+	 * <code>null</code> for other searches.
+	 */
+	private MultiTermMatcher termMatcher;
+
+	// Files that aren't searched because they're binary or too large.
+	protected boolean skipBinaryFiles;
+	protected long maxFileSize;
+	protected AtomicInteger skippedFileCount;
+
+	/**
+	 * Where the time in the search went, for the search report.
+	 */
+	private final SearchStats stats;
+
+	protected ResultMerger merger;
+
+	/**
+	 * The generation of this search's results in the dialog, so any
+	 * results added after it's canceled and another search has started
+	 * are dropped.
+	 */
+	protected int generation;
+
+	protected volatile int numFiles;
+	protected volatile boolean outOfMemory;
 
 	private String verboseLabelString;
 	private String errorLabelString;
 	protected String verboseNoFiltMatchString;
+	private String verboseNoIndexMatchString;
+	protected String verboseBinaryFileString;
+	protected String verboseFileTooLargeString;
+	protected String skippedFilesString;
 	protected String dontSearchSubfoldersString;
 	protected String skipThisFolderString;
+	private String verboseIgnoredString;
 	protected String newFilesToExamineString;
 	protected String occurrencesString;
 
@@ -72,27 +222,40 @@ class FindInFilesThread extends GUIWorkerThread<Object> {
 		this.dialog = dialog;
 		this.directory = directory;
 
-		folderNamesToSkip = new HashSet<>();
+		// Compare folder names case-insensitively where appropriate,
+		// without lower-casing the name of every folder we walk.
+		folderNamesToSkip = OS.get().isCaseSensitive() ? new HashSet<>() :
+				new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
 		String[] tempFoldersToSkip = dialog.getSkipFolders();
 		if (tempFoldersToSkip != null) {
-			for (String folderName : tempFoldersToSkip) {
-				if (!OS.get().isCaseSensitive()) {
-					folderName = folderName.toLowerCase();
-				}
-				folderNamesToSkip.add(folderName);
-			}
+			folderNamesToSkip.addAll(Arrays.asList(tempFoldersToSkip));
 		}
+		useIgnoreFiles = dialog.getUseIgnoreFiles();
+		searchArchives = dialog.getSearchArchives();
+		searchSubfolders = dialog.getCheckSubfolders();
+		searchedFolders = dialog.getLiveResults() ? new ArrayList<>() : null;
+		openEditors = getOpenEditors();
 
 		verboseLabelString = "<html><em>" + dialog.getString2("VerboseLabel") +
 							"</em>";
 		errorLabelString = "<html><em>" + dialog.getString2("ErrorLabel") +
 							"</em>";
 		verboseNoFiltMatchString = dialog.getString2("VerboseNoFiltMatch");
+		verboseNoIndexMatchString = dialog.getString2("VerboseNoIndexMatch");
+		verboseBinaryFileString = dialog.getString2("VerboseBinaryFile");
+		verboseFileTooLargeString = dialog.getString2("VerboseFileTooLarge");
+		skippedFilesString = dialog.getString2("SkippedFiles");
 		dontSearchSubfoldersString = dialog.getString2("SearchSubFoldUnchecked");
 		skipThisFolderString = dialog.getString2("SkipThisFolder");
+		verboseIgnoredString = dialog.getString2("VerboseIgnored");
 		newFilesToExamineString = dialog.getString2("NewFilesToExamine");
 		occurrencesString = dialog.getString2("Occurrences");
 
+		skipBinaryFiles = dialog.getSkipBinaryFiles();
+		maxFileSize = dialog.getMaxFileSize();
+		skippedFileCount = new AtomicInteger();
+		stats = new SearchStats();
+
 	}
 
 
@@ -102,6 +265,26 @@ class FindInFilesThread extends GUIWorkerThread<Object> {
 	}
 
 
+	/**
+	 * Creates the result for a match.  Its text isn't kept; it's loaded
+	 * from the file later, if and when it's displayed.
+	 *
+	 * @param fileFullPath The file containing the match.
+	 * @param lines The file's lines.
+	 * @param highlighter The highlighter for the file.
+	 * @param startLine The line the match starts on.
+	 * @param endLine The line the match ends on.
+	 * @return The result.
+	 */
+	private MatchData createMatchData(String fileFullPath, LineIndex lines,
+			LineHighlighter highlighter, int startLine, int endLine) {
+		return new MatchData(fileFullPath, startLine+1, endLine+1,
+				lines.getLineStartOffset(startLine),
+				highlighter.getTokenTypeAtLineStart(startLine),
+				highlighter.getStyle(), lineLoader);
+	}
+
+
 	protected MatchData createVerboseMatchData(String filePath, String msg) {
 		return new MatchData(filePath, NO_LINE_NUMBER,
 					verboseLabelString + msg, MatchData.TYPE_VERBOSE);
@@ -109,429 +292,1883 @@ class FindInFilesThread extends GUIWorkerThread<Object> {
 
 
 	/**
-	 * Runs the search.
+	 * Returns verbose output summarizing how many files were skipped
+	 * because they appeared to be binary or were too large.
+	 *
+	 * @return The output, or <code>null</code> if no files were skipped.
 	 */
-	@Override
-	public Object construct() {
-
-		RText parent = (RText)dialog.getOwner();
-		AbstractMainView view = parent.getMainView();
-
-		// Get the string to search for and filters for the files to search.
-		String searchString = dialog.getSearchString();
-		Pattern[] filterStrings = getFilterStrings();
-		if (filterStrings==null) {
-			dialog.searchCompleted("");
+	protected MatchData createSkippedFilesMatchData() {
+		int count = skippedFileCount.get();
+		if (count==0) {
 			return null;
 		}
+		String text = MessageFormat.format(skippedFilesString, count);
+		return createVerboseMatchData(directory.getAbsolutePath(), text);
+	}
 
-		// Then, do the search.
-		dialog.clearSearchResults();
-		File[] files = directory.listFiles();
-		List<File> fileList = new ArrayList<>(Arrays.asList(files));
-
-		boolean checkSubfolders = dialog.getCheckSubfolders();
-		boolean matchingLines = dialog.getShowMatchingLines();
-		boolean matchCase = dialog.getMatchCase();
-		boolean wholeWord = dialog.getMatchWholeWord();
-		boolean useRegex = dialog.getUseRegEx();
-		boolean doVerboseOutput = dialog.getDoVerboseOutput();
-		String searchingFile = dialog.getString2("SearchingFile");
-
-		if (!useRegex && !matchCase)
-			searchString = searchString.toLowerCase();
 
-		RSyntaxTextArea textArea = new RSyntaxTextArea();
-		textArea.setSyntaxScheme(parent.getSyntaxScheme());
-		long startMillis = System.currentTimeMillis();
+	/**
+	 * Returns the editors open on files in the directory being searched.
+	 * This is called on the EDT, when the search is started.
+	 *
+	 * @return The editors, keyed by their files' full paths.
+	 */
+	private Map<String, RTextEditorPane> getOpenEditors() {
 
-		// Keep looping while there are more files to search.
-		int numFiles = fileList.size();
-		for (int i=0; i<numFiles; i++) {
+		Map<String, RTextEditorPane> editors = OS.get().isCaseSensitive() ?
+				new HashMap<>() : new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
-			// If the user canceled the search...
-			if (Thread.currentThread().isInterrupted()) {
-				dialog.searchCompleted(dialog.getString2("SearchTerminated"));
-				return null;
+		AbstractMainView mainView = ((RText)dialog.getOwner()).getMainView();
+		for (int i=0; i<mainView.getNumDocuments(); i++) {
+			RTextEditorPane textArea = mainView.getRTextEditorPaneAt(i);
+			String path = getPathInFolder(textArea);
+			if (path!=null) {
+				editors.put(path, textArea);
 			}
-
-			File temp = fileList.get(i);
-			String fileFullPath = temp.getAbsolutePath();
-
-			// If temp is a regular file (i.e., non-directory) AND exists...
-			if (temp.isFile()) {
-
-				// If the file doesn't match one of the filters from
-				// "In files:", skip it.
-				if (isFilteredOut(temp.getName(), filterStrings)) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(
-								fileFullPath, verboseNoFiltMatchString);
-						dialog.addMatchData(data);
-					}
-					continue;
-				}
-
-				// Display the file we're searching in the status bar.
-				// Note that this method postpones the update to the EDT.
-				dialog.setStatusText(searchingFile + i + "/" + numFiles +
-								": " + fileFullPath);
-
-				try {
-					// Use a UnicodeReader to auto-detect whether this
-					// is a Unicode file.
-					// FIXME:  Allow the user to specify the default
-					// encoding, instead of assuming system default,
-					// somehow.
-					Reader r = new BufferedReader(new UnicodeReader(temp));
-					String style = view.getSyntaxStyleForFile(temp.getName());
-					textArea.read(r, null);	// Clears all old text.
-					// Important!  Clear undo history, or RSTA's undo manager
-					// will keep all old text (i.e. copies of ALL previous
-					// files searched)!
-					textArea.discardAllEdits();
-					if (!style.equals(textArea.getSyntaxEditingStyle())) {
-						textArea.setSyntaxEditingStyle(style);
-					}
-					r.close();
-				} catch (IOException ioe) {
-					MatchData data = createErrorMatchData(fileFullPath,
-								"IOException reading file: " + ioe);
-					dialog.addMatchData(data);
-					continue;
-				} catch (OutOfMemoryError oome) {
-					MatchData data = createErrorMatchData(fileFullPath,
-											"OutOfMemoryError");
-					dialog.addMatchData(data);
-					// Bail out.
-					dialog.searchCompleted(
-							System.currentTimeMillis() - startMillis);
-					return null;
-				}
-
-				String buffer = textArea.getText();
-
-				// If we got some text out of the file...
-				if (buffer!=null) {
-					try {
-						if (useRegex) {
-							doSearchRegex(buffer, searchString, textArea,
-								matchCase, wholeWord, matchingLines,
-								fileFullPath);
-						}
-						else {
-							doSearchNoRegex(buffer, searchString, textArea,
-								matchCase, wholeWord, matchingLines,
-								fileFullPath);
-						}
-					} catch (Exception e) {
-						// Shouldn't happen...
-						e.printStackTrace();
-						continue;
-					}
-				}
-
-			} // End of if (temp.isFile()).
-
-			// Otherwise, if the file is a directory...
-			else if (temp.isDirectory()) {
-
-				// Ignore this (sub)directory if the user doesn't want
-				// to search subdirectories.
-				if (!checkSubfolders) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(
-							fileFullPath, dontSearchSubfoldersString);
-						dialog.addMatchData(data);
-					}
-					continue;
-				}
-
-				// Ignore if this folder is one the user wants to skip.
-				else if (shouldSkipFolder(temp)) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(
-							fileFullPath, skipThisFolderString);
-						dialog.addMatchData(data);
-					}
-					continue;
-				}
-
-				// Add any files in this subdirectory to the master list
-				// of files to search.
-				List<File> moreFilesList = getFilesFromDirectory(temp);
-				int count = moreFilesList==null ? 0 : moreFilesList.size();
-				if (count>0) {
-					fileList.addAll(moreFilesList);
-					numFiles += count;
-				}
-				if (doVerboseOutput) {
-					MatchData data = createVerboseMatchData(
-						fileFullPath, newFilesToExamineString +
-						": " + count);
-					dialog.addMatchData(data);
-				}
-
-			} // End of else if (temp.isDirectory()).
-
-		} // End of for (int i=0; i<numFiles; i++).
-
-		dialog.searchCompleted(System.currentTimeMillis() - startMillis);
-		return null;
+		}
+		return Collections.synchronizedMap(editors);
 
 	}
 
 
 	/**
-	 * Performs a non-regex "Find in Files" operation on a single file.
+	 * Returns the full path of an editor's file, if it's in the directory
+	 * being searched.  Placeholder editors are ignored, since they don't
+	 * yet contain their files' text.
+	 *
+	 * @param textArea The editor.
+	 * @return The full path, or <code>null</code> if the editor's file is
+	 *         remote, hasn't been read yet, or isn't in the directory being
+	 *         searched.
 	 */
-	private void doSearchNoRegex(String buffer, String searchString,
-							RSyntaxTextArea textArea,
-							boolean matchCase, boolean wholeWord,
-							boolean matchingLines, String fileFullPath) {
-
-		// If search is not case-sensitive, lower-case text to search in
-		// (searchString is already done).
-		if (!matchCase)
-			buffer = buffer.toLowerCase();
-
-		// Some stuff we'll use below.
-		String lineText;
-		RSyntaxDocument doc = (RSyntaxDocument)textArea.getDocument();
-		Element map = doc.getDefaultRootElement();
-		Element elem;
-		int lineCount = map.getElementCount();
-		int i = 0;
-		int len = searchString.length();
-		int numMatches = 0;
-
-		// Loop through all matches in the file.
-		while ((i=buffer.indexOf(searchString, i))!=-1) {
-
-			// If we found a match...
-			if (!wholeWord || FindDialog.isWholeWord(buffer, i, len)) {
-
-				numMatches++;
-				if (matchingLines) {
-					int line;
-					int lineEnd;
-					line = map.getElementIndex(i);
-					elem = map.getElement(line);
-					lineEnd = line==lineCount-1 ? elem.getEndOffset()-1 :
-											elem.getEndOffset();
-					Token t = textArea.getTokenListForLine(line);
-					lineText = getHtml(t, textArea);
-					dialog.addMatchData(new MatchData(fileFullPath,
-									Integer.toString(line+1), lineText));
-					// Since a single line may have more than one match,
-					// skip to the next line's start.
-					i = lineEnd/* + 1*/;
-
-				}
-				else {
-					i += len;
-				}
-
-			// We found a potential match, but "whole word" is enabled and
-			// this match isn't "whole word."
-			} else {
-				// We could probably say "i += len" and get away with it,
-				// but it is possible for someone to search "whole word" for
-				// strings with spaces in them, in which case we should
-				// simply increment (for example, searching for "a a " in
-				// "ba a a ").
-				i++;
-			}
+	private String getPathInFolder(RTextEditorPane textArea) {
 
+		if (!textArea.isLocal() || textArea.isPlaceholder()) {
+			return null;
 		}
 
-		// If we're only interested in the match count, not individual
-		// matches, add an entry for this file.
-		if (!matchingLines && numMatches>0) {
-			String text = MessageFormat.format(occurrencesString, numMatches);
-			MatchData data = new MatchData(fileFullPath, NO_LINE_NUMBER, text);
-			dialog.addMatchData(data);
+		boolean caseSensitive = OS.get().isCaseSensitive();
+		String root = directory.getAbsolutePath();
+		if (!root.endsWith(File.separator)) {
+			root += File.separator;
 		}
+		String path = new File(textArea.getFileFullPath()).getAbsolutePath();
+		return path.regionMatches(!caseSensitive, 0, root, 0, root.length()) ?
+				path : null;
 
 	}
 
 
 	/**
-	 * Performs a regex "Find in Files" operation on a single file.
+	 * Returns the folders walked by the search, so they can be watched for
+	 * changes.
+	 *
+	 * @return The folders.  This is empty unless the dialog asked for live
+	 *         results when the search started.
 	 */
-	private void doSearchRegex(String buffer, String searchString,
-							RSyntaxTextArea textArea, boolean matchCase,
-							boolean wholeWord, boolean matchingLines,
-							String fileFullPath) {
-
-		Document doc = textArea.getDocument();
-		Element map = doc.getDefaultRootElement();
-		int numMatches = 0;
-		int lastStartLine = -1;
+	List<Path> getSearchedFolders() {
+		return searchedFolders!=null ? searchedFolders : Collections.emptyList();
+	}
 
-		// Create a Matcher to find the text we're looking for.
-		int flags = matchCase ? 0 : (Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
-		Pattern pattern = Pattern.compile(searchString, flags);
-		Matcher m = pattern.matcher(buffer);
 
-		// Loop through all matches.
-		while (m.find()) {
+	/**
+	 * Returns statistics about where the time in the search went.
+	 *
+	 * @return The statistics.  These are only complete if
+	 *         {@link SearchStats#isComplete()} returns <code>true</code>.
+	 */
+	SearchStats getSearchStats() {
+		return stats;
+	}
 
-			int start = m.start();
-			int end = m.end();
 
-			// If we found a match...
-			if (!wholeWord || FindDialog.isWholeWord(buffer, start, end-start)) {
+	/**
+	 * Returns the ignore files that apply to a folder in the directory
+	 * being searched, the same as those that applied when it was walked.
+	 *
+	 * @param dir The folder.
+	 * @return The ignore files, deepest folder first.
+	 */
+	private List<IgnoreFiles> getIgnoreFiles(Path dir) {
 
-				numMatches++;
+		List<IgnoreFiles> result = new ArrayList<>();
+		Path root = directory.getAbsoluteFile().toPath();
+		for (Path d=dir; d!=null && d.startsWith(root); d=d.getParent()) {
+			addIgnoreFiles(d, result);
+		}
 
-				// If we're interested in seeing each match...
-				if (matchingLines) {
+		// The ignore files above the directory being searched only apply
+		// if it's in a git repository.
+		List<Path> parents = new ArrayList<>();
+		for (Path d=root.getParent(); d!=null; d=d.getParent()) {
+			parents.add(d);
+			if (Files.exists(d.resolve(".git"))) {
+				for (Path parent : parents) {
+					addIgnoreFiles(parent, result);
+				}
+				break;
+			}
+		}
 
-					// Get the text of the first line of the match.
-					int startLine = map.getElementIndex(start);
-					if (startLine==lastStartLine) {
-						// If a single line has > 1 match, don't show
-						// the same line multiple times.
-						continue;
-					}
-					lastStartLine = startLine;
-					int endLine = map.getElementIndex(end);
-					Token t = textArea.getTokenListForLine(startLine);
-					String text = getHtml(t, textArea);
+		return result;
 
-					// Add an item to our results.
-					boolean oneLine = startLine==endLine;
-					String lineStr = oneLine ? Integer.toString(startLine+1) :
-								((startLine+1) + "-" + (endLine+1));
-					if (!oneLine) {
-						text += " <em>" +
-								dialog.getString2("MultiLineMatch") +
-								"</em>";
-					}
-					MatchData data = new MatchData(
-										fileFullPath, lineStr, text);
-					dialog.addMatchData(data);
+	}
 
-				} // End of if (matchingLines)
 
-			} // End of if (!wholeWord || FindDialog.isWholeWord(...))
+	private static void addIgnoreFiles(Path dir, Collection<IgnoreFiles> ignoreFiles) {
+		IgnoreFileMatcher matcher = IgnoreFileMatcher.forDirectory(dir);
+		if (matcher!=null) {
+			ignoreFiles.add(new IgnoreFiles(dir, matcher));
+		}
+	}
 
-		} // End of while (m.find())
 
-		// If we're only interested in the match count, not individual
-		// matches, add an entry for this file.
-		if (!matchingLines && numMatches>0) {
-			String text = MessageFormat.format(occurrencesString, numMatches);
-			MatchData data = new MatchData(fileFullPath,
-							NO_LINE_NUMBER, text);
-			dialog.addMatchData(data);
+	/**
+	 * Returns whether a file or folder is matched by an ignore file.
+	 *
+	 * @param path The file or folder.
+	 * @param isDirectory Whether it is a folder.
+	 * @param ignoreFiles The ignore files that apply to it, deepest folder
+	 *        first.
+	 * @return Whether it should be ignored.
+	 */
+	private static boolean isIgnored(Path path, boolean isDirectory,
+			Iterable<IgnoreFiles> ignoreFiles) {
+		for (IgnoreFiles files : ignoreFiles) {
+			String relativePath = files.dir.relativize(path).toString();
+			if (File.separatorChar!='/') {
+				relativePath = relativePath.replace(File.separatorChar, '/');
+			}
+			IgnoreFileMatcher.Result result = files.matcher.match(
+					relativePath, isDirectory);
+			if (result!=IgnoreFileMatcher.Result.NONE) {
+				return result==IgnoreFileMatcher.Result.IGNORED;
+			}
 		}
-
+		return false;
 	}
 
 
 	/**
-	 * Returns the files contained in the specified directory as a list.
+	 * Returns whether the results of this search should be kept up to date
+	 * once it completes.
 	 *
-	 * @param dir The directory.
-	 * @return The files in the directory, as a list.
+	 * @return Whether the dialog asked for live results when the search
+	 *         started.
 	 */
-	protected static List<File> getFilesFromDirectory(File dir) {
-		// Get the list of files in this directory.
-		File[] moreFiles = dir.listFiles();
-		if (moreFiles==null) {
-			// Should never happen (as dirs return empty arrays).
-			return Collections.emptyList();
-		}
-		return Arrays.asList(moreFiles);
+	boolean isLive() {
+		return searchedFolders!=null;
 	}
 
 
-	protected Pattern[] getFilterStrings() {
+	/**
+	 * Returns whether a folder created since the search completed would
+	 * have been searched.
+	 *
+	 * @param dir The folder, somewhere in the directory searched.
+	 * @return Whether the folder would have been searched.
+	 */
+	boolean isSearchedFolder(Path dir) {
+		String name = dir.getFileName().toString();
+		return searchSubfolders && !shouldSkipFolder(name) &&
+				!(useIgnoreFiles && (".git".equals(name) ||
+					isIgnored(dir, true, getIgnoreFiles(dir.getParent()))));
+	}
+
 
-		// Get the list of regular expressions to apply when deciding
-		// whether to look in a file.  If we're on Windows, or OS X,
-		// do case-insensitive regexes.
-		String[] tokens = dialog.getInFilesPatterns();
-		if (tokens==null || tokens.length==0) {
-			return null;
-		}
-		try {
-			return Arrays.stream(tokens).map(
-				FileTypeUtil::fileFilterToPattern).toArray(Pattern[]::new);
-		} catch (PatternSyntaxException e) {
-			e.printStackTrace(); // Never happens.
-			return null;
+	/**
+	 * Starts or stops searching an editor's text rather than its file.
+	 * This is used to keep results up to date as editors are opened and
+	 * closed.
+	 *
+	 * @param textArea The editor.
+	 * @param open Whether the editor was opened, as opposed to closed.
+	 * @return The full path of the editor's file, or <code>null</code> if
+	 *         it isn't in the directory searched.
+	 */
+	String setEditorOpen(RTextEditorPane textArea, boolean open) {
+		String path = getPathInFolder(textArea);
+		if (path!=null) {
+			if (open) {
+				openEditors.put(path, textArea);
+			}
+			else {
+				openEditors.remove(path, textArea);
+			}
 		}
+		return path;
 	}
 
 
 	/**
-	 * Gets an HTML string for a token list, stripping off leading whitespace.
+	 * Searches a single file again, with the same parameters as the search
+	 * that completed.  This is used to keep the results up to date as
+	 * files change, and should only be called from one thread at a time.
 	 *
-	 * @param t The beginning of the token list.
-	 * @param textArea The text area to get the highlighting information from.
-	 * @return The HTML.
+	 * @param file The file.
+	 * @return The results for the file.  This is empty if the file no
+	 *         longer exists, or wouldn't have been searched.
 	 */
-	private static String getHtml(Token t, RSyntaxTextArea textArea) {
-
-		// HTML rendering in Swing is very slow, and we've also seen OOME's
-		// from trying render lines that were too long in the Find in Files
-		// table, so we'll limit how much we display.
-		final int maxLen = 1280;
+	List<MatchData> searchAgain(File file) {
 
-		Font font = RTextArea.getDefaultFont();
-		String fontFamily = font.getFamily();
-		StringBuilder sb = new StringBuilder("<html><nobr><font face=\"" + fontFamily + "\">");
-		boolean firstNonWhitespace = false; // Skip leading whitespace
+		List<MatchData> results = new ArrayList<>(0);
+		Path path = file.toPath();
+		BasicFileAttributes attrs;
+		try {
+			attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (IOException ioe) {
+			return results; // Deleted
+		}
 
-		while (t!=null && t.isPaintable() && sb.length()<maxLen) {
-			if (firstNonWhitespace || (firstNonWhitespace |= !t.isWhitespace())) {
-				t.appendHTMLRepresentation(sb, textArea, false);
-			}
-			t = t.getNextToken();
+		String name = file.getName();
+		if (!attrs.isRegularFile() || !fileNameMatcher.matches(name) ||
+				(maxFileSize>0 && attrs.size()>maxFileSize) ||
+				(searchArchives && ArchiveEntryFileLocation.isArchive(name)) ||
+				(useIgnoreFiles && isIgnored(path, false,
+						getIgnoreFiles(path.getParent())))) {
+			return results;
 		}
 
-		if (sb.length()>=maxLen) {
-			sb.append("...");
+		if (liveSearcher==null) {
+			liveSearcher = new Searcher(null);
+			liveSearcher.highlighter = new LineHighlighter(syntaxScheme);
 		}
-		return sb.toString();
+		liveSearcher.searchFile(new FileToSearch(0, 0, file), results);
+		return results;
 
 	}
 
 
 	/**
-	 * Returns whether the specified file is "filtered out" and should
-	 * not be searched.
+	 * Returns whether a file should be skipped because it appears to be
+	 * binary.  If it is, it is counted as skipped.  Only the start of the
+	 * file is read.
 	 *
-	 * @param file The file name.
-	 * @param filters The filters for files to search.
-	 * @return Whether the file is filtered out.
-	 */
-	protected static boolean isFilteredOut(String file,
-										   Pattern[] filters) {
-		for (Pattern filter : filters) {
-			if (filter.matcher(file).matches()) {
-				return false;
+	 * @param file The file.
+	 * @return Whether the file should be skipped.  If the file can't be
+	 *         read, this returns <code>false</code>, so the error is
+	 *         reported when it is searched.
+	 * @see #isTooLarge(long)
+	 */
+	protected boolean isSkippedBinaryFile(File file) {
+		try {
+			if (skipBinaryFiles && BinaryFileSniffer.isBinary(file)) {
+				skippedFileCount.incrementAndGet();
+				stats.fileSkipped(SearchStats.Skip.BINARY);
+				return true;
 			}
+		} catch (IOException ioe) {
+			// Fall through
 		}
-		return true;
+		return false;
 	}
 
 
 	/**
-	 * Returns whether this folder is one the user wants to skip.
+	 * Returns whether a file is too large to search.  If it is, it is
+	 * counted as skipped.
 	 *
-	 * @param folder The folder.
-	 * @return Whether the user wants to skip this folder.
+	 * @param size The size of the file, in bytes.
+	 * @return Whether the file is too large.
+	 * @see #getFileTooLargeMessage()
 	 */
-	protected boolean shouldSkipFolder(File folder) {
-		String folderName = folder.getName();
-		if (!OS.get().isCaseSensitive()) {
-			folderName = folderName.toLowerCase();
+	protected boolean isTooLarge(long size) {
+		if (maxFileSize>0 && size>maxFileSize) {
+			skippedFileCount.incrementAndGet();
+			stats.fileSkipped(SearchStats.Skip.SIZE);
+			return true;
 		}
-		return folderNamesToSkip.contains(folderName);
+		return false;
+	}
+
+
+	/**
+	 * Returns the verbose output for a file that is too large to search.
+	 *
+	 * @return The output.
+	 * @see #isTooLarge(long)
+	 */
+	protected String getFileTooLargeMessage() {
+		return MessageFormat.format(verboseFileTooLargeString, maxFileSize);
+	}
+
+
+	/**
+	 * Runs the search.
+	 */
+	@Override
+	public Object construct() {
+
+		RText parent = (RText)dialog.getOwner();
+		view = parent.getMainView();
+		syntaxScheme = parent.getSyntaxScheme();
+
+		// Get the string to search for and filters for the files to search.
+		searchString = dialog.getSearchString();
+		fileNameMatcher = createFileNameMatcher();
+		if (fileNameMatcher==null) {
+			dialog.searchCompleted("");
+			return null;
+		}
+
+		// Then, do the search.
+		generation = dialog.clearSearchResults();
+
+		matchingLines = dialog.getShowMatchingLines();
+		matchCase = dialog.getMatchCase();
+		wholeWord = dialog.getMatchWholeWord();
+		useRegex = dialog.getUseRegEx();
+		doVerboseOutput = dialog.getDoVerboseOutput();
+		searchingFile = dialog.getString2("SearchingFile");
+		multiLineMatchString = dialog.getString2("MultiLineMatch");
+		lineLoader = new MatchedLineLoader(syntaxScheme, multiLineMatchString,
+				openEditors);
+
+		// Searches for any of a list of terms find them all at once.
+		termMatcher = null;
+		if (dialog.getMatchAnyTerm()) {
+			termMatcher = new MultiTermMatcher(
+					MultiTermMatcher.parseTerms(searchString, matchCase), matchCase);
+			useRegex = false;
+		}
+
+		if (!useRegex && !matchCase)
+			searchString = searchString.toLowerCase();
+
+		// Regexes are compiled once for the whole search.
+		pattern = useRegex ? compilePattern() : null;
+
+		// Most files can be ruled out by scanning their raw bytes for text
+		// any match must contain, without decoding them.
+		byteMatcher = termMatcher!=null ? null : createByteMatcher();
+
+		long startMillis = System.currentTimeMillis();
+
+		// If the folder is indexed, use the index to skip files that can't
+		// contain a match.
+		TrigramIndex.Query indexQuery = createIndexQuery();
+
+		// Start up the searcher threads.  They pull files off of a bounded
+		// queue as we find them, so the directory walk never gets too far
+		// ahead of the searching.
+		int threadCount = getSearcherThreadCount();
+		BlockingQueue<FileToSearch> queue = new ArrayBlockingQueue<>(MAX_QUEUED_FILES);
+		merger = new ResultMerger(MAX_QUEUED_FILES + 4*threadCount);
+		outOfMemory = false;
+		ExecutorService searchers = createSearcherPool(threadCount);
+		for (int i=0; i<threadCount; i++) {
+			searchers.execute(new Searcher(queue));
+		}
+		searchers.shutdown(); // Searchers run until they see NO_MORE_FILES
+
+		try {
+
+			// Hand each file to search off to the searcher threads.
+			walkDirectory((file, attrs, index) -> {
+
+				// Archives are expanded, and their entries searched
+				// like any other files.
+				if (searchArchives &&
+						ArchiveEntryFileLocation.isArchive(file.getName())) {
+					return queueArchiveEntries(file, queue);
+				}
+
+				// If the index says the file can't contain a match,
+				// don't bother reading it.  The index doesn't know about
+				// unsaved changes in open editors.
+				if (indexQuery!=null &&
+						!openEditors.containsKey(file.getAbsolutePath()) &&
+						!indexQuery.mayMatch(file,
+						attrs.lastModifiedTime().toMillis(), attrs.size())) {
+					stats.fileSkipped(SearchStats.Skip.INDEX);
+					if (doVerboseOutput) {
+						merger.add(createVerboseMatchData(
+								file.getAbsolutePath(), verboseNoIndexMatchString));
+					}
+					return true;
+				}
+
+				queue.put(new FileToSearch(merger.reserve(), index, file));
+
+				// If a searcher ran out of memory, bail out.
+				return !outOfMemory;
+
+			}, merger::add);
+
+			// Tell the searchers we're done and wait for them to finish up.
+			for (int i=0; i<threadCount; i++) {
+				queue.put(NO_MORE_FILES);
+			}
+			searchers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+			if (doVerboseOutput) {
+				MatchData data = createSkippedFilesMatchData();
+				if (data!=null) {
+					merger.add(data);
+				}
+			}
+
+		} catch (InterruptedException ie) {
+			// The user canceled the search.
+			searchers.shutdownNow();
+			dialog.searchCompleted(dialog.getString2("SearchTerminated"));
+			awaitCancel(searchers);
+			// Close any archives whose entries were never searched.
+			List<FileToSearch> unsearched = new ArrayList<>();
+			queue.drainTo(unsearched);
+			for (FileToSearch fts : unsearched) {
+				if (fts.archive()!=null) {
+					fts.archive().release();
+				}
+			}
+			return null;
+		}
+
+		long elapsed = System.currentTimeMillis() - startMillis;
+		stats.searchCompleted(elapsed);
+		dialog.searchCompleted(elapsed);
+		return null;
+
+	}
+
+
+	/**
+	 * Hands the entries of a <code>.zip</code> or <code>.jar</code> file
+	 * off to the searcher threads.  Entries are filtered by name and size
+	 * just like files.  The archive is closed once all of its entries
+	 * have been searched.
+	 *
+	 * @param file The archive.
+	 * @param queue The queue of files to search.
+	 * @return Whether to keep walking.
+	 * @throws InterruptedException If the search is canceled.
+	 */
+	private boolean queueArchiveEntries(File file,
+			BlockingQueue<FileToSearch> queue) throws InterruptedException {
+
+		OpenArchive archive;
+		try {
+			archive = new OpenArchive(new ZipFile(file));
+		} catch (IOException ioe) {
+			merger.add(createErrorMatchData(file.getAbsolutePath(),
+					"IOException reading archive: " + ioe));
+			return true;
+		}
+
+		try {
+			Enumeration<? extends ZipEntry> entries = archive.zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory()) {
+					continue;
+				}
+				stats.fileVisited();
+				if (!fileNameMatcher.matches(getEntryFileName(entry))) {
+					stats.fileSkipped(SearchStats.Skip.FILTER);
+					continue;
+				}
+				numFiles++;
+				if (isTooLarge(entry.getSize())) {
+					if (doVerboseOutput) {
+						merger.add(createVerboseMatchData(ArchiveEntryFileLocation.
+								getPath(file, entry.getName()), getFileTooLargeMessage()));
+					}
+					continue;
+				}
+				int seq = merger.reserve();
+				archive.refCount.incrementAndGet();
+				try {
+					queue.put(new FileToSearch(seq, numFiles, file, archive, entry));
+				} catch (InterruptedException ie) {
+					archive.release(); // Never queued
+					throw ie;
+				}
+				if (outOfMemory) {
+					return false;
+				}
+			}
+		} catch (IllegalStateException ise) { // Archive closed - never happens
+			merger.add(createErrorMatchData(file.getAbsolutePath(), ise.toString()));
+		} finally {
+			archive.release();
+		}
+
+		return !outOfMemory;
+
+	}
+
+
+	/**
+	 * Returns the name of an archive entry, without any directory.
+	 *
+	 * @param entry The entry.
+	 * @return The entry's file name.
+	 */
+	private static String getEntryFileName(ZipEntry entry) {
+		String name = entry.getName();
+		return name.substring(name.lastIndexOf('/') + 1);
+	}
+
+
+	/**
+	 * Returns a query against the index of the folder being searched, if
+	 * there is one.
+	 *
+	 * @return The query, or <code>null</code> if the folder isn't indexed,
+	 *         or the search text can't be used to rule out any files.
+	 */
+	private TrigramIndex.Query createIndexQuery() {
+
+		// The index can only rule out files missing a required literal,
+		// and none of a list of terms is required.
+		if (searchString.isEmpty() || termMatcher!=null) {
+			return null;
+		}
+		TrigramIndex index = FindInFilesIndexManager.get().getIndexFor(directory);
+		if (index==null) {
+			return null;
+		}
+
+		List<String> literals = useRegex ?
+				RegexLiteralExtractor.getRequiredLiterals(searchString) :
+				List.of(searchString);
+		return index.query(literals, matchCase);
+
+	}
+
+
+	/**
+	 * Returns a matcher for literal text that any match must contain, so
+	 * files that can't contain a match can be ruled out by scanning their
+	 * raw bytes.  For a regex search, this is the longest literal the regex
+	 * requires that can be matched against raw bytes.
+	 *
+	 * @return The matcher, or <code>null</code> if there is no suitable
+	 *         literal.
+	 * @see #createByteMatcher(String, boolean, boolean)
+	 */
+	protected LiteralByteMatcher createByteMatcher() {
+		return createByteMatcher(searchString, useRegex, matchCase);
+	}
+
+
+	/**
+	 * Returns a matcher for literal text that any match of a search must
+	 * contain.
+	 *
+	 * @param searchString The text searched for.  For case-insensitive
+	 *        literal searches, this should already be lower case.
+	 * @param useRegex Whether the search text is a regular expression.
+	 * @param matchCase Whether the search is case-sensitive.
+	 * @return The matcher, or <code>null</code> if there is no suitable
+	 *         literal.
+	 * @see #createByteMatcher()
+	 */
+	static LiteralByteMatcher createByteMatcher(String searchString,
+			boolean useRegex, boolean matchCase) {
+
+		if (!useRegex) {
+			return LiteralByteMatcher.create(searchString, matchCase);
+		}
+
+		List<String> literals = new ArrayList<>(
+				RegexLiteralExtractor.getRequiredLiterals(searchString));
+		literals.sort(Comparator.comparingInt(String::length).reversed());
+		for (String literal : literals) {
+			LiteralByteMatcher matcher = LiteralByteMatcher.create(
+					matchCase ? literal : literal.toLowerCase(), matchCase);
+			if (matcher!=null) {
+				return matcher;
+			}
+		}
+		return null;
+
+	}
+
+
+	/**
+	 * Compiles the regular expression being searched for.
+	 *
+	 * @return The compiled regular expression.
+	 */
+	protected Pattern compilePattern() {
+		int flags = matchCase ? 0 : (Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
+		return Pattern.compile(searchString, flags);
+	}
+
+
+	/**
+	 * Waits briefly for the threads of a canceled search to stop, so
+	 * files they're searching aren't still being read as the next search
+	 * starts.  Any results they report after being canceled are dropped.
+	 *
+	 * @param pool The canceled search's thread pool, already shut down.
+	 */
+	protected static void awaitCancel(ExecutorService pool) {
+		try {
+			pool.awaitTermination(CANCEL_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * Creates the thread pool that searches files.
+	 *
+	 * @param threadCount The number of threads in the pool.
+	 * @return The thread pool.
+	 */
+	protected static ExecutorService createSearcherPool(int threadCount) {
+		AtomicInteger threadNum = new AtomicInteger();
+		return Executors.newFixedThreadPool(threadCount, r -> {
+			Thread t = new Thread(r, "FindInFilesSearcher-" + threadNum.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+
+	/**
+	 * Performs a non-regex "Find in Files" operation on a single file.
+	 */
+	private void doSearchNoRegex(String buffer, LineIndex lines,
+							LineHighlighter highlighter, String fileFullPath,
+							List<MatchData> results) {
+
+		// If search is not case-sensitive, lower-case text to search in
+		// (searchString is already done).
+		if (!matchCase)
+			buffer = buffer.toLowerCase();
+
+		// Some stuff we'll use below.
+		int i = 0;
+		int len = searchString.length();
+		int numMatches = 0;
+
+		// Loop through all matches in the file.
+		while ((i=buffer.indexOf(searchString, i))!=-1) {
+
+			// If we found a match...
+			if (!wholeWord || FindDialog.isWholeWord(buffer, i, len)) {
+
+				numMatches++;
+				if (matchingLines) {
+					int line = lines.getLineOfOffset(i);
+					results.add(createMatchData(fileFullPath, lines,
+									highlighter, line, line));
+					// Since a single line may have more than one match,
+					// skip to the next line's start.
+					i = line==lines.getLineCount()-1 ? buffer.length() :
+							lines.getLineStartOffset(line+1);
+
+				}
+				else {
+					i += len;
+				}
+
+			// We found a potential match, but "whole word" is enabled and
+			// this match isn't "whole word."
+			} else {
+				// We could probably say "i += len" and get away with it,
+				// but it is possible for someone to search "whole word" for
+				// strings with spaces in them, in which case we should
+				// simply increment (for example, searching for "a a " in
+				// "ba a a ").
+				i++;
+			}
+
+		}
+
+		// If we're only interested in the match count, not individual
+		// matches, add an entry for this file.
+		if (!matchingLines && numMatches>0) {
+			String text = MessageFormat.format(occurrencesString, numMatches);
+			MatchData data = new MatchData(fileFullPath, NO_LINE_NUMBER, text);
+			results.add(data);
+		}
+
+	}
+
+
+	/**
+	 * Performs a regex "Find in Files" operation on a single file.
+	 */
+	private void doSearchRegex(String buffer, LineIndex lines,
+							LineHighlighter highlighter, String fileFullPath,
+							List<MatchData> results) {
+
+		int numMatches = 0;
+		int lastStartLine = -1;
+
+		// Create a Matcher to find the text we're looking for.
+		Matcher m = pattern.matcher(buffer);
+
+		// Loop through all matches.
+		while (m.find()) {
+
+			int start = m.start();
+			int end = m.end();
+
+			// If we found a match...
+			if (!wholeWord || FindDialog.isWholeWord(buffer, start, end-start)) {
+
+				numMatches++;
+
+				// If we're interested in seeing each match...
+				if (matchingLines) {
+
+					// Get the text of the first line of the match.
+					int startLine = lines.getLineOfOffset(start);
+					if (startLine==lastStartLine) {
+						// If a single line has > 1 match, don't show
+						// the same line multiple times.
+						continue;
+					}
+					lastStartLine = startLine;
+					int endLine = lines.getLineOfOffset(end);
+
+					// Add an item to our results.
+					results.add(createMatchData(fileFullPath, lines,
+									highlighter, startLine, endLine));
+
+				} // End of if (matchingLines)
+
+			} // End of if (!wholeWord || FindDialog.isWholeWord(...))
+
+		} // End of while (m.find())
+
+		// If we're only interested in the match count, not individual
+		// matches, add an entry for this file.
+		if (!matchingLines && numMatches>0) {
+			String text = MessageFormat.format(occurrencesString, numMatches);
+			MatchData data = new MatchData(fileFullPath,
+							NO_LINE_NUMBER, text);
+			results.add(data);
+		}
+
+	}
+
+
+	/**
+	 * Performs an "any of these terms" search on a single file.  Each
+	 * matching line is reported once, along with the terms found on it.
+	 */
+	private void doSearchTerms(char[] text, int length, LineIndex lines,
+							LineHighlighter highlighter, String fileFullPath,
+							List<MatchData> results) {
+
+		CharSequence seq = CharBuffer.wrap(text, 0, length);
+		int numMatches = 0;
+		int lastLine = -1;
+		Set<String> foundTerms = new LinkedHashSet<>();
+
+		// Terms can't contain whitespace, so a match is always on a single
+		// line, and matches are found in order of their lines.
+		MultiTermMatcher.Finder finder = termMatcher.finder(text, length);
+		while (finder.find()) {
+
+			int start = finder.start();
+			if (wholeWord && !FindDialog.isWholeWord(seq, start, finder.end()-start)) {
+				continue;
+			}
+			numMatches++;
+
+			if (matchingLines) {
+				int line = lines.getLineOfOffset(start);
+				if (line!=lastLine) {
+					if (lastLine>-1) {
+						addTermsMatchData(fileFullPath, lines, highlighter,
+								lastLine, foundTerms, results);
+					}
+					lastLine = line;
+					foundTerms.clear();
+				}
+			}
+			foundTerms.add(termMatcher.getTerm(finder.term()));
+
+		}
+
+		if (matchingLines) {
+			if (lastLine>-1) {
+				addTermsMatchData(fileFullPath, lines, highlighter, lastLine,
+						foundTerms, results);
+			}
+		}
+
+		// If we're only interested in the match count, not individual
+		// matches, add an entry for this file.
+		else if (numMatches>0) {
+			String msg = MessageFormat.format(occurrencesString, numMatches);
+			MatchData data = new MatchData(fileFullPath, NO_LINE_NUMBER, msg);
+			data.setMatchedTerms(String.join(", ", foundTerms));
+			results.add(data);
+		}
+
+	}
+
+
+	private void addTermsMatchData(String fileFullPath, LineIndex lines,
+			LineHighlighter highlighter, int line, Set<String> terms,
+			List<MatchData> results) {
+		MatchData data = createMatchData(fileFullPath, lines, highlighter,
+				line, line);
+		data.setMatchedTerms(String.join(", ", terms));
+		results.add(data);
+	}
+
+
+	/**
+	 * Returns the matcher for the names of files to search, based on the
+	 * "In files" field.
+	 *
+	 * @return The matcher, or <code>null</code> if no filters were given.
+	 */
+	protected FileNameMatcher createFileNameMatcher() {
+		String[] tokens = dialog.getInFilesPatterns();
+		if (tokens==null || tokens.length==0) {
+			return null;
+		}
+		try {
+			return new FileNameMatcher(tokens, OS.get().isCaseSensitive());
+		} catch (PatternSyntaxException e) {
+			e.printStackTrace(); // Never happens.
+			return null;
+		}
+	}
+
+
+	/**
+	 * Returns the number of threads to search files with.
+	 *
+	 * @return The number of searcher threads.
+	 */
+	protected static int getSearcherThreadCount() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Returns whether this folder is one the user wants to skip.
+	 *
+	 * @param folderName The name of the folder.
+	 * @return Whether the user wants to skip this folder.
+	 */
+	protected boolean shouldSkipFolder(String folderName) {
+		return folderNamesToSkip.contains(folderName);
+	}
+
+
+	/**
+	 * Walks the directory being searched.  Folders the user wants to skip
+	 * (and all subfolders, if "Search subfolders" isn't checked) are never
+	 * entered, and files that don't match the "In files" filters or are
+	 * too large are skipped.  If the user wants to honor ignore files, any
+	 * files and folders they match are skipped as well.  The file
+	 * attributes read while walking are passed along, so files don't need
+	 * to be examined again.
+	 *
+	 * @param fileHandler Receives each file that should be searched.
+	 * @param output Receives verbose output and errors found while
+	 *        walking.
+	 * @throws InterruptedException If the search is canceled.
+	 */
+	protected void walkDirectory(FileHandler fileHandler, OutputHandler output)
+			throws InterruptedException {
+
+		SearchFileVisitor visitor = new SearchFileVisitor(fileHandler, output);
+		try {
+			Files.walkFileTree(directory.getAbsoluteFile().toPath(),
+					EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+					visitor);
+		} catch (IOException ioe) {
+			// Never happens; our visitor doesn't throw IOExceptions.
+			ioe.printStackTrace();
+		}
+
+		if (visitor.interrupted) {
+			throw new InterruptedException();
+		}
+
+	}
+
+
+	/**
+	 * Receives the files found by
+	 * {@link #walkDirectory(FileHandler, OutputHandler)}.
+	 */
+	@FunctionalInterface
+	protected interface FileHandler {
+
+		/**
+		 * Called for each file that should be searched.
+		 *
+		 * @param file The file.
+		 * @param attrs The file's attributes.
+		 * @param index The number of files and folders found so far, for
+		 *        display purposes.
+		 * @return Whether to keep walking.
+		 * @throws InterruptedException If the search is canceled.
+		 */
+		boolean handleFile(File file, BasicFileAttributes attrs, int index)
+			throws InterruptedException;
+
+	}
+
+
+	/**
+	 * Receives the verbose output and errors found by
+	 * {@link #walkDirectory(FileHandler, OutputHandler)}.
+	 */
+	@FunctionalInterface
+	protected interface OutputHandler {
+
+		/**
+		 * Called with each piece of output.
+		 *
+		 * @param data The output.
+		 * @throws InterruptedException If the search is canceled.
+		 */
+		void addOutput(MatchData data) throws InterruptedException;
+
+	}
+
+
+	/**
+	 * The ignore files in a folder being walked.
+	 *
+	 * @param dir The folder.
+	 * @param matcher The rules from its ignore files.
+	 */
+	private record IgnoreFiles(Path dir, IgnoreFileMatcher matcher) {
+	}
+
+
+	/**
+	 * A file handed off to the searcher threads.
+	 *
+	 * @param seq The order in which this file's results should be reported.
+	 * @param index The index of this file in the list of all files found,
+	 *        for status bar updates.
+	 * @param file The file to search, or the archive containing it.
+	 * @param archive The open archive, if searching an archive entry.
+	 * @param entry The archive entry to search, or <code>null</code> if
+	 *        searching a file.
+	 */
+	private record FileToSearch(int seq, int index, File file,
+								OpenArchive archive, ZipEntry entry) {
+
+		FileToSearch(int seq, int index, File file) {
+			this(seq, index, file, null, null);
+		}
+
+		/**
+		 * Returns the file name to display for the file searched.
+		 *
+		 * @return The file name.
+		 */
+		String getName() {
+			return entry==null ? file.getName() : getEntryFileName(entry);
+		}
+
+		/**
+		 * Returns the full path to display for the file searched.  For
+		 * archive entries, this is of the form
+		 * "<code>archive.zip!/path/in/archive</code>".
+		 *
+		 * @return The full path.
+		 */
+		String getPath() {
+			return entry==null ? file.getAbsolutePath() :
+					ArchiveEntryFileLocation.getPath(file, entry.getName());
+		}
+
+	}
+
+
+	/**
+	 * An archive whose entries are being searched.  It is shared by the
+	 * searcher threads, and closed once the last of its entries has been
+	 * searched.
+	 */
+	private static final class OpenArchive {
+
+		private final ZipFile zip;
+
+		/**
+		 * The number of entries queued or being searched, plus one while
+		 * entries are still being queued.
+		 */
+		private final AtomicInteger refCount;
+
+		OpenArchive(ZipFile zip) {
+			this.zip = zip;
+			refCount = new AtomicInteger(1);
+		}
+
+		void release() {
+			if (refCount.decrementAndGet()==0) {
+				try {
+					zip.close();
+				} catch (IOException ioe) {
+					// Nothing we can do
+				}
+			}
+		}
+
+	}
+
+
+	/**
+	 * Collects results from the searcher threads and passes them along to
+	 * the dialog in the order the files were found.  To keep memory usage
+	 * bounded, only a limited number of files can be "in flight" (queued,
+	 * being searched, or searched but waiting on a slower file before them)
+	 * at any one time.
+	 */
+	protected final class ResultMerger {
+
+		private final Semaphore window;
+		private final Map<Integer, List<MatchData>> pending;
+		private int nextSeq;
+		private int nextSeqToReport;
+
+		ResultMerger(int maxInFlight) {
+			window = new Semaphore(maxInFlight);
+			pending = new HashMap<>();
+		}
+
+		/**
+		 * Adds results that are already known, e.g. verbose output from
+		 * walking the directory tree.
+		 *
+		 * @param data The result to add.
+		 * @throws InterruptedException If the search is canceled while
+		 *         waiting for room.
+		 */
+		void add(MatchData data) throws InterruptedException {
+			List<MatchData> results = new ArrayList<>(1);
+			results.add(data);
+			complete(reserve(), results);
+		}
+
+		/**
+		 * Reports the results for a file.  If all files found before it are
+		 * done, its results (and those of any files after it that were
+		 * waiting on it) are sent to the dialog.
+		 *
+		 * @param seq The sequence number of the file.
+		 * @param results The results for that file.
+		 * @see #reserve()
+		 */
+		synchronized void complete(int seq, List<MatchData> results) {
+			pending.put(seq, results);
+			List<MatchData> next;
+			while ((next = pending.remove(nextSeqToReport))!=null) {
+				for (MatchData data : next) {
+					dialog.addMatchData(data, generation);
+				}
+				nextSeqToReport++;
+				window.release();
+			}
+		}
+
+		/**
+		 * Returns the sequence number for the next file to search, blocking
+		 * if too many files are already in flight.
+		 *
+		 * @return The sequence number.
+		 * @throws InterruptedException If the search is canceled while
+		 *         waiting for room.
+		 * @see #complete(int, List)
+		 */
+		int reserve() throws InterruptedException {
+			window.acquire();
+			synchronized (this) {
+				return nextSeq++;
+			}
+		}
+
+	}
+
+
+	/**
+	 * Walks the directory being searched, for
+	 * {@link FindInFilesThread#walkDirectory(FileHandler, OutputHandler)}.
+	 */
+	private final class SearchFileVisitor extends SimpleFileVisitor<Path> {
+
+		private final FileHandler fileHandler;
+		private final OutputHandler output;
+		private final Path root;
+		private final boolean checkSubfolders;
+		private final boolean verbose;
+
+		/**
+		 * The number of files and folders found in each folder currently
+		 * being walked, for verbose output.
+		 */
+		private final Deque<int[]> entryCounts;
+
+		/**
+		 * The ignore files applying to the folder currently being walked,
+		 * deepest first.
+		 */
+		private final Deque<IgnoreFiles> ignoreFiles;
+
+		private boolean interrupted;
+
+		SearchFileVisitor(FileHandler fileHandler, OutputHandler output) {
+			this.fileHandler = fileHandler;
+			this.output = output;
+			root = directory.getAbsoluteFile().toPath();
+			checkSubfolders = searchSubfolders;
+			verbose = dialog.getDoVerboseOutput();
+			entryCounts = new ArrayDeque<>();
+			ignoreFiles = new ArrayDeque<>();
+			numFiles = 0;
+		}
+
+		/**
+		 * Adds output if the user wants verbose output.
+		 *
+		 * @param data The output.
+		 * @param result How to continue walking, if the search wasn't
+		 *        canceled.
+		 * @return How to continue walking.
+		 */
+		private FileVisitResult addVerboseOutput(MatchData data,
+				FileVisitResult result) {
+			if (verbose) {
+				try {
+					output.addOutput(data);
+				} catch (InterruptedException ie) {
+					interrupted = true;
+					return FileVisitResult.TERMINATE;
+				}
+			}
+			return result;
+		}
+
+		private void countEntry() {
+			numFiles++;
+			int[] count = entryCounts.peek();
+			if (count!=null) {
+				count[0]++;
+			}
+		}
+
+		private boolean isCanceled() {
+			if (Thread.currentThread().isInterrupted()) {
+				interrupted = true;
+			}
+			return interrupted;
+		}
+
+		/**
+		 * Returns whether a file or folder is matched by an ignore file.
+		 *
+		 * @param path The file or folder.
+		 * @param isDirectory Whether it is a folder.
+		 * @return Whether it should be ignored.
+		 */
+		private boolean isIgnored(Path path, boolean isDirectory) {
+			return FindInFilesThread.isIgnored(path, isDirectory, ignoreFiles);
+		}
+
+		/**
+		 * Starts honoring the ignore files in the folders above the one
+		 * being searched, up to the root of the git repository containing
+		 * it (if any).
+		 */
+		private void pushParentIgnoreFiles() {
+			List<Path> parents = new ArrayList<>();
+			for (Path dir=root.getParent(); dir!=null; dir=dir.getParent()) {
+				parents.add(dir);
+				if (Files.exists(dir.resolve(".git"))) {
+					for (int i=parents.size()-1; i>=0; i--) {
+						pushIgnoreFiles(parents.get(i));
+					}
+					return;
+				}
+			}
+		}
+
+		private void pushIgnoreFiles(Path dir) {
+			IgnoreFileMatcher matcher = IgnoreFileMatcher.forDirectory(dir);
+			if (matcher!=null) {
+				ignoreFiles.push(new IgnoreFiles(dir, matcher));
+			}
+		}
+
+		@Override
+		public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+			int count = entryCounts.pop()[0];
+			if (!ignoreFiles.isEmpty() && ignoreFiles.peek().dir.equals(dir)) {
+				ignoreFiles.pop();
+			}
+			if (exc!=null) {
+				return addVerboseOutput(createErrorMatchData(dir.toString(),
+						exc.toString()), FileVisitResult.CONTINUE);
+			}
+			if (dir.equals(root)) {
+				return FileVisitResult.CONTINUE;
+			}
+			return addVerboseOutput(createVerboseMatchData(dir.toString(),
+					newFilesToExamineString + ": " + count),
+					FileVisitResult.CONTINUE);
+		}
+
+		@Override
+		public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+
+			if (isCanceled()) {
+				return FileVisitResult.TERMINATE;
+			}
+
+			if (!dir.equals(root)) {
+
+				countEntry();
+
+				// Ignore this subfolder if the user doesn't want to search
+				// subfolders, or if it's one the user wants to skip.
+				String msg = null;
+				if (!checkSubfolders) {
+					msg = dontSearchSubfoldersString;
+				}
+				else if (shouldSkipFolder(dir.getFileName().toString())) {
+					msg = skipThisFolderString;
+				}
+				else if (useIgnoreFiles && (".git".equals(dir.getFileName().toString()) ||
+						isIgnored(dir, true))) {
+					msg = verboseIgnoredString;
+				}
+				if (msg!=null) {
+					stats.fileSkipped(SearchStats.Skip.FOLDER);
+					return addVerboseOutput(createVerboseMatchData(
+							dir.toString(), msg), FileVisitResult.SKIP_SUBTREE);
+				}
+
+			}
+			else if (useIgnoreFiles) {
+				pushParentIgnoreFiles();
+			}
+
+			if (useIgnoreFiles) {
+				pushIgnoreFiles(dir);
+			}
+			if (searchedFolders!=null) {
+				searchedFolders.add(dir);
+			}
+			entryCounts.push(new int[1]);
+			return FileVisitResult.CONTINUE;
+
+		}
+
+		@Override
+		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+
+			if (isCanceled()) {
+				return FileVisitResult.TERMINATE;
+			}
+
+			countEntry();
+			if (!attrs.isRegularFile()) {
+				return FileVisitResult.CONTINUE;
+			}
+			stats.fileVisited();
+
+			// If the file doesn't match one of the filters from "In files:",
+			// or is a huge (probably generated) file, skip it.  Archives
+			// being searched are filtered entry by entry instead.
+			String name = file.getFileName().toString();
+			boolean archive = searchArchives && ArchiveEntryFileLocation.isArchive(name);
+			String msg = null;
+			if (!archive && !fileNameMatcher.matches(name)) {
+				stats.fileSkipped(SearchStats.Skip.FILTER);
+				msg = verboseNoFiltMatchString;
+			}
+			else if (!archive && isTooLarge(attrs.size())) {
+				msg = getFileTooLargeMessage();
+			}
+			else if (useIgnoreFiles && isIgnored(file, false)) {
+				stats.fileSkipped(SearchStats.Skip.IGNORED);
+				msg = verboseIgnoredString;
+			}
+			if (msg!=null) {
+				return addVerboseOutput(createVerboseMatchData(
+						file.toString(), msg), FileVisitResult.CONTINUE);
+			}
+
+			try {
+				return fileHandler.handleFile(file.toFile(), attrs, numFiles) ?
+						FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+			} catch (InterruptedException ie) {
+				interrupted = true;
+				return FileVisitResult.TERMINATE;
+			}
+
+		}
+
+		@Override
+		public FileVisitResult visitFileFailed(Path file, IOException exc) {
+			if (isCanceled()) {
+				return FileVisitResult.TERMINATE;
+			}
+			countEntry();
+			return addVerboseOutput(createErrorMatchData(file.toString(),
+					exc.toString()), FileVisitResult.CONTINUE);
+		}
+
+	}
+
+
+	/**
+	 * Pulls files off of the queue and searches them until told there is
+	 * nothing left to search.<p>
+	 *
+	 * File contents are searched directly as an array of characters.  Only
+	 * the lines that actually contain matches are tokenized to build their
+	 * syntax highlighted HTML.  For literal searches, a file's raw bytes are
+	 * scanned first, so files without a match are never decoded at all.
+	 * Binary files are also detected from their raw bytes, and skipped.
+	 */
+	private final class Searcher implements Runnable {
+
+		private final BlockingQueue<FileToSearch> queue;
+		private LineHighlighter highlighter;
+		private char[] chars;
+
+		/**
+		 * The raw contents of the file being searched, if it was small
+		 * enough to be read rather than memory-mapped.
+		 */
+		private byte[] bytes;
+		private int byteCount;
+
+		/**
+		 * Where the text of the file being searched lines up with its
+		 * bytes, so its matched lines can be read back without decoding
+		 * the whole file.
+		 */
+		private Charset charset;
+		private int[] checkpointChars;
+		private long[] checkpointBytes;
+		private int checkpointCount;
+		private ByteBuffer readBuffer;
+
+		// The work done for the file being searched, for the search report.
+		private long fileBytes;
+		private long readNanos;
+		private long matchNanos;
+
+		Searcher(BlockingQueue<FileToSearch> queue) {
+			this.queue = queue;
+			chars = new char[INITIAL_BUFFER_SIZE];
+			bytes = new byte[INITIAL_BUFFER_SIZE];
+			byteCount = -1;
+			checkpointChars = new int[16];
+			checkpointBytes = new long[16];
+		}
+
+		/**
+		 * Remembers where the decoded text of the file being searched
+		 * lines up with its bytes.
+		 *
+		 * @param charOffset The offset in the text.
+		 * @param byteOffset The offset in the file.
+		 */
+		private void addCheckpoint(int charOffset, long byteOffset) {
+			if (checkpointCount==checkpointChars.length) {
+				checkpointChars = Arrays.copyOf(checkpointChars, checkpointCount*2);
+				checkpointBytes = Arrays.copyOf(checkpointBytes, checkpointCount*2);
+			}
+			checkpointChars[checkpointCount] = charOffset;
+			checkpointBytes[checkpointCount] = byteOffset;
+			checkpointCount++;
+		}
+
+		/**
+		 * Scans a file's raw bytes to see whether it's binary, and whether
+		 * it contains the search text.
+		 *
+		 * @param file The file to scan.
+		 * @return What was found.  If the file can't be read, this returns
+		 *         <code>MAY_MATCH</code> so the error is reported by the
+		 *         full search.
+		 */
+		private RawScanResult scanRawBytes(File file) {
+
+			long start = System.nanoTime();
+			try (FileChannel channel = FileChannel.open(file.toPath(),
+					StandardOpenOption.READ)) {
+
+				long size = channel.size();
+				if (size>Integer.MAX_VALUE) {
+					return RawScanResult.MAY_MATCH;
+				}
+				fileBytes = size;
+
+				ByteBuffer buf;
+				if (size>=MMAP_THRESHOLD) {
+					buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				}
+				else {
+					if (bytes.length<size) {
+						bytes = new byte[(int)size];
+					}
+					buf = ByteBuffer.wrap(bytes, 0, (int)size);
+					while (buf.hasRemaining()) {
+						if (channel.read(buf)==-1) {
+							break; // File was truncated while reading
+						}
+					}
+					buf.flip();
+					// Remember the contents so we don't read them twice
+					byteCount = buf.limit();
+				}
+
+				readNanos += System.nanoTime() - start;
+				return scanRawBytes(buf);
+
+			} catch (IOException ioe) {
+				return RawScanResult.MAY_MATCH;
+			}
+
+		}
+
+		/**
+		 * Scans raw bytes to see whether they're binary, and whether they
+		 * contain the search text.
+		 *
+		 * @param buf The bytes to scan.
+		 * @return What was found.
+		 */
+		private RawScanResult scanRawBytes(ByteBuffer buf) {
+			long start = System.nanoTime();
+			try {
+				if (skipBinaryFiles && BinaryFileSniffer.isBinary(buf)) {
+					return RawScanResult.BINARY;
+				}
+				if (byteMatcher!=null && !byteMatcher.mayMatch(buf)) {
+					return RawScanResult.NO_MATCH;
+				}
+				return RawScanResult.MAY_MATCH;
+			} finally {
+				matchNanos += System.nanoTime() - start;
+			}
+		}
+
+		/**
+		 * Decodes a file's bytes into our buffer, the same way a
+		 * <code>UnicodeReader</code> would, remembering where the text
+		 * lines up with the bytes every so often.
+		 *
+		 * @param in The bytes to decode, ready to be read from.
+		 * @param channel Where more bytes come from, or <code>null</code>
+		 *        if <code>in</code> holds them all.
+		 * @param eof Whether <code>in</code> holds all the bytes.
+		 * @return The number of characters decoded.
+		 * @throws IOException If an IO error occurs.
+		 */
+		private int decode(ByteBuffer in, FileChannel channel, boolean eof)
+				throws IOException {
+
+			charset = detectCharset(in);
+			CharsetDecoder decoder = charset.newDecoder().
+					onMalformedInput(CodingErrorAction.REPLACE).
+					onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+			long consumed = in.position();
+			checkpointCount = 0;
+			addCheckpoint(0, consumed);
+			int nextCheckpoint = CHECKPOINT_CHARS;
+			CharBuffer out = CharBuffer.wrap(chars);
+
+			while (true) {
+
+				// Stop decoding at each checkpoint so we know how many
+				// bytes it took to get there.
+				out.limit(Math.min(chars.length, nextCheckpoint));
+				int start = in.position();
+				CoderResult result = decoder.decode(in, out, eof);
+				consumed += in.position() - start;
+
+				if (result.isOverflow()) {
+					int length = out.position();
+					if (out.limit()==nextCheckpoint) {
+						addCheckpoint(length, consumed);
+						nextCheckpoint = length + CHECKPOINT_CHARS;
+					}
+					if (out.limit()==chars.length) {
+						out = growBuffer(length);
+					}
+				}
+				else if (eof) {
+					break;
+				}
+				else {
+					in.compact();
+					eof = channel.read(in)==-1;
+					in.flip();
+				}
+
+			}
+
+			out.limit(chars.length);
+			while (decoder.flush(out).isOverflow()) {
+				out = growBuffer(out.position());
+			}
+			return out.position();
+
+		}
+
+		/**
+		 * Returns the encoding of a file, based on its BOM, and skips past
+		 * the BOM.  This detects the same encodings a
+		 * <code>UnicodeReader</code> does.
+		 *
+		 * @param in The start of the file.
+		 * @return The file's encoding.
+		 */
+		private Charset detectCharset(ByteBuffer in) {
+
+			int pos = in.position();
+			int remaining = in.remaining();
+			int b0 = remaining>0 ? in.get(pos)&0xff : -1;
+			int b1 = remaining>1 ? in.get(pos+1)&0xff : -1;
+			int b2 = remaining>2 ? in.get(pos+2)&0xff : -1;
+			int b3 = remaining>3 ? in.get(pos+3)&0xff : -1;
+
+			if (b0==0x00 && b1==0x00 && b2==0xfe && b3==0xff) {
+				in.position(pos + 4);
+				return Charset.forName("UTF-32BE");
+			}
+			else if (b0==0xff && b1==0xfe && b2==0x00 && b3==0x00) {
+				in.position(pos + 4);
+				return Charset.forName("UTF-32LE");
+			}
+			else if (b0==0xef && b1==0xbb && b2==0xbf) {
+				in.position(pos + 3);
+				return StandardCharsets.UTF_8;
+			}
+			else if (b0==0xfe && b1==0xff) {
+				in.position(pos + 2);
+				return StandardCharsets.UTF_16BE;
+			}
+			else if (b0==0xff && b1==0xfe) {
+				in.position(pos + 2);
+				return StandardCharsets.UTF_16LE;
+			}
+
+			// FIXME:  Allow the user to specify the default encoding,
+			// instead of assuming system default, somehow.
+			return Charset.defaultCharset();
+
+		}
+
+		/**
+		 * Doubles the size of our char buffer.
+		 *
+		 * @param length The number of chars in the buffer to keep.
+		 * @return A buffer wrapping the new array, positioned after the
+		 *         chars kept.
+		 */
+		private CharBuffer growBuffer(int length) {
+			chars = Arrays.copyOf(chars, chars.length*2);
+			CharBuffer out = CharBuffer.wrap(chars);
+			out.position(length);
+			return out;
+		}
+
+		/**
+		 * Reads a file into our buffer.  If the file's raw bytes have
+		 * already been read, they're decoded instead.
+		 *
+		 * @param file The file to read.
+		 * @return The number of characters read.
+		 * @throws IOException If an IO error occurs.
+		 */
+		private int read(File file) throws IOException {
+
+			// Most files will have at most one char per byte, so size our
+			// buffer appropriately up front if we can.
+			long size = byteCount>-1 ? byteCount : file.length();
+			if (size>=chars.length && size<Integer.MAX_VALUE - 8) {
+				chars = new char[(int)size + 1];
+			}
+
+			if (byteCount>-1) {
+				return decode(ByteBuffer.wrap(bytes, 0, byteCount), null, true);
+			}
+
+			if (readBuffer==null) {
+				readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+			}
+			readBuffer.clear();
+			try (FileChannel channel = FileChannel.open(file.toPath(),
+					StandardOpenOption.READ)) {
+				boolean eof = false;
+				while (readBuffer.hasRemaining() && !eof) {
+					eof = channel.read(readBuffer)==-1;
+				}
+				readBuffer.flip();
+				return decode(readBuffer, channel, eof);
+			}
+
+		}
+
+		/**
+		 * Reads the raw bytes of an archive entry into our byte buffer.
+		 *
+		 * @param zip The archive.
+		 * @param entry The entry to read.
+		 * @throws IOException If an IO error occurs.
+		 */
+		private void readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+
+			long size = entry.getSize();
+			if (size>=bytes.length && size<Integer.MAX_VALUE - 8) {
+				bytes = new byte[(int)size + 1];
+			}
+
+			int length = 0;
+			try (InputStream in = zip.getInputStream(entry)) {
+				int count;
+				while ((count=in.read(bytes, length, bytes.length-length))!=-1) {
+					length += count;
+					if (length==bytes.length) {
+						if (length>=Integer.MAX_VALUE/2) {
+							throw new IOException("Archive entry is too large");
+						}
+						bytes = Arrays.copyOf(bytes, bytes.length*2);
+					}
+				}
+			}
+			byteCount = length;
+
+		}
+
+		/**
+		 * Copies the text of an open editor into our buffer.  The
+		 * document is read a piece at a time while holding its read lock,
+		 * so the text isn't copied more than once.
+		 *
+		 * @param textArea The editor.
+		 * @return The number of characters read.
+		 * @throws BadLocationException Shouldn't happen.
+		 */
+		private int read(RTextEditorPane textArea) throws BadLocationException {
+
+			AbstractDocument doc = (AbstractDocument)textArea.getDocument();
+			doc.readLock();
+			try {
+				int length = doc.getLength();
+				if (length>=chars.length) {
+					chars = new char[length + 1];
+				}
+				Segment seg = new Segment();
+				seg.setPartialReturn(true);
+				int offs = 0;
+				while (offs<length) {
+					doc.getText(offs, length-offs, seg);
+					System.arraycopy(seg.array, seg.offset, chars, offs, seg.count);
+					offs += seg.count;
+				}
+				return length;
+			} finally {
+				doc.readUnlock();
+			}
+
+		}
+
+		@Override
+		public void run() {
+
+			// Each searcher gets its own highlighter since they aren't
+			// thread safe.
+			highlighter = new LineHighlighter(syntaxScheme);
+
+			try {
+				FileToSearch fts;
+				while ((fts = queue.take())!=NO_MORE_FILES) {
+					List<MatchData> results = new ArrayList<>(0);
+					// If we've run out of memory, just drain the queue.
+					if (!outOfMemory) {
+						// Display the file we're searching in the status
+						// bar.  Note that this method postpones the update
+						// to the EDT.
+						dialog.setSearchStatusText(searchingFile + fts.index() + "/" +
+							numFiles + ": " + fts.getPath());
+						fileBytes = readNanos = matchNanos = 0;
+						boolean searched = searchFile(fts, results);
+						stats.fileRead(fts.getPath(), fileBytes, readNanos,
+								matchNanos, searched);
+						if (bytes.length>MAX_RETAINED_BUFFER_SIZE) {
+							bytes = new byte[INITIAL_BUFFER_SIZE];
+						}
+					}
+					if (fts.archive()!=null) {
+						fts.archive().release();
+					}
+					// Don't report results once the search is canceled
+					if (Thread.interrupted()) {
+						break;
+					}
+					merger.complete(fts.seq(), results);
+				}
+			} catch (InterruptedException ie) {
+				// The search was canceled.
+			}
+
+		}
+
+		/**
+		 * Searches a single file or archive entry.
+		 *
+		 * @param fts The file to search.
+		 * @param results Any matches (or errors) found are added to this
+		 *        list.
+		 * @return Whether the file's text was searched, as opposed to it
+		 *         being skipped or not being readable.
+		 */
+		private boolean searchFile(FileToSearch fts, List<MatchData> results) {
+
+			File file = fts.file();
+			String fileFullPath = fts.getPath();
+			int length;
+			String buffer;
+
+			// If the file is open in an editor, search its (possibly
+			// modified) text instead of reading the file.
+			RTextEditorPane textArea = fts.entry()==null ?
+					openEditors.get(fileFullPath) : null;
+
+			// Archive entries are always read up front, since they can't
+			// be memory-mapped.
+			byteCount = -1;
+			if (fts.entry()!=null) {
+				long start = System.nanoTime();
+				try {
+					readEntry(fts.archive().zip, fts.entry());
+					fileBytes = byteCount;
+				} catch (IOException ioe) {
+					results.add(createErrorMatchData(fileFullPath,
+							"IOException reading file: " + ioe));
+					return false;
+				} catch (OutOfMemoryError oome) {
+					bytes = new byte[INITIAL_BUFFER_SIZE];
+					results.add(createErrorMatchData(fileFullPath,
+							"OutOfMemoryError"));
+					outOfMemory = true;
+					return false;
+				} finally {
+					readNanos += System.nanoTime() - start;
+				}
+			}
+
+			// Skip binary files, and since most files don't contain a
+			// match, check the raw bytes before doing the (much slower)
+			// full search.
+			if (textArea==null && (skipBinaryFiles || byteMatcher!=null)) {
+				RawScanResult scanResult = byteCount>-1 ?
+						scanRawBytes(ByteBuffer.wrap(bytes, 0, byteCount)) :
+						scanRawBytes(file);
+				switch (scanResult) {
+					case BINARY -> {
+						skippedFileCount.incrementAndGet();
+						stats.fileSkipped(SearchStats.Skip.BINARY);
+						if (doVerboseOutput) {
+							results.add(createVerboseMatchData(fileFullPath,
+									verboseBinaryFileString));
+						}
+						return false;
+					}
+					case NO_MATCH -> {
+						stats.fileSkipped(SearchStats.Skip.PREFILTER);
+						return false;
+					}
+					default -> {
+						// Search the file
+					}
+				}
+			}
+
+			// Remember what the file looked like when it was searched, so
+			// we know whether its matched lines can still be read back.
+			long lastModified = file.lastModified();
+			long fileSize = file.length();
+
+			long start = System.nanoTime();
+			try {
+				if (textArea==null && byteCount==-1) {
+					fileBytes = fileSize;
+				}
+				length = textArea!=null ? read(textArea) : read(file);
+				// "Any of these terms" searches work on the chars directly.
+				buffer = termMatcher!=null ? null : new String(chars, 0, length);
+			} catch (IOException ioe) {
+				MatchData data = createErrorMatchData(fileFullPath,
+							"IOException reading file: " + ioe);
+				results.add(data);
+				return false;
+			} catch (BadLocationException ble) { // Never happens
+				ble.printStackTrace();
+				results.add(createErrorMatchData(fileFullPath, ble.toString()));
+				return false;
+			} catch (OutOfMemoryError oome) {
+				chars = new char[INITIAL_BUFFER_SIZE];
+				MatchData data = createErrorMatchData(fileFullPath,
+										"OutOfMemoryError");
+				results.add(data);
+				// Bail out.
+				outOfMemory = true;
+				return false;
+			} finally {
+				readNanos += System.nanoTime() - start;
+			}
+
+			start = System.nanoTime();
+			LineIndex lines = new LineIndex(chars, length);
+			String style = view.getSyntaxStyleForFile(fts.getName());
+			highlighter.reset(lines, style);
+
+			try {
+				if (termMatcher!=null) {
+					doSearchTerms(chars, length, lines, highlighter,
+							fileFullPath, results);
+				}
+				else if (useRegex) {
+					doSearchRegex(buffer, lines, highlighter, fileFullPath,
+							results);
+				}
+				else {
+					doSearchNoRegex(buffer, lines, highlighter, fileFullPath,
+							results);
+				}
+			} catch (Exception e) {
+				// Shouldn't happen...
+				e.printStackTrace();
+			} finally {
+				highlighter.reset(null, style);
+				if (chars.length>MAX_RETAINED_BUFFER_SIZE) {
+					chars = new char[INITIAL_BUFFER_SIZE];
+				}
+				matchNanos += System.nanoTime() - start;
+			}
+
+			if (textArea==null && results.stream().anyMatch(MatchData::isLazy)) {
+				lineLoader.fileSearched(fileFullPath,
+					new MatchedLineLoader.SearchedFile(file, lastModified,
+						fileSize, charset,
+						Arrays.copyOf(checkpointChars, checkpointCount),
+						Arrays.copyOf(checkpointBytes, checkpointCount)));
+			}
+
+			return true;
+
+		}
+
 	}
 
 
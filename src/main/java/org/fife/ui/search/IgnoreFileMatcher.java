@@ -0,0 +1,363 @@
+/*
+ * 10/18/2026
+ *
+ * IgnoreFileMatcher.java - Matches paths against a folder's .gitignore files.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.fife.ui.OS;
+
+
+/**
+ * The compiled rules from the ignore files in a single folder:
+ * <code>.gitignore</code>, <code>.ignore</code> and <code>.rgignore</code>.
+ * Find in Files uses these, when the user asks it to, to skip the same files
+ * and folders that git and tools such as ripgrep would.<p>
+ *
+ * Rules use the <code>.gitignore</code> syntax: wildcards, leading
+ * "<code>!</code>" to re-include a path, trailing "<code>/</code>" to only
+ * match folders, "<code>**</code>" to match any number of folders, and
+ * patterns containing a "<code>/</code>" being relative to the ignore file's
+ * folder.  As with git, the last matching rule wins, and rules in deeper
+ * folders take precedence over those in their parents.  Where all three
+ * files exist, <code>.ignore</code> rules take precedence over
+ * <code>.gitignore</code> rules, and <code>.rgignore</code> rules over both.
+ * <p>
+ *
+ * Since a large tree may be searched over and over, the compiled rules for
+ * recently seen folders are cached, and only re-read when an ignore file
+ * changes.  Instances of this class are immutable.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class IgnoreFileMatcher {
+
+	/**
+	 * The result of matching a path against an ignore file's rules.
+	 */
+	enum Result {
+
+		/**
+		 * No rule matched the path.
+		 */
+		NONE,
+
+		/**
+		 * The path should be ignored.
+		 */
+		IGNORED,
+
+		/**
+		 * A "<code>!</code>" rule explicitly re-included the path.
+		 */
+		NOT_IGNORED
+
+	}
+
+	/**
+	 * The names of the ignore files read, lowest precedence first.
+	 */
+	private static final String[] IGNORE_FILE_NAMES = {
+		".gitignore", ".ignore", ".rgignore",
+	};
+
+	private static final int MAX_CACHED_FOLDERS = 4096;
+
+	private static final Map<Path, CacheEntry> CACHE =
+		new LinkedHashMap<>(256, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Path, CacheEntry> eldest) {
+				return size()>MAX_CACHED_FOLDERS;
+			}
+		};
+
+	private final Rule[] rules;
+
+
+	/**
+	 * Private constructor; use {@link #forDirectory(Path)}.
+	 *
+	 * @param rules The rules, in the order they appear in the ignore files.
+	 */
+	private IgnoreFileMatcher(List<Rule> rules) {
+		this.rules = rules.toArray(new Rule[0]);
+	}
+
+
+	/**
+	 * Parses a line from an ignore file.
+	 *
+	 * @param line The line.
+	 * @param caseSensitive Whether the rule is case-sensitive.
+	 * @return The rule, or <code>null</code> if the line is blank or a
+	 *         comment.
+	 */
+	private static Rule createRule(String line, boolean caseSensitive) {
+
+		if (line.isEmpty() || line.charAt(0)=='#') {
+			return null;
+		}
+
+		// Trailing spaces are ignored unless escaped.
+		int end = line.length();
+		while (end>0 && line.charAt(end-1)==' ' &&
+				(end<2 || line.charAt(end-2)!='\\')) {
+			end--;
+		}
+		line = line.substring(0, end);
+
+		boolean negated = false;
+		if (line.startsWith("!")) {
+			negated = true;
+			line = line.substring(1);
+		}
+		else if (line.startsWith("\\!") || line.startsWith("\\#")) {
+			line = line.substring(1);
+		}
+
+		boolean dirOnly = false;
+		if (line.endsWith("/")) {
+			dirOnly = true;
+			line = line.substring(0, line.length()-1);
+		}
+
+		// A pattern containing a slash (other than a trailing one) is
+		// relative to the ignore file's folder.  Otherwise it matches a
+		// file or folder name at any depth.
+		boolean matchName = line.indexOf('/')==-1;
+		if (line.startsWith("/")) {
+			line = line.substring(1);
+		}
+		if (line.isEmpty()) {
+			return null;
+		}
+
+		Pattern pattern = Pattern.compile(toRegex(line),
+				caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
+		return new Rule(pattern, negated, dirOnly, matchName);
+
+	}
+
+
+	/**
+	 * Returns the rules from a folder's ignore files.
+	 *
+	 * @param dir The folder.
+	 * @return The rules, or <code>null</code> if the folder contains no
+	 *         ignore files, or they contain no rules.
+	 */
+	static IgnoreFileMatcher forDirectory(Path dir) {
+
+		long[] timestamps = new long[IGNORE_FILE_NAMES.length];
+		boolean anyExist = false;
+		for (int i=0; i<IGNORE_FILE_NAMES.length; i++) {
+			timestamps[i] = getLastModified(dir.resolve(IGNORE_FILE_NAMES[i]));
+			anyExist |= timestamps[i]!=-1;
+		}
+		if (!anyExist) {
+			return null;
+		}
+
+		synchronized (CACHE) {
+			CacheEntry entry = CACHE.get(dir);
+			if (entry!=null && Arrays.equals(entry.timestamps, timestamps)) {
+				return entry.matcher;
+			}
+		}
+
+		boolean caseSensitive = OS.get().isCaseSensitive();
+		List<Rule> rules = new ArrayList<>();
+		for (int i=0; i<IGNORE_FILE_NAMES.length; i++) {
+			if (timestamps[i]!=-1) {
+				Path file = dir.resolve(IGNORE_FILE_NAMES[i]);
+				try (BufferedReader r = Files.newBufferedReader(file,
+						StandardCharsets.UTF_8)) {
+					String line;
+					while ((line=r.readLine())!=null) {
+						Rule rule = createRule(line, caseSensitive);
+						if (rule!=null) {
+							rules.add(rule);
+						}
+					}
+				} catch (IOException ioe) {
+					// Not readable, or not UTF-8; ignore what we couldn't read
+				}
+			}
+		}
+
+		IgnoreFileMatcher matcher = rules.isEmpty() ? null :
+				new IgnoreFileMatcher(rules);
+		synchronized (CACHE) {
+			CACHE.put(dir, new CacheEntry(timestamps, matcher));
+		}
+		return matcher;
+
+	}
+
+
+	/**
+	 * Returns the last modified time of a file.
+	 *
+	 * @param file The file.
+	 * @return The last modified time, or <code>-1</code> if the file doesn't
+	 *         exist or isn't a regular file.
+	 */
+	private static long getLastModified(Path file) {
+		try {
+			BasicFileAttributes attrs = Files.readAttributes(file,
+					BasicFileAttributes.class);
+			return attrs.isRegularFile() ? attrs.lastModifiedTime().toMillis() : -1;
+		} catch (IOException ioe) {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * Matches a path against these rules.
+	 *
+	 * @param relativePath The path, relative to the folder containing the
+	 *        ignore files, using "<code>/</code>" as the separator.
+	 * @param isDirectory Whether the path is a folder.
+	 * @return The result of the last matching rule, or
+	 *         {@link Result#NONE} if no rule matched.
+	 */
+	Result match(String relativePath, boolean isDirectory) {
+
+		String name = null;
+
+		for (int i=rules.length-1; i>=0; i--) {
+			Rule rule = rules[i];
+			if (rule.dirOnly && !isDirectory) {
+				continue;
+			}
+			String toMatch = relativePath;
+			if (rule.matchName) {
+				if (name==null) {
+					name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+				}
+				toMatch = name;
+			}
+			if (rule.pattern.matcher(toMatch).matches()) {
+				return rule.negated ? Result.NOT_IGNORED : Result.IGNORED;
+			}
+		}
+
+		return Result.NONE;
+
+	}
+
+
+	/**
+	 * Converts a <code>.gitignore</code> pattern to a regular expression.
+	 *
+	 * @param glob The pattern, without any leading "<code>!</code>" or
+	 *        leading or trailing "<code>/</code>".
+	 * @return The regular expression.
+	 */
+	private static String toRegex(String glob) {
+
+		StringBuilder sb = new StringBuilder();
+		int length = glob.length();
+
+		for (int i=0; i<length; i++) {
+			char ch = glob.charAt(i);
+			switch (ch) {
+				case '*':
+					boolean atSegmentStart = i==0 || glob.charAt(i-1)=='/';
+					if (i+1<length && glob.charAt(i+1)=='*' && atSegmentStart &&
+							(i+2==length || glob.charAt(i+2)=='/')) {
+						if (i+2==length) {
+							sb.append(".*"); // "foo/**"
+						}
+						else {
+							sb.append("(?:.*/)?"); // "**/foo" or "foo/**/bar"
+							i++;
+						}
+						i++;
+					}
+					else {
+						sb.append("[^/]*");
+					}
+					break;
+				case '?':
+					sb.append("[^/]");
+					break;
+				case '[':
+					int close = glob.indexOf(']', i + 2);
+					if (close==-1) {
+						sb.append("\\[");
+					}
+					else {
+						String range = glob.substring(i + 1, close);
+						if (range.startsWith("!")) {
+							range = "^" + range.substring(1);
+						}
+						sb.append('[').append(range.replace("\\", "\\\\")
+								.replace("[", "\\[")).append(']');
+						i = close;
+					}
+					break;
+				case '\\':
+					if (i+1<length) {
+						sb.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+					}
+					break;
+				default:
+					if ("().+^$|{}".indexOf(ch)>-1) {
+						sb.append('\\');
+					}
+					sb.append(ch);
+			}
+		}
+
+		return sb.toString();
+
+	}
+
+
+	/**
+	 * A cached set of rules for a folder.
+	 *
+	 * @param timestamps The last modified times of the ignore files when
+	 *        they were read, or <code>-1</code> for those that didn't exist.
+	 * @param matcher The compiled rules, or <code>null</code> if there were
+	 *        none.
+	 */
+	private record CacheEntry(long[] timestamps, IgnoreFileMatcher matcher) {
+	}
+
+
+	/**
+	 * A single line from an ignore file.
+	 *
+	 * @param pattern The pattern to match.
+	 * @param negated Whether this rule re-includes matched paths.
+	 * @param dirOnly Whether this rule only matches folders.
+	 * @param matchName Whether this rule matches file names at any depth,
+	 *        rather than paths relative to the ignore file's folder.
+	 */
+	private record Rule(Pattern pattern, boolean negated, boolean dirOnly,
+						boolean matchName) {
+	}
+
+
+}
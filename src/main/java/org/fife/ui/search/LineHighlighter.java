@@ -0,0 +1,222 @@
+/*
+ * 10/18/2026
+ *
+ * LineHighlighter.java - Creates syntax highlighted HTML for single lines
+ * of a file.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.awt.Font;
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.text.Segment;
+
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenMaker;
+import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
+import org.fife.ui.rsyntaxtextarea.TokenTypes;
+import org.fife.ui.rtextarea.RTextArea;
+
+
+/**
+ * Creates syntax highlighted HTML for individual lines of text, without
+ * loading that text into an <code>RSyntaxTextArea</code>.  Only the lines
+ * up to the one being rendered are scanned, and only to find out what
+ * state (e.g. an unterminated multi-line comment) the line starts in.
+ * Lines should be requested in increasing order for best performance.<p>
+ *
+ * That state can also be remembered and used later to render the line on
+ * its own, via {@link #getHtml(char[], int, int, String, int)}, so search
+ * results don't have to keep their HTML around.<p>
+ *
+ * Instances of this class are not thread safe; each searcher thread should
+ * have its own.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class LineHighlighter {
+
+	/**
+	 * Only used for its syntax scheme and fonts; text is never loaded into
+	 * it.
+	 */
+	private final RSyntaxTextArea textArea;
+
+	private final Map<String, TokenMaker> tokenMakers;
+	private final Segment segment;
+
+	private LineIndex lines;
+	private String style;
+	private TokenMaker tokenMaker;
+	private int nextLine;
+	private int nextLineTokenType;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scheme The colors and fonts to use for syntax highlighting.
+	 */
+	LineHighlighter(SyntaxScheme scheme) {
+		textArea = new RSyntaxTextArea();
+		textArea.setSyntaxScheme(scheme);
+		tokenMakers = new HashMap<>();
+		segment = new Segment();
+	}
+
+
+	/**
+	 * Gets an HTML string for a token list, stripping off leading whitespace.
+	 *
+	 * @param t The beginning of the token list.
+	 * @param textArea The text area to get the highlighting information from.
+	 * @return The HTML.
+	 */
+	private static String getHtml(Token t, RSyntaxTextArea textArea) {
+
+		// HTML rendering in Swing is very slow, and we've also seen OOME's
+		// from trying render lines that were too long in the Find in Files
+		// table, so we'll limit how much we display.
+		final int maxLen = 1280;
+
+		Font font = RTextArea.getDefaultFont();
+		String fontFamily = font.getFamily();
+		StringBuilder sb = new StringBuilder("<html><nobr><font face=\"" + fontFamily + "\">");
+		boolean firstNonWhitespace = false; // Skip leading whitespace
+
+		while (t!=null && t.isPaintable() && sb.length()<maxLen) {
+			if (firstNonWhitespace || (firstNonWhitespace |= !t.isWhitespace())) {
+				t.appendHTMLRepresentation(sb, textArea, false);
+			}
+			t = t.getNextToken();
+		}
+
+		if (sb.length()>=maxLen) {
+			sb.append("...");
+		}
+		return sb.toString();
+
+	}
+
+
+	/**
+	 * Returns syntax highlighted HTML for a line of the current text.
+	 *
+	 * @param line The line.
+	 * @return The HTML for the line.
+	 * @see #reset(LineIndex, String)
+	 */
+	String getHtml(int line) {
+		int tokenType = getTokenTypeAtLineStart(line);
+		loadLine(line);
+		Token t = tokenMaker.getTokenList(segment, tokenType,
+				lines.getLineStartOffset(line));
+		return getHtml(t, textArea);
+	}
+
+
+	/**
+	 * Returns syntax highlighted HTML for a line of arbitrary text.
+	 *
+	 * @param text The text containing the line.
+	 * @param start The offset of the start of the line.
+	 * @param end The offset of the end of the line, not including its line
+	 *        terminator.
+	 * @param style The syntax style of the text.
+	 * @param tokenType The token type at the start of the line, as
+	 *        returned by {@link #getTokenTypeAtLineStart(int)}.
+	 * @return The HTML for the line.
+	 */
+	String getHtml(char[] text, int start, int end, String style,
+			int tokenType) {
+		TokenMaker tm = getTokenMaker(style);
+		segment.array = text;
+		segment.offset = start;
+		segment.count = end - start;
+		Token t = tm.getTokenList(segment, tokenType, start);
+		String html = getHtml(t, textArea);
+		segment.array = null;
+		return html;
+	}
+
+
+	/**
+	 * Returns the syntax style of the current text.
+	 *
+	 * @return The syntax style.
+	 * @see #reset(LineIndex, String)
+	 */
+	String getStyle() {
+		return style;
+	}
+
+
+	private TokenMaker getTokenMaker(String style) {
+		return tokenMakers.computeIfAbsent(style,
+				s -> TokenMakerFactory.getDefaultInstance().getTokenMaker(s));
+	}
+
+
+	/**
+	 * Returns the token type a line of the current text starts in, e.g.
+	 * whether it starts inside a multi-line comment.
+	 *
+	 * @param line The line.
+	 * @return The token type.
+	 * @see #reset(LineIndex, String)
+	 */
+	int getTokenTypeAtLineStart(int line) {
+
+		// Lines are expected in increasing order, but if not, we must
+		// start over from the top.
+		if (line<nextLine) {
+			nextLine = 0;
+			nextLineTokenType = TokenTypes.NULL;
+		}
+
+		while (nextLine<line) {
+			loadLine(nextLine);
+			nextLineTokenType = tokenMaker.getLastTokenTypeOnLine(segment,
+					nextLineTokenType);
+			nextLine++;
+		}
+
+		return nextLineTokenType;
+
+	}
+
+
+	private void loadLine(int line) {
+		int start = lines.getLineStartOffset(line);
+		int end = lines.getLineEndOffset(line);
+		segment.array = lines.getText();
+		segment.offset = start;
+		segment.count = end - start;
+	}
+
+
+	/**
+	 * Prepares this highlighter to render lines of new text.
+	 *
+	 * @param lines The text.
+	 * @param style The syntax style of the text, e.g. one of the constants
+	 *        in <code>SyntaxConstants</code>.
+	 */
+	void reset(LineIndex lines, String style) {
+		this.lines = lines;
+		this.style = style;
+		tokenMaker = getTokenMaker(style);
+		nextLine = 0;
+		nextLineTokenType = TokenTypes.NULL;
+		segment.array = null; // Don't hang onto old text
+	}
+
+
+}
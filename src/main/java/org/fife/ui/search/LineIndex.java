@@ -0,0 +1,154 @@
+/*
+ * 10/18/2026
+ *
+ * LineIndex.java - Maps offsets in a block of text to line numbers.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.util.Arrays;
+
+
+/**
+ * Maps offsets in a block of text to line numbers, and vice versa.  This
+ * is a lightweight alternative to loading the text into a
+ * <code>Document</code> and using its element structure.<p>
+ *
+ * Lines may be terminated by <code>\n</code>, <code>\r\n</code> or a lone
+ * <code>\r</code>, the same as when a file is loaded into a text area.  The
+ * line offsets aren't computed until they're first needed, so creating an
+ * index for text that never has any matches in it is free.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class LineIndex {
+
+	private final char[] text;
+	private final int length;
+	private int[] lineStarts;
+	private int lineCount;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param text The text to index.  This array is not copied.
+	 * @param length The length of the text in the array.
+	 */
+	LineIndex(char[] text, int length) {
+		this.text = text;
+		this.length = length;
+	}
+
+
+	private void ensureIndexed() {
+
+		if (lineStarts!=null) {
+			return;
+		}
+
+		lineStarts = new int[Math.max(16, length/40)];
+		lineStarts[0] = 0;
+		lineCount = 1;
+
+		for (int i=0; i<length; i++) {
+			char ch = text[i];
+			if (ch=='\n' || ch=='\r') {
+				if (ch=='\r' && i+1<length && text[i+1]=='\n') {
+					i++;
+				}
+				if (lineCount==lineStarts.length) {
+					lineStarts = Arrays.copyOf(lineStarts, lineCount*2);
+				}
+				lineStarts[lineCount++] = i + 1;
+			}
+		}
+
+	}
+
+
+	/**
+	 * Returns the number of lines in the text.
+	 *
+	 * @return The number of lines.  This is always at least <code>1</code>.
+	 */
+	int getLineCount() {
+		ensureIndexed();
+		return lineCount;
+	}
+
+
+	/**
+	 * Returns the offset of the end of a line, not including its line
+	 * terminator.
+	 *
+	 * @param line The line.
+	 * @return The end offset of the line.
+	 * @see #getLineStartOffset(int)
+	 */
+	int getLineEndOffset(int line) {
+		ensureIndexed();
+		if (line==lineCount-1) {
+			return length;
+		}
+		int end = lineStarts[line+1] - 1;
+		if (text[end]=='\n' && end>lineStarts[line] && text[end-1]=='\r') {
+			end--;
+		}
+		return end;
+	}
+
+
+	/**
+	 * Returns the line containing the specified offset.
+	 *
+	 * @param offset The offset into the text.
+	 * @return The line, starting at <code>0</code>.
+	 */
+	int getLineOfOffset(int offset) {
+		ensureIndexed();
+		int line = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+		return line>=0 ? line : -line - 2;
+	}
+
+
+	/**
+	 * Returns the offset of the start of a line.
+	 *
+	 * @param line The line.
+	 * @return The start offset of the line.
+	 * @see #getLineEndOffset(int)
+	 */
+	int getLineStartOffset(int line) {
+		ensureIndexed();
+		return lineStarts[line];
+	}
+
+
+	/**
+	 * Returns the text being indexed.  This is not a copy.
+	 *
+	 * @return The text.
+	 * @see #length()
+	 */
+	char[] getText() {
+		return text;
+	}
+
+
+	/**
+	 * Returns the length of the text being indexed.
+	 *
+	 * @return The length of the text.
+	 * @see #getText()
+	 */
+	int length() {
+		return length;
+	}
+
+
+}
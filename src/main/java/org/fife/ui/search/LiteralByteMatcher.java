@@ -0,0 +1,287 @@
+/*
+ * 10/18/2026
+ *
+ * LiteralByteMatcher.java - Searches for literal text in undecoded file
+ * contents.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * Searches for literal text in the raw bytes of a file, without decoding
+ * it into characters first.  This lets Find in Files rule out files that
+ * don't contain a match very quickly; only files that do contain one need
+ * to be decoded so matches can be mapped to lines.<p>
+ *
+ * The search uses the Boyer-Moore-Horspool algorithm.  Case-insensitive
+ * searches fold ASCII letters as the bytes are scanned, rather than making
+ * a lower-cased copy of the text.<p>
+ *
+ * This is also used for regular expression searches, to look for a literal
+ * that any match must contain.  Since case-insensitive regexes also match
+ * the non-ASCII characters that fold to ASCII letters (e.g. the long "s"),
+ * files containing any such characters are always considered possible
+ * matches.<p>
+ *
+ * Matching bytes is only equivalent to matching characters if the bytes
+ * are UTF-8 (or ASCII-compatible, for ASCII search text), so
+ * {@link #create(String, boolean)} returns <code>null</code> for search
+ * text that can't be matched this way.  Files with a UTF-16 or UTF-32 byte
+ * order mark are always considered possible matches.<p>
+ *
+ * Instances of this class are immutable, and so may be shared by all
+ * searcher threads.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class LiteralByteMatcher {
+
+	/**
+	 * Files at least this large are memory-mapped rather than read.
+	 */
+	private static final long MMAP_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * The search text, encoded as UTF-8 and with ASCII letters lower-cased
+	 * if the search is case-insensitive.
+	 */
+	private final byte[] pattern;
+
+	/**
+	 * How far the search can skip ahead, indexed by the (folded) value of
+	 * the last byte examined.
+	 */
+	private final int[] shifts;
+
+	private final boolean foldCase;
+
+	/**
+	 * Whether the search text contains an "i", a "k" or an "s".  A few
+	 * non-ASCII characters fold to these letters, so a case-insensitive
+	 * search must also consider files containing them.
+	 */
+	private final boolean checkSpecialFolds;
+
+
+	private LiteralByteMatcher(byte[] pattern, boolean foldCase) {
+
+		this.pattern = pattern;
+		this.foldCase = foldCase;
+
+		int m = pattern.length;
+		shifts = new int[256];
+		Arrays.fill(shifts, m);
+		for (int i=0; i<m-1; i++) {
+			shifts[pattern[i] & 0xff] = m - 1 - i;
+		}
+
+		boolean special = false;
+		if (foldCase) {
+			for (byte b : pattern) {
+				special |= b=='i' || b=='k' || b=='s';
+			}
+		}
+		checkSpecialFolds = special;
+
+	}
+
+
+	/**
+	 * Returns whether a file's contents contain one of the non-ASCII
+	 * characters that fold to an ASCII letter: the Kelvin sign, the
+	 * capital "I" with a dot above, the dotless "i", and the long "s".
+	 */
+	private static boolean containsSpecialFold(ByteBuffer buf, int from, int to) {
+		for (int i=from; i<to-1; i++) {
+			byte b = buf.get(i);
+			if (b==(byte)0xc4 && (buf.get(i+1)==(byte)0xb0 || buf.get(i+1)==(byte)0xb1)) {
+				return true; // Capital I with dot above, or dotless i
+			}
+			if (b==(byte)0xc5 && buf.get(i+1)==(byte)0xbf) {
+				return true; // Long s
+			}
+			if (b==(byte)0xe2 && i<to-2 && buf.get(i+1)==(byte)0x84 &&
+					buf.get(i+2)==(byte)0xaa) {
+				return true; // Kelvin sign
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Returns a matcher for literal search text.
+	 *
+	 * @param text The text to search for.  For case-insensitive searches,
+	 *        this should already be lower-cased.
+	 * @param matchCase Whether the search is case-sensitive.
+	 * @return The matcher, or <code>null</code> if the text can't be
+	 *         searched for in undecoded bytes.  This happens if it contains
+	 *         non-ASCII characters and either the search is case-insensitive
+	 *         or files aren't decoded as UTF-8 by default.
+	 */
+	static LiteralByteMatcher create(String text, boolean matchCase) {
+
+		if (text.isEmpty()) {
+			return null;
+		}
+
+		boolean ascii = text.chars().allMatch(ch -> ch<128);
+		Charset charset = Charset.defaultCharset();
+		if (ascii) {
+			if (!isAsciiCompatible(charset)) {
+				return null;
+			}
+		}
+		else if (!matchCase || !StandardCharsets.UTF_8.equals(charset)) {
+			return null;
+		}
+
+		byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+		if (!matchCase) {
+			for (int i=0; i<pattern.length; i++) {
+				pattern[i] = fold(pattern[i]);
+			}
+		}
+		return new LiteralByteMatcher(pattern, !matchCase);
+
+	}
+
+
+	private static byte fold(byte b) {
+		return b>='A' && b<='Z' ? (byte)(b + ('a' - 'A')) : b;
+	}
+
+
+	/**
+	 * Returns the offset of the first match in a range of bytes.
+	 *
+	 * @param buf The bytes to search.
+	 * @param from The offset at which to start searching.
+	 * @param to The offset at which to stop searching.
+	 * @return The offset of the match, or <code>-1</code> if there is
+	 *         none.
+	 */
+	int indexOf(ByteBuffer buf, int from, int to) {
+
+		int m = pattern.length;
+		int last = m - 1;
+		byte lastByte = pattern[last];
+
+		for (int i=from; i<=to-m; ) {
+			byte b = buf.get(i + last);
+			if (foldCase) {
+				b = fold(b);
+			}
+			if (b==lastByte) {
+				int j = last - 1;
+				while (j>=0) {
+					byte b2 = buf.get(i + j);
+					if ((foldCase ? fold(b2) : b2)!=pattern[j]) {
+						break;
+					}
+					j--;
+				}
+				if (j<0) {
+					return i;
+				}
+			}
+			i += shifts[b & 0xff];
+		}
+
+		return -1;
+
+	}
+
+
+	private static boolean isAsciiCompatible(Charset charset) {
+		byte[] ascii = new byte[128];
+		for (int i=0; i<ascii.length; i++) {
+			ascii[i] = (byte)i;
+		}
+		String str = new String(ascii, StandardCharsets.US_ASCII);
+		return Arrays.equals(ascii, str.getBytes(charset));
+	}
+
+
+	/**
+	 * Returns whether a file might contain a match.  Large files are
+	 * memory-mapped rather than read.
+	 *
+	 * @param file The file.
+	 * @return <code>false</code> only if the file definitely doesn't
+	 *         contain a match when decoded.
+	 * @throws IOException If an IO error occurs reading the file.
+	 */
+	boolean mayMatch(File file) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+
+			long size = channel.size();
+			if (size>Integer.MAX_VALUE) {
+				return true;
+			}
+
+			ByteBuffer buf;
+			if (size>=MMAP_THRESHOLD) {
+				buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			else {
+				buf = ByteBuffer.allocate((int)size);
+				while (buf.hasRemaining() && channel.read(buf)!=-1) {
+					// Keep reading
+				}
+				buf.flip();
+			}
+			return mayMatch(buf);
+
+		}
+
+	}
+
+
+	/**
+	 * Returns whether a file's contents might contain a match.
+	 *
+	 * @param buf The file's contents, from its position to its limit.
+	 * @return <code>false</code> only if the contents definitely don't
+	 *         contain a match when decoded.
+	 */
+	boolean mayMatch(ByteBuffer buf) {
+
+		int from = buf.position();
+		int to = buf.limit();
+
+		// Files with a UTF-16 or UTF-32 BOM aren't decoded as UTF-8
+		if (to-from>=2) {
+			byte b0 = buf.get(from);
+			byte b1 = buf.get(from + 1);
+			if ((b0==(byte)0xfe && b1==(byte)0xff) ||
+					(b0==(byte)0xff && b1==(byte)0xfe) ||
+					(b0==0 && b1==0)) {
+				return true;
+			}
+		}
+
+		return indexOf(buf, from, to)>-1 ||
+				(checkSpecialFolds && containsSpecialFold(buf, from, to));
+
+	}
+
+
+}
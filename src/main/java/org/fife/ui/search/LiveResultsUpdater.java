@@ -0,0 +1,443 @@
+/*
+ * 10/18/2026
+ *
+ * LiveResultsUpdater.java - Keeps Find in Files results up to date as
+ * files change.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+
+import org.fife.rtext.AbstractMainView;
+import org.fife.rtext.RTextEditorPane;
+
+
+/**
+ * Keeps the results of a completed Find in Files search up to date as the
+ * files searched change, so a long search doesn't need to be run again
+ * after every edit.<p>
+ *
+ * The folders walked by the search are watched with a
+ * <code>WatchService</code>, and any editors open on files in them are
+ * listened to, since their unsaved text is what gets searched.  When a
+ * file changes, only that file is searched again, with the same parameters
+ * as the original search, and its rows in the results table are replaced
+ * in place.  Changes are only acted on once things have been quiet for a
+ * moment, so a burst of changes (or typing in an editor) results in a
+ * single search per file.<p>
+ *
+ * All of this happens on a single background thread, started by
+ * {@link #start()} and stopped by {@link #stop()}, both of which should be
+ * called on the EDT.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class LiveResultsUpdater implements Runnable {
+
+	/**
+	 * Changed files are searched again once nothing has changed for this
+	 * long.
+	 */
+	private static final long QUIET_MILLIS = 300;
+
+	private final FindInFilesDialog dialog;
+	private final FindInFilesThread search;
+	private final AbstractMainView view;
+
+	/**
+	 * Files changed in editors, waiting to be picked up by the background
+	 * thread.
+	 */
+	private final Set<Path> changedFiles;
+
+	/**
+	 * Listeners on the open editors, only accessed on the EDT.
+	 */
+	private final Map<RTextEditorPane, EditorListener> editorListeners;
+
+	private final PropertyChangeListener viewListener;
+	private Thread thread;
+	private volatile boolean stopped;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dialog The dialog displaying the results.
+	 * @param search The completed search.
+	 * @param view The main view, whose editors are listened to.
+	 */
+	LiveResultsUpdater(FindInFilesDialog dialog, FindInFilesThread search,
+			AbstractMainView view) {
+		this.dialog = dialog;
+		this.search = search;
+		this.view = view;
+		changedFiles = new LinkedHashSet<>();
+		editorListeners = new HashMap<>();
+		viewListener = this::viewPropertyChanged;
+	}
+
+
+	/**
+	 * Starts listening to an editor.  Its edits are only acted on if its
+	 * file is in the folder searched.
+	 */
+	private void addEditor(RTextEditorPane textArea) {
+		if (!editorListeners.containsKey(textArea)) {
+			editorListeners.put(textArea, new EditorListener(textArea));
+		}
+	}
+
+
+	/**
+	 * Adds all files in a folder (but not its subfolders) to a set.
+	 */
+	private static void addFiles(Path dir, Set<Path> files) {
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+			for (Path child : children) {
+				if (!Files.isDirectory(child)) {
+					files.add(child);
+				}
+			}
+		} catch (IOException ioe) {
+			// The folder was deleted or isn't readable
+		}
+	}
+
+
+	/**
+	 * Notes that a file has changed in an editor.  It is searched again
+	 * once the user pauses.
+	 */
+	private void fileChanged(Path file) {
+		synchronized (changedFiles) {
+			changedFiles.add(file);
+		}
+	}
+
+
+	/**
+	 * Handles the events from a folder being watched.
+	 *
+	 * @param watcher The watch service.
+	 * @param key The folder's key.
+	 * @param pending Files that need to be searched again are added to
+	 *        this set.
+	 */
+	private void handleEvents(WatchService watcher, WatchKey key,
+			Set<Path> pending) {
+
+		Path dir = (Path)key.watchable();
+
+		for (WatchEvent<?> event : key.pollEvents()) {
+
+			// Too much happened to know what changed; just search the
+			// whole folder again.
+			if (event.kind()==StandardWatchEventKinds.OVERFLOW) {
+				addFiles(dir, pending);
+				continue;
+			}
+
+			Path path = dir.resolve((Path)event.context());
+			if (Files.isDirectory(path)) {
+				if (event.kind()==StandardWatchEventKinds.ENTRY_CREATE) {
+					watchNewFolder(watcher, path, pending);
+				}
+			}
+			else {
+				pending.add(path);
+			}
+
+		}
+
+		key.reset();
+
+	}
+
+
+	/**
+	 * Starts watching a folder.  If it can't be watched (for example, if
+	 * the operating system's limit on watched folders has been reached),
+	 * changes to it simply aren't picked up.
+	 */
+	private static void register(WatchService watcher, Path dir) {
+		try {
+			dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_DELETE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException ioe) {
+			// Not much we can do
+		}
+	}
+
+
+	@Override
+	public void run() {
+
+		WatchService watcher = null;
+		try {
+			watcher = FileSystems.getDefault().newWatchService();
+			for (Path dir : search.getSearchedFolders()) {
+				if (stopped) {
+					break;
+				}
+				register(watcher, dir);
+			}
+		} catch (IOException | UnsupportedOperationException e) {
+			// Only changes in editors will be picked up
+		}
+
+		try {
+			Set<Path> pending = new LinkedHashSet<>();
+			while (!stopped) {
+
+				boolean quiet = true;
+				if (watcher!=null) {
+					WatchKey key = watcher.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+					while (key!=null) {
+						quiet = false;
+						handleEvents(watcher, key, pending);
+						key = watcher.poll();
+					}
+				}
+				else {
+					Thread.sleep(QUIET_MILLIS);
+				}
+
+				synchronized (changedFiles) {
+					if (!changedFiles.isEmpty()) {
+						pending.addAll(changedFiles);
+						changedFiles.clear();
+						quiet = false;
+					}
+				}
+
+				if (quiet && !pending.isEmpty()) {
+					searchAgain(pending);
+					pending.clear();
+				}
+
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Stopped
+		} finally {
+			if (watcher!=null) {
+				try {
+					watcher.close();
+				} catch (IOException ioe) {
+					// Nothing we can do
+				}
+			}
+		}
+
+	}
+
+
+	/**
+	 * Searches files again and updates their results.
+	 *
+	 * @param files The files.
+	 */
+	private void searchAgain(Set<Path> files) {
+		String dirName = search.directory.getPath();
+		for (Path file : files) {
+			if (stopped) {
+				return;
+			}
+			List<MatchData> results = search.searchAgain(file.toFile());
+			SwingUtilities.invokeLater(() -> {
+				if (!stopped) {
+					dialog.replaceMatchData(file.toString(), results, dirName);
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Starts keeping the results up to date.
+	 */
+	void start() {
+		for (int i=0; i<view.getNumDocuments(); i++) {
+			addEditor(view.getRTextEditorPaneAt(i));
+		}
+		view.addPropertyChangeListener(AbstractMainView.TEXT_AREA_ADDED_PROPERTY,
+				viewListener);
+		view.addPropertyChangeListener(AbstractMainView.TEXT_AREA_REMOVED_PROPERTY,
+				viewListener);
+		thread = new Thread(this, "FindInFilesLiveResults");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+
+	/**
+	 * Stops keeping the results up to date.
+	 */
+	void stop() {
+		stopped = true;
+		thread.interrupt();
+		view.removePropertyChangeListener(AbstractMainView.TEXT_AREA_ADDED_PROPERTY,
+				viewListener);
+		view.removePropertyChangeListener(AbstractMainView.TEXT_AREA_REMOVED_PROPERTY,
+				viewListener);
+		editorListeners.values().forEach(EditorListener::dispose);
+		editorListeners.clear();
+	}
+
+
+	/**
+	 * Called when an editor is opened or closed.
+	 */
+	private void viewPropertyChanged(PropertyChangeEvent e) {
+
+		RTextEditorPane textArea = (RTextEditorPane)e.getNewValue();
+
+		if (AbstractMainView.TEXT_AREA_ADDED_PROPERTY.equals(e.getPropertyName())) {
+			addEditor(textArea);
+		}
+
+		// Any unsaved changes were discarded, so the file needs to be
+		// searched again.
+		else {
+			String path = search.setEditorOpen(textArea, false);
+			EditorListener listener = editorListeners.remove(textArea);
+			if (listener!=null) {
+				listener.dispose();
+			}
+			if (path!=null) {
+				fileChanged(Paths.get(path));
+			}
+		}
+
+	}
+
+
+	/**
+	 * Starts watching a folder created since the search, and any folders
+	 * in it, if they would have been searched.
+	 *
+	 * @param watcher The watch service.
+	 * @param dir The new folder.
+	 * @param pending Any files already in the folder are added to this
+	 *        set.
+	 */
+	private void watchNewFolder(WatchService watcher, Path dir, Set<Path> pending) {
+
+		if (!search.isSearchedFolder(dir)) {
+			return;
+		}
+
+		register(watcher, dir);
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+			for (Path child : children) {
+				if (Files.isDirectory(child)) {
+					watchNewFolder(watcher, child, pending);
+				}
+				else {
+					pending.add(child);
+				}
+			}
+		} catch (IOException ioe) {
+			// The folder was deleted or isn't readable
+		}
+
+	}
+
+
+	/**
+	 * Notes when the text in an open editor changes.  Editors get a new
+	 * document when they're reloaded, or when a placeholder or a file
+	 * loaded in the background is read, so the listener follows the
+	 * editor's current document.
+	 */
+	private final class EditorListener implements DocumentListener,
+			PropertyChangeListener {
+
+		private final RTextEditorPane textArea;
+		private Document doc;
+
+		/**
+		 * The editor's file, or <code>null</code> if it isn't in the
+		 * folder searched (or hasn't been read yet).
+		 */
+		private Path file;
+
+		EditorListener(RTextEditorPane textArea) {
+			this.textArea = textArea;
+			doc = textArea.getDocument();
+			doc.addDocumentListener(this);
+			textArea.addPropertyChangeListener("document", this);
+			file = toPath(search.setEditorOpen(textArea, true));
+		}
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+		}
+
+		void dispose() {
+			doc.removeDocumentListener(this);
+			textArea.removePropertyChangeListener("document", this);
+		}
+
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			if (file!=null) {
+				fileChanged(file);
+			}
+		}
+
+		@Override
+		public void propertyChange(PropertyChangeEvent e) {
+			doc.removeDocumentListener(this);
+			doc = textArea.getDocument();
+			doc.addDocumentListener(this);
+			file = toPath(search.setEditorOpen(textArea, true));
+			if (file!=null) {
+				fileChanged(file);
+			}
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			if (file!=null) {
+				fileChanged(file);
+			}
+		}
+
+		private Path toPath(String path) {
+			return path==null ? null : Paths.get(path);
+		}
+
+	}
+
+
+}
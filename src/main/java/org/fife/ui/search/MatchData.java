@@ -23,6 +23,15 @@ public class MatchData {
 	private String lineNumber;
 	private String lineText;
 	private int type;
+	private String matchedTerms;
+
+	// For matches whose text is loaded lazily.
+	private int startLine;
+	private int endLine;
+	private int lineOffset;
+	private int tokenType;
+	private String syntaxStyle;
+	private MatchedLineLoader lineLoader;
 
 	public static final int TYPE_MATCH		= 0;
 	public static final int TYPE_VERBOSE	= 1;
@@ -43,26 +52,122 @@ public class MatchData {
 	}
 
 
+	/**
+	 * Creates a match whose (syntax highlighted) text is only loaded when
+	 * it is needed.  This saves lots of memory when a search has many
+	 * results.
+	 *
+	 * @param fileName The file containing the match.
+	 * @param startLine The line the match starts on, starting at
+	 *        <code>1</code>.
+	 * @param endLine The line the match ends on.
+	 * @param lineOffset The offset of the start of the first line of the
+	 *        match in the file.
+	 * @param tokenType The token type the first line starts with.
+	 * @param syntaxStyle The syntax style of the file.
+	 * @param lineLoader Loads the text of the match when needed.
+	 */
+	MatchData(String fileName, int startLine, int endLine, int lineOffset,
+			int tokenType, String syntaxStyle, MatchedLineLoader lineLoader) {
+		this.fileName = fileName;
+		this.startLine = startLine;
+		this.endLine = endLine;
+		this.lineOffset = lineOffset;
+		this.tokenType = tokenType;
+		this.syntaxStyle = syntaxStyle;
+		this.lineLoader = lineLoader;
+		type = TYPE_MATCH;
+	}
+
+
+	int getEndLine() {
+		return endLine;
+	}
+
+
 	public String getFileName() {
 		return fileName;
 	}
 
 
 	public String getLineNumber() {
+		if (lineNumber==null && isLazy()) {
+			lineNumber = startLine==endLine ? Integer.toString(startLine) :
+					(startLine + "-" + endLine);
+		}
 		return lineNumber;
 	}
 
 
+	int getLineOffset() {
+		return lineOffset;
+	}
+
+
+	MatchedLineLoader getLineLoader() {
+		return lineLoader;
+	}
+
+
+	/**
+	 * Returns the terms found, for "any of these terms" searches.
+	 *
+	 * @return The terms, separated by commas, or <code>null</code> if this
+	 *         isn't the result of such a search.
+	 * @see #setMatchedTerms(String)
+	 */
+	String getMatchedTerms() {
+		return matchedTerms;
+	}
+
+
+	/**
+	 * Returns the text of the match.  For matches created via
+	 * {@link #MatchData(String, int, int, int, int, String, MatchedLineLoader)},
+	 * this loads the text from the file, so it should only be called on the
+	 * EDT.
+	 *
+	 * @return The text, which may be HTML.
+	 */
 	public String getLineText() {
+		if (lineText==null && isLazy()) {
+			return lineLoader.getHtml(fileName, syntaxStyle, lineOffset,
+					tokenType, startLine!=endLine);
+		}
 		return lineText;
 	}
 
 
+	int getStartLine() {
+		return startLine;
+	}
+
+
+	String getSyntaxStyle() {
+		return syntaxStyle;
+	}
+
+
+	int getTokenType() {
+		return tokenType;
+	}
+
+
 	public boolean isError() {
 		return type==TYPE_ERROR;
 	}
 
 
+	/**
+	 * Returns whether this match's text is loaded lazily.
+	 *
+	 * @return Whether the text is loaded lazily.
+	 */
+	boolean isLazy() {
+		return lineLoader!=null;
+	}
+
+
 	public boolean isMatchData() {
 		return type==TYPE_MATCH;
 	}
@@ -73,4 +178,15 @@ public class MatchData {
 	}
 
 
+	/**
+	 * Sets the terms found, for "any of these terms" searches.
+	 *
+	 * @param terms The terms, separated by commas.
+	 * @see #getMatchedTerms()
+	 */
+	void setMatchedTerms(String terms) {
+		matchedTerms = terms;
+	}
+
+
 }
@@ -0,0 +1,175 @@
+/*
+ * 10/18/2026
+ *
+ * MatchSpillFile.java - Stores search results that don't fit in memory.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A temporary file holding search results once there are too many to keep
+ * in memory.  Each result is a fixed-size record of <code>int</code>s, so
+ * any result can be found without an index.  Records are written in pages,
+ * and read back a page at a time as the user scrolls through the results;
+ * the most recently read pages are kept in memory.<p>
+ *
+ * The file is deleted when this object is closed.  Like the table model
+ * that uses it, this class should only be used on the EDT.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see MatchTableModel
+ */
+final class MatchSpillFile implements Closeable {
+
+	private static final int RECORDS_PER_PAGE = 4096;
+
+	private static final int MAX_CACHED_PAGES = 8;
+
+	private final int fieldCount;
+	private final int pageSize;
+	private final FileChannel channel;
+
+	/**
+	 * Records that haven't been written to the file yet.  This is always
+	 * at most one page's worth, so the file only ever contains full pages.
+	 */
+	private final ByteBuffer writeBuffer;
+
+	private final Map<Integer, int[]> pageCache;
+	private int size;
+	private int writtenSize;
+
+
+	/**
+	 * Constructor.  This creates the temporary file.
+	 *
+	 * @param fieldCount The number of <code>int</code>s in each record.
+	 * @throws IOException If the file can't be created.
+	 */
+	MatchSpillFile(int fieldCount) throws IOException {
+		this.fieldCount = fieldCount;
+		pageSize = RECORDS_PER_PAGE * fieldCount * Integer.BYTES;
+		Path path = Files.createTempFile("rtext-results", ".tmp");
+		channel = FileChannel.open(path, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+		writeBuffer = ByteBuffer.allocate(pageSize);
+		pageCache = new LinkedHashMap<>(MAX_CACHED_PAGES, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+				return size()>MAX_CACHED_PAGES;
+			}
+		};
+	}
+
+
+	/**
+	 * Adds a record to the end of this file.
+	 *
+	 * @param record The record.  This should have one value per field.
+	 * @throws IOException If an IO error occurs.
+	 */
+	void append(int[] record) throws IOException {
+		for (int i=0; i<fieldCount; i++) {
+			writeBuffer.putInt(record[i]);
+		}
+		if (!writeBuffer.hasRemaining()) {
+			writeBuffer.flip();
+			long pos = (long)writtenSize * fieldCount * Integer.BYTES;
+			while (writeBuffer.hasRemaining()) {
+				pos += channel.write(writeBuffer, pos);
+			}
+			writeBuffer.clear();
+			writtenSize = size + 1;
+		}
+		size++;
+	}
+
+
+	/**
+	 * Closes and deletes the file.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Override
+	public void close() throws IOException {
+		pageCache.clear();
+		channel.close();
+	}
+
+
+	/**
+	 * Returns a field of a record.
+	 *
+	 * @param record The index of the record.
+	 * @param field The field to return.
+	 * @return The field's value.
+	 * @throws UncheckedIOException If the file can't be read.
+	 */
+	int get(int record, int field) {
+
+		if (record>=writtenSize) {
+			int index = (record - writtenSize) * fieldCount + field;
+			return writeBuffer.getInt(index * Integer.BYTES);
+		}
+
+		int page = record / RECORDS_PER_PAGE;
+		int[] values = pageCache.get(page);
+		if (values==null) {
+			values = readPage(page);
+			pageCache.put(page, values);
+		}
+		return values[(record % RECORDS_PER_PAGE) * fieldCount + field];
+
+	}
+
+
+	private int[] readPage(int page) {
+
+		ByteBuffer buf = ByteBuffer.allocate(pageSize);
+		long pos = (long)page * pageSize;
+		try {
+			while (buf.hasRemaining()) {
+				int count = channel.read(buf, pos + buf.position());
+				if (count==-1) {
+					throw new IOException("Unexpected end of file");
+				}
+			}
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+
+		buf.flip();
+		int[] values = new int[RECORDS_PER_PAGE * fieldCount];
+		buf.asIntBuffer().get(values);
+		return values;
+
+	}
+
+
+	/**
+	 * Returns the number of records in this file.
+	 *
+	 * @return The number of records.
+	 */
+	int size() {
+		return size;
+	}
+
+
+}
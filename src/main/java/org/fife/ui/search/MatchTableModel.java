@@ -0,0 +1,755 @@
+/*
+ * 10/18/2026
+ *
+ * MatchTableModel.java - A compact table model for search results.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+import org.fife.ui.autocomplete.Util;
+
+
+/**
+ * A table model for search results that can hold very large numbers of
+ * matches.  Rather than keeping a <code>MatchData</code> and a row of
+ * strings per match, matches are stored in parallel primitive arrays, and
+ * each distinct file path is only stored once.  The (syntax highlighted)
+ * text of a match isn't stored at all; it is loaded when the row is
+ * rendered, and only the most recently rendered rows' text is kept.<p>
+ *
+ * Results whose text isn't loaded lazily (verbose output, errors, and
+ * replacement results) are kept as-is, since there are relatively few of
+ * them.<p>
+ *
+ * Even stored this way, a broad search can find more matches than fit in
+ * memory.  Once {@link #setMaxRowsInMemory(int) a limit} is reached, any
+ * further rows are written to a temporary {@link MatchSpillFile} and read
+ * back as they are displayed.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see MatchData
+ */
+class MatchTableModel extends AbstractTableModel {
+
+	/**
+	 * The kinds of columns this model can display.
+	 */
+	enum Column {
+		FILE,
+		LINE,
+		TERMS,
+		TEXT
+	}
+
+	/**
+	 * The maximum number of rows whose text is kept in memory.
+	 */
+	private static final int MAX_CACHED_LINES = 512;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	// The fields of a row written to the spill file.
+	private static final int FIELD_FILE_ID = 0;
+	private static final int FIELD_START_LINE = 1;
+	private static final int FIELD_END_LINE = 2;
+	private static final int FIELD_LINE_OFFSET = 3;
+	private static final int FIELD_TOKEN_TYPE = 4;
+	private static final int FIELD_TERMS_ID = 5;
+	private static final int FIELD_COUNT = 6;
+
+	private final String[] columnNames;
+	private final Column[] columns;
+
+	// Information on each distinct file, indexed by file ID.
+	private final Map<String, Integer> fileIds;
+	private final List<String> filePaths;
+	private final List<String> fileDisplayNames;
+	private final List<String> fileStyles;
+
+	/**
+	 * Each distinct set of matched terms, indexed by ID.  Rows of searches
+	 * for a single term have an ID of <code>-1</code>.
+	 */
+	private final Map<String, Integer> termsIds;
+	private final List<String> termsList;
+
+	// Information on each row kept in memory.
+	private int memoryRowCount;
+	private int[] rowFileIds;
+	private int[] startLines;
+	private int[] endLines;
+	private int[] lineOffsets;
+	private int[] tokenTypes;
+	private int[] rowTermsIds;
+
+	// Rows past the first maxRowsInMemory.
+	private int maxRowsInMemory;
+	private MatchSpillFile spillFile;
+	private boolean spillFileFailed;
+	private final int[] spillRecord;
+
+	/**
+	 * Rows whose text isn't loaded lazily.
+	 */
+	private final Map<Integer, MatchData> eagerRows;
+
+	/**
+	 * The number of rows that are matches, as opposed to verbose output
+	 * or errors.
+	 */
+	private int matchCount;
+
+	/**
+	 * All lazily-loaded rows in a search share the same loader.
+	 */
+	private MatchedLineLoader lineLoader;
+
+	private final Map<Integer, String> lineCache;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param columnNames The names of the columns.
+	 * @param columns What each column displays.
+	 */
+	MatchTableModel(String[] columnNames, Column... columns) {
+		this.columnNames = columnNames;
+		this.columns = columns;
+		fileIds = new HashMap<>();
+		filePaths = new ArrayList<>();
+		fileDisplayNames = new ArrayList<>();
+		fileStyles = new ArrayList<>();
+		termsIds = new HashMap<>();
+		termsList = new ArrayList<>();
+		maxRowsInMemory = FindInFilesSearchContext.DEFAULT_MAX_RESULTS_IN_MEMORY;
+		spillRecord = new int[FIELD_COUNT];
+		eagerRows = new HashMap<>();
+		lineCache = new LinkedHashMap<>(MAX_CACHED_LINES, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+				return size()>MAX_CACHED_LINES;
+			}
+		};
+		allocate(INITIAL_CAPACITY);
+	}
+
+
+	/**
+	 * Adds rows for matches.
+	 *
+	 * @param matchDatas The matches.
+	 * @param displayNames The file name to display for each match.
+	 */
+	void add(List<MatchData> matchDatas, List<String> displayNames) {
+
+		int firstRow = getRowCount();
+
+		for (int i=0; i<matchDatas.size(); i++) {
+
+			MatchData data = matchDatas.get(i);
+			if (!data.isVerboseSearchInfo() && !data.isError()) {
+				matchCount++;
+			}
+
+			int fileId = getFileId(data.getFileName(), displayNames.get(i));
+
+			int row;
+			if (spillFile==null && (memoryRowCount<maxRowsInMemory ||
+					!createSpillFile())) {
+				row = addInMemory(data, fileId);
+			}
+			else {
+				row = addToSpillFile(data, fileId);
+				if (row==-1) {
+					continue; // Only the match count is kept
+				}
+			}
+
+			if (data.isLazy()) {
+				fileStyles.set(fileId, data.getSyntaxStyle());
+				lineLoader = data.getLineLoader();
+			}
+			else {
+				eagerRows.put(row, data);
+			}
+
+		}
+
+		int rowCount = getRowCount();
+		if (rowCount>firstRow) {
+			fireTableRowsInserted(firstRow, rowCount - 1);
+		}
+
+	}
+
+
+	private int addInMemory(MatchData data, int fileId) {
+
+		if (memoryRowCount==rowFileIds.length) {
+			allocate(rowFileIds.length*2);
+		}
+
+		int row = memoryRowCount++;
+		setRow(row, data, fileId);
+		return row;
+
+	}
+
+
+	/**
+	 * Writes a row to the spill file.
+	 *
+	 * @return The row's index, or <code>-1</code> if it couldn't be written.
+	 */
+	private int addToSpillFile(MatchData data, int fileId) {
+
+		if (spillFileFailed) {
+			return -1;
+		}
+
+		Arrays.fill(spillRecord, 0);
+		spillRecord[FIELD_FILE_ID] = fileId;
+		spillRecord[FIELD_TERMS_ID] = getTermsId(data);
+		if (data.isLazy()) {
+			spillRecord[FIELD_START_LINE] = data.getStartLine();
+			spillRecord[FIELD_END_LINE] = data.getEndLine();
+			spillRecord[FIELD_LINE_OFFSET] = data.getLineOffset();
+			spillRecord[FIELD_TOKEN_TYPE] = data.getTokenType();
+		}
+
+		try {
+			spillFile.append(spillRecord);
+		} catch (IOException ioe) {
+			// Most likely the disk is full.  Stop adding rows, but keep
+			// counting matches so the user knows what they're missing.
+			ioe.printStackTrace();
+			spillFileFailed = true;
+			return -1;
+		}
+		return memoryRowCount + spillFile.size() - 1;
+
+	}
+
+
+	private void allocate(int capacity) {
+		rowFileIds = rowFileIds==null ? new int[capacity] :
+				Arrays.copyOf(rowFileIds, capacity);
+		startLines = startLines==null ? new int[capacity] :
+				Arrays.copyOf(startLines, capacity);
+		endLines = endLines==null ? new int[capacity] :
+				Arrays.copyOf(endLines, capacity);
+		lineOffsets = lineOffsets==null ? new int[capacity] :
+				Arrays.copyOf(lineOffsets, capacity);
+		tokenTypes = tokenTypes==null ? new int[capacity] :
+				Arrays.copyOf(tokenTypes, capacity);
+		rowTermsIds = rowTermsIds==null ? new int[capacity] :
+				Arrays.copyOf(rowTermsIds, capacity);
+	}
+
+
+	/**
+	 * Removes all rows.
+	 */
+	void clear() {
+		fileIds.clear();
+		filePaths.clear();
+		fileDisplayNames.clear();
+		fileStyles.clear();
+		termsIds.clear();
+		termsList.clear();
+		eagerRows.clear();
+		lineCache.clear();
+		if (lineLoader!=null) {
+			lineLoader.clearCache();
+			lineLoader = null;
+		}
+		rowFileIds = startLines = endLines = lineOffsets = tokenTypes = null;
+		rowTermsIds = null;
+		allocate(INITIAL_CAPACITY);
+		memoryRowCount = 0;
+		matchCount = 0;
+		closeSpillFile();
+		fireTableDataChanged();
+	}
+
+
+	private void closeSpillFile() {
+		if (spillFile!=null) {
+			try {
+				spillFile.close();
+			} catch (IOException ioe) {
+				ioe.printStackTrace();
+			}
+			spillFile = null;
+		}
+		spillFileFailed = false;
+	}
+
+
+	/**
+	 * Creates the spill file.  If it can't be created, rows are simply
+	 * kept in memory.
+	 *
+	 * @return Whether the file was created.
+	 */
+	private boolean createSpillFile() {
+		if (!spillFileFailed) {
+			try {
+				spillFile = new MatchSpillFile(FIELD_COUNT);
+			} catch (IOException ioe) {
+				ioe.printStackTrace();
+				spillFileFailed = true;
+			}
+		}
+		return spillFile!=null;
+	}
+
+
+	/**
+	 * Overridden so the text column is sorted by {@link LineText}'s
+	 * natural order, rather than by loading the text of every row.
+	 */
+	@Override
+	public Class<?> getColumnClass(int column) {
+		return columns[column]==Column.TEXT ? LineText.class : String.class;
+	}
+
+
+	@Override
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+
+	/**
+	 * Returns the index of the column displaying something.
+	 *
+	 * @param column What the column displays.
+	 * @return The index of the column, or <code>-1</code> if there is no
+	 *         such column.
+	 */
+	int getColumnIndex(Column column) {
+		for (int i=0; i<columns.length; i++) {
+			if (columns[i]==column) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	@Override
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+
+	/**
+	 * Returns a value stored for a row, whether it's in memory or in the
+	 * spill file.
+	 */
+	private int getField(int row, int[] values, int field) {
+		if (row<memoryRowCount) {
+			return values[row];
+		}
+		return spillFile.get(row - memoryRowCount, field);
+	}
+
+
+	private int getFileId(int row) {
+		return getField(row, rowFileIds, FIELD_FILE_ID);
+	}
+
+
+	/**
+	 * Returns the ID of a file, adding it if it hasn't been seen before.
+	 *
+	 * @param path The full path of the file.
+	 * @param displayName The name to display for the file.
+	 * @return The ID.
+	 */
+	private int getFileId(String path, String displayName) {
+		Integer fileId = fileIds.get(path);
+		if (fileId==null) {
+			fileId = filePaths.size();
+			fileIds.put(path, fileId);
+			filePaths.add(path);
+			fileDisplayNames.add(displayName);
+			fileStyles.add(null);
+		}
+		return fileId;
+	}
+
+
+	/**
+	 * Returns the matched terms of a row.
+	 *
+	 * @param row The row.
+	 * @return The terms, or <code>null</code> if the row isn't from an
+	 *         "any of these terms" search.
+	 */
+	private String getMatchedTerms(int row) {
+		int termsId = getField(row, rowTermsIds, FIELD_TERMS_ID);
+		return termsId>-1 ? termsList.get(termsId) : null;
+	}
+
+
+	/**
+	 * Returns the ID of a match's terms, adding them if they haven't been
+	 * seen before.
+	 *
+	 * @param data The match.
+	 * @return The ID, or <code>-1</code> if the match has no terms.
+	 */
+	private int getTermsId(MatchData data) {
+		String terms = data.getMatchedTerms();
+		if (terms==null) {
+			return -1;
+		}
+		return termsIds.computeIfAbsent(terms, t -> {
+			termsList.add(t);
+			return termsList.size() - 1;
+		});
+	}
+
+
+	/**
+	 * Returns the syntax highlighted text of a row, loading it if
+	 * necessary.
+	 *
+	 * @param row The row.
+	 * @return The text.
+	 */
+	String getLineText(int row) {
+		MatchData eager = eagerRows.get(row);
+		if (eager!=null) {
+			return eager.getLineText();
+		}
+		return lineCache.computeIfAbsent(row, r -> {
+			int fileId = getFileId(r);
+			return lineLoader.getHtml(filePaths.get(fileId),
+					fileStyles.get(fileId), getLineOffset(r),
+					getField(r, tokenTypes, FIELD_TOKEN_TYPE),
+					getStartLine(r)!=getEndLine(r));
+		});
+	}
+
+
+	private int getEndLine(int row) {
+		return getField(row, endLines, FIELD_END_LINE);
+	}
+
+
+	private int getLineOffset(int row) {
+		return getField(row, lineOffsets, FIELD_LINE_OFFSET);
+	}
+
+
+	/**
+	 * Returns the number of matches added to this model.  This doesn't
+	 * include verbose output and errors, but does include any matches that
+	 * couldn't be stored.
+	 *
+	 * @return The number of matches.
+	 */
+	int getMatchCount() {
+		return matchCount;
+	}
+
+
+	/**
+	 * Returns the match in a row.  For lazily-loaded matches, this is a
+	 * new object each time it is called.
+	 *
+	 * @param row The row.
+	 * @return The match.
+	 */
+	MatchData getMatchData(int row) {
+		MatchData eager = eagerRows.get(row);
+		if (eager!=null) {
+			return eager;
+		}
+		int fileId = getFileId(row);
+		MatchData data = new MatchData(filePaths.get(fileId), getStartLine(row),
+				getEndLine(row), getLineOffset(row),
+				getField(row, tokenTypes, FIELD_TOKEN_TYPE),
+				fileStyles.get(fileId), lineLoader);
+		data.setMatchedTerms(getMatchedTerms(row));
+		return data;
+	}
+
+
+	/**
+	 * Returns the text of a cell, without any HTML.  This is used when
+	 * exporting results.
+	 *
+	 * @param row The row.
+	 * @param column The column.
+	 * @return The text.
+	 */
+	String getPlainText(int row, int column) {
+
+		MatchData eager = eagerRows.get(row);
+
+		return switch (columns[column]) {
+			case FILE -> filePaths.get(getFileId(row));
+			case LINE, TERMS -> (String)getValueAt(row, column);
+			case TEXT -> eager!=null ? Util.stripHtml(eager.getLineText()) :
+					lineLoader.getText(filePaths.get(getFileId(row)),
+							getLineOffset(row));
+		};
+
+	}
+
+
+	@Override
+	public int getRowCount() {
+		return memoryRowCount + (spillFile!=null ? spillFile.size() : 0);
+	}
+
+
+	private int getStartLine(int row) {
+		return getField(row, startLines, FIELD_START_LINE);
+	}
+
+
+	@Override
+	public Object getValueAt(int row, int column) {
+
+		MatchData eager = eagerRows.get(row);
+
+		return switch (columns[column]) {
+			case FILE -> fileDisplayNames.get(getFileId(row));
+			case LINE -> {
+				if (eager!=null) {
+					yield eager.getLineNumber();
+				}
+				int startLine = getStartLine(row);
+				int endLine = getEndLine(row);
+				yield startLine==endLine ? Integer.toString(startLine) :
+						(startLine + "-" + endLine);
+			}
+			case TERMS -> {
+				String terms = getMatchedTerms(row);
+				yield terms!=null ? terms : "";
+			}
+			case TEXT -> new LineText(this, row);
+		};
+
+	}
+
+
+	/**
+	 * Returns whether a row is a match, as opposed to verbose output or an
+	 * error.  The row must be in memory.
+	 */
+	private boolean isMatch(int row) {
+		MatchData eager = eagerRows.get(row);
+		return eager==null || (!eager.isVerboseSearchInfo() && !eager.isError());
+	}
+
+
+	/**
+	 * Replaces the rows for a file, e.g. after it has changed and been
+	 * searched again.  The new rows take the place of the first of the old
+	 * ones, so they stay where the user expects them.  If the file had no
+	 * rows, they're added at the end.
+	 *
+	 * @param path The full path of the file.
+	 * @param matchDatas The file's new matches.  These should all be for
+	 *        the file.
+	 * @param displayName The file name to display.
+	 * @return The number of rows removed and added, or <code>-1</code> if
+	 *         rows can't be replaced because some have been written to the
+	 *         spill file.
+	 */
+	int replaceFileRows(String path, List<MatchData> matchDatas,
+			String displayName) {
+
+		if (spillFile!=null) {
+			return -1;
+		}
+
+		// Remove the file's old rows, shifting the rows after them up.
+		Integer oldFileId = fileIds.get(path);
+		int insertAt = memoryRowCount;
+		int removed = 0;
+		boolean contiguous = true;
+		if (oldFileId!=null) {
+			Map<Integer, MatchData> remainingEagerRows = new HashMap<>();
+			for (int row=0; row<memoryRowCount; row++) {
+				if (rowFileIds[row]==oldFileId) {
+					if (removed==0) {
+						insertAt = row;
+					}
+					else if (row!=insertAt+removed) {
+						contiguous = false;
+					}
+					if (isMatch(row)) {
+						matchCount--;
+					}
+					removed++;
+				}
+				else {
+					if (removed>0) {
+						moveRow(row, row - removed);
+					}
+					MatchData eager = eagerRows.get(row);
+					if (eager!=null) {
+						remainingEagerRows.put(row - removed, eager);
+					}
+				}
+			}
+			memoryRowCount -= removed;
+			eagerRows.clear();
+			eagerRows.putAll(remainingEagerRows);
+			if (removed==0) {
+				insertAt = memoryRowCount;
+			}
+		}
+
+		// The file's contents have changed, and rows have moved.
+		lineCache.clear();
+		if (lineLoader!=null) {
+			lineLoader.clearCache();
+		}
+		if (removed>0 && contiguous) {
+			fireTableRowsDeleted(insertAt, insertAt + removed - 1);
+		}
+
+		// Insert the new rows in their place.
+		int added = matchDatas.size();
+		if (added>0) {
+			if (memoryRowCount+added>rowFileIds.length) {
+				allocate(Math.max(rowFileIds.length*2, memoryRowCount + added));
+			}
+			for (int row=memoryRowCount-1; row>=insertAt; row--) {
+				moveRow(row, row + added);
+			}
+			int firstShifted = insertAt;
+			Map<Integer, MatchData> shiftedEagerRows = new HashMap<>();
+			eagerRows.forEach((row, data) -> shiftedEagerRows.put(
+					row>=firstShifted ? row + added : row, data));
+			eagerRows.clear();
+			eagerRows.putAll(shiftedEagerRows);
+			memoryRowCount += added;
+
+			int fileId = getFileId(path, displayName);
+			for (int i=0; i<added; i++) {
+				MatchData data = matchDatas.get(i);
+				int row = insertAt + i;
+				setRow(row, data, fileId);
+				if (data.isLazy()) {
+					fileStyles.set(fileId, data.getSyntaxStyle());
+					lineLoader = data.getLineLoader();
+				}
+				else {
+					eagerRows.put(row, data);
+				}
+				if (isMatch(row)) {
+					matchCount++;
+				}
+			}
+		}
+
+		if (!contiguous) {
+			fireTableDataChanged();
+		}
+		else if (added>0) {
+			fireTableRowsInserted(insertAt, insertAt + added - 1);
+		}
+		return removed + added;
+
+	}
+
+
+	private void moveRow(int from, int to) {
+		rowFileIds[to] = rowFileIds[from];
+		startLines[to] = startLines[from];
+		endLines[to] = endLines[from];
+		lineOffsets[to] = lineOffsets[from];
+		tokenTypes[to] = tokenTypes[from];
+		rowTermsIds[to] = rowTermsIds[from];
+	}
+
+
+	private void setRow(int row, MatchData data, int fileId) {
+		rowFileIds[row] = fileId;
+		rowTermsIds[row] = getTermsId(data);
+		if (data.isLazy()) {
+			startLines[row] = data.getStartLine();
+			endLines[row] = data.getEndLine();
+			lineOffsets[row] = data.getLineOffset();
+			tokenTypes[row] = data.getTokenType();
+		}
+	}
+
+
+	/**
+	 * Sets the maximum number of rows to keep in memory.  Any rows added
+	 * past this are written to a temporary file.  Changing this value
+	 * doesn't affect rows already added.
+	 *
+	 * @param max The maximum number of rows.
+	 */
+	void setMaxRowsInMemory(int max) {
+		maxRowsInMemory = max;
+	}
+
+
+	/**
+	 * The value of a cell in the text column.  The cell renderer asks for
+	 * the actual text, so it is only ever loaded for rows that are painted.
+	 * Sorting by these values sorts by file, then by position in the file.
+	 *
+	 * @param model The model containing the row.
+	 * @param row The row.
+	 */
+	record LineText(MatchTableModel model, int row) implements Comparable<LineText> {
+
+		@Override
+		public int compareTo(LineText other) {
+			int diff = getPath().compareTo(other.getPath());
+			return diff!=0 ? diff : Integer.compare(getOffset(), other.getOffset());
+		}
+
+		private int getOffset() {
+			return model.eagerRows.containsKey(row) ? -1 : model.getLineOffset(row);
+		}
+
+		private String getPath() {
+			return model.filePaths.get(model.getFileId(row));
+		}
+
+		/**
+		 * Returns the text of this cell, loading it if necessary.
+		 *
+		 * @return The text.
+		 */
+		String getText() {
+			return model.getLineText(row);
+		}
+
+		@Override
+		public String toString() {
+			return getText();
+		}
+
+	}
+
+
+}
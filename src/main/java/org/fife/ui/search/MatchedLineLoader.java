@@ -0,0 +1,361 @@
+/*
+ * 10/18/2026
+ *
+ * MatchedLineLoader.java - Loads the syntax highlighted text of search
+ * results on demand.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.fife.io.UnicodeReader;
+import org.fife.rtext.RTextEditorPane;
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
+
+
+/**
+ * Loads the syntax highlighted HTML for a line of a search result when it
+ * is displayed.  Search results only remember where the matched line
+ * starts, so this re-reads the file.<p>
+ *
+ * As a file is searched, the searcher records where its text lines up
+ * with its bytes every so often (see {@link SearchedFile}).  This lets a
+ * matched line be read by decoding just the few kilobytes before it,
+ * rather than the whole file.  If the file has changed since it was
+ * searched, its lines are no longer shown, since they'd no longer be the
+ * text that matched.<p>
+ *
+ * Files that were open in an editor when they were searched are read from
+ * the editor instead, and the last few of these (and of any files searched
+ * without recording where their lines are) are kept in memory.<p>
+ *
+ * One of these is shared by all results of a search.  It should only be
+ * used on the EDT, except for {@link #fileSearched(String, SearchedFile)}.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class MatchedLineLoader {
+
+	/**
+	 * The maximum number of files whose contents are kept in memory.
+	 */
+	private static final int MAX_CACHED_FILES = 4;
+
+	/**
+	 * Files larger than this (in chars) are never kept in memory.
+	 */
+	private static final int MAX_CACHED_FILE_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * The initial buffer size when reading an archive entry, whose size
+	 * isn't known up front.
+	 */
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Matched lines longer than this (in chars) are truncated.
+	 */
+	private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+	private final SyntaxScheme scheme;
+	private final String multiLineMatchString;
+	private LineHighlighter highlighter;
+	private final Map<String, char[]> fileCache;
+	private final Map<String, RTextEditorPane> openEditors;
+	private final Map<String, SearchedFile> searchedFiles;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scheme The colors to use for syntax highlighting.
+	 * @param multiLineMatchString Text appended to results matching more
+	 *        than one line.
+	 * @param openEditors The editors whose text was searched instead of
+	 *        their files, keyed by full path.
+	 */
+	MatchedLineLoader(SyntaxScheme scheme, String multiLineMatchString,
+			Map<String, RTextEditorPane> openEditors) {
+		this.scheme = scheme;
+		this.multiLineMatchString = multiLineMatchString;
+		this.openEditors = openEditors;
+		searchedFiles = new ConcurrentHashMap<>();
+		fileCache = new LinkedHashMap<>(MAX_CACHED_FILES, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, char[]> eldest) {
+				return size()>MAX_CACHED_FILES;
+			}
+		};
+	}
+
+
+	/**
+	 * Called by a searcher thread when a file with matches has been
+	 * searched, so its matched lines can be read quickly.  This may be
+	 * called from any thread.
+	 *
+	 * @param path The file searched.
+	 * @param file Where the file's text lines up with its bytes.
+	 */
+	void fileSearched(String path, SearchedFile file) {
+		searchedFiles.put(path, file);
+	}
+
+
+	/**
+	 * Returns the contents of a file, possibly from the cache.
+	 *
+	 * @param path The file.
+	 * @return The file's contents.  The array is exactly as long as the
+	 *         contents.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private char[] getFileContents(String path) throws IOException {
+
+		char[] text = fileCache.get(path);
+		if (text!=null) {
+			return text;
+		}
+
+		RTextEditorPane textArea = openEditors.get(path);
+		if (textArea!=null) {
+			text = textArea.getText().toCharArray();
+			fileCache.put(path, text);
+			return text;
+		}
+
+		// Matches in .zip and .jar files are read from the archive.
+		ArchiveEntryFileLocation entry = ArchiveEntryFileLocation.create(path);
+		File file = new File(path);
+		text = new char[entry!=null ? INITIAL_BUFFER_SIZE :
+				(int)Math.min(file.length() + 1, Integer.MAX_VALUE - 8)];
+		int length = 0;
+		try (Reader r = entry!=null ? new UnicodeReader(entry.getInputStream()) :
+				new UnicodeReader(file)) {
+			int count;
+			while ((count=r.read(text, length, text.length-length))!=-1) {
+				length += count;
+				if (length==text.length) {
+					text = Arrays.copyOf(text, text.length*2);
+				}
+			}
+		}
+		text = Arrays.copyOf(text, length);
+
+		if (length<=MAX_CACHED_FILE_SIZE) {
+			fileCache.put(path, text);
+		}
+		return text;
+
+	}
+
+
+	/**
+	 * Returns the syntax highlighted HTML for a matched line.
+	 *
+	 * @param path The file containing the match.
+	 * @param style The syntax style of the file.
+	 * @param lineOffset The offset of the start of the line in the file.
+	 * @param tokenType The token type the line starts with.
+	 * @param multiLine Whether the match spans multiple lines.
+	 * @return The HTML.  If the file can no longer be read, or has been
+	 *         modified since it was searched, this will be an empty
+	 *         string.
+	 */
+	String getHtml(String path, String style, int lineOffset, int tokenType,
+			boolean multiLine) {
+
+		char[] line = getLine(path, lineOffset);
+		if (line==null) {
+			return "";
+		}
+
+		if (highlighter==null) {
+			highlighter = new LineHighlighter(scheme);
+		}
+		String html = highlighter.getHtml(line, 0, line.length, style, tokenType);
+		if (multiLine) {
+			html += " <em>" + multiLineMatchString + "</em>";
+		}
+		return html;
+
+	}
+
+
+	/**
+	 * Returns the text of a matched line.
+	 *
+	 * @param path The file containing the match.
+	 * @param lineOffset The offset of the start of the line in the file.
+	 * @return The line, or <code>null</code> if the file can no longer be
+	 *         read or has been modified since it was searched.  Lines
+	 *         longer than {@link #MAX_LINE_LENGTH} are truncated.
+	 */
+	private char[] getLine(String path, int lineOffset) {
+
+		try {
+
+			SearchedFile searched = searchedFiles.get(path);
+			if (searched!=null) {
+				return searched.readLine(path, lineOffset);
+			}
+
+			char[] text = getFileContents(path);
+			if (lineOffset>text.length) {
+				return null;
+			}
+			int end = lineOffset;
+			int max = Math.min(text.length, lineOffset + MAX_LINE_LENGTH);
+			while (end<max && text[end]!='\n' && text[end]!='\r') {
+				end++;
+			}
+			return Arrays.copyOfRange(text, lineOffset, end);
+
+		} catch (IOException ioe) {
+			return null;
+		}
+
+	}
+
+
+	/**
+	 * Returns the plain text of a matched line.
+	 *
+	 * @param path The file containing the match.
+	 * @param lineOffset The offset of the start of the line in the file.
+	 * @return The text.  If the file can no longer be read, or has been
+	 *         modified since it was searched, this will be an empty
+	 *         string.
+	 * @see #getHtml(String, String, int, int, boolean)
+	 */
+	String getText(String path, int lineOffset) {
+		char[] line = getLine(path, lineOffset);
+		return line!=null ? new String(line) : "";
+	}
+
+
+	/**
+	 * Forgets any cached file contents.
+	 */
+	void clearCache() {
+		fileCache.clear();
+	}
+
+
+	/**
+	 * Where the text of a searched file lines up with its bytes.  A
+	 * checkpoint is recorded every so often as the file is decoded, so a
+	 * line can later be read by decoding from the checkpoint before it.
+	 * The file's size and modification time when it was searched are also
+	 * remembered, so we know when its lines are no longer the ones that
+	 * matched.
+	 */
+	static final class SearchedFile {
+
+		private final File file;
+		private final long lastModified;
+		private final long size;
+		private final Charset charset;
+		private final int[] checkpointChars;
+		private final long[] checkpointBytes;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param file The file read.  For an archive entry, this is the
+		 *        archive.
+		 * @param lastModified The file's modification time before it was
+		 *        read.
+		 * @param size The file's size before it was read.
+		 * @param charset The encoding the text was decoded with.
+		 * @param checkpointChars The char offsets of the checkpoints, in
+		 *        increasing order.  The first one must be <code>0</code>.
+		 * @param checkpointBytes The byte offsets of the checkpoints.
+		 */
+		SearchedFile(File file, long lastModified, long size, Charset charset,
+				int[] checkpointChars, long[] checkpointBytes) {
+			this.file = file;
+			this.lastModified = lastModified;
+			this.size = size;
+			this.charset = charset;
+			this.checkpointChars = checkpointChars;
+			this.checkpointBytes = checkpointBytes;
+		}
+
+		/**
+		 * Reads a line by decoding from the checkpoint before it.
+		 *
+		 * @param path The path of the file or archive entry.
+		 * @param lineOffset The offset of the start of the line.
+		 * @return The line, or <code>null</code> if the file has changed
+		 *         since it was searched.
+		 * @throws IOException If an IO error occurs.
+		 */
+		private char[] readLine(String path, int lineOffset) throws IOException {
+
+			if (file.lastModified()!=lastModified || file.length()!=size) {
+				return null;
+			}
+
+			int index = Arrays.binarySearch(checkpointChars, lineOffset);
+			if (index<0) {
+				index = -index - 2;
+			}
+
+			ArchiveEntryFileLocation entry = ArchiveEntryFileLocation.create(path);
+			InputStream in = entry!=null ? entry.getInputStream() :
+					Files.newInputStream(file.toPath());
+			try (Reader r = new InputStreamReader(in, charset)) {
+
+				// For a file, this seeks rather than reading the bytes
+				in.skipNBytes(checkpointBytes[index]);
+				long toSkip = lineOffset - checkpointChars[index];
+				while (toSkip>0) {
+					long skipped = r.skip(toSkip);
+					if (skipped==0) {
+						return null; // The line no longer exists
+					}
+					toSkip -= skipped;
+				}
+
+				char[] line = new char[8192];
+				int length = 0;
+				int count;
+				while (length<MAX_LINE_LENGTH &&
+						(count=r.read(line, length, line.length-length))!=-1) {
+					int end = length + count;
+					for (int i=length; i<end; i++) {
+						if (line[i]=='\n' || line[i]=='\r') {
+							return Arrays.copyOf(line, i);
+						}
+					}
+					length = end;
+					if (length==line.length && length<MAX_LINE_LENGTH) {
+						line = Arrays.copyOf(line, Math.min(length*2, MAX_LINE_LENGTH));
+					}
+				}
+				return Arrays.copyOf(line, length);
+
+			}
+
+		}
+
+	}
+
+
+}
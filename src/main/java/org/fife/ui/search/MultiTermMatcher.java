@@ -0,0 +1,350 @@
+/*
+ * 10/18/2026
+ *
+ * MultiTermMatcher.java - Finds any of a list of terms in a single pass.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Finds every occurrence of any of a list of terms in text, in a single
+ * pass no matter how many terms there are.  Find in Files uses this when
+ * the user searches for "any of these terms", e.g. a list of several
+ * hundred deprecated API names, which would otherwise mean a search per
+ * term or a huge regular expression alternation.<p>
+ *
+ * This is an Aho-Corasick automaton: a trie of the terms, where each node
+ * also has a "failure" link to the node for the longest proper suffix of
+ * its text that is also in the trie, and an "output" link to the nearest
+ * such node that ends a term.  The trie's edges are stored in flat, sorted
+ * arrays to keep it compact.  Since most text (and nearly all identifiers)
+ * is ASCII, the transitions for ASCII characters are also precomputed into
+ * a table, failure links and case folding included, so each character is
+ * a single array lookup.  This table is skipped if there are so many terms
+ * that it would be too large.<p>
+ *
+ * Instances of this class are immutable, and may be shared by multiple
+ * threads.  Each search uses its own {@link Finder}.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class MultiTermMatcher {
+
+	private static final int ROOT = 0;
+
+	/**
+	 * The number of characters with precomputed transitions.
+	 */
+	private static final int DENSE_CHAR_COUNT = 128;
+
+	/**
+	 * If the automaton has more states than this, transitions for ASCII
+	 * characters aren't precomputed.
+	 */
+	private static final int MAX_DENSE_STATES = 32 * 1024;
+
+	private final String[] terms;
+	private final boolean matchCase;
+
+	// Edges from each state, sorted by character.  The edges from state i
+	// are at indices edgeStarts[i] to edgeStarts[i+1]-1.
+	private final int[] edgeStarts;
+	private final char[] edgeChars;
+	private final int[] edgeTargets;
+
+	/**
+	 * The state reached from the root by each character, or
+	 * <code>ROOT</code>.
+	 */
+	private final int[] rootTargets;
+
+	/**
+	 * The state reached from each state by each ASCII character, indexed
+	 * by <code>state*DENSE_CHAR_COUNT + ch</code>, or <code>null</code>
+	 * if there are too many states.
+	 */
+	private final int[] denseTargets;
+
+	private final int[] failures;
+	private final int[] outputs;
+
+	/**
+	 * The term ending at each state, or <code>-1</code>.
+	 */
+	private final int[] stateTerms;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param terms The terms to find.  These should be distinct and
+	 *        non-empty; see {@link #parseTerms(String, boolean)}.
+	 * @param matchCase Whether the search is case-sensitive.
+	 */
+	MultiTermMatcher(List<String> terms, boolean matchCase) {
+
+		this.terms = terms.toArray(new String[0]);
+		this.matchCase = matchCase;
+
+		// Build the trie.  Each state's edges are kept in a list of
+		// {char, target} pairs until we know how many there are.
+		List<List<int[]>> edges = new ArrayList<>();
+		List<Integer> termsAt = new ArrayList<>();
+		edges.add(new ArrayList<>());
+		termsAt.add(-1);
+		for (int t=0; t<this.terms.length; t++) {
+			int state = ROOT;
+			for (char ch : this.terms[t].toCharArray()) {
+				ch = fold(ch);
+				int next = -1;
+				for (int[] edge : edges.get(state)) {
+					if (edge[0]==ch) {
+						next = edge[1];
+						break;
+					}
+				}
+				if (next==-1) {
+					next = edges.size();
+					edges.add(new ArrayList<>());
+					termsAt.add(-1);
+					edges.get(state).add(new int[] { ch, next });
+				}
+				state = next;
+			}
+			if (termsAt.get(state)==-1) {
+				termsAt.set(state, t);
+			}
+		}
+
+		// Flatten the edges.
+		int stateCount = edges.size();
+		edgeStarts = new int[stateCount + 1];
+		int edgeCount = 0;
+		for (int s=0; s<stateCount; s++) {
+			edgeStarts[s] = edgeCount;
+			edgeCount += edges.get(s).size();
+		}
+		edgeStarts[stateCount] = edgeCount;
+		edgeChars = new char[edgeCount];
+		edgeTargets = new int[edgeCount];
+		for (int s=0; s<stateCount; s++) {
+			List<int[]> stateEdges = edges.get(s);
+			stateEdges.sort((e1, e2) -> Integer.compare(e1[0], e2[0]));
+			int i = edgeStarts[s];
+			for (int[] edge : stateEdges) {
+				edgeChars[i] = (char)edge[0];
+				edgeTargets[i++] = edge[1];
+			}
+		}
+		stateTerms = new int[stateCount];
+		for (int s=0; s<stateCount; s++) {
+			stateTerms[s] = termsAt.get(s);
+		}
+
+		rootTargets = new int[Character.MAX_VALUE + 1];
+		for (int i=edgeStarts[ROOT]; i<edgeStarts[ROOT+1]; i++) {
+			rootTargets[edgeChars[i]] = edgeTargets[i];
+		}
+
+		// Compute the failure and output links, and the ASCII transitions,
+		// breadth-first.  A state's failure link is always to a shallower
+		// state, so its links and transitions are computed first.
+		failures = new int[stateCount];
+		outputs = new int[stateCount];
+		Arrays.fill(outputs, -1);
+		denseTargets = stateCount<=MAX_DENSE_STATES ?
+				new int[stateCount*DENSE_CHAR_COUNT] : null;
+		Deque<Integer> queue = new ArrayDeque<>();
+		queue.add(ROOT);
+		while (!queue.isEmpty()) {
+			int state = queue.remove();
+			if (denseTargets!=null) {
+				int row = state*DENSE_CHAR_COUNT;
+				for (char ch=0; ch<DENSE_CHAR_COUNT; ch++) {
+					char folded = fold(ch);
+					int i = Arrays.binarySearch(edgeChars, edgeStarts[state],
+							edgeStarts[state+1], folded);
+					denseTargets[row + ch] = i>=0 ? edgeTargets[i] : state==ROOT ?
+							ROOT : denseTargets[failures[state]*DENSE_CHAR_COUNT + ch];
+				}
+			}
+			if (state==ROOT) {
+				for (int i=edgeStarts[ROOT]; i<edgeStarts[ROOT+1]; i++) {
+					queue.add(edgeTargets[i]);
+				}
+				continue;
+			}
+			for (int i=edgeStarts[state]; i<edgeStarts[state+1]; i++) {
+				int child = edgeTargets[i];
+				int failure = next(failures[state], edgeChars[i]);
+				failures[child] = failure;
+				outputs[child] = stateTerms[failure]>-1 ? failure : outputs[failure];
+				queue.add(child);
+			}
+		}
+
+	}
+
+
+	/**
+	 * Returns the state reached from a state by a character, following
+	 * failure links as necessary.
+	 *
+	 * @param state The current state.
+	 * @param ch The character, already case-folded if necessary.
+	 * @return The new state.
+	 */
+	private int next(int state, char ch) {
+		while (state!=ROOT) {
+			int i = Arrays.binarySearch(edgeChars, edgeStarts[state],
+					edgeStarts[state+1], ch);
+			if (i>=0) {
+				return edgeTargets[i];
+			}
+			state = failures[state];
+		}
+		return rootTargets[ch];
+	}
+
+
+	/**
+	 * Returns a finder that locates the terms in some text.
+	 *
+	 * @param text The text to search.
+	 * @param length The length of the text in the array.
+	 * @return The finder.
+	 */
+	Finder finder(char[] text, int length) {
+		return new Finder(text, length);
+	}
+
+
+	private char fold(char ch) {
+		return matchCase ? ch : Character.toLowerCase(ch);
+	}
+
+
+	/**
+	 * Returns a term.
+	 *
+	 * @param term The index of the term.
+	 * @return The term.
+	 */
+	String getTerm(int term) {
+		return terms[term];
+	}
+
+
+	/**
+	 * Returns the terms in a search string.  Terms are separated by
+	 * whitespace, so a list of terms, one per line, can simply be pasted
+	 * into the "Find what" field.
+	 *
+	 * @param searchString The search string.
+	 * @param matchCase Whether the search is case-sensitive.  If it isn't,
+	 *        terms differing only in case are only returned once.
+	 * @return The distinct terms, in the order they appear.
+	 */
+	static List<String> parseTerms(String searchString, boolean matchCase) {
+		Set<String> seen = new LinkedHashSet<>();
+		List<String> terms = new ArrayList<>();
+		for (String term : searchString.trim().split("\\s+")) {
+			if (!term.isEmpty() &&
+					seen.add(matchCase ? term : term.toLowerCase())) {
+				terms.add(term);
+			}
+		}
+		return terms;
+	}
+
+
+	/**
+	 * Finds the terms in some text, one occurrence at a time, similar to a
+	 * <code>java.util.regex.Matcher</code>.  Occurrences are found in the
+	 * order they end; if more than one term ends at the same place, the
+	 * longest is found first.  Overlapping occurrences are all found.
+	 */
+	final class Finder {
+
+		private final char[] text;
+		private final int length;
+		private int pos;
+		private int state;
+		private int output;
+		private int term;
+
+		private Finder(char[] text, int length) {
+			this.text = text;
+			this.length = length;
+			output = -1;
+		}
+
+		/**
+		 * Returns the end offset of the occurrence just found.
+		 *
+		 * @return The end offset, exclusive.
+		 */
+		int end() {
+			return pos;
+		}
+
+		/**
+		 * Finds the next occurrence of any term.
+		 *
+		 * @return Whether an occurrence was found.
+		 */
+		boolean find() {
+
+			while (output==-1) {
+				if (pos==length) {
+					return false;
+				}
+				char ch = text[pos++];
+				state = ch<DENSE_CHAR_COUNT && denseTargets!=null ?
+						denseTargets[state*DENSE_CHAR_COUNT + ch] :
+						next(state, fold(ch));
+				output = stateTerms[state]>-1 ? state : outputs[state];
+			}
+
+			term = stateTerms[output];
+			output = outputs[output];
+			return true;
+
+		}
+
+		/**
+		 * Returns the start offset of the occurrence just found.
+		 *
+		 * @return The start offset.
+		 */
+		int start() {
+			return pos - terms[term].length();
+		}
+
+		/**
+		 * Returns the index of the term just found.
+		 *
+		 * @return The index of the term.
+		 * @see MultiTermMatcher#getTerm(int)
+		 */
+		int term() {
+			return term;
+		}
+
+	}
+
+
+}
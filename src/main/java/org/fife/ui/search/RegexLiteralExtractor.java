@@ -0,0 +1,583 @@
+/*
+ * 10/18/2026
+ *
+ * RegexLiteralExtractor.java - Finds literal text that any match of a
+ * regular expression must contain.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Finds literal strings that any match of a regular expression must
+ * contain.  For example, every match of <code>foo\(\d+\)\.bar</code> must
+ * contain both <code>"foo("</code> and <code>").bar"</code>.  These can be
+ * used to quickly rule out text that can't match before running the regex
+ * engine on it.<p>
+ *
+ * The analysis is conservative: anything it doesn't understand (groups,
+ * alternation, character classes, most escapes) simply ends the current
+ * literal, so it may find fewer literals than it could, but it never
+ * returns one a match doesn't actually need.  If the regex uses top-level
+ * alternation or embedded flags, no literals are returned at all.<p>
+ *
+ * This class can also find the longest text a regular expression can
+ * match, for regexes simple enough for that to be known.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class RegexLiteralExtractor {
+
+	/**
+	 * Matches that could be longer than this are considered unbounded.
+	 */
+	private static final int MAX_MATCH_LENGTH = 1024 * 1024;
+
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private RegexLiteralExtractor() {
+		// Do nothing
+	}
+
+
+	private static void addLiteral(StringBuilder sb, List<String> literals) {
+		if (sb.length()>0) {
+			literals.add(sb.toString());
+			sb.setLength(0);
+		}
+	}
+
+
+	/**
+	 * Returns the length of the longest text a regular expression can
+	 * match.  This is only known for regexes without unbounded quantifiers
+	 * (<code>*</code>, <code>+</code> and <code>{n,}</code>), back
+	 * references, lookbehind, or anchors other than word boundaries, and
+	 * that can't match an empty string.  Lookahead is counted as part of
+	 * the match, since the text it examines must be available.<p>
+	 *
+	 * Since a character class or escape may match a supplementary
+	 * character, these count as two chars.
+	 *
+	 * @param regex The regular expression.  This should be a valid regex.
+	 * @return The maximum match length, in chars, or <code>-1</code> if it
+	 *         isn't known.
+	 */
+	static int getMaxMatchLength(String regex) {
+		int[] pos = new int[1];
+		int[] minMax = getMatchLengths(regex, pos);
+		if (minMax==null || pos[0]<regex.length() || minMax[0]==0) {
+			return -1;
+		}
+		return minMax[1];
+	}
+
+
+	/**
+	 * Returns the shortest and longest text an alternation (a whole regex,
+	 * or the contents of a group) can match.
+	 *
+	 * @param regex The regular expression.
+	 * @param pos On input, the offset to start at.  On output, the offset of
+	 *        the closing parenthesis of the group, or the regex's length.
+	 * @return The minimum and maximum lengths, or <code>null</code> if they
+	 *         aren't known.
+	 */
+	private static int[] getMatchLengths(String regex, int[] pos) {
+
+		int min = Integer.MAX_VALUE;
+		int max = 0;
+
+		while (true) {
+			int[] seq = getSequenceMatchLengths(regex, pos);
+			if (seq==null) {
+				return null;
+			}
+			min = Math.min(min, seq[0]);
+			max = Math.max(max, seq[1]);
+			if (pos[0]<regex.length() && regex.charAt(pos[0])=='|') {
+				pos[0]++;
+			}
+			else {
+				return new int[] { min, max };
+			}
+		}
+
+	}
+
+
+	/**
+	 * Returns the shortest and longest text a sequence of atoms (with no
+	 * top-level alternation) can match.
+	 *
+	 * @see #getMatchLengths(String, int[])
+	 */
+	private static int[] getSequenceMatchLengths(String regex, int[] pos) {
+
+		int len = regex.length();
+		int min = 0;
+		int max = 0;
+
+		while (pos[0]<len) {
+
+			int i = pos[0];
+			char ch = regex.charAt(i);
+			int atomMin;
+			int atomMax;
+
+			switch (ch) {
+
+				case '|':
+				case ')':
+					return new int[] { min, max };
+
+				case '\\':
+					if (i+1==len) {
+						return null;
+					}
+					char next = regex.charAt(i+1);
+					if (next=='Q') {
+						int end = regex.indexOf("\\E", i+2);
+						if (end==-1) {
+							end = len;
+						}
+						int count = end - (i+2);
+						i = Math.min(len, end + 2);
+						atomMin = atomMax = Math.min(count, 1);
+						// A quantifier only applies to the last char
+						min += Math.max(count - 1, 0);
+						max += Math.max(count - 1, 0);
+					}
+					else if (next=='b' || next=='B') {
+						atomMin = atomMax = 0; // Word boundary
+						i += 2;
+					}
+					else if (next=='R') {
+						atomMin = 1; // Any line break, including "\r\n"
+						atomMax = 2;
+						i += 2;
+					}
+					else if ("AzZGXk".indexOf(next)>-1 ||
+							(Character.isDigit(next) && next!='0')) {
+						return null; // Anchors, back references, etc.
+					}
+					else {
+						atomMin = 1;
+						atomMax = 2;
+						i = getEscapedLiteral(next)!=0 ? i + 2 : skipEscape(regex, i);
+					}
+					break;
+
+				case '[':
+				case '.':
+					atomMin = 1;
+					atomMax = 2;
+					i = ch=='[' ? skipCharClass(regex, i) : i + 1;
+					break;
+
+				case '(':
+					boolean lookahead = false;
+					i++;
+					if (i<len && regex.charAt(i)=='?') {
+						i++;
+						char type = i<len ? regex.charAt(i) : 0;
+						if (type==':' || type=='>') {
+							i++;
+						}
+						else if (type=='=' || type=='!') {
+							lookahead = true;
+							i++;
+						}
+						else if (type=='<' && i+1<len && Character.isLetter(regex.charAt(i+1))) {
+							i = regex.indexOf('>', i) + 1; // Named group
+							if (i==0) {
+								return null;
+							}
+						}
+						else if (isInlineFlag(type)) {
+							// "(?i)" or "(?i:...)".  Comments mode changes
+							// how the regex is parsed.
+							while (i<len && isInlineFlag(regex.charAt(i))) {
+								if (regex.charAt(i)=='x') {
+									return null;
+								}
+								i++;
+							}
+							if (i<len && regex.charAt(i)==')') {
+								pos[0] = i + 1;
+								continue;
+							}
+							i++; // ':'
+						}
+						else {
+							return null; // Lookbehind, etc.
+						}
+					}
+					pos[0] = i;
+					int[] group = getMatchLengths(regex, pos);
+					if (group==null || pos[0]==len) {
+						return null;
+					}
+					i = pos[0] + 1;
+					atomMin = lookahead ? 0 : group[0];
+					atomMax = group[1];
+					break;
+
+				case '^':
+				case '$':
+				case '*':
+				case '+':
+				case '?':
+				case '{':
+					return null;
+
+				default:
+					atomMin = atomMax = 1;
+					i++;
+					break;
+
+			}
+
+			// See whether the atom we just read is quantified.
+			if (i<len && "*+?{".indexOf(regex.charAt(i))>-1) {
+				int[] range = getQuantifierRange(regex, i);
+				if (range==null) {
+					return null;
+				}
+				if ((long)atomMax*range[1]>MAX_MATCH_LENGTH) {
+					return null;
+				}
+				atomMin *= Math.min(range[0], range[1]);
+				atomMax *= range[1];
+				i = skipQuantifier(regex, i);
+			}
+
+			min += atomMin;
+			max += atomMax;
+			if (max>MAX_MATCH_LENGTH) {
+				return null;
+			}
+			pos[0] = i;
+
+		}
+
+		return new int[] { min, max };
+
+	}
+
+
+	/**
+	 * Returns the literal strings every match of a regular expression must
+	 * contain.
+	 *
+	 * @param regex The regular expression.  This should be a valid regex.
+	 * @return The literal strings, in the order they appear in the regex.
+	 *         This may be empty, but will never be <code>null</code>.
+	 */
+	static List<String> getRequiredLiterals(String regex) {
+
+		List<String> literals = new ArrayList<>();
+		StringBuilder sb = new StringBuilder();
+		int len = regex.length();
+		int i = 0;
+
+		while (i<len) {
+
+			char ch = regex.charAt(i);
+			int atomStart = sb.length(); // Where the last literal char starts
+			boolean literal = true;
+
+			switch (ch) {
+
+				case '\\':
+					if (i+1==len) {
+						return Collections.emptyList(); // Invalid regex
+					}
+					char next = regex.charAt(i+1);
+					if (next=='Q') {
+						// Quoted text, everything up to \E is literal
+						int end = regex.indexOf("\\E", i+2);
+						if (end==-1) {
+							end = len;
+						}
+						sb.append(regex, i+2, end);
+						i = Math.min(len, end + 2);
+						// A quantifier only applies to the last char
+						atomStart = Math.max(0, sb.length() - 1);
+						break;
+					}
+					char escaped = getEscapedLiteral(next);
+					if (escaped==0) {
+						literal = false;
+						i = skipEscape(regex, i);
+					}
+					else {
+						sb.append(escaped);
+						i += 2;
+					}
+					break;
+
+				case '|':
+					// Top-level alternation; nothing is required
+					return Collections.emptyList();
+
+				case '(':
+					if (i+2<len && regex.charAt(i+1)=='?' &&
+							isInlineFlag(regex.charAt(i+2))) {
+						// Embedded flags can change case sensitivity, etc.
+						return Collections.emptyList();
+					}
+					literal = false;
+					i = skipGroup(regex, i);
+					break;
+
+				case '[':
+					literal = false;
+					i = skipCharClass(regex, i);
+					break;
+
+				case '.':
+				case '^':
+				case '$':
+					literal = false;
+					i++;
+					break;
+
+				case '*':
+				case '+':
+				case '?':
+				case '{':
+				case ')':
+				case ']':
+					// Quantifier without an atom before it, or other syntax
+					// we don't understand.
+					return Collections.emptyList();
+
+				default:
+					sb.append(ch);
+					i++;
+					break;
+
+			}
+
+			// See whether the atom we just read is quantified.
+			if (i<len) {
+				char q = regex.charAt(i);
+				boolean optional = q=='*' || q=='?' ||
+						(q=='{' && isZeroMinQuantifier(regex, i));
+				boolean repeated = optional || q=='+' || q=='{';
+				if (repeated) {
+					if (literal && optional) {
+						// The last char may not be in a match at all
+						sb.setLength(atomStart);
+					}
+					addLiteral(sb, literals);
+					i = skipQuantifier(regex, i);
+					continue;
+				}
+			}
+
+			if (!literal) {
+				addLiteral(sb, literals);
+			}
+
+		}
+
+		addLiteral(sb, literals);
+		return literals;
+
+	}
+
+
+	/**
+	 * Returns the literal character denoted by an escape sequence such as
+	 * <code>\.</code> or <code>\t</code>.
+	 *
+	 * @param ch The character following the backslash.
+	 * @return The literal character, or <code>0</code> if the escape does
+	 *         not denote a single literal character.
+	 */
+	private static char getEscapedLiteral(char ch) {
+		return switch (ch) {
+			case 't' -> '\t';
+			case 'n' -> '\n';
+			case 'r' -> '\r';
+			case 'f' -> '\f';
+			case 'a' -> '\007';
+			case 'e' -> '\033';
+			default -> Character.isLetterOrDigit(ch) ? 0 : ch;
+		};
+	}
+
+
+	/**
+	 * Returns whether a character is part of a multi-character escape
+	 * sequence such as <code>\x41</code>.
+	 *
+	 * @param escape The character following the backslash.
+	 * @param ch The character to check.
+	 * @return Whether the character is part of the escape.
+	 */
+	private static boolean isPartOfEscape(char escape, char ch) {
+		return switch (escape) {
+			case 'x', 'u' -> Character.digit(ch, 16)>-1;
+			case '0' -> ch>='0' && ch<='7';
+			case 'c', 'p', 'P' -> true;
+			default -> Character.isDigit(ch);
+		};
+	}
+
+
+	/**
+	 * Returns the minimum and maximum number of repetitions allowed by a
+	 * quantifier.
+	 *
+	 * @param regex The regular expression.
+	 * @param offset The offset of the quantifier.
+	 * @return The minimum and maximum, or <code>null</code> if there is no
+	 *         maximum.
+	 */
+	private static int[] getQuantifierRange(String regex, int offset) {
+
+		char q = regex.charAt(offset);
+		if (q=='?') {
+			return new int[] { 0, 1 };
+		}
+		else if (q!='{') {
+			return null; // '*' or '+'
+		}
+
+		int end = regex.indexOf('}', offset);
+		if (end==-1) {
+			return null;
+		}
+		String[] bounds = regex.substring(offset+1, end).split(",", -1);
+		try {
+			int min = Integer.parseInt(bounds[0].trim());
+			if (bounds.length==1) {
+				return new int[] { min, min };
+			}
+			String max = bounds[1].trim();
+			return max.isEmpty() ? null : new int[] { min, Integer.parseInt(max) };
+		} catch (NumberFormatException nfe) {
+			return null;
+		}
+
+	}
+
+
+	private static boolean isInlineFlag(char ch) {
+		return "idmsuxU-".indexOf(ch)>-1;
+	}
+
+
+	private static boolean isZeroMinQuantifier(String regex, int offset) {
+		int i = offset + 1;
+		int len = regex.length();
+		while (i<len && regex.charAt(i)==' ') {
+			i++;
+		}
+		return i<len && regex.charAt(i)=='0' &&
+				(i+1==len || !Character.isDigit(regex.charAt(i+1)));
+	}
+
+
+	private static int skipCharClass(String regex, int offset) {
+		int depth = 0;
+		int len = regex.length();
+		for (int i=offset; i<len; i++) {
+			char ch = regex.charAt(i);
+			if (ch=='\\') {
+				i++;
+			}
+			else if (ch=='[') {
+				depth++;
+			}
+			else if (ch==']' && i>offset+1 && --depth==0) {
+				return i + 1;
+			}
+		}
+		return len;
+	}
+
+
+	private static int skipEscape(String regex, int offset) {
+
+		int i = offset + 2;
+		int len = regex.length();
+		char ch = regex.charAt(offset+1);
+
+		if (i<len && (regex.charAt(i)=='{' || regex.charAt(i)=='<') &&
+				"pPxNk".indexOf(ch)>-1) {
+			char close = regex.charAt(i)=='{' ? '}' : '>';
+			int end = regex.indexOf(close, i);
+			return end==-1 ? len : end + 1;
+		}
+
+		int max = switch (ch) {
+			case 'x' -> 2; // Hex char
+			case 'u' -> 4; // Unicode char
+			case '0' -> 3; // Octal char
+			case 'c', 'p', 'P' -> 1; // Control char, Unicode class
+			default -> Character.isDigit(ch) ? len : 0; // Back reference
+		};
+		int end = Math.min(len, i + max);
+		while (i<end && isPartOfEscape(ch, regex.charAt(i))) {
+			i++;
+		}
+		return i;
+
+	}
+
+
+	private static int skipGroup(String regex, int offset) {
+		int depth = 0;
+		int len = regex.length();
+		for (int i=offset; i<len; i++) {
+			char ch = regex.charAt(i);
+			if (ch=='\\') {
+				i++;
+			}
+			else if (ch=='[') {
+				i = skipCharClass(regex, i) - 1;
+			}
+			else if (ch=='(') {
+				depth++;
+			}
+			else if (ch==')' && --depth==0) {
+				return i + 1;
+			}
+		}
+		return len;
+	}
+
+
+	private static int skipQuantifier(String regex, int offset) {
+		int len = regex.length();
+		int i = offset;
+		if (regex.charAt(i)=='{') {
+			int end = regex.indexOf('}', i);
+			i = end==-1 ? len : end + 1;
+		}
+		else {
+			i++;
+		}
+		// Lazy or possessive modifier
+		if (i<len && (regex.charAt(i)=='?' || regex.charAt(i)=='+')) {
+			i++;
+		}
+		return i;
+	}
+
+
+}
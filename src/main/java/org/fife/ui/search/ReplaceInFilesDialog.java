@@ -12,6 +12,8 @@ package org.fife.ui.search;
 
 import java.awt.*;
 import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.text.MessageFormat;
 import javax.swing.*;
 import javax.swing.text.JTextComponent;
 
@@ -44,6 +46,38 @@ public class ReplaceInFilesDialog extends FindInFilesDialog {
 	}
 
 
+	/**
+	 * Asks the user whether to go ahead with a replacement, once the
+	 * number of replacements in each file is displayed.  This is called by
+	 * {@link ReplaceInFilesThread}, not the EDT.
+	 *
+	 * @param occurrenceCount The total number of occurrences to replace.
+	 * @param fileCount The number of files to modify.
+	 * @return Whether the user wants to replace the occurrences.
+	 * @throws InterruptedException If the calling thread is interrupted
+	 *         while waiting for the user.
+	 */
+	boolean confirmReplace(int occurrenceCount, int fileCount)
+			throws InterruptedException {
+
+		boolean[] confirmed = new boolean[1];
+		try {
+			SwingUtilities.invokeAndWait(() -> {
+				flushMatchData();
+				String msg = MessageFormat.format(getString2("ConfirmReplace"),
+						occurrenceCount, fileCount);
+				confirmed[0] = JOptionPane.showConfirmDialog(this, msg,
+						getString2("ReplaceInFilesDialogTitle"),
+						JOptionPane.YES_NO_OPTION)==JOptionPane.YES_OPTION;
+			});
+		} catch (InvocationTargetException ite) {
+			ite.printStackTrace();
+		}
+		return confirmed[0];
+
+	}
+
+
 	@Override
 	protected Box createDetailsPanel() {
 
@@ -168,6 +202,26 @@ public class ReplaceInFilesDialog extends FindInFilesDialog {
 	}
 
 
+	/**
+	 * Overridden to return <code>false</code>, since replacements are
+	 * timed differently than searches.
+	 */
+	@Override
+	protected boolean isSearchReportSupported() {
+		return false;
+	}
+
+
+	/**
+	 * Restores the files of any Replace in Files operations that were
+	 * being applied when RText last exited abnormally.  This should be
+	 * called when RText starts.
+	 */
+	public static void recoverInterruptedReplacements() {
+		ReplaceTransaction.recover();
+	}
+
+
 	@Override
 	public void setContentAssistImage(Image image) {
 		super.setContentAssistImage(image);
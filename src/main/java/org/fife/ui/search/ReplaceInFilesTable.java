@@ -11,8 +11,6 @@
 package org.fife.ui.search;
 
 import java.util.ResourceBundle;
-import java.util.Vector;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableColumnModel;
 
 
@@ -26,24 +24,6 @@ import javax.swing.table.TableColumnModel;
 public class ReplaceInFilesTable extends FindInFilesTable {
 
 
-	/**
-	 * Return the vector of data to display in the table for a
-	 * match data instance.
-	 *
-	 * @param fileName The (relative) filename.
-	 * @param data The match data.
-	 * @return The vector.
-	 */
-	@Override
-	protected Vector<String> createMatchDataVector(String fileName,
-			MatchData data) {
-		Vector<String> v = new Vector<>(2);
-		v.add(fileName);
-		v.add(data.getLineText());
-		return v;
-	}
-
-
 	/**
 	 * Returns the table model to use.
 	 *
@@ -51,11 +31,13 @@ public class ReplaceInFilesTable extends FindInFilesTable {
 	 * @return The table model.
 	 */
 	@Override
-	protected DefaultTableModel createTableModel(ResourceBundle msg) {
-		DefaultTableModel model = new DefaultTableModel();
-		model.addColumn(msg.getString("FindInFiles.Column.File"));
-		model.addColumn(msg.getString("ReplaceInFiles.Column.Replacement"));
-		return model;
+	MatchTableModel createTableModel(ResourceBundle msg) {
+		String[] columnNames = {
+			msg.getString("FindInFiles.Column.File"),
+			msg.getString("ReplaceInFiles.Column.Replacement"),
+		};
+		return new MatchTableModel(columnNames, MatchTableModel.Column.FILE,
+				MatchTableModel.Column.TEXT);
 	}
 
 
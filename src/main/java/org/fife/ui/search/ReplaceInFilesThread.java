@@ -10,24 +10,54 @@
 package org.fife.ui.search;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.MessageFormat;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.*;
+import javax.swing.SwingUtilities;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
 
 import org.fife.io.*;
 import org.fife.rsta.ui.search.FindDialog;
+import org.fife.rtext.RTextEditorPane;
 import org.fife.ui.rtextarea.SearchEngine;
 
 
 /**
  * A thread created by a <code>ReplaceInFilesDialog</code> to do the
- * replacing.
+ * replacing.<p>
+ *
+ * Replacing is done in two phases.  First, the replacements for all files
+ * are computed in parallel, and each modified file's new contents are
+ * written to a temporary file; the number of replacements in each file is
+ * displayed as it's computed.  Then, if the user confirms the replacement,
+ * all files are replaced at once by a {@link ReplaceTransaction}.  If any
+ * file can't be replaced, the files already replaced are restored, so
+ * the folder is never left half-modified.
  *
  * @author Robert Futrell
  * @version 1.0
  */
 class ReplaceInFilesThread extends FindInFilesThread {
 
+	/**
+	 * Files larger than this (in bytes) are streamed through a
+	 * {@link StreamingReplacer} rather than loaded into memory, if the
+	 * search allows it.
+	 */
+	private static final long STREAMING_THRESHOLD = 8 * 1024 * 1024;
+
+	private String replaceString;
+	private StreamingReplacer streamingReplacer;
+	private ReplaceTransaction transaction;
+
 
 	/**
 	 * Constructor.
@@ -47,196 +77,188 @@ class ReplaceInFilesThread extends FindInFilesThread {
 	public Object construct() {
 
 		// Get the string to search for and filters for the files to search.
-		String searchString = dialog.getSearchString();
-		Pattern[] filterStrings = getFilterStrings();
-		if (filterStrings==null) {
+		searchString = dialog.getSearchString();
+		fileNameMatcher = createFileNameMatcher();
+		if (fileNameMatcher==null) {
 			dialog.searchCompleted("");
 			return null;
 		}
 
 		// Then, do the search.
-		dialog.clearSearchResults();
-		File[] files = directory.listFiles();
-		List<File> fileList = new ArrayList<>(Arrays.asList(files));
-
-		boolean checkSubfolders = dialog.getCheckSubfolders();
-		boolean matchCase = dialog.getMatchCase();
-		boolean wholeWord = dialog.getMatchWholeWord();
-		boolean useRegex = dialog.getUseRegEx();
-		boolean doVerboseOutput = dialog.getDoVerboseOutput();
-		String replaceString = ((ReplaceInFilesDialog)dialog).getReplaceString();
-		String searchingFile = dialog.getString2("SearchingFile");
+		generation = dialog.clearSearchResults();
+
+		matchCase = dialog.getMatchCase();
+		wholeWord = dialog.getMatchWholeWord();
+		useRegex = dialog.getUseRegEx();
+		doVerboseOutput = dialog.getDoVerboseOutput();
+		replaceString = ((ReplaceInFilesDialog)dialog).getReplaceString();
+		searchingFile = dialog.getString2("SearchingFile");
 
 		if (!useRegex && !matchCase)
 			searchString = searchString.toLowerCase();
+		pattern = useRegex ? compilePattern() : null;
+		byteMatcher = createByteMatcher();
+		streamingReplacer = StreamingReplacer.create(searchString,
+				replaceString, useRegex, matchCase, wholeWord);
 
 		long startMillis = System.currentTimeMillis();
-		StringBuilder sb = new StringBuilder();
-		char[] buf = new char[4096];
-		StringBuilder replaceSB = new StringBuilder();
-
-		// Keep looping while there are more files to search.
-		int numFiles = fileList.size();
-		for (int i=0; i<numFiles; i++) {
 
-			// If the user canceled the search...
-			if (Thread.currentThread().isInterrupted()) {
-				dialog.searchCompleted(dialog.getString2("SearchTerminated"));
-				return null;
+		// Compute the replacements in parallel, writing the new contents of
+		// each modified file to a temporary file.  Results are displayed in
+		// the order the files were found.
+		int threadCount = getSearcherThreadCount();
+		merger = new ResultMerger(MAX_QUEUED_FILES + 4*threadCount);
+		outOfMemory = false;
+		transaction = new ReplaceTransaction();
+		ExecutorService replacers = createSearcherPool(threadCount);
+
+		try {
+
+			walkDirectory((file, attrs, index) -> {
+				int seq = merger.reserve();
+				replacers.execute(() -> {
+					List<MatchData> results = replaceInFile(file, attrs, index);
+					// Don't report results once the search is canceled
+					if (!Thread.interrupted()) {
+						merger.complete(seq, results);
+					}
+				});
+				// If a replacer ran out of memory, bail out.
+				return !outOfMemory;
+			}, merger::add);
+
+			replacers.shutdown();
+			replacers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+			if (doVerboseOutput) {
+				MatchData data = createSkippedFilesMatchData();
+				if (data!=null) {
+					merger.add(data);
+				}
 			}
 
-			File temp = fileList.get(i);
-			String fileFullPath = temp.getAbsolutePath();
+		} catch (InterruptedException ie) {
+			// The user canceled the search.  Any replacers still running
+			// have their temporary files deleted when they finish.
+			replacers.shutdownNow();
+			transaction.discard();
+			dialog.searchCompleted(dialog.getString2("SearchTerminated"));
+			awaitCancel(replacers);
+			return null;
+		}
 
-			// If temp is a regular file (i.e., non-directory) AND exists...
-			if (temp.isFile()) {
+		if (outOfMemory) {
+			transaction.discard();
+			dialog.searchCompleted(dialog.getString2("ReplaceCanceled"));
+			return null;
+		}
 
-				// If the file doesn't match one of the filters from
-				// "In files:", skip it.
-				if (isFilteredOut(temp.getName(), filterStrings)) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(
-								fileFullPath, verboseNoFiltMatchString);
-						dialog.addMatchData(data);
-					}
-					continue;
-				}
+		// Let the user review the replacements, then apply them all at once.
+		long elapsed = System.currentTimeMillis() - startMillis;
+		int fileCount = transaction.getFileCount();
+		if (fileCount>0) {
+
+			boolean confirmed;
+			try {
+				confirmed = ((ReplaceInFilesDialog)dialog).confirmReplace(
+						transaction.getOccurrenceCount(), fileCount);
+			} catch (InterruptedException ie) {
+				confirmed = false;
+			}
+			if (!confirmed) {
+				transaction.discard();
+				dialog.searchCompleted(dialog.getString2("ReplaceCanceled"));
+				return null;
+			}
 
-				// Display the file we're searching in the status bar.
-				// Note that this method postpones the update to the EDT.
-				dialog.setStatusText(searchingFile + i + "/" + numFiles +
-								": " + fileFullPath);
-				String encoding;
-
-				try {
-					// Use a UnicodeReader to auto-detect whether this
-					// is a Unicode file.
-					// FIXME:  Allow the user to specify the default
-					// encoding, instead of assuming system default,
-					// somehow.
-					UnicodeReader ur = new UnicodeReader(temp);
-					encoding = ur.getEncoding();
-					try (Reader r = new BufferedReader(ur)) {
-						int count;
-						sb.setLength(0);
-						while ((count = r.read(buf)) != -1) {
-							sb.append(buf, 0, count);
-						}
-					}
-				} catch (IOException ioe) {
-					MatchData data = createErrorMatchData(fileFullPath,
-								"IOException reading file: " + ioe);
-					dialog.addMatchData(data);
-					continue;
-				} catch (OutOfMemoryError oome) {
-					MatchData data = createErrorMatchData(fileFullPath,
-											"OutOfMemoryError");
-					dialog.addMatchData(data);
-					// Bail out.
-					dialog.searchCompleted(
-							System.currentTimeMillis() - startMillis);
-					return null;
+			long commitStart = System.currentTimeMillis();
+			try {
+				transaction.commit();
+			} catch (IOException ioe) {
+				dialog.addMatchData(createErrorMatchData(
+						directory.getAbsolutePath(), ioe.getMessage()), generation);
+				for (Throwable t : ioe.getSuppressed()) {
+					dialog.addMatchData(createErrorMatchData(
+							directory.getAbsolutePath(), t.getMessage()), generation);
 				}
+				dialog.searchCompleted(dialog.getString2("ReplaceRolledBack"));
+				return null;
+			}
+			applyEditorEdits();
+			elapsed += System.currentTimeMillis() - commitStart;
 
-				// If we got some text out of the file...
-				if (sb.length()>0) {
-
-					try {
-
-						int repCount;
-						replaceSB.setLength(0);
-
-						if (useRegex) {
-							repCount = doSearchRegex(sb, searchString,
-								replaceString, matchCase, wholeWord,
-								replaceSB);
-						}
-						else {
-							repCount = doSearchNoRegex(sb, searchString,
-								replaceString, matchCase, wholeWord,
-								replaceSB);
-						}
-
-						// If text was replaced, rewrite the file with
-						// its new contents.
-						if (repCount>0) {
-
-							PrintWriter w = new PrintWriter(new BufferedWriter(
-								new UnicodeWriter(fileFullPath, encoding)));
-							w.print(replaceSB);
-							w.close();
-
-							String text = MessageFormat.format(occurrencesString, repCount);
-							MatchData data = new MatchData(fileFullPath,
-											NO_LINE_NUMBER, text);
-							dialog.addMatchData(data);
-
-						}
-						else if (doVerboseOutput) { // repCount==0
-							String text = MessageFormat.format(occurrencesString, repCount);
-							MatchData data = createVerboseMatchData(
-											fileFullPath, text);
-							dialog.addMatchData(data);
-						}
-
-					} catch (/*IO*/Exception ioe) {
-						ioe.printStackTrace();
-						String desc = ioe.getMessage();
-						MatchData data = createErrorMatchData(
-										fileFullPath, desc);
-						dialog.addMatchData(data);
-					}
+		}
 
-				}
+		dialog.searchCompleted(elapsed);
+		return null;
 
-			} // End of if (temp.isFile()).
+	}
 
-			// Otherwise, if the file is a directory...
-			else if (temp.isDirectory()) {
 
-				// Ignore this (sub)directory if the user doesn't want
-				// to search subdirectories.
-				if (!checkSubfolders) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(
-							fileFullPath, dontSearchSubfoldersString);
-						dialog.addMatchData(data);
-					}
-					continue;
-				}
+	/**
+	 * Appends the text of an open editor to a buffer, a piece at a time
+	 * while holding the document's read lock.
+	 *
+	 * @param textArea The editor.
+	 * @param sb The buffer to append to.
+	 */
+	private static void appendEditorText(RTextEditorPane textArea,
+			StringBuilder sb) {
+		AbstractDocument doc = (AbstractDocument)textArea.getDocument();
+		doc.readLock();
+		try {
+			int length = doc.getLength();
+			sb.ensureCapacity(length);
+			Segment seg = new Segment();
+			seg.setPartialReturn(true);
+			int offs = 0;
+			while (offs<length) {
+				doc.getText(offs, length-offs, seg);
+				sb.append(seg.array, seg.offset, seg.count);
+				offs += seg.count;
+			}
+		} catch (BadLocationException ble) { // Never happens
+			ble.printStackTrace();
+		} finally {
+			doc.readUnlock();
+		}
+	}
 
-				// Ignore if this folder is one the user wants to skip.
-				else if (shouldSkipFolder(temp)) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(
-							fileFullPath, skipThisFolderString);
-						dialog.addMatchData(data);
-					}
-					continue;
-				}
 
-				// Add any files in this subdirectory to the master list
-				// of files to search.
-				List<File> moreFilesList = getFilesFromDirectory(temp);
-				int count = moreFilesList==null ? 0 : moreFilesList.size();
-				if (count>0) {
-					fileList.addAll(moreFilesList);
-					numFiles += count;
-				}
-				if (doVerboseOutput) {
-					MatchData data = createVerboseMatchData(
-						fileFullPath, newFilesToExamineString +
-						": " + count);
-					dialog.addMatchData(data);
+	/**
+	 * Applies the replacements in open editors, on the EDT.  Any editors
+	 * that can't be updated are reported as errors.
+	 */
+	private void applyEditorEdits() {
+		try {
+			SwingUtilities.invokeAndWait(() -> {
+				for (String path : transaction.applyEditorEdits()) {
+					dialog.addMatchData(createErrorMatchData(path,
+							dialog.getString2("EditorModified")), generation);
 				}
+			});
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		} catch (java.lang.reflect.InvocationTargetException ite) {
+			ite.printStackTrace();
+		}
+	}
 
-			} // End of else if (temp.isDirectory()).
-
-		} // End of for (int i=0; i<numFiles; i++).
-
-		dialog.searchCompleted(System.currentTimeMillis() - startMillis);
-		return null;
 
+	/**
+	 * Returns whether a file might contain a match, based on its raw bytes.
+	 *
+	 * @param file The file.
+	 * @return Whether the file might contain a match.  If the file can't be
+	 *         read, this is <code>true</code> so the error is reported when
+	 *         it is read.
+	 */
+	private boolean mayMatch(File file) {
+		try {
+			return byteMatcher.mayMatch(file);
+		} catch (IOException ioe) {
+			return true;
+		}
 	}
 
 
@@ -245,7 +267,7 @@ class ReplaceInFilesThread extends FindInFilesThread {
 	 *
 	 * @return The number of replacements.
 	 */
-	private static int doSearchNoRegex(CharSequence sb,
+	static int doSearchNoRegex(CharSequence sb,
 			String searchString, String replaceString, boolean matchCase,
 			boolean wholeWord, StringBuilder replaceSB) {
 
@@ -306,15 +328,13 @@ class ReplaceInFilesThread extends FindInFilesThread {
 	 *
 	 * @return The number of replacements.
 	 */
-	private static int doSearchRegex(StringBuilder sb, String searchString,
-					String replaceString, boolean matchCase,
-					boolean wholeWord, StringBuilder replaceSB) {
+	static int doSearchRegex(StringBuilder sb, Pattern pattern,
+					String replaceString, boolean wholeWord,
+					StringBuilder replaceSB) {
 
 		int numMatches = 0;
 
 		// Create a Matcher to find the text we're looking for.
-		int flags = matchCase ? 0 : (Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
-		Pattern pattern = Pattern.compile(searchString, flags);
 		Matcher m = pattern.matcher(sb);
 		int lastEnd = 0;
 
@@ -347,4 +367,210 @@ class ReplaceInFilesThread extends FindInFilesThread {
 	}
 
 
+	/**
+	 * Computes the replacements in a single file.  If any text is replaced,
+	 * the file's new contents are written to a temporary file and added to
+	 * the transaction; the file itself isn't modified.  This is called on
+	 * a replacer thread.
+	 *
+	 * @param temp The file.
+	 * @param attrs The file's attributes.
+	 * @param i The number of files found so far, for display purposes.
+	 * @return The results for the file.
+	 */
+	private List<MatchData> replaceInFile(File temp, BasicFileAttributes attrs,
+			int i) {
+
+		List<MatchData> results = new ArrayList<>(1);
+		String fileFullPath = temp.getAbsolutePath();
+
+		if (outOfMemory || Thread.currentThread().isInterrupted()) {
+			return results;
+		}
+
+		// Files open in an editor are replaced in the editor instead.
+		RTextEditorPane textArea = openEditors.get(fileFullPath);
+
+		if (textArea==null && isSkippedBinaryFile(temp)) {
+			if (doVerboseOutput) {
+				results.add(createVerboseMatchData(fileFullPath,
+						verboseBinaryFileString));
+			}
+			return results;
+		}
+
+		// Display the file we're searching in the status bar.
+		// Note that this method postpones the update to the EDT.
+		dialog.setSearchStatusText(searchingFile + i + "/" + numFiles +
+						": " + fileFullPath);
+
+		// Most files don't contain a match, so check their raw bytes
+		// before reading them.
+		if (textArea==null && byteMatcher!=null && !mayMatch(temp)) {
+			if (doVerboseOutput) {
+				String text = MessageFormat.format(occurrencesString, 0);
+				results.add(createVerboseMatchData(fileFullPath, text));
+			}
+			return results;
+		}
+
+		// Don't load huge files into memory if we don't have to.
+		if (textArea==null && streamingReplacer!=null &&
+				attrs.size()>STREAMING_THRESHOLD) {
+			streamReplaceInFile(temp, attrs, results);
+			return results;
+		}
+
+		String encoding = null;
+		StringBuilder sb = new StringBuilder(textArea!=null ? 0 :
+				(int)Math.min(attrs.size() + 1, Integer.MAX_VALUE - 8));
+
+		try {
+			if (textArea!=null) {
+				appendEditorText(textArea, sb);
+			}
+			else {
+				// Use a UnicodeReader to auto-detect whether this
+				// is a Unicode file.
+				// FIXME:  Allow the user to specify the default
+				// encoding, instead of assuming system default,
+				// somehow.
+				UnicodeReader ur = new UnicodeReader(temp);
+				encoding = ur.getEncoding();
+				try (Reader r = new BufferedReader(ur)) {
+					char[] buf = new char[4096];
+					int count;
+					while ((count = r.read(buf)) != -1) {
+						sb.append(buf, 0, count);
+					}
+				}
+			}
+		} catch (IOException ioe) {
+			results.add(createErrorMatchData(fileFullPath,
+						"IOException reading file: " + ioe));
+			return results;
+		} catch (OutOfMemoryError oome) {
+			outOfMemory = true; // Bail out
+			results.add(createErrorMatchData(fileFullPath, "OutOfMemoryError"));
+			return results;
+		}
+
+		// If we got some text out of the file...
+		if (sb.length()>0) {
+
+			Path tempFile = null;
+
+			try {
+
+				int repCount;
+				StringBuilder replaceSB = new StringBuilder();
+
+				if (useRegex) {
+					repCount = doSearchRegex(sb, pattern,
+						replaceString, wholeWord, replaceSB);
+				}
+				else {
+					repCount = doSearchNoRegex(sb, searchString,
+						replaceString, matchCase, wholeWord,
+						replaceSB);
+				}
+
+				// If text was replaced in an open editor, the editor is
+				// updated once the transaction is committed.
+				if (repCount>0 && textArea!=null) {
+					transaction.add(textArea, sb.toString(),
+							replaceSB.toString(), repCount);
+					String text = MessageFormat.format(occurrencesString, repCount);
+					results.add(new MatchData(fileFullPath, NO_LINE_NUMBER, text));
+					return results;
+				}
+				sb = null;
+
+				// If text was replaced, write the file's new contents to
+				// a temporary file, to be moved into place when the
+				// transaction is committed.
+				if (repCount>0) {
+
+					Path file = temp.toPath();
+					if (!Files.isWritable(file)) {
+						results.add(createErrorMatchData(fileFullPath,
+								dialog.getString2("FileReadOnly")));
+						return results;
+					}
+					tempFile = ReplaceTransaction.createTempFile(file);
+					try (Writer w = new BufferedWriter(new UnicodeWriter(
+							Files.newOutputStream(tempFile), encoding))) {
+						w.append(replaceSB);
+					}
+					transaction.add(file, attrs, tempFile, repCount);
+					tempFile = null;
+
+					String text = MessageFormat.format(occurrencesString, repCount);
+					results.add(new MatchData(fileFullPath, NO_LINE_NUMBER, text));
+
+				}
+				else if (doVerboseOutput) { // repCount==0
+					String text = MessageFormat.format(occurrencesString, repCount);
+					results.add(createVerboseMatchData(fileFullPath, text));
+				}
+
+			} catch (OutOfMemoryError oome) {
+				outOfMemory = true; // Bail out
+				ReplaceTransaction.deleteQuietly(tempFile);
+				results.add(createErrorMatchData(fileFullPath, "OutOfMemoryError"));
+			} catch (/*IO*/Exception ioe) {
+				ioe.printStackTrace();
+				ReplaceTransaction.deleteQuietly(tempFile);
+				String desc = ioe.getMessage();
+				results.add(createErrorMatchData(fileFullPath, desc));
+			}
+
+		}
+
+		return results;
+
+	}
+
+
+	/**
+	 * Computes the replacements in a single file without loading it into
+	 * memory.  If any text is replaced, the file's new contents are
+	 * written to a temporary file and added to the transaction.
+	 *
+	 * @param file The file.
+	 * @param attrs The file's attributes.
+	 * @param results Receives the results for the file.
+	 */
+	private void streamReplaceInFile(File file, BasicFileAttributes attrs,
+			List<MatchData> results) {
+
+		String fileFullPath = file.getAbsolutePath();
+		Path path = file.toPath();
+		Path tempFile = null;
+
+		try {
+			tempFile = ReplaceTransaction.createTempFile(path);
+			int repCount = streamingReplacer.replace(file, tempFile);
+			String text = MessageFormat.format(occurrencesString, repCount);
+			if (repCount>0 && !Files.isWritable(path)) {
+				results.add(createErrorMatchData(fileFullPath,
+						dialog.getString2("FileReadOnly")));
+			}
+			else if (repCount>0) {
+				transaction.add(path, attrs, tempFile, repCount);
+				tempFile = null;
+				results.add(new MatchData(fileFullPath, NO_LINE_NUMBER, text));
+			}
+			else if (doVerboseOutput) {
+				results.add(createVerboseMatchData(fileFullPath, text));
+			}
+		} catch (IOException ioe) {
+			results.add(createErrorMatchData(fileFullPath, ioe.toString()));
+		} finally {
+			ReplaceTransaction.deleteQuietly(tempFile);
+		}
+
+	}
+
+
 }
@@ -0,0 +1,645 @@
+/*
+ * 10/18/2026
+ *
+ * ReplaceTransaction.java - Applies the edits from a Replace in Files
+ * operation all at once.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.fife.rtext.RTextEditorPane;
+import org.fife.rtext.RTextUtilities;
+
+
+/**
+ * The edits computed by a Replace in Files operation, applied to the file
+ * system all at once or not at all.<p>
+ *
+ * While replacements are being computed, each modified file's new
+ * contents are written to a temporary file next to it (so it's on the same
+ * file system), and the file itself is left alone.  Once the user has seen
+ * how many replacements will be made in each file, the transaction is
+ * either discarded, deleting the temporary files, or committed.  When
+ * committing, each file is first backed up (as a hard link where possible,
+ * otherwise as a copy), then atomically replaced by its temporary file.
+ * Symbolic links are followed, so the file a link points to is replaced
+ * rather than the link, and a file reached through several paths is only
+ * replaced once.  Files that are read-only are never replaced.  If anything
+ * goes wrong, including a file having been modified since it was read,
+ * every file already replaced is restored from its backup.  The backups are
+ * deleted once all files have been replaced.<p>
+ *
+ * Before any file is replaced, a journal listing each file, its backup and
+ * its temporary file is written to RText's preferences folder, and it's
+ * only deleted once the backups are.  If RText exits while committing,
+ * {@link #recover()} uses the journal the next time RText starts to
+ * restore the files already replaced (or, if all of them were, to delete
+ * the leftover backups).<p>
+ *
+ * Files open in editors are edited in the editor instead, and left for the
+ * user to save.  These edits are applied after all files are replaced.
+ * They can't be part of the atomic replacement, so an editor whose text
+ * was modified after it was read is simply skipped.<p>
+ *
+ * Edits may be added from multiple threads.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class ReplaceTransaction {
+
+	private static final String JOURNAL_EXTENSION = ".journal";
+
+	private final List<Edit> edits;
+	private final Set<Path> targets;
+	private final List<EditorEdit> editorEdits;
+	private int occurrenceCount;
+	private boolean closed;
+
+
+	/**
+	 * Constructor.
+	 */
+	ReplaceTransaction() {
+		edits = new ArrayList<>();
+		targets = new HashSet<>();
+		editorEdits = new ArrayList<>();
+	}
+
+
+	/**
+	 * Adds an edit to this transaction.  If the transaction has already
+	 * been committed or discarded, or already has an edit to the same file
+	 * (reached through a different path), the temporary file is simply
+	 * deleted.
+	 *
+	 * @param file The file to modify.
+	 * @param attrs The file's attributes when its contents were read.
+	 * @param tempFile The temporary file containing the file's new
+	 *        contents, created by {@link #createTempFile(Path)}.
+	 * @param count The number of occurrences replaced in the file.
+	 * @throws IOException If the file no longer exists.
+	 */
+	void add(Path file, BasicFileAttributes attrs, Path tempFile, int count)
+			throws IOException {
+		Path target = file.toRealPath();
+		synchronized (this) {
+			if (!closed && targets.add(target)) {
+				edits.add(new Edit(file, target, attrs.lastModifiedTime(),
+						attrs.size(), tempFile));
+				occurrenceCount += count;
+				return;
+			}
+		}
+		deleteQuietly(tempFile);
+	}
+
+
+	/**
+	 * Adds an edit to an open editor to this transaction.  If the
+	 * transaction has already been committed or discarded, this does
+	 * nothing.
+	 *
+	 * @param textArea The editor.
+	 * @param oldText The editor's text when it was read.
+	 * @param newText The new text.
+	 * @param count The number of occurrences replaced.
+	 */
+	synchronized void add(RTextEditorPane textArea, String oldText,
+			String newText, int count) {
+		if (!closed) {
+			editorEdits.add(new EditorEdit(textArea, oldText, newText));
+			occurrenceCount += count;
+		}
+	}
+
+
+	/**
+	 * Applies the edits to open editors.  This should be called on the
+	 * EDT, after {@link #commit()}.  Each editor's text is replaced as a
+	 * single undoable edit.
+	 *
+	 * @return The full paths of any files whose editors weren't updated,
+	 *         because they're read-only or their text was modified after
+	 *         it was read.
+	 */
+	List<String> applyEditorEdits() {
+
+		List<EditorEdit> toApply;
+		synchronized (this) {
+			toApply = new ArrayList<>(editorEdits);
+		}
+
+		List<String> skipped = new ArrayList<>();
+		for (EditorEdit edit : toApply) {
+			RTextEditorPane textArea = edit.textArea;
+			if (textArea.isReadOnly() || !textArea.getText().equals(edit.oldText)) {
+				skipped.add(textArea.getFileFullPath());
+				continue;
+			}
+			int caret = textArea.getCaretPosition();
+			textArea.beginAtomicEdit();
+			try {
+				textArea.replaceRange(edit.newText, 0, edit.oldText.length());
+			} finally {
+				textArea.endAtomicEdit();
+			}
+			textArea.setCaretPosition(Math.min(caret, edit.newText.length()));
+		}
+		return skipped;
+
+	}
+
+
+	/**
+	 * Replaces each file with its new contents.  If any file can't be
+	 * replaced, all files already replaced are restored, and any remaining
+	 * temporary files are deleted.
+	 *
+	 * @throws IOException If a file can't be replaced, or has been modified
+	 *         since it was read, or the journal can't be written.  The
+	 *         message names the file.  If any files can't be restored, an
+	 *         exception for each is added as a suppressed exception; their
+	 *         backups are left in place, and the journal is kept so they're
+	 *         restored the next time RText starts.
+	 */
+	void commit() throws IOException {
+
+		List<Edit> toCommit;
+		synchronized (this) {
+			closed = true;
+			toCommit = new ArrayList<>(edits);
+		}
+		if (toCommit.isEmpty()) {
+			return;
+		}
+
+		// Commit in a predictable order, regardless of which threads
+		// finished first.
+		toCommit.sort(Comparator.comparing(edit -> edit.file));
+		Deque<Edit> replaced = new ArrayDeque<>();
+		Journal journal = null;
+
+		try {
+
+			// Back up every file before replacing any, so the journal lists
+			// them all.
+			for (Edit edit : toCommit) {
+				BasicFileAttributes attrs = Files.readAttributes(edit.target,
+						BasicFileAttributes.class);
+				if (!attrs.lastModifiedTime().equals(edit.lastModified) ||
+						attrs.size()!=edit.size) {
+					throw new IOException(edit.file + " was modified while replacing");
+				}
+				// Renaming over a file only needs write access to its
+				// folder, so check the file itself is writable.
+				if (!Files.isWritable(edit.target)) {
+					throw new IOException(edit.file + " is read-only");
+				}
+				edit.backup = createBackup(edit.target);
+			}
+			journal = Journal.create(toCommit);
+
+			for (Edit edit : toCommit) {
+				move(edit.tempFile, edit.target);
+				replaced.push(edit);
+			}
+			journal.markCommitted();
+
+		} catch (IOException ioe) {
+			boolean restored = rollback(replaced, ioe);
+			for (Edit edit : toCommit) {
+				deleteQuietly(edit.tempFile);
+				if (!replaced.contains(edit)) {
+					deleteQuietly(edit.backup);
+				}
+			}
+			if (journal!=null) {
+				if (restored) {
+					journal.delete();
+				}
+				else {
+					journal.close();
+				}
+			}
+			throw ioe;
+		}
+
+		for (Edit edit : toCommit) {
+			deleteQuietly(edit.backup);
+		}
+		journal.delete();
+
+	}
+
+
+	/**
+	 * Creates a backup of a file in the same directory.
+	 *
+	 * @param file The file.
+	 * @return The backup.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private static Path createBackup(Path file) throws IOException {
+		Path backup = Files.createTempFile(file.toAbsolutePath().getParent(),
+				"." + file.getFileName() + ".", ".bak");
+		try {
+			Files.delete(backup);
+			Files.createLink(backup, file);
+		} catch (IOException | UnsupportedOperationException e) {
+			Files.copy(file, backup, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.COPY_ATTRIBUTES);
+		}
+		return backup;
+	}
+
+
+	/**
+	 * Creates the temporary file to write a file's new contents to.  It is
+	 * created in the same directory as the file (or the file a symbolic
+	 * link points to), and given the same permissions where supported.
+	 *
+	 * @param file The file to be modified.
+	 * @return The temporary file.
+	 * @throws IOException If an IO error occurs.
+	 */
+	static Path createTempFile(Path file) throws IOException {
+		file = file.toRealPath();
+		Path temp = Files.createTempFile(file.getParent(),
+				"." + file.getFileName() + ".", ".tmp");
+		PosixFileAttributeView view = Files.getFileAttributeView(file,
+				PosixFileAttributeView.class);
+		if (view!=null) {
+			try {
+				Files.setPosixFilePermissions(temp, view.readAttributes().permissions());
+			} catch (IOException ioe) {
+				deleteQuietly(temp);
+				throw ioe;
+			}
+		}
+		return temp;
+	}
+
+
+	/**
+	 * Deletes a file, ignoring any errors.
+	 *
+	 * @param file The file to delete.  This may be <code>null</code>.
+	 */
+	static void deleteQuietly(Path file) {
+		if (file!=null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException ioe) {
+				// Nothing we can do
+			}
+		}
+	}
+
+
+	/**
+	 * Deletes the temporary files of all edits.  Any edits added after this
+	 * is called are discarded as well.
+	 */
+	void discard() {
+		List<Edit> toDiscard;
+		synchronized (this) {
+			closed = true;
+			toDiscard = new ArrayList<>(edits);
+			edits.clear();
+			editorEdits.clear();
+		}
+		for (Edit edit : toDiscard) {
+			deleteQuietly(edit.tempFile);
+		}
+	}
+
+
+	/**
+	 * Returns the folder journals are written to.
+	 *
+	 * @return The folder.
+	 */
+	private static Path getJournalDir() {
+		return new File(RTextUtilities.getPreferencesDirectory(),
+				"replaceJournals").toPath();
+	}
+
+
+	/**
+	 * Returns the number of files that will be modified, including those
+	 * open in editors.
+	 *
+	 * @return The number of files.
+	 */
+	synchronized int getFileCount() {
+		return edits.size() + editorEdits.size();
+	}
+
+
+	/**
+	 * Returns the number of occurrences that will be replaced, across all
+	 * files.
+	 *
+	 * @return The number of occurrences.
+	 */
+	synchronized int getOccurrenceCount() {
+		return occurrenceCount;
+	}
+
+
+	/**
+	 * Moves a file, replacing the destination atomically if the file
+	 * system supports it.
+	 */
+	private static void move(Path source, Path dest) throws IOException {
+		try {
+			Files.move(source, dest, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException amnse) {
+			Files.move(source, dest, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+
+	/**
+	 * Finishes any commits interrupted by RText exiting abnormally, by
+	 * restoring the files they replaced from their backups.  If all of a
+	 * commit's files were replaced, its leftover backups are deleted
+	 * instead.  Journals of commits still running in other instances of
+	 * RText are left alone.  This should be called when RText starts.
+	 */
+	static void recover() {
+
+		Path dir = getJournalDir();
+		if (!Files.isDirectory(dir)) {
+			return;
+		}
+
+		try (DirectoryStream<Path> journals = Files.newDirectoryStream(dir,
+				"*" + JOURNAL_EXTENSION)) {
+			for (Path journal : journals) {
+				if (Journal.recover(journal)) {
+					deleteQuietly(journal);
+				}
+			}
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+
+	}
+
+
+	/**
+	 * Restores the files already replaced, most recent first.
+	 *
+	 * @param replaced The files replaced so far.
+	 * @param cause The error that caused the rollback.  Any files that
+	 *        can't be restored are added to this as suppressed exceptions.
+	 * @return Whether all files were restored.
+	 */
+	private static boolean rollback(Deque<Edit> replaced, IOException cause) {
+		boolean restored = true;
+		for (Edit edit : replaced) {
+			try {
+				move(edit.backup, edit.target);
+			} catch (IOException ioe) {
+				restored = false;
+				cause.addSuppressed(new IOException("Could not restore " +
+						edit.file + "; its original contents are in " +
+						edit.backup, ioe));
+			}
+		}
+		return restored;
+	}
+
+
+	/**
+	 * An edit to an open editor.
+	 *
+	 * @param textArea The editor.
+	 * @param oldText The editor's text when it was read.
+	 * @param newText The new text.
+	 */
+	private record EditorEdit(RTextEditorPane textArea, String oldText,
+							String newText) {
+	}
+
+
+	/**
+	 * A file to modify.
+	 */
+	private static final class Edit {
+
+		private final Path file;
+		private final Path target;
+		private final FileTime lastModified;
+		private final long size;
+		private final Path tempFile;
+		private Path backup;
+
+		Edit(Path file, Path target, FileTime lastModified, long size,
+				Path tempFile) {
+			this.file = file;
+			this.target = target;
+			this.lastModified = lastModified;
+			this.size = size;
+			this.tempFile = tempFile;
+		}
+
+	}
+
+
+	/**
+	 * The on-disk journal of a commit.  It's locked while the commit is
+	 * running, so other instances of RText don't recover it.
+	 */
+	private static final class Journal implements Closeable {
+
+		private static final int MAGIC = 0x52524a31; // "RRJ1"
+		private static final byte COMMITTED = 'C';
+
+		private final Path file;
+		private final FileChannel channel;
+		private final DataOutputStream out;
+
+		private Journal(Path file, FileChannel channel, DataOutputStream out) {
+			this.file = file;
+			this.channel = channel;
+			this.out = out;
+		}
+
+		@Override
+		public void close() {
+			try {
+				out.close();
+			} catch (IOException ioe) {
+				// Nothing we can do
+			}
+		}
+
+		/**
+		 * Writes the journal of a commit, before any file is replaced.
+		 *
+		 * @param edits The edits being committed, with their backups.
+		 * @return The journal.
+		 * @throws IOException If an IO error occurs.
+		 */
+		static Journal create(List<Edit> edits) throws IOException {
+
+			Path dir = getJournalDir();
+			Files.createDirectories(dir);
+			Path file = Files.createTempFile(dir, "replace", JOURNAL_EXTENSION);
+
+			FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+			try {
+				channel.lock();
+				DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Channels.newOutputStream(channel)));
+				out.writeInt(MAGIC);
+				out.writeInt(edits.size());
+				for (Edit edit : edits) {
+					out.writeUTF(edit.target.toString());
+					out.writeUTF(edit.backup.toString());
+					out.writeUTF(edit.tempFile.toString());
+				}
+				out.flush();
+				channel.force(true);
+				return new Journal(file, channel, out);
+			} catch (IOException ioe) {
+				channel.close();
+				deleteQuietly(file);
+				throw ioe;
+			}
+
+		}
+
+		/**
+		 * Closes and deletes the journal, once the commit is finished.
+		 */
+		void delete() {
+			close();
+			deleteQuietly(file);
+		}
+
+		/**
+		 * Records that all files were replaced, so only their backups are
+		 * left to delete.
+		 *
+		 * @throws IOException If an IO error occurs.
+		 */
+		void markCommitted() throws IOException {
+			out.writeByte(COMMITTED);
+			out.flush();
+			channel.force(false);
+		}
+
+		/**
+		 * Finishes a commit interrupted by RText exiting abnormally.
+		 *
+		 * @param file The commit's journal.
+		 * @return Whether the journal can be deleted.  This is
+		 *         <code>false</code> if the commit is still running in
+		 *         another instance of RText, or any file couldn't be
+		 *         restored.
+		 */
+		static boolean recover(Path file) {
+
+			List<Path[]> entries = new ArrayList<>();
+			boolean committed = false;
+
+			try (FileChannel channel = FileChannel.open(file,
+					StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+				FileLock lock;
+				try {
+					lock = channel.tryLock();
+				} catch (OverlappingFileLockException ofle) {
+					lock = null; // A commit in this JVM
+				}
+				if (lock==null) {
+					return false;
+				}
+
+				// A journal cut short was being written when RText exited,
+				// so no file was replaced yet.
+				DataInputStream in = new DataInputStream(
+						new BufferedInputStream(Channels.newInputStream(channel)));
+				try {
+					if (in.readInt()!=MAGIC) {
+						return true;
+					}
+					int count = in.readInt();
+					for (int i=0; i<count; i++) {
+						entries.add(new Path[] { Path.of(in.readUTF()),
+								Path.of(in.readUTF()), Path.of(in.readUTF()) });
+					}
+					committed = in.readByte()==COMMITTED;
+				} catch (EOFException eofe) {
+					// Not committed
+				}
+
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+				return false;
+			}
+
+			boolean recovered = true;
+			for (Path[] entry : entries) {
+				Path target = entry[0];
+				Path backup = entry[1];
+				Path tempFile = entry[2];
+				if (committed || Files.exists(tempFile)) {
+					// Replaced and kept, or never replaced
+					deleteQuietly(tempFile);
+					deleteQuietly(backup);
+				}
+				else if (Files.exists(backup)) {
+					try {
+						move(backup, target);
+					} catch (IOException ioe) {
+						ioe.printStackTrace();
+						recovered = false;
+					}
+				}
+			}
+			return recovered;
+
+		}
+
+	}
+
+
+}
@@ -0,0 +1,171 @@
+/*
+ * 10/18/2026
+ *
+ * ResultBatcher.java - Hands search results to the EDT in batches.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+
+/**
+ * Collects search results and status updates from searcher threads and
+ * hands them to the EDT in batches.  A search can find hundreds of
+ * thousands of matches, and posting an event for each one floods the
+ * event queue and freezes the UI.<p>
+ *
+ * Results are delivered at most every {@link #FLUSH_INTERVAL_MILLIS}
+ * milliseconds, or as soon as {@link #MAX_BATCH_SIZE} are waiting.  Status
+ * updates are delivered along with them; only the most recent one is
+ * shown, since any others would be immediately overwritten anyway.<p>
+ *
+ * Each search's results are tagged with the generation returned by
+ * {@link #clear()} when it started, so results from a canceled search that
+ * arrive after the next search has started are dropped.<p>
+ *
+ * The <code>add</code> and <code>setStatusText</code> methods may be called
+ * from any thread.  The callbacks are always called on the EDT.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class ResultBatcher {
+
+	/**
+	 * The maximum time results are held before being delivered.
+	 */
+	static final int FLUSH_INTERVAL_MILLIS = 50;
+
+	/**
+	 * Results are delivered immediately once this many are waiting.
+	 */
+	static final int MAX_BATCH_SIZE = 2000;
+
+	private final Consumer<List<MatchData>> resultConsumer;
+	private final Consumer<String> statusConsumer;
+	private final Timer timer;
+
+	private List<MatchData> pending;
+	private String pendingStatus;
+	private int generation;
+	private boolean flushScheduled;
+	private boolean immediateFlushScheduled;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param resultConsumer Receives each batch of results.
+	 * @param statusConsumer Receives status text updates.
+	 */
+	ResultBatcher(Consumer<List<MatchData>> resultConsumer,
+			Consumer<String> statusConsumer) {
+		this.resultConsumer = resultConsumer;
+		this.statusConsumer = statusConsumer;
+		pending = new ArrayList<>();
+		timer = new Timer(FLUSH_INTERVAL_MILLIS, e -> flush());
+		timer.setRepeats(false);
+	}
+
+
+	/**
+	 * Adds a result to be delivered.
+	 *
+	 * @param data The result.
+	 * @param generation The generation of the search that found it.  If
+	 *        the results have been cleared since, it's dropped.
+	 * @see #clear()
+	 */
+	synchronized void add(MatchData data, int generation) {
+		if (generation!=this.generation) {
+			return;
+		}
+		pending.add(data);
+		if (pending.size()>=MAX_BATCH_SIZE && !immediateFlushScheduled) {
+			immediateFlushScheduled = true;
+			SwingUtilities.invokeLater(this::flush);
+		}
+		scheduleFlush();
+	}
+
+
+	/**
+	 * Discards any results and status text waiting to be delivered, and
+	 * starts a new generation of results.
+	 *
+	 * @return The new generation.
+	 * @see #add(MatchData, int)
+	 */
+	synchronized int clear() {
+		pending = new ArrayList<>();
+		pendingStatus = null;
+		return ++generation;
+	}
+
+
+	/**
+	 * Discards any status text waiting to be delivered.  This should be
+	 * called when the status text is set directly, so an older update
+	 * doesn't overwrite it.
+	 */
+	synchronized void clearStatusText() {
+		pendingStatus = null;
+	}
+
+
+	/**
+	 * Delivers any waiting results and status text.  This must be called
+	 * on the EDT.
+	 */
+	void flush() {
+
+		List<MatchData> results;
+		String status;
+
+		synchronized (this) {
+			results = pending;
+			status = pendingStatus;
+			pending = new ArrayList<>();
+			pendingStatus = null;
+			flushScheduled = immediateFlushScheduled = false;
+		}
+
+		if (!results.isEmpty()) {
+			resultConsumer.accept(results);
+		}
+		if (status!=null) {
+			statusConsumer.accept(status);
+		}
+
+	}
+
+
+	private void scheduleFlush() {
+		if (!flushScheduled) {
+			flushScheduled = true;
+			timer.restart();
+		}
+	}
+
+
+	/**
+	 * Sets the status text to display.  If this is called several times
+	 * before the next delivery, only the last text is displayed.
+	 *
+	 * @param text The status text.
+	 */
+	synchronized void setStatusText(String text) {
+		pendingStatus = text;
+		scheduleFlush();
+	}
+
+
+}
@@ -9,6 +9,8 @@
  */
 package org.fife.ui.search;
 
+import java.util.List;
+
 
 /**
  * Interface that identifies a component that displays search or
@@ -32,6 +34,17 @@ interface ResultsComponent {
 	void addMatchData(MatchData matchData, String dirName);
 
 
+	/**
+	 * Adds data on several matches to the component at once.  This should
+	 * be much faster than adding them one at a time.
+	 *
+	 * @param matchDatas The data.
+	 * @param dirName The "root directory" searching was done in.
+	 * @see #addMatchData(MatchData, String)
+	 */
+	void addMatchData(List<MatchData> matchDatas, String dirName);
+
+
 	/**
 	 * Clears all match results from the table.
 	 *
@@ -49,6 +62,15 @@ interface ResultsComponent {
 	MatchData getMatchDataForRow(int row);
 
 
+	/**
+	 * Returns the number of matches added to this component.  This doesn't
+	 * include verbose output or errors.
+	 *
+	 * @return The number of matches.
+	 */
+	int getMatchCount();
+
+
 	/**
 	 * Returns the number of rows displayed in this component.
 	 *
@@ -72,4 +94,39 @@ interface ResultsComponent {
 	void prettyUp();
 
 
+	/**
+	 * Replaces the results for a file, e.g. after it has changed and been
+	 * searched again.  The new results are displayed where the old ones
+	 * were.
+	 *
+	 * @param path The full path of the file.
+	 * @param matchDatas The file's new results.
+	 * @param dirName The "root directory" searching was done in.
+	 * @return The number of results removed and added, or <code>-1</code>
+	 *         if results can't be replaced, e.g. because there are too
+	 *         many to keep in memory.
+	 * @see #addMatchData(List, String)
+	 */
+	int replaceMatchData(String path, List<MatchData> matchDatas, String dirName);
+
+
+	/**
+	 * Sets the maximum number of results to keep in memory.  Any further
+	 * results are stored in a temporary file until the component is
+	 * cleared.
+	 *
+	 * @param max The maximum number of results.
+	 */
+	void setMaxResultsInMemory(int max);
+
+
+	/**
+	 * Sets whether the terms matched by each result are displayed.  This
+	 * is only useful for "any of these terms" searches.
+	 *
+	 * @param show Whether to display the matched terms.
+	 */
+	void setShowMatchedTerms(boolean show);
+
+
 }
@@ -0,0 +1,360 @@
+/*
+ * 10/18/2026
+ *
+ * SearchStats.java - Statistics about where the time in a Find in Files
+ * search went.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Statistics about a Find in Files search: how many files were visited and
+ * skipped (and why), how many bytes were read, and how long was spent
+ * reading and decoding files, matching, and updating the results table.
+ * The slowest files, and the folders whose files took the longest to
+ * search, are kept as well, so the user can see what to add to the "In
+ * files" filter or "Skip folders" list.<p>
+ *
+ * Read, match and UI times are summed across all of the searcher threads,
+ * so on a multi-core machine they may add up to more than the elapsed
+ * time.  Statistics may be recorded from multiple threads.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class SearchStats {
+
+	/**
+	 * The number of slowest files kept.
+	 */
+	static final int SLOWEST_FILE_COUNT = 20;
+
+	/**
+	 * The number of most expensive folders reported.
+	 */
+	private static final int COSTLIEST_FOLDER_COUNT = 10;
+
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+	private static final double BYTES_PER_MB = 1024 * 1024.0;
+
+	private final LongAdder filesVisited;
+	private final LongAdder filesSearched;
+	private final Map<Skip, LongAdder> skipped;
+	private final LongAdder bytesRead;
+	private final LongAdder readNanos;
+	private final LongAdder matchNanos;
+	private final LongAdder uiNanos;
+
+	/**
+	 * The slowest files, fastest first.  Only accessed while synchronized
+	 * on it.
+	 */
+	private final PriorityQueue<FileTime> slowestFiles;
+
+	/**
+	 * The total time spent on the files in each folder, in nanoseconds.
+	 */
+	private final Map<String, LongAdder> folderNanos;
+
+	private volatile long elapsedMillis;
+
+
+	/**
+	 * Why a file (or folder) wasn't searched.
+	 */
+	enum Skip {
+
+		/**
+		 * The file didn't match the "In files" filter.
+		 */
+		FILTER("Stats.SkippedFilter"),
+
+		/**
+		 * A folder that wasn't walked into.
+		 */
+		FOLDER("Stats.SkippedFolders"),
+
+		/**
+		 * The file was larger than the maximum file size.
+		 */
+		SIZE("Stats.SkippedSize"),
+
+		/**
+		 * The file appeared to be binary.
+		 */
+		BINARY("Stats.SkippedBinary"),
+
+		/**
+		 * The search index showed the file couldn't contain a match.
+		 */
+		INDEX("Stats.SkippedIndex"),
+
+		/**
+		 * The file was matched by an ignore file.
+		 */
+		IGNORED("Stats.SkippedIgnored"),
+
+		/**
+		 * The file's raw bytes didn't contain the text any match must
+		 * contain, so it was never decoded.
+		 */
+		PREFILTER("Stats.SkippedPrefilter");
+
+		private final String key;
+
+		Skip(String key) {
+			this.key = key;
+		}
+
+	}
+
+
+	/**
+	 * Constructor.
+	 */
+	SearchStats() {
+		filesVisited = new LongAdder();
+		filesSearched = new LongAdder();
+		skipped = new EnumMap<>(Skip.class);
+		for (Skip skip : Skip.values()) {
+			skipped.put(skip, new LongAdder());
+		}
+		bytesRead = new LongAdder();
+		readNanos = new LongAdder();
+		matchNanos = new LongAdder();
+		uiNanos = new LongAdder();
+		slowestFiles = new PriorityQueue<>(SLOWEST_FILE_COUNT + 1,
+				Comparator.comparingLong(FileTime::nanos));
+		folderNanos = new ConcurrentHashMap<>();
+		elapsedMillis = -1;
+	}
+
+
+	/**
+	 * Appends a line to the report.
+	 */
+	private static void appendLine(StringBuilder sb, FindInFilesDialog dialog,
+			String key, Object value) {
+		sb.append(String.format("  %-40s %s%n", dialog.getString2(key), value));
+	}
+
+
+	/**
+	 * Records the work done for a file that was read.
+	 *
+	 * @param path The file's full path.
+	 * @param bytes The number of bytes read from disk.
+	 * @param readTime The time spent reading and decoding the file, in
+	 *        nanoseconds.
+	 * @param matchTime The time spent looking for matches, in nanoseconds.
+	 * @param searched Whether the file was fully searched, as opposed to
+	 *        being skipped after its raw bytes were read.
+	 */
+	void fileRead(String path, long bytes, long readTime, long matchTime,
+			boolean searched) {
+
+		if (searched) {
+			filesSearched.increment();
+		}
+		bytesRead.add(bytes);
+		readNanos.add(readTime);
+		matchNanos.add(matchTime);
+
+		long nanos = readTime + matchTime;
+		String folder = getFolder(path);
+		folderNanos.computeIfAbsent(folder, f -> new LongAdder()).add(nanos);
+
+		synchronized (slowestFiles) {
+			if (slowestFiles.size()<SLOWEST_FILE_COUNT ||
+					nanos>slowestFiles.peek().nanos()) {
+				slowestFiles.add(new FileTime(path, bytes, nanos));
+				if (slowestFiles.size()>SLOWEST_FILE_COUNT) {
+					slowestFiles.remove();
+				}
+			}
+		}
+
+	}
+
+
+	/**
+	 * Notes that a file or folder was skipped.
+	 *
+	 * @param reason Why it was skipped.
+	 */
+	void fileSkipped(Skip reason) {
+		skipped.get(reason).increment();
+	}
+
+
+	/**
+	 * Notes that a file was visited.
+	 */
+	void fileVisited() {
+		filesVisited.increment();
+	}
+
+
+	/**
+	 * Returns the total time spent on the files in each folder, most
+	 * expensive first.
+	 *
+	 * @return The folders and their times, in nanoseconds.
+	 */
+	List<Map.Entry<String, Long>> getCostliestFolders() {
+		List<Map.Entry<String, Long>> folders = new ArrayList<>();
+		folderNanos.forEach((folder, nanos) ->
+				folders.add(Map.entry(folder, nanos.sum())));
+		folders.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+		return folders.subList(0, Math.min(COSTLIEST_FOLDER_COUNT, folders.size()));
+	}
+
+
+	/**
+	 * Returns the folder containing a file.  For archive entries, this is
+	 * the archive itself.
+	 */
+	private static String getFolder(String path) {
+		int sep = path.indexOf(ArchiveEntryFileLocation.SEPARATOR);
+		if (sep>-1) {
+			return path.substring(0, sep);
+		}
+		String parent = new File(path).getParent();
+		return parent!=null ? parent : path;
+	}
+
+
+	/**
+	 * Returns the slowest files searched, slowest first.
+	 *
+	 * @return The files.
+	 */
+	List<FileTime> getSlowestFiles() {
+		List<FileTime> files;
+		synchronized (slowestFiles) {
+			files = new ArrayList<>(slowestFiles);
+		}
+		files.sort(Comparator.comparingLong(FileTime::nanos).reversed());
+		return files;
+	}
+
+
+	/**
+	 * Returns whether the search completed, so these statistics are
+	 * complete.
+	 *
+	 * @return Whether the search completed.
+	 * @see #searchCompleted(long)
+	 */
+	boolean isComplete() {
+		return elapsedMillis>-1;
+	}
+
+
+	/**
+	 * Notes that the search completed.
+	 *
+	 * @param elapsedMillis The time the search took, in milliseconds.
+	 * @see #isComplete()
+	 */
+	void searchCompleted(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+
+	private static String toMillis(long nanos) {
+		return String.format("%,.1f ms", nanos / NANOS_PER_MILLI);
+	}
+
+
+	/**
+	 * Returns a plain text report of these statistics.
+	 *
+	 * @param dialog The dialog, for localized labels.
+	 * @param directory The folder searched.
+	 * @param searchString The text searched for.
+	 * @return The report.
+	 */
+	String toReport(FindInFilesDialog dialog, String directory,
+			String searchString) {
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(dialog.getString2("Stats.Title")).append(String.format("%n%n"));
+		appendLine(sb, dialog, "Stats.Folder", directory);
+		appendLine(sb, dialog, "Stats.SearchFor", searchString);
+		appendLine(sb, dialog, "Stats.Elapsed", String.format("%,d ms", elapsedMillis));
+		sb.append(String.format("%n"));
+
+		appendLine(sb, dialog, "Stats.FilesVisited", String.format("%,d", filesVisited.sum()));
+		appendLine(sb, dialog, "Stats.FilesSearched", String.format("%,d", filesSearched.sum()));
+		for (Skip skip : Skip.values()) {
+			appendLine(sb, dialog, skip.key, String.format("%,d", skipped.get(skip).sum()));
+		}
+		sb.append(String.format("%n"));
+
+		long bytes = bytesRead.sum();
+		appendLine(sb, dialog, "Stats.BytesRead", String.format("%,d (%,.1f MB)",
+				bytes, bytes / BYTES_PER_MB));
+		appendLine(sb, dialog, "Stats.ReadTime", toMillis(readNanos.sum()));
+		appendLine(sb, dialog, "Stats.MatchTime", toMillis(matchNanos.sum()));
+		appendLine(sb, dialog, "Stats.UITime", toMillis(uiNanos.sum()));
+		double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+		appendLine(sb, dialog, "Stats.Throughput", String.format("%,.1f MB/s",
+				bytes / BYTES_PER_MB / seconds));
+		sb.append(String.format("%n"));
+
+		sb.append(dialog.getString2("Stats.SlowestFiles")).append(String.format("%n"));
+		for (FileTime file : getSlowestFiles()) {
+			sb.append(String.format("  %12s %14s  %s%n", toMillis(file.nanos()),
+					String.format("%,d B", file.bytes()), file.path()));
+		}
+		sb.append(String.format("%n"));
+
+		sb.append(dialog.getString2("Stats.CostliestFolders")).append(String.format("%n"));
+		for (Map.Entry<String, Long> folder : getCostliestFolders()) {
+			sb.append(String.format("  %12s  %s%n", toMillis(folder.getValue()),
+					folder.getKey()));
+		}
+
+		return sb.toString();
+
+	}
+
+
+	/**
+	 * Adds to the time spent adding results to the results table.
+	 *
+	 * @param nanos The time, in nanoseconds.
+	 */
+	void uiTime(long nanos) {
+		uiNanos.add(nanos);
+	}
+
+
+	/**
+	 * The time spent on a single file.
+	 *
+	 * @param path The file's full path.
+	 * @param bytes The number of bytes read from disk.
+	 * @param nanos The time spent reading and searching the file, in
+	 *        nanoseconds.
+	 */
+	record FileTime(String path, long bytes, long nanos) {
+	}
+
+
+}
@@ -0,0 +1,267 @@
+/*
+ * 10/18/2026
+ *
+ * StreamingReplacer.java - Replaces text in a file without loading it all
+ * into memory.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.fife.io.UnicodeReader;
+import org.fife.io.UnicodeWriter;
+import org.fife.rsta.ui.search.FindDialog;
+import org.fife.ui.rtextarea.SearchEngine;
+
+
+/**
+ * Replaces text in a file by reading it through a sliding window, writing
+ * the result straight to an output file.  Memory use is constant no matter
+ * how large the file is, so Replace in Files uses this for huge files such
+ * as logs and database dumps.<p>
+ *
+ * This only works when the longest possible match is known: for literal
+ * searches, and for regular expressions that
+ * {@link RegexLiteralExtractor#getMaxMatchLength(String)} can analyze.  A
+ * match is only accepted once the window extends far enough past its start
+ * that a longer match (or a "whole word" check) couldn't be affected by
+ * text not yet read.<p>
+ *
+ * The output file isn't written to until the first match is found, at
+ * which point the text before it is copied by re-reading the start of the
+ * file.  So files without any matches are only read once.  Instances of
+ * this class are immutable, and may be shared by multiple threads.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class StreamingReplacer {
+
+	/**
+	 * The number of chars read into the window at a time.
+	 */
+	private static final int CHUNK_SIZE = 256 * 1024;
+
+	private final Pattern pattern;
+	private final int maxMatchLength;
+	private final String replaceString;
+	private final boolean literal;
+	private final boolean wholeWord;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pattern The pattern to find.
+	 * @param maxMatchLength The longest text the pattern can match.
+	 * @param replaceString The replacement text.
+	 * @param literal Whether the replacement text should be used as-is,
+	 *        rather than interpreted as a regex replacement.
+	 * @param wholeWord Whether only whole-word matches should be replaced.
+	 * @see #create(String, String, boolean, boolean, boolean)
+	 */
+	private StreamingReplacer(Pattern pattern, int maxMatchLength,
+			String replaceString, boolean literal, boolean wholeWord) {
+		this.pattern = pattern;
+		this.maxMatchLength = maxMatchLength;
+		this.replaceString = replaceString;
+		this.literal = literal;
+		this.wholeWord = wholeWord;
+	}
+
+
+	/**
+	 * Copies the start of a file to the output, and returns a writer for
+	 * the rest of it.
+	 *
+	 * @param file The file being read.
+	 * @param output The output file.
+	 * @param encoding The encoding of the file.
+	 * @param charCount The number of chars to copy.
+	 * @return The writer.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private static Writer createWriter(File file, Path output, String encoding,
+			long charCount) throws IOException {
+
+		Writer w = new BufferedWriter(new UnicodeWriter(
+				Files.newOutputStream(output), encoding));
+
+		try (Reader r = new UnicodeReader(file)) {
+			char[] buf = new char[CHUNK_SIZE];
+			while (charCount>0) {
+				int count = r.read(buf, 0, (int)Math.min(buf.length, charCount));
+				if (count==-1) {
+					throw new IOException("File was modified while replacing");
+				}
+				w.write(buf, 0, count);
+				charCount -= count;
+			}
+		} catch (IOException ioe) {
+			w.close();
+			throw ioe;
+		}
+
+		return w;
+
+	}
+
+
+	/**
+	 * Returns a replacer for a search, if the search can be done with one.
+	 *
+	 * @param searchString The text to search for.  For case-insensitive
+	 *        literal searches, this should already be lower case.
+	 * @param replaceString The replacement text.
+	 * @param useRegex Whether the search text is a regular expression.
+	 * @param matchCase Whether the search is case-sensitive.
+	 * @param wholeWord Whether only whole-word matches should be replaced.
+	 * @return The replacer, or <code>null</code> if the longest possible
+	 *         match isn't known, so files must be loaded into memory.
+	 */
+	static StreamingReplacer create(String searchString, String replaceString,
+			boolean useRegex, boolean matchCase, boolean wholeWord) {
+
+		int flags = matchCase ? 0 : (Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
+		if (!useRegex) {
+			if (searchString.isEmpty()) {
+				return null;
+			}
+			return new StreamingReplacer(
+					Pattern.compile(Pattern.quote(searchString), flags),
+					searchString.length(), replaceString, true, wholeWord);
+		}
+
+		int maxMatchLength = RegexLiteralExtractor.getMaxMatchLength(searchString);
+		if (maxMatchLength==-1) {
+			return null;
+		}
+		return new StreamingReplacer(Pattern.compile(searchString, flags),
+				maxMatchLength, replaceString, false, wholeWord);
+
+	}
+
+
+	/**
+	 * Replaces all matches in a file.
+	 *
+	 * @param file The file.
+	 * @param output The file to write the new contents to.  This is only
+	 *        written to if a match is found.
+	 * @return The number of replacements.  If this is <code>0</code>, the
+	 *         output file was not written to.
+	 * @throws IOException If an IO error occurs.
+	 */
+	int replace(File file, Path output) throws IOException {
+
+		StringBuilder window = new StringBuilder(2*CHUNK_SIZE + maxMatchLength);
+		char[] buf = new char[CHUNK_SIZE];
+		Matcher m = pattern.matcher(window);
+		m.useTransparentBounds(true); // Keep context for "\b"
+		m.useAnchoringBounds(false);
+
+		long windowStart = 0; // Offset in the file of the start of the window
+		int pos = 0; // Offset in the window to search from
+		int count = 0;
+		boolean eof = false;
+		Writer w = null;
+
+		UnicodeReader ur = new UnicodeReader(file);
+		String encoding = ur.getEncoding();
+
+		try (Reader r = ur) {
+
+			while (true) {
+
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedIOException();
+				}
+
+				// Fill the window far enough past where we're searching.
+				while (!eof && window.length()-pos<CHUNK_SIZE+maxMatchLength+1) {
+					int read = r.read(buf);
+					if (read==-1) {
+						eof = true;
+					}
+					else {
+						window.append(buf, 0, read);
+					}
+				}
+
+				// Matches starting at or after limit might be different once
+				// more text is read.
+				int limit = eof ? window.length() : window.length()-maxMatchLength-1;
+				int next = pos;
+				m.region(pos, window.length());
+
+				while (m.find()) {
+					int start = m.start();
+					if (start>=limit) {
+						break;
+					}
+					if (!wholeWord || FindDialog.isWholeWord(window, start, m.end()-start)) {
+						if (w==null) {
+							w = createWriter(file, output, encoding, windowStart + pos);
+						}
+						w.append(window, pos, start);
+						w.append(literal ? replaceString :
+								SearchEngine.getReplacementText(m, replaceString));
+						pos = next = m.end();
+						count++;
+					}
+					else if (literal) {
+						// A literal that's part of a larger word might
+						// overlap one that isn't, e.g. "a a" in "ba a a"
+						next = start + 1;
+						m.region(next, window.length());
+					}
+					else {
+						next = m.end();
+					}
+				}
+
+				if (eof) {
+					if (w!=null) {
+						w.append(window, pos, window.length());
+					}
+					break;
+				}
+
+				// Everything before limit has been searched.  Drop it from
+				// the window, keeping one char for context.
+				int searched = Math.max(limit, next);
+				if (w!=null) {
+					w.append(window, pos, searched);
+				}
+				int drop = searched - 1;
+				window.delete(0, drop);
+				windowStart += drop;
+				pos = 1;
+
+			}
+
+		} finally {
+			if (w!=null) {
+				w.close();
+			}
+		}
+
+		return count;
+
+	}
+
+
+}
@@ -0,0 +1,717 @@
+/*
+ * 10/18/2026
+ *
+ * TrigramIndex.java - An index of the three-character sequences in the
+ * files under a folder.
+ * Copyright (C) 2026 Robert Futrell
+ * https://bobbylight.github.io/RText/
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.fife.io.UnicodeReader;
+
+
+/**
+ * An index of the three-character sequences ("trigrams") found in each file
+ * under a folder.  Given literal text that any match of a search must
+ * contain, this index can quickly rule out most files that can't possibly
+ * match, so they never have to be read.<p>
+ *
+ * Trigrams are indexed case-insensitively, so the same index serves both
+ * case-sensitive and case-insensitive searches.  The index only ever
+ * answers "this file might match", never "this file matches", so a stale
+ * or partial index is always safe to use: files added or modified since
+ * the index was last refreshed are simply treated as candidates.<p>
+ *
+ * Files are identified by integer IDs that increase as files are indexed,
+ * so posting lists stay sorted without any extra work.  When a file
+ * changes it is given a new ID, and its old ID is marked as dead.  Once
+ * there are more dead IDs than live ones, the index is compacted.<p>
+ *
+ * This class is thread safe.  It is typically refreshed on a background
+ * thread while searches query it.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see FindInFilesIndexManager
+ */
+class TrigramIndex {
+
+	private static final int MAGIC = 0x52544958; // "RTIX"
+	private static final int VERSION = 1;
+
+	/**
+	 * Files larger than this aren't indexed; they are always considered
+	 * candidates.
+	 */
+	private static final long MAX_INDEXED_FILE_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Folders whose contents are never indexed.
+	 */
+	private static final Set<String> SKIPPED_FOLDERS = Set.of(
+		".git", ".hg", ".svn", "CVS", "bower_components", "node_modules");
+
+	private final File root;
+	private final File indexFile;
+
+	/**
+	 * Maps absolute file paths to what we know about them.
+	 */
+	private final Map<String, FileEntry> files;
+
+	/**
+	 * Maps trigram keys to the sorted IDs of files containing them.
+	 */
+	private Map<Integer, IntList> postings;
+
+	private final BitSet live;
+	private int nextId;
+
+	/**
+	 * Incremented each time IDs are reassigned, so queries made before a
+	 * compaction know they are no longer valid.
+	 */
+	private volatile int generation;
+
+	private volatile boolean ready;
+	private volatile boolean canceled;
+	private boolean dirty;
+	private long lastRefreshMillis;
+
+	private char[] buffer;
+
+
+	/**
+	 * Constructor.  The index is empty until {@link #load()} or
+	 * {@link #refresh()} is called.
+	 *
+	 * @param root The folder to index.
+	 * @param indexFile The file the index is persisted to.
+	 */
+	TrigramIndex(File root, File indexFile) {
+		this.root = root.getAbsoluteFile();
+		this.indexFile = indexFile;
+		files = new ConcurrentHashMap<>();
+		postings = new HashMap<>();
+		live = new BitSet();
+	}
+
+
+	/**
+	 * Returns the trigram keys found in some text.
+	 *
+	 * @param text The text.
+	 * @param length The length of the text.
+	 * @return The sorted, unique keys.
+	 */
+	private static int[] getTrigramKeys(char[] text, int length) {
+
+		if (length<3) {
+			return new int[0];
+		}
+
+		int[] keys = new int[length - 2];
+		char c1 = fold(text[0]);
+		char c2 = fold(text[1]);
+		for (int i=2; i<length; i++) {
+			char c3 = fold(text[i]);
+			keys[i-2] = getKey(c1, c2, c3);
+			c1 = c2;
+			c2 = c3;
+		}
+
+		Arrays.sort(keys);
+		int count = 1;
+		for (int i=1; i<keys.length; i++) {
+			if (keys[i]!=keys[count-1]) {
+				keys[count++] = keys[i];
+			}
+		}
+		return Arrays.copyOf(keys, count);
+
+	}
+
+
+	/**
+	 * Marks the index as canceled, causing any in-progress refresh to stop
+	 * as soon as possible.
+	 */
+	void cancel() {
+		canceled = true;
+	}
+
+
+	/**
+	 * Renumbers the live files so their IDs are contiguous, and drops dead
+	 * IDs from all posting lists.  Callers should synchronize on this
+	 * object.
+	 */
+	private void compact() {
+
+		// Invalidate outstanding queries before any IDs change
+		generation++;
+
+		int[] oldToNew = new int[nextId];
+		Arrays.fill(oldToNew, -1);
+		int newId = 0;
+		for (int id=live.nextSetBit(0); id>=0; id=live.nextSetBit(id+1)) {
+			oldToNew[id] = newId++;
+		}
+
+		Map<Integer, IntList> newPostings = new HashMap<>(postings.size());
+		for (Map.Entry<Integer, IntList> entry : postings.entrySet()) {
+			IntList list = entry.getValue().remap(oldToNew);
+			if (list.size>0) {
+				newPostings.put(entry.getKey(), list);
+			}
+		}
+
+		files.replaceAll((path, entry) -> entry.id<0 ? entry :
+				new FileEntry(oldToNew[entry.id], entry.lastModified, entry.size));
+
+		postings = newPostings;
+		live.clear();
+		live.set(0, newId);
+		nextId = newId;
+
+	}
+
+
+	/**
+	 * Folds the case of a character the same way for both indexing and
+	 * querying.  Going through upper case first catches characters such as
+	 * the long "s" that only match their ASCII equivalent that way.
+	 */
+	private static char fold(char ch) {
+		return Character.toLowerCase(Character.toUpperCase(ch));
+	}
+
+
+	private static int getKey(char c1, char c2, char c3) {
+		return (c1<<20) ^ (c2<<10) ^ c3;
+	}
+
+
+	/**
+	 * Returns the time this index was last refreshed.
+	 *
+	 * @return The time, in milliseconds, or <code>0</code> if it has never
+	 *         been refreshed.
+	 */
+	synchronized long getLastRefreshMillis() {
+		return lastRefreshMillis;
+	}
+
+
+	/**
+	 * Returns the folder being indexed.
+	 *
+	 * @return The folder.
+	 */
+	File getRoot() {
+		return root;
+	}
+
+
+	/**
+	 * Adds or replaces a file's entry in the index.
+	 */
+	private void index(String path, long lastModified, long size, int[] keys) {
+
+		synchronized (this) {
+
+			FileEntry old = files.get(path);
+			if (old!=null && old.id>=0) {
+				live.clear(old.id);
+			}
+
+			if (keys==null) {
+				files.put(path, new FileEntry(-1, lastModified, size));
+			}
+			else {
+				int id = nextId++;
+				for (int key : keys) {
+					postings.computeIfAbsent(key, k -> new IntList()).add(id);
+				}
+				live.set(id);
+				files.put(path, new FileEntry(id, lastModified, size));
+			}
+
+			dirty = true;
+
+		}
+
+	}
+
+
+	/**
+	 * Returns whether this index has been loaded or built, and so can be
+	 * queried.
+	 *
+	 * @return Whether this index is ready.
+	 */
+	boolean isReady() {
+		return ready;
+	}
+
+
+	/**
+	 * Loads this index from disk, if it was previously saved.
+	 *
+	 * @throws IOException If an IO error occurs.  In this case, the index
+	 *         is left empty.
+	 */
+	void load() throws IOException {
+
+		if (!indexFile.isFile()) {
+			return;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(indexFile.toPath())))) {
+
+			if (in.readInt()!=MAGIC || in.readInt()!=VERSION ||
+					!root.getPath().equals(in.readUTF())) {
+				return; // Old format or a hash collision; just rebuild
+			}
+
+			synchronized (this) {
+
+				nextId = in.readInt();
+				int fileCount = in.readInt();
+				for (int i=0; i<fileCount; i++) {
+					String path = in.readUTF();
+					FileEntry entry = new FileEntry(in.readInt(), in.readLong(),
+							in.readLong());
+					files.put(path, entry);
+					if (entry.id>=0) {
+						live.set(entry.id);
+					}
+				}
+
+				int postingCount = in.readInt();
+				for (int i=0; i<postingCount; i++) {
+					int key = in.readInt();
+					int size = in.readInt();
+					IntList list = new IntList(size);
+					int id = 0;
+					for (int j=0; j<size; j++) {
+						id += readVarInt(in);
+						list.add(id);
+					}
+					postings.put(key, list);
+				}
+
+			}
+
+		} catch (IOException | RuntimeException e) {
+			synchronized (this) {
+				files.clear();
+				postings.clear();
+				live.clear();
+				nextId = 0;
+			}
+			throw e instanceof IOException ? (IOException)e : new IOException(e);
+		}
+
+		ready = true;
+
+	}
+
+
+	/**
+	 * Returns a query that rules out files that cannot contain all of a
+	 * set of literal strings.
+	 *
+	 * @param literals The strings that must all be in a file for it to
+	 *        match.
+	 * @param matchCase Whether the search is case-sensitive.
+	 * @return The query, or <code>null</code> if the literals don't rule
+	 *         out any files (e.g. they are all shorter than three
+	 *         characters).
+	 */
+	synchronized Query query(List<String> literals, boolean matchCase) {
+
+		BitSet candidates = null;
+
+		for (String literal : literals) {
+			for (int i=2; i<literal.length(); i++) {
+				char c1 = literal.charAt(i-2);
+				char c2 = literal.charAt(i-1);
+				char c3 = literal.charAt(i);
+				// Case-insensitive searches may match non-ASCII chars in
+				// ways simple case folding doesn't know about
+				if (!matchCase && (c1>127 || c2>127 || c3>127)) {
+					continue;
+				}
+				IntList list = postings.get(getKey(fold(c1), fold(c2), fold(c3)));
+				BitSet ids = new BitSet(nextId);
+				if (list!=null) {
+					for (int j=0; j<list.size; j++) {
+						ids.set(list.values[j]);
+					}
+				}
+				if (candidates==null) {
+					candidates = ids;
+				}
+				else {
+					candidates.and(ids);
+				}
+			}
+		}
+
+		return candidates==null ? null :
+				new Query(candidates, nextId, generation);
+
+	}
+
+
+	/**
+	 * Reads a file, returning the trigram keys in it.
+	 *
+	 * @param file The file.
+	 * @return The keys, or <code>null</code> if the file is too large to
+	 *         index.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private int[] readTrigramKeys(File file) throws IOException {
+
+		long size = file.length();
+		if (size>MAX_INDEXED_FILE_SIZE) {
+			return null;
+		}
+
+		if (buffer==null || size>=buffer.length) {
+			buffer = new char[Math.max(64 * 1024, (int)size + 1)];
+		}
+
+		// Decode the file the same way Find in Files does, so what we index
+		// is what gets searched.
+		int length = 0;
+		try (Reader r = new UnicodeReader(file)) {
+			int count;
+			while ((count=r.read(buffer, length, buffer.length-length))!=-1) {
+				length += count;
+				if (length==buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length*2);
+				}
+			}
+		}
+
+		return getTrigramKeys(buffer, length);
+
+	}
+
+
+	private static int readVarInt(InputStream in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.read();
+			if (b==-1) {
+				throw new IOException("Unexpected end of index file");
+			}
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80)!=0);
+		return value;
+	}
+
+
+	/**
+	 * Brings this index up to date with the file system.  Only files whose
+	 * size or modification time have changed since they were last indexed
+	 * are read.
+	 *
+	 * @throws IOException If an IO error occurs walking the folder.
+	 */
+	void refresh() throws IOException {
+
+		Set<String> seen = new HashSet<>();
+		Path rootPath = root.toPath();
+
+		Files.walkFileTree(rootPath, new SimpleFileVisitor<>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir,
+					BasicFileAttributes attrs) {
+				if (canceled) {
+					return FileVisitResult.TERMINATE;
+				}
+				Path name = dir.getFileName();
+				if (!dir.equals(rootPath) && name!=null &&
+						SKIPPED_FOLDERS.contains(name.toString())) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (canceled) {
+					return FileVisitResult.TERMINATE;
+				}
+				if (attrs.isRegularFile()) {
+					String path = file.toString();
+					seen.add(path);
+					long lastModified = attrs.lastModifiedTime().toMillis();
+					FileEntry entry = files.get(path);
+					if (entry==null || entry.lastModified!=lastModified ||
+							entry.size!=attrs.size()) {
+						try {
+							index(path, lastModified, attrs.size(),
+									readTrigramKeys(file.toFile()));
+						} catch (IOException ioe) {
+							// Leave it unindexed so it's always searched
+							index(path, lastModified, attrs.size(), null);
+						}
+					}
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) {
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+
+		buffer = null; // Don't hang onto a large buffer between refreshes
+		if (canceled) {
+			return;
+		}
+
+		synchronized (this) {
+			files.entrySet().removeIf(e -> {
+				boolean removed = !seen.contains(e.getKey());
+				if (removed && e.getValue().id>=0) {
+					live.clear(e.getValue().id);
+					dirty = true;
+				}
+				return removed;
+			});
+			if (nextId - live.cardinality()>live.cardinality()) {
+				compact();
+			}
+			lastRefreshMillis = System.currentTimeMillis();
+		}
+
+		ready = true;
+
+	}
+
+
+	/**
+	 * Saves this index to disk, if it has changed since it was loaded or
+	 * last saved.  The index is written to a temporary file first, so a
+	 * crash never leaves a corrupt index behind.
+	 *
+	 * @throws IOException If an IO error occurs.
+	 */
+	synchronized void save() throws IOException {
+
+		if (!dirty) {
+			return;
+		}
+
+		File dir = indexFile.getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Cannot create directory: " + dir);
+		}
+		Path temp = Files.createTempFile(dir.toPath(), "index", ".tmp");
+
+		try {
+
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temp)))) {
+
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(root.getPath());
+				out.writeInt(nextId);
+
+				out.writeInt(files.size());
+				for (Map.Entry<String, FileEntry> entry : files.entrySet()) {
+					FileEntry fe = entry.getValue();
+					out.writeUTF(entry.getKey());
+					out.writeInt(fe.id);
+					out.writeLong(fe.lastModified);
+					out.writeLong(fe.size);
+				}
+
+				out.writeInt(postings.size());
+				for (Map.Entry<Integer, IntList> entry : postings.entrySet()) {
+					IntList list = entry.getValue();
+					out.writeInt(entry.getKey());
+					out.writeInt(list.size);
+					int prev = 0;
+					for (int i=0; i<list.size; i++) {
+						writeVarInt(out, list.values[i] - prev);
+						prev = list.values[i];
+					}
+				}
+
+			}
+
+			try {
+				Files.move(temp, indexFile.toPath(),
+						StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, indexFile.toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+			dirty = false;
+
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+
+	}
+
+
+	private static void writeVarInt(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7f)!=0) {
+			out.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+
+	/**
+	 * What we know about a file.
+	 *
+	 * @param id The file's ID, or <code>-1</code> if it isn't indexed.
+	 * @param lastModified The file's modification time when it was indexed.
+	 * @param size The file's size when it was indexed.
+	 */
+	private record FileEntry(int id, long lastModified, long size) {
+	}
+
+
+	/**
+	 * A growable list of <code>int</code>s.
+	 */
+	private static final class IntList {
+
+		private int[] values;
+		private int size;
+
+		IntList() {
+			this(4);
+		}
+
+		IntList(int capacity) {
+			values = new int[Math.max(1, capacity)];
+		}
+
+		void add(int value) {
+			if (size==values.length) {
+				values = Arrays.copyOf(values, size*2);
+			}
+			values[size++] = value;
+		}
+
+		/**
+		 * Returns a copy of this list with its values mapped to new ones,
+		 * dropping any that map to <code>-1</code>.
+		 */
+		IntList remap(int[] mapping) {
+			IntList list = new IntList(size);
+			for (int i=0; i<size; i++) {
+				int value = mapping[values[i]];
+				if (value>-1) {
+					list.add(value);
+				}
+			}
+			return list;
+		}
+
+	}
+
+
+	/**
+	 * The result of querying the index.  A query stays usable while the
+	 * index is refreshed in the background; anything changed since it was
+	 * made is treated as a possible match.
+	 */
+	final class Query {
+
+		private final BitSet candidates;
+		private final int maxId;
+		private final int queryGeneration;
+
+		private Query(BitSet candidates, int maxId, int generation) {
+			this.candidates = candidates;
+			this.maxId = maxId;
+			this.queryGeneration = generation;
+		}
+
+		/**
+		 * Returns whether a file might contain a match.
+		 *
+		 * @param file The file.
+		 * @return <code>false</code> only if the file is known to not
+		 *         contain a match.
+		 */
+		boolean mayMatch(File file) {
+			return mayMatch(file, file.lastModified(), file.length());
+		}
+
+		/**
+		 * Returns whether a file might contain a match.  This overload
+		 * is for callers that already know the file's attributes.
+		 *
+		 * @param file The file.
+		 * @param lastModified The time the file was last modified.
+		 * @param size The size of the file.
+		 * @return <code>false</code> only if the file is known to not
+		 *         contain a match.
+		 */
+		boolean mayMatch(File file, long lastModified, long size) {
+			FileEntry entry = files.get(file.getAbsolutePath());
+			if (entry==null || entry.id<0 || entry.id>=maxId ||
+					generation!=queryGeneration) {
+				return true;
+			}
+			if (entry.lastModified!=lastModified || entry.size!=size) {
+				return true; // Changed since it was indexed
+			}
+			return candidates.get(entry.id);
+		}
+
+	}
+
+
+}